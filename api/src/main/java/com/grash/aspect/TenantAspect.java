@@ -1,21 +1,32 @@
 package com.grash.aspect;
 
+import com.grash.exception.CustomException;
 import com.grash.model.abstracts.CompanyAudit;
+import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Session;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
 
@@ -26,6 +37,28 @@ public class TenantAspect {
 
     private final EntityManager entityManager;
     private static final ThreadLocal<Boolean> ignoreCompanyCheck = ThreadLocal.withInitial(() -> false);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Getters of the fields that may hold a {@link CompanyAudit} or a collection of them, resolved once per
+     * request body class.
+     */
+    private static final ClassValue<List<MethodHandle>> FIELD_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected List<MethodHandle> computeValue(Class<?> type) {
+            List<MethodHandle> accessors = new ArrayList<>();
+            for (Field field : getAllFields(type)) {
+                if (Modifier.isStatic(field.getModifiers()) || !mayHoldCompanyAudit(field.getType())) continue;
+                try {
+                    field.setAccessible(true);
+                    accessors.add(MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalStateException("Cannot read " + field + " for tenant validation", e);
+                }
+            }
+            return List.copyOf(accessors);
+        }
+    };
 
     public static void disableCompanyCheck() {
         ignoreCompanyCheck.set(true);
@@ -42,43 +75,85 @@ public class TenantAspect {
         MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
         Method method = methodSignature.getMethod();
         Parameter[] parameters = method.getParameters();
+        Map<Class<?>, Set<Long>> referencedIds = new HashMap<>();
         for (int i = 0; i < parameters.length; i++) {
             Parameter parameter = parameters[i];
             if (parameter.isAnnotationPresent(RequestBody.class)) {
                 Object arg = joinPoint.getArgs()[i]; // Get the requestBody
                 if (arg instanceof Collection<?> collection) {
-                    collection.forEach(this::validateObject);
+                    collection.forEach(element -> collectReferences(element, referencedIds));
                 } else {
-                    validateObject(arg);
+                    collectReferences(arg, referencedIds);
                 }
             }
         }
+        if (!referencedIds.isEmpty()) {
+            verifyOwnership(referencedIds);
+        }
     }
 
-    private void validateObject(Object obj) {
-        Field[] fields = getAllFields(obj.getClass());
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Object fieldValue = null;
+    private void collectReferences(Object obj, Map<Class<?>, Set<Long>> referencedIds) {
+        if (obj == null) return;
+        for (MethodHandle accessor : FIELD_ACCESSORS.get(obj.getClass())) {
+            Object fieldValue;
             try {
-                fieldValue = field.get(obj); // Get the value of the field inside request body
-            } catch (IllegalAccessException e) {
+                fieldValue = accessor.invokeExact(obj); // Get the value of the field inside request body
+            } catch (Throwable e) {
                 throw new RuntimeException(e);
             }
             if (fieldValue instanceof Collection<?> collection) {
-                collection.forEach(this::validateFieldElement);
+                collection.forEach(element -> collectReference(element, referencedIds));
             } else {
-                validateFieldElement(fieldValue);
+                collectReference(fieldValue, referencedIds);
             }
         }
     }
 
-    private void validateFieldElement(Object object) {
-        if (object instanceof CompanyAudit companyAudit) {
-            if (companyAudit.getId() == null) return;
-            entityManager.find(object.getClass(), companyAudit.getId()); // should fail here if from other company
-            // because of @PostLoad
+    private void collectReference(Object object, Map<Class<?>, Set<Long>> referencedIds) {
+        if (object instanceof CompanyAudit companyAudit && companyAudit.getId() != null) {
+            referencedIds.computeIfAbsent(object.getClass(), type -> new HashSet<>()).add(companyAudit.getId());
         }
     }
-}
 
+    /**
+     * Checks every referenced id against the current user's companies with one id-only query per entity type,
+     * mirroring the rule enforced by {@link CompanyAudit#afterLoad()}. Unknown ids are left for the service layer.
+     */
+    private void verifyOwnership(Map<Class<?>, Set<Long>> referencedIds) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetail userDetail)) return;
+        UserPrincipal user = userDetail.getPrincipal();
+        if (user.isSuperAdmin()) return;
+        Set<Long> allowedCompanyIds = user.allowedCompanyIds().isEmpty() ? Set.of(-1L) : user.allowedCompanyIds();
+
+        // the tenant filter would hide exactly the rows this check is looking for
+        Session session = entityManager.unwrap(Session.class);
+        boolean filtered = session.getEnabledFilter(CompanyAudit.TENANT_FILTER) != null;
+        if (filtered) session.disableFilter(CompanyAudit.TENANT_FILTER);
+        try {
+            referencedIds.forEach((type, ids) -> {
+                String entityName = entityManager.getMetamodel().entity(type).getName();
+                List<Long> foreignIds = entityManager.createQuery("SELECT e.id FROM " + entityName + " e " +
+                                "WHERE e.id IN :ids AND e.company.id NOT IN :companyIds", Long.class)
+                        .setParameter("ids", ids)
+                        .setParameter("companyIds", allowedCompanyIds)
+                        .setFlushMode(FlushModeType.COMMIT)
+                        .setMaxResults(1)
+                        .getResultList();
+                if (!foreignIds.isEmpty()) {
+                    throw new CustomException("the user (id=" + user.id() + ") is not authorized to reference " +
+                            type.getSimpleName() + " with id " + foreignIds.get(0), HttpStatus.FORBIDDEN);
+                }
+            });
+        } finally {
+            if (filtered) TenantFilterAspect.enableTenantFilter(session, user);
+        }
+    }
+
+    private static boolean mayHoldCompanyAudit(Class<?> fieldType) {
+        return !fieldType.isPrimitive() && (CompanyAudit.class.isAssignableFrom(fieldType)
+                || fieldType.isAssignableFrom(CompanyAudit.class)
+                || Collection.class.isAssignableFrom(fieldType)
+                || fieldType.isAssignableFrom(Collection.class));
+    }
+}
@@ -0,0 +1,56 @@
+package com.grash.aspect;
+
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.hibernate.Session;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Set;
+
+/**
+ * Enables {@link CompanyAudit#TENANT_FILTER} on the request's session before the first repository call, so that
+ * queries on company-owned entities only return rows of the authenticated user's companies. The allowed company
+ * ids are computed once per session from the cached principal.
+ * <p>
+ * Sessions opened without an authenticated user (jobs, async executors, public endpoints) and super admins are
+ * left unfiltered.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class TenantFilterAspect {
+
+    private final EntityManager entityManager;
+
+    @Before("this(org.springframework.data.repository.Repository)")
+    public void enableTenantFilter() {
+        UserPrincipal user = currentPrincipal();
+        if (user == null || user.isSuperAdmin()) return;
+        Session session = entityManager.unwrap(Session.class);
+        if (session.getEnabledFilter(CompanyAudit.TENANT_FILTER) == null) {
+            enableTenantFilter(session, user);
+        }
+    }
+
+    static void enableTenantFilter(Session session, UserPrincipal user) {
+        session.enableFilter(CompanyAudit.TENANT_FILTER)
+                .setParameterList(CompanyAudit.TENANT_FILTER_COMPANY_IDS,
+                        user.allowedCompanyIds().isEmpty() ? Set.of(-1L) : user.allowedCompanyIds());
+    }
+
+    private static UserPrincipal currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetail userDetail) {
+            return userDetail.getPrincipal();
+        }
+        return null;
+    }
+}
@@ -1,15 +1,38 @@
 package com.grash.configuration;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * Each class of {@code @Async} workload runs on its own executor, selected with {@code @Async(<name>)}, so that a
+ * backlog in one of them can't starve the others. The pools are beans, so actuator publishes their executor
+ * metrics under their bean names. Methods without a qualifier run on the default executor.
+ */
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig implements AsyncConfigurer {
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
+    public static final String IMPORT_EXECUTOR = "importExecutor";
+    public static final String WEBHOOK_EXECUTOR = "webhookExecutor";
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+    public static final String IMAGE_EXECUTOR = "imageExecutor";
+    public static final String REPORT_IMAGE_EXECUTOR = "reportImageExecutor";
+    public static final String REPORT_EXECUTOR = "reportExecutor";
+    public static final String STORAGE_UPLOAD_EXECUTOR = "storageUploadExecutor";
+    public static final String PUSH_SCHEDULER = "pushScheduler";
 
     @Override
     public Executor getAsyncExecutor() {
@@ -21,4 +44,95 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    //rejected exports and imports fail the request so that the user can retry later
+    @Bean(EXPORT_EXECUTOR)
+    public AsyncTaskExecutor exportExecutor(AsyncProperties asyncProperties) {
+        return pool("export-", asyncProperties.getExport(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(IMPORT_EXECUTOR)
+    public AsyncTaskExecutor importExecutor(AsyncProperties asyncProperties) {
+        return pool("import-", asyncProperties.getImports(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    //deliveries must not be dropped, a full queue slows the caller down instead
+    @Bean(WEBHOOK_EXECUTOR)
+    public AsyncTaskExecutor webhookExecutor(AsyncProperties asyncProperties) {
+        return ioBound("webhook-", asyncProperties.getWebhook(), asyncProperties.isVirtualThreads());
+    }
+
+    //mail must not be sent on the request thread; mails dropped when full stay pending in the outbox for MailDeliveryJob
+    @Bean(MAIL_EXECUTOR)
+    public AsyncTaskExecutor mailExecutor(AsyncProperties asyncProperties) {
+        return pool("mail-", asyncProperties.getMail(), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Bean(NOTIFICATION_EXECUTOR)
+    public AsyncTaskExecutor notificationExecutor(AsyncProperties asyncProperties) {
+        return ioBound("notification-", asyncProperties.getNotification(), asyncProperties.isVirtualThreads());
+    }
+
+    //a full queue makes the report download its images itself
+    @Bean(REPORT_IMAGE_EXECUTOR)
+    public AsyncTaskExecutor reportImageExecutor(AsyncProperties asyncProperties) {
+        return ioBound("report-image-", asyncProperties.getReportImage(), asyncProperties.isVirtualThreads());
+    }
+
+    //renders the reports of bulk report exports; a full queue makes the export render them itself
+    @Bean(REPORT_EXECUTOR)
+    public AsyncTaskExecutor reportExecutor(AsyncProperties asyncProperties) {
+        return pool("report-", asyncProperties.getReport(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    //reads the piped content of streaming uploads; the writer can't run it itself, so a rejected upload fails
+    @Bean(STORAGE_UPLOAD_EXECUTOR)
+    public AsyncTaskExecutor storageUploadExecutor(AsyncProperties asyncProperties) {
+        return pool("storage-upload-", asyncProperties.getStorageUpload(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    //CPU bound; thumbnails dropped when full are generated later by ThumbnailBackfillJob
+    @Bean(IMAGE_EXECUTOR)
+    public AsyncTaskExecutor imageExecutor(AsyncProperties asyncProperties) {
+        return pool("image-", asyncProperties.getImage(), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    //only times the push notification flushes and receipt checks, they run on the notification executor
+    @Bean(PUSH_SCHEDULER)
+    public ThreadPoolTaskScheduler pushScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("push-scheduler-");
+        return scheduler;
+    }
+
+    static boolean supportsVirtualThreads() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    private AsyncTaskExecutor ioBound(String threadNamePrefix, AsyncProperties.Pool pool, boolean virtualThreads) {
+        if (virtualThreads) {
+            if (supportsVirtualThreads()) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+                executor.setVirtualThreads(true);
+                executor.setConcurrencyLimit(pool.getMaxSize());
+                return executor;
+            }
+            log.warn("Virtual threads need Java 21+, {} tasks will run on a thread pool", threadNamePrefix);
+        }
+        return pool(threadNamePrefix, pool, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private ThreadPoolTaskExecutor pool(String threadNamePrefix, AsyncProperties.Pool pool,
+                                        RejectedExecutionHandler rejectedExecutionHandler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,39 @@
+package com.grash.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sizes of the executors {@link AsyncConfig} creates for each class of {@code @Async} workload.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "async")
+public class AsyncProperties {
+    /**
+     * Run the I/O bound workloads (webhooks, push notifications, report images) on virtual threads. Only
+     * honored on Java 21+, their pool max size then caps the number of concurrent tasks.
+     */
+    private boolean virtualThreads = false;
+    private Pool export = new Pool(2, 2, 20);
+    private Pool imports = new Pool(2, 2, 10);
+    private Pool webhook = new Pool(4, 8, 500);
+    private Pool mail = new Pool(2, 4, 500);
+    private Pool notification = new Pool(2, 4, 1000);
+    private Pool image = new Pool(2, 2, 100);
+    private Pool reportImage = new Pool(4, 8, 200);
+    private Pool report = new Pool(2, 4, 20);
+    private Pool storageUpload = new Pool(2, 4, 10);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+    }
+}
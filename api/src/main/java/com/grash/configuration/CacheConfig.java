@@ -2,6 +2,7 @@ package com.grash.configuration;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.security.UserPrincipal;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -33,6 +34,14 @@ public class CacheConfig {
                     case "signedUrls" -> Caffeine.newBuilder()
                             .maximumSize(2000)
                             .expireAfterWrite(170, TimeUnit.MINUTES);
+                    case "userPrincipals" -> Caffeine.newBuilder()
+                            .maximumWeight(32L * 1024 * 1024)
+                            .weigher((Object key, Object value) -> value instanceof UserPrincipal principal
+                                    ? principal.weight() : 1)
+                            .expireAfterWrite(5, TimeUnit.MINUTES);
+                    case "webhookSubscriptions" -> Caffeine.newBuilder()
+                            .maximumSize(5000)
+                            .expireAfterWrite(10, TimeUnit.MINUTES);
                     default -> Caffeine.newBuilder()
                             .maximumSize(1000)
                             .expireAfterWrite(20, TimeUnit.MINUTES);
@@ -0,0 +1,15 @@
+package com.grash.configuration;
+
+import io.github.jav.exposerversdk.PushClient;
+import io.github.jav.exposerversdk.PushClientException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PushNotificationConfig {
+
+    @Bean
+    public PushClient pushClient() throws PushClientException {
+        return new PushClient();
+    }
+}
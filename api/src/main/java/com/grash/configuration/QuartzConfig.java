@@ -1,6 +1,13 @@
 package com.grash.configuration;
 
 import com.grash.job.DeleteDemoCompaniesJob;
+import com.grash.job.MailDeliveryJob;
+import com.grash.job.RateLimitBucketPurgeJob;
+import com.grash.job.ReadingRollupJob;
+import com.grash.job.ScheduleSweepJob;
+import com.grash.job.ThumbnailBackfillJob;
+import com.grash.job.WebhookDeliveryJob;
+import com.grash.job.WorkOrderStatusTransitionJob;
 import org.quartz.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,4 +32,137 @@ public class QuartzConfig {
                         .repeatForever())
                 .build();
     }
+
+    @Bean
+    public JobDetail webhookDeliveryJobDetail() {
+        return JobBuilder.newJob(WebhookDeliveryJob.class)
+                .withIdentity("webhookDeliveryJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger webhookDeliveryTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(webhookDeliveryJobDetail())
+                .withIdentity("webhookDeliveryTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(10)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail mailDeliveryJobDetail() {
+        return JobBuilder.newJob(MailDeliveryJob.class)
+                .withIdentity("mailDeliveryJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger mailDeliveryTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(mailDeliveryJobDetail())
+                .withIdentity("mailDeliveryTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(30)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail rateLimitBucketPurgeJobDetail() {
+        return JobBuilder.newJob(RateLimitBucketPurgeJob.class)
+                .withIdentity("rateLimitBucketPurgeJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger rateLimitBucketPurgeTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(rateLimitBucketPurgeJobDetail())
+                .withIdentity("rateLimitBucketPurgeTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInHours(1)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail scheduleSweepJobDetail() {
+        return JobBuilder.newJob(ScheduleSweepJob.class)
+                .withIdentity("scheduleSweepJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger scheduleSweepTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(scheduleSweepJobDetail())
+                .withIdentity("scheduleSweepTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(1)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail readingRollupJobDetail() {
+        return JobBuilder.newJob(ReadingRollupJob.class)
+                .withIdentity("readingRollupJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger readingRollupTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(readingRollupJobDetail())
+                .withIdentity("readingRollupTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInHours(1)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail thumbnailBackfillJobDetail() {
+        return JobBuilder.newJob(ThumbnailBackfillJob.class)
+                .withIdentity("thumbnailBackfillJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger thumbnailBackfillTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(thumbnailBackfillJobDetail())
+                .withIdentity("thumbnailBackfillTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(10)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail workOrderStatusTransitionJobDetail() {
+        return JobBuilder.newJob(WorkOrderStatusTransitionJob.class)
+                .withIdentity("workOrderStatusTransitionJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger workOrderStatusTransitionTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(workOrderStatusTransitionJobDetail())
+                .withIdentity("workOrderStatusTransitionTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(1)
+                        .repeatForever())
+                .build();
+    }
 }
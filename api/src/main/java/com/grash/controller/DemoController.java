@@ -55,7 +55,7 @@ public class DemoController {
     @GetMapping("/generate-account")
     public SuccessResponse generateAccount(HttpServletRequest req) {
         String clientIp = clientIpResolver.resolve(req);
-        if (!rateLimiterService.resolveDemoBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume(RateLimitClass.DEMO, clientIp)) {
             return new SuccessResponse(false, "Rate limit exceeded. Try again later.");
         }
         try {
@@ -1,6 +1,7 @@
 package com.grash.controller;
 
 import com.grash.dto.SuccessResponse;
+import com.grash.dto.workOrder.WorkOrderBulkReportDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.User;
 import com.grash.model.enums.PermissionEntity;
@@ -13,11 +14,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/export")
@@ -27,6 +31,8 @@ import jakarta.servlet.http.HttpServletRequest;
 public class ExportController {
     private final UserService userService;
     private final AsyncExportService asyncExportService;
+    private final AsyncReportExportService asyncReportExportService;
+    private final WorkOrderService workOrderService;
 
     @GetMapping("/work-orders")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
@@ -133,5 +139,19 @@ public class ExportController {
                     .body(new SuccessResponse(true, uuid));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
-}
 
+    @PostMapping("/work-orders/reports")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public ResponseEntity<SuccessResponse> exportWorkOrderReports(HttpServletRequest req,
+                                                                  @Parameter(description = "Unique identifier for " +
+                                                                          "tracking the export job") @RequestParam String uuid,
+                                                                  @Valid @RequestBody WorkOrderBulkReportDTO request) {
+        User user = userService.whoami(req);
+        if (user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS)) {
+            asyncReportExportService.exportWorkOrderReports(user,
+                    workOrderService.getSearchCriteria(user, request.getCriteria()), request.getConfig(), uuid);
+            return ResponseEntity.ok()
+                    .body(new SuccessResponse(true, uuid));
+        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+    }
+}
@@ -17,9 +17,11 @@ import com.grash.model.Task;
 import com.grash.model.enums.*;
 import com.grash.service.FileService;
 import com.grash.service.LicenseService;
+import com.grash.service.RateLimitClass;
 import com.grash.service.RateLimiterService;
 import com.grash.service.RequestPortalService;
 import com.grash.service.TaskService;
+import com.grash.service.ThumbnailService;
 import com.grash.service.UserService;
 import com.grash.security.ClientIpResolver;
 import com.grash.utils.Helper;
@@ -56,6 +58,7 @@ public class FileController {
     private final RequestPortalService requestPortalService;
     private final RateLimiterService rateLimiterService;
     private final ClientIpResolver clientIpResolver;
+    private final ThumbnailService thumbnailService;
 
     @PostMapping(value = "/upload", produces = "application/json")
     public List<FileShowDTO> handleFileUpload(@Parameter(description = "Files to upload") @RequestParam("files") MultipartFile[] filesReq,
@@ -85,8 +88,10 @@ public class FileController {
                         task = optionalTask.get();
                     }
                 }
-                result.add(fileService.create(new File(fileReq.getOriginalFilename(), filePath, fileType, task,
-                        hidden.equals("true"))));
+                File file = fileService.create(new File(fileReq.getOriginalFilename(), filePath, fileType, task,
+                        hidden.equals("true")));
+                generateThumbnails(file);
+                result.add(file);
             });
             return result.stream().map(fileMapper::toShowDto).collect(Collectors.toList());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
@@ -98,7 +103,7 @@ public class FileController {
                                                                    @Parameter(description = "Type of file") @RequestParam("type") FileType fileType,
                                                                    HttpServletRequest req) {
         String clientIp = clientIpResolver.resolve(req);
-        if (!rateLimiterService.resolveFileUploadBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume(RateLimitClass.FILE_UPLOAD, clientIp)) {
             throw new CustomException("Rate limit exceeded. Try again later.", HttpStatus.TOO_MANY_REQUESTS);
         }
 
@@ -112,7 +117,9 @@ public class FileController {
             String filePath = storageServiceFactory.getStorageService().upload(fileReq, folder);
             File file = new File(fileReq.getOriginalFilename(), filePath, fileType, null, true);
             file.setCompany(requestPortal.getCompany());
-            result.add(fileService.create(file));
+            File savedFile = fileService.create(file);
+            generateThumbnails(savedFile);
+            result.add(savedFile);
         });
         List<FileShowDTO> response = result.stream().map(fileMapper::toShowDto).collect(Collectors.toList());
         return ResponseEntity.ok(response);
@@ -186,6 +193,9 @@ public class FileController {
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         } else throw new CustomException("File not found", HttpStatus.NOT_FOUND);
     }
-}
-
 
+    private void generateThumbnails(File file) {
+        if (file.getType() != FileType.IMAGE) return;
+        thumbnailService.generateAsync(file.getId());
+    }
+}
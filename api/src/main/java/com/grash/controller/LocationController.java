@@ -12,6 +12,7 @@ import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.PortalFieldType;
 import com.grash.model.enums.RoleType;
 import com.grash.service.LocationService;
+import com.grash.service.RateLimitClass;
 import com.grash.service.RateLimiterService;
 import com.grash.service.RequestPortalService;
 import com.grash.service.UserService;
@@ -120,7 +121,7 @@ public class LocationController {
     @GetMapping("/public/mini/{portalUUID}")
     public Collection<LocationMiniDTO> getMiniPublic(@Parameter(description = "Portal UUID") @PathVariable String portalUUID, HttpServletRequest req) {
         String clientIp = clientIpResolver.resolve(req);
-        if (!rateLimiterService.resolvePublicMiniBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, clientIp)) {
             throw new CustomException("Rate limit exceeded. Try again later.", HttpStatus.TOO_MANY_REQUESTS);
         }
         RequestPortal requestPortal = requestPortalService.findByUuidByUser(portalUUID).get();
@@ -1,27 +1,21 @@
 package com.grash.controller;
 
 import com.grash.dto.DateRange;
+import com.grash.dto.ReadingBatchPostDTO;
+import com.grash.dto.ReadingBatchResponse;
 import com.grash.dto.ReadingHistogramDTO;
 import com.grash.dto.ReadingPatchDTO;
 import com.grash.dto.SuccessResponse;
-import com.grash.dto.workOrder.WorkOrderPostDTO;
 import com.grash.exception.CustomException;
-import com.grash.mapper.WorkOrderMapper;
 import com.grash.model.*;
-import com.grash.model.enums.NotificationType;
-import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.PlanFeatures;
-import com.grash.model.enums.WorkOrderMeterTriggerCondition;
-import com.grash.model.enums.webhook.WebhookEvent;
 import com.grash.service.*;
-import com.grash.utils.AuditComparator;
 import com.grash.utils.Helper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.MessageSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -33,7 +27,6 @@ import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/readings")
@@ -44,12 +37,7 @@ public class ReadingController {
     private final MeterService meterService;
     private final ReadingService readingService;
     private final UserService userService;
-    private final WorkOrderMeterTriggerService workOrderMeterTriggerService;
-    private final NotificationService notificationService;
-    private final WorkOrderService workOrderService;
-    private final MessageSource messageSource;
-    private final WebhookDispatchService webhookDispatchService;
-    private final WorkOrderMapper workOrderMapper;
+    private final ReadingIngestionService readingIngestionService;
 
 
     @GetMapping("/meter/{id}")
@@ -113,11 +101,23 @@ public class ReadingController {
                     throw new CustomException("The update frequency has not been respected", HttpStatus.NOT_ACCEPTABLE);
                 }
             }
-            processMeterTriggers(meter, readingReq.getValue(), user);
+            readingIngestionService.processMeterTriggers(meter, readingReq.getValue(), user);
             return readingService.create(readingReq);
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @Operation(summary = "Create readings of several meters at once, up to 1000 per batch")
+    public ReadingBatchResponse createBatch(@Parameter(description = "Readings to create") @Valid @RequestBody
+                                            ReadingBatchPostDTO batch,
+                                            HttpServletRequest req) {
+        User user = userService.whoami(req);
+        if (!user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.METER))
+            throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
+        return readingIngestionService.ingest(batch.getReadings(), user);
+    }
+
     @PatchMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public Reading patch(@Parameter(description = "Reading fields to update") @Valid @RequestBody ReadingPatchDTO reading,
@@ -131,7 +131,7 @@ public class ReadingController {
             if (!savedReading.getMeter().canBeViewedBy(user))
                 throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
             Reading updated = readingService.update(id, reading);
-            processMeterTriggers(savedReading.getMeter(), updated.getValue(), user);
+            readingIngestionService.processMeterTriggers(savedReading.getMeter(), updated.getValue(), user);
             return updated;
         } else throw new CustomException("Reading not found", HttpStatus.NOT_FOUND);
     }
@@ -151,49 +151,4 @@ public class ReadingController {
         } else throw new CustomException("Reading not found", HttpStatus.NOT_FOUND);
     }
 
-    private void processMeterTriggers(Meter meter, double readingValue, User user) {
-        Collection<WorkOrderMeterTrigger> meterTriggers = workOrderMeterTriggerService.findByMeter(meter.getId());
-        Locale locale = Helper.getLocale(user);
-        meterTriggers.forEach(meterTrigger -> {
-            boolean error = false;
-            StringBuilder message = new StringBuilder();
-            String title = messageSource.getMessage("new_wo", null, locale);
-            Object[] notificationArgs = new Object[]{meter.getName(), meterTrigger.getValue(), meter.getUnit()};
-            if (meterTrigger.getTriggerCondition().equals(WorkOrderMeterTriggerCondition.LESS_THAN)) {
-                if (readingValue < meterTrigger.getValue()) {
-                    error = true;
-                    message.append(messageSource.getMessage("notification_reading_less_than", notificationArgs,
-                            locale));
-                }
-            } else if (readingValue > meterTrigger.getValue()) {
-                error = true;
-                message.append(messageSource.getMessage("notification_reading_more_than", notificationArgs,
-                        locale));
-            }
-            if (error) {
-                notificationService.createMultiple(meter.getUsers().stream().map(user1 ->
-                        new Notification(message.toString(), user1, NotificationType.METER, meter.getId())
-                ).collect(Collectors.toList()), true, title);
-                WorkOrderPostDTO workOrder = workOrderService.getWorkOrderFromWorkOrderBase(meterTrigger);
-                WorkOrder createdWorkOrder = workOrderService.create(workOrder, user.getCompany());
-
-                Map<String, Object> webhookPayload = new HashMap<>();
-                webhookPayload.put("meterId", meter.getId());
-                webhookPayload.put("meterName", meter.getName());
-                webhookPayload.put("meterTriggerId", meterTrigger.getId());
-                webhookPayload.put("meterTriggerName", meterTrigger.getName());
-                webhookPayload.put("readingValue", readingValue);
-                webhookPayload.put("triggerValue", meterTrigger.getValue());
-                webhookPayload.put("triggerCondition", meterTrigger.getTriggerCondition().name());
-                webhookPayload.put("workOrderId", createdWorkOrder.getId());
-                Object serializedWorkOrder = workOrderMapper.toShowDto(createdWorkOrder);
-                webhookDispatchService.dispatchWebhook(user.getCompany(),
-                        WebhookEvent.METER_TRIGGER_STATUS_CHANGE, webhookPayload,
-                        "triggeredWorkOrder", serializedWorkOrder, null, null, null, null, null);
-            }
-        });
-    }
-
 }
-
-
@@ -1,6 +1,7 @@
 package com.grash.controller.analytics;
 
 import com.grash.dto.DateRange;
+import com.grash.dto.analytics.GroupedAggregate;
 import com.grash.dto.analytics.parts.*;
 import com.grash.exception.CustomException;
 import com.grash.model.*;
@@ -10,6 +11,7 @@ import com.grash.utils.Helper;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -47,16 +49,12 @@ public class PartAnalyticsController {
                                                   @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<PartTransaction> partTransactions =
-                    partTransactionService.findConsumptionsByCompanyAndCreatedAtBetween(resolvedCompanyId,
-                            dateRange.getStart(), dateRange.getEnd());
-            double totalConsumptionCost = partTransactions.stream().mapToDouble(PartTransaction::getCost).sum();
-            int consumedCount = partTransactions.stream()
-                    .filter(partTransaction -> partTransaction.getPart().getUnit() == null).mapToInt(partTransaction -> (int) partTransaction.getQuantity()).sum();
+            Pair<Double, Integer> consumptions = partTransactionService.sumConsumptions(resolvedCompanyId,
+                    dateRange.getStart(), dateRange.getEnd());
 
             return ResponseEntity.ok(PartStats.builder()
-                    .consumedCount(consumedCount)
-                    .totalConsumptionCost(totalConsumptionCost)
+                    .consumedCount(consumptions.getSecond())
+                    .totalConsumptionCost(consumptions.getFirst())
                     .build());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -74,22 +72,15 @@ public class PartAnalyticsController {
                                                                   @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<PartTransaction> partTransactions =
-                    partTransactionService.findConsumptionsByCompanyAndCreatedAtBetween
-                                    (resolvedCompanyId, dateRange.getStart(), dateRange.getEnd())
-                            .stream().filter(partTransaction -> partTransaction.getQuantity() != 0).collect(Collectors.toList());
-            Set<Part> parts = new HashSet<>(partTransactions.stream()
-                    .map(PartTransaction::getPart)
-                    .collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparingLong(Part::getId)))));
-            List<PartConsumptionsByPart> result = parts.stream().map(part -> {
-                double cost =
-                        partTransactions.stream().filter(partTransaction -> partTransaction.getPart().getId().equals(part.getId())).mapToDouble(PartTransaction::getCost).sum();
-                return PartConsumptionsByPart.builder()
-                        .id(part.getId())
-                        .name(part.getName())
-                        .cost(cost).build();
-            }).sorted(Comparator.comparing(PartConsumptionsByPart::getCost).reversed()).collect(Collectors.toList());
-            return ResponseEntity.ok(result);
+            List<Object[]> rows = partTransactionService.findConsumptionCostsByPart(resolvedCompanyId,
+                    dateRange.getStart(), dateRange.getEnd());
+            return ResponseEntity.ok(rows.stream().map(row ->
+                    PartConsumptionsByPart.builder()
+                            .id((Long) row[0])
+                            .name((String) row[1])
+                            .cost(((Number) row[2]).doubleValue())
+                            .build()
+            ).collect(Collectors.toList()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -141,13 +132,11 @@ public class PartAnalyticsController {
                                     .orElseThrow(() -> new CustomException("Company not found", HttpStatus.NOT_FOUND))
                                     .getCompanySettings().getId());
             Collection<PartConsumptionByCategory> result = new ArrayList<>();
-            Collection<PartTransaction> partTransactions =
-                    partTransactionService.findConsumptionsByCompanyAndCreatedAtBetween(resolvedCompanyId,
+            Map<Long, GroupedAggregate> aggregates =
+                    partTransactionService.aggregateConsumptionsByPartCategory(resolvedCompanyId,
                             dateRange.getStart(), dateRange.getEnd());
             for (PartCategory category : partCategories) {
-                double cost =
-                        partTransactions.stream().filter(partTransaction -> partTransaction.getPart().getCategory() != null
-                                && category.getId().equals(partTransaction.getPart().getCategory().getId())).mapToDouble(PartTransaction::getCost).sum();
+                double cost = aggregates.getOrDefault(category.getId(), new GroupedAggregate()).getSum();
                 result.add(PartConsumptionByCategory.builder()
                         .cost(cost)
                         .name(category.getName())
@@ -181,13 +170,11 @@ public class PartAnalyticsController {
                                     .orElseThrow(() -> new CustomException("Company not found", HttpStatus.NOT_FOUND))
                                     .getCompanySettings().getId());
             Collection<PartConsumptionByWOCategory> result = new ArrayList<>();
-            Collection<PartTransaction> partTransactions =
-                    partTransactionService.findConsumptionsByCompanyAndCreatedAtBetween(resolvedCompanyId,
+            Map<Long, GroupedAggregate> aggregates =
+                    partTransactionService.aggregateConsumptionsByWorkOrderCategory(resolvedCompanyId,
                             dateRange.getStart(), dateRange.getEnd());
             for (WorkOrderCategory category : workOrderCategories) {
-                double cost =
-                        partTransactions.stream().filter(partTransaction -> partTransaction.getWorkOrder().getCategory() != null
-                                && category.getId().equals(partTransaction.getWorkOrder().getCategory().getId())).mapToDouble(PartTransaction::getCost).sum();
+                double cost = aggregates.getOrDefault(category.getId(), new GroupedAggregate()).getSum();
                 result.add(PartConsumptionByWOCategory.builder()
                         .cost(cost)
                         .name(category.getName())
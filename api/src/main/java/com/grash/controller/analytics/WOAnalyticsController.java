@@ -1,22 +1,19 @@
 package com.grash.controller.analytics;
 
 import com.grash.dto.DateRange;
+import com.grash.dto.analytics.GroupedAggregate;
 import com.grash.dto.analytics.workOrders.*;
 import com.grash.exception.CustomException;
 import com.grash.model.*;
 import com.grash.model.abstracts.Time;
-import com.grash.model.abstracts.WorkOrderBase;
 import com.grash.model.enums.Priority;
 import com.grash.model.enums.Status;
-import com.grash.model.envers.WorkOrderAud;
-import com.grash.repository.WorkOrderAudRepository;
 import com.grash.security.CurrentUser;
 import com.grash.service.*;
 import com.grash.utils.Helper;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,7 +27,6 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -40,12 +36,13 @@ import java.util.stream.Collectors;
 public class WOAnalyticsController {
 
     private final WorkOrderService workOrderService;
-    private final WorkOrderAudRepository workOrderAudRepository;
     private final UserService userService;
     private final LaborService laborService;
     private final WorkOrderCategoryService workOrderCategoryService;
     private final AssetService assetService;
     private final CompanyService companyService;
+    private final WorkOrderStatsService workOrderStatsService;
+    private final WorkOrderStatusHistoryService workOrderStatusHistoryService;
 
     @PostMapping("/complete/overview")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
@@ -60,24 +57,15 @@ public class WOAnalyticsController {
                                                             "by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId, dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> completedWO =
-                    workOrders.stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).toList();
-            Collection<WorkOrder> withFirstTimeToReactWO =
-                    workOrders.stream().filter(workOrder -> workOrder.getFirstTimeToReact() != null).toList();
-            int total = workOrders.size();
-            int complete = completedWO.size();
-            int compliant = (int) completedWO.stream().filter(WorkOrder::isCompliant).count();
-            long mtta = withFirstTimeToReactWO.isEmpty() ? 0 : withFirstTimeToReactWO.stream().mapToLong(workOrder ->
-                    Helper.getDateDiff(workOrder.getCreatedAt(), workOrder.getFirstTimeToReact(), TimeUnit.HOURS)).sum() / withFirstTimeToReactWO.size();
+            WOStatsSummary summary = workOrderStatsService.getSummary(resolvedCompanyId, dateRange.getStart(),
+                    dateRange.getEnd());
+            WOStatsSummary.Measures completed = summary.byStatus(Status.COMPLETE);
             return ResponseEntity.ok(WOStats.builder()
-                    .total(total)
-                    .complete(complete)
-                    .compliant(compliant)
-                    .mtta(mtta)
-                    .avgCycleTime(WorkOrder.getAverageAge(completedWO)).build());
+                    .total(summary.total().getCount())
+                    .complete(completed.getCount())
+                    .compliant(completed.getCompliant())
+                    .mtta(summary.getMtta())
+                    .avgCycleTime(summary.getAverageCycleTime()).build());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -160,18 +148,11 @@ public class WOAnalyticsController {
                                                                 @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId, dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).toList();
-            int total = incompleteWO.size();
-            List<Long> ages = incompleteWO.stream().map(workOrder -> Helper.getDateDiff(workOrder.getRealCreatedAt(),
-                    new Date(), TimeUnit.DAYS)).toList();
-            int averageAge = ages.size() == 0 ? 0 : ages.stream().mapToInt(Long::intValue).sum() / ages.size();
+            WOStatsSummary summary = workOrderStatsService.getSummary(resolvedCompanyId, dateRange.getStart(),
+                    dateRange.getEnd());
             return ResponseEntity.ok(WOIncompleteStats.builder()
-                    .total(total)
-                    .averageAge(averageAge)
+                    .total(summary.incomplete().getCount())
+                    .averageAge(summary.getIncompleteAverageAge(new Date()))
                     .build());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -189,16 +170,13 @@ public class WOAnalyticsController {
                                                                      @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId, dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).toList();
+            WOStatsSummary summary = workOrderStatsService.getSummary(resolvedCompanyId, dateRange.getStart(),
+                    dateRange.getEnd());
 
-            Pair<Integer, Double> highValues = getCountsAndEstimatedDurationByPriority(Priority.HIGH, incompleteWO);
-            Pair<Integer, Double> noneValues = getCountsAndEstimatedDurationByPriority(Priority.NONE, incompleteWO);
-            Pair<Integer, Double> lowValues = getCountsAndEstimatedDurationByPriority(Priority.LOW, incompleteWO);
-            Pair<Integer, Double> mediumValues = getCountsAndEstimatedDurationByPriority(Priority.MEDIUM, incompleteWO);
+            Pair<Integer, Double> highValues = getCountsAndEstimatedDurationByPriority(Priority.HIGH, summary);
+            Pair<Integer, Double> noneValues = getCountsAndEstimatedDurationByPriority(Priority.NONE, summary);
+            Pair<Integer, Double> lowValues = getCountsAndEstimatedDurationByPriority(Priority.LOW, summary);
+            Pair<Integer, Double> mediumValues = getCountsAndEstimatedDurationByPriority(Priority.MEDIUM, summary);
 
             int highCounts = highValues.getFirst();
             double highEstimatedDurations = highValues.getSecond();
@@ -244,17 +222,15 @@ public class WOAnalyticsController {
                                                             "by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId, dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).toList();
+            WOStatsSummary summary = workOrderStatsService.getSummary(resolvedCompanyId, dateRange.getStart(),
+                    dateRange.getEnd());
 
             return ResponseEntity.ok(WOStatuses.builder()
-                    .open(getWOCountsByStatus(Status.OPEN, incompleteWO))
-                    .inProgress(getWOCountsByStatus(Status.IN_PROGRESS, incompleteWO))
-                    .onHold(getWOCountsByStatus(Status.ON_HOLD, incompleteWO))
-                    .complete(getWOCountsByStatus(Status.COMPLETE, incompleteWO))
+                    .open(summary.byStatus(Status.OPEN).getCount())
+                    .inProgress(summary.byStatus(Status.IN_PROGRESS).getCount())
+                    .onHold(summary.byStatus(Status.ON_HOLD).getCount())
+                    //this endpoint only reports incomplete work orders
+                    .complete(0)
                     .build());
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -300,18 +276,15 @@ public class WOAnalyticsController {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
             Collection<User> users = userService.findWorkersByCompany(resolvedCompanyId);
+            Map<Long, GroupedAggregate> aggregates = workOrderService.aggregateBy(WOAggregateDimension.ASSIGNED_USER,
+                    resolvedCompanyId, dateRange.getStart(), dateRange.getEnd(), false);
             Collection<IncompleteWOByUser> result = new ArrayList<>();
             users.forEach(user1 -> {
-                Collection<WorkOrder> incompleteWO =
-                        workOrderService.findByAssignedToUserAndCreatedAtBetween(user1.getId(), dateRange.getStart(),
-                                        dateRange.getEnd())
-                                .stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).toList();
-                List<Long> ages = incompleteWO.stream().map(workOrder -> Helper.getDateDiff(workOrder.getCreatedAt(),
-                        new Date(), TimeUnit.DAYS)).toList();
-                int count = incompleteWO.size();
+                GroupedAggregate aggregate = aggregates.getOrDefault(user1.getId(), new GroupedAggregate());
+                int count = aggregate.getCount();
                 result.add(IncompleteWOByUser.builder()
                         .count(count)
-                        .averageAge(count == 0 ? 0 : ages.stream().mapToLong(value -> value).sum() / count)
+                        .averageAge(count == 0 ? 0 : (long) aggregate.getSum() / count)
                         .firstName(user1.getFirstName())
                         .lastName(user1.getLastName())
                         .id(user1.getId())
@@ -334,14 +307,10 @@ public class WOAnalyticsController {
                                                     "specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId, dateRange.getStart()
-                            , dateRange.getEnd());
-            double estimated =
-                    workOrders.stream().map(WorkOrderBase::getEstimatedDuration).mapToDouble(value -> value).sum();
-            Collection<Labor> labors = new ArrayList<>();
-            workOrders.forEach(workOrder -> labors.addAll(laborService.findByWorkOrder(workOrder.getId())));
-            int actual = labors.stream().map(Labor::getDuration).mapToInt(Math::toIntExact).sum() / 3600;
+            double estimated = workOrderStatsService.getSummary(resolvedCompanyId, dateRange.getStart(),
+                    dateRange.getEnd()).total().getEstimatedDuration();
+            int actual = Math.toIntExact(laborService.getTotalDurationByCompanyAndWorkOrderCreatedAtBetween(
+                    resolvedCompanyId, dateRange.getStart(), dateRange.getEnd()) / 3600);
             return ResponseEntity.ok(WOHours.builder()
                     .estimated(estimated)
                     .actual(actual)
@@ -362,20 +331,8 @@ public class WOAnalyticsController {
                                                                      @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<User> users = userService.findWorkersByCompany(resolvedCompanyId);
-            Collection<WOCountByUser> results = new ArrayList<>();
-            users.forEach(user1 -> {
-                int count = (int) workOrderService.findByAssignedToUserAndCreatedAtBetween(user1.getId(),
-                                dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
-                results.add(WOCountByUser.builder()
-                        .firstName(user1.getFirstName())
-                        .lastName(user1.getLastName())
-                        .id(user1.getId())
-                        .count(count)
-                        .build());
-            });
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(getCompleteCountsByUser(WOAggregateDimension.ASSIGNED_USER, resolvedCompanyId,
+                    dateRange));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -392,20 +349,8 @@ public class WOAnalyticsController {
                                                                             @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Collection<User> users = userService.findWorkersByCompany(resolvedCompanyId);
-            Collection<WOCountByUser> results = new ArrayList<>();
-            users.forEach(user1 -> {
-                int count = (int) workOrderService.findByCompletedByAndCreatedAtBetween(user1.getId(),
-                                dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
-                results.add(WOCountByUser.builder()
-                        .firstName(user1.getFirstName())
-                        .lastName(user1.getLastName())
-                        .id(user1.getId())
-                        .count(count)
-                        .build());
-            });
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(getCompleteCountsByUser(WOAggregateDimension.COMPLETED_BY, resolvedCompanyId,
+                    dateRange));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -422,14 +367,11 @@ public class WOAnalyticsController {
                                                                       @RequestParam(required = false) @Parameter(description = "Filter by specific company") Long companyId) {
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            Priority[] priorities = Priority.values();
+            Map<Long, GroupedAggregate> aggregates = workOrderService.aggregateBy(WOAggregateDimension.PRIORITY,
+                    resolvedCompanyId, dateRange.getStart(), dateRange.getEnd(), true);
             Map<Priority, Integer> results = new HashMap<>();
-            Arrays.asList(priorities).forEach(priority -> {
-                int count = (int) workOrderService.findByPriorityAndCompanyAndCreatedAtBetween(priority,
-                                resolvedCompanyId, dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
-                results.put(priority, count);
-            });
+            Arrays.asList(Priority.values()).forEach(priority -> results.put(priority,
+                    aggregates.getOrDefault((long) priority.ordinal(), new GroupedAggregate()).getCount()));
             return ResponseEntity.ok(results);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -452,11 +394,11 @@ public class WOAnalyticsController {
                             companyService.findById(resolvedCompanyId)
                                     .orElseThrow(() -> new CustomException("Company not found", HttpStatus.NOT_FOUND))
                                     .getCompanySettings().getId());
+            Map<Long, GroupedAggregate> aggregates = workOrderService.aggregateBy(WOAggregateDimension.CATEGORY,
+                    resolvedCompanyId, dateRange.getStart(), dateRange.getEnd(), true);
             Collection<WOCountByCategory> results = new ArrayList<>();
             categories.forEach(category -> {
-                int count = (int) workOrderService.findByCategoryAndCreatedAtBetween(category.getId(),
-                                dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
+                int count = aggregates.getOrDefault(category.getId(), new GroupedAggregate()).getCount();
                 results.add(WOCountByCategory.builder()
                         .name(category.getName())
                         .id(category.getId())
@@ -633,7 +575,7 @@ public class WOAnalyticsController {
         LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
         if (user.canSeeAnalytics()) {
             Long resolvedCompanyId = Helper.resolveCompanyId(user, companyId);
-            List<WOStatusesByDate> result = new ArrayList<>();
+            List<Pair<Date, Date>> cutoffs = new ArrayList<>();
             LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
             LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
             // in the range
@@ -645,44 +587,30 @@ public class WOAnalyticsController {
                 LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
                 // range
                 nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<WorkOrder> workOrders =
-                        workOrderService.findByCompanyAndCreatedAtBetween(resolvedCompanyId,
-                                dateRange.getStart(), Helper.localDateToDate(nextDate));
-                LocalDate finalNextDate = nextDate;
-                Collection<Status> statuses = workOrders.stream().map(workOrder -> {
-                    List<WorkOrderAud> workOrderAuds = workOrderAudRepository.findLastByIdAndDate(workOrder.getId(),
-                            Helper.localDateToDate(finalNextDate).getTime(), PageRequest.of(0, 1));
-                    if (workOrderAuds.isEmpty()) return workOrder.getStatus();
-                    else return workOrderAuds.get(0).getStatus();
-                }).filter(Objects::nonNull).toList();
-
-                result.add(WOStatusesByDate.builder()
-                        .open((int) statuses.stream().filter(status -> status.equals(Status.OPEN)).count())
-                        .onHold((int) statuses.stream().filter(status -> status.equals(Status.ON_HOLD)).count())
-                        .inProgress((int) statuses.stream().filter(status -> status.equals(Status.IN_PROGRESS)).count())
-                        .complete((int) statuses.stream().filter(status -> status.equals(Status.COMPLETE)).count())
-                        .date(Helper.localDateToDate(currentDate))
-                        .build());
+                cutoffs.add(Pair.of(Helper.localDateToDate(currentDate), Helper.localDateToDate(nextDate)));
                 currentDate = nextDate; // Move to the next segment
             }
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(workOrderStatusHistoryService.getStatusesByDate(resolvedCompanyId,
+                    dateRange.getStart(), cutoffs));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
-    private Pair<Integer, Double> getCountsAndEstimatedDurationByPriority(Priority priority,
-                                                                          Collection<WorkOrder> workOrders) {
-        Collection<WorkOrder> priorityWO =
-                workOrders.stream().filter(workOrder -> workOrder.getPriority().equals(priority)).toList();
-        int priorityCounts = priorityWO.size();
-        double priorityEstimatedDurations =
-                priorityWO.stream().map(WorkOrderBase::getEstimatedDuration).mapToDouble(value -> value).sum();
-        return Pair.of(priorityCounts, priorityEstimatedDurations);
+    private Collection<WOCountByUser> getCompleteCountsByUser(WOAggregateDimension dimension, Long companyId,
+                                                              DateRange dateRange) {
+        Map<Long, GroupedAggregate> aggregates = workOrderService.aggregateBy(dimension, companyId,
+                dateRange.getStart(), dateRange.getEnd(), true);
+        return userService.findWorkersByCompany(companyId).stream().map(user -> WOCountByUser.builder()
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .id(user.getId())
+                .count(aggregates.getOrDefault(user.getId(), new GroupedAggregate()).getCount())
+                .build()).collect(Collectors.toList());
     }
 
-    private int getWOCountsByStatus(Status status, Collection<WorkOrder> workOrders) {
-        Collection<WorkOrder> statusWO =
-                workOrders.stream().filter(workOrder -> workOrder.getStatus().equals(status)).toList();
-        return statusWO.size();
+    private Pair<Integer, Double> getCountsAndEstimatedDurationByPriority(Priority priority,
+                                                                          WOStatsSummary summary) {
+        WOStatsSummary.Measures measures = summary.incompleteByPriority(priority);
+        return Pair.of(measures.getCount(), measures.getEstimatedDuration());
     }
 
     private long getTime(Collection<WorkOrder> workOrders) {
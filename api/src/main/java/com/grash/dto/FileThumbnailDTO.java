@@ -9,4 +9,6 @@ import lombok.NoArgsConstructor;
 public class FileThumbnailDTO extends FileMiniDTO {
     @Schema(description = "URL of the thumbnail image")
     private String thumbnailUrl;
+    @Schema(description = "URL of the largest thumbnail, for previews, when the image has thumbnails")
+    private String previewUrl;
 }
@@ -0,0 +1,26 @@
+package com.grash.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One meter reading of a batch")
+public class ReadingBatchItemDTO {
+    @NotNull
+    @Schema(description = "ID of the meter", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long meterId;
+
+    @NotNull
+    @Schema(description = "Reading value", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Double value;
+
+    @Schema(description = "When the value was read. Defaults to the time of ingestion")
+    private Date readAt;
+}
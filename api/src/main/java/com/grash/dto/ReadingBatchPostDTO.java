@@ -0,0 +1,22 @@
+package com.grash.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Batch of meter readings, for gateways pushing many meters at once")
+public class ReadingBatchPostDTO {
+    @NotNull
+    @Size(min = 1, max = 1000)
+    @Valid
+    @Schema(description = "Readings, in any order", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<ReadingBatchItemDTO> readings = new ArrayList<>();
+}
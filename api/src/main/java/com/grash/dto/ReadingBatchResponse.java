@@ -0,0 +1,43 @@
+package com.grash.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Result of a batch of meter readings")
+public class ReadingBatchResponse {
+    @Schema(description = "Number of readings created")
+    private int created;
+
+    @Builder.Default
+    @Schema(description = "IDs of the work orders created by meter triggers")
+    private List<Long> workOrderIds = new ArrayList<>();
+
+    @Builder.Default
+    @Schema(description = "Readings that were not created")
+    private List<Rejection> rejected = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A reading that was not created")
+    public static class Rejection {
+        @Schema(description = "Position of the reading in the batch")
+        private int index;
+
+        @Schema(description = "ID of the meter")
+        private Long meterId;
+
+        @Schema(description = "Why the reading was not created")
+        private String reason;
+    }
+}
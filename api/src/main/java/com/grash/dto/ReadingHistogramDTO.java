@@ -14,5 +14,7 @@ import java.util.Date;
 public class ReadingHistogramDTO {
     private Date date;
     private double value;
+    private double min;
+    private double max;
     private int count;
 }
@@ -0,0 +1,24 @@
+package com.grash.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Mail of the outbox rendered from its template, handed to the mail back end to send.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RenderedMailDTO {
+    private Long id;
+    private String[] to;
+    private String subject;
+    private String htmlBody;
+    private String template;
+    private List<EmailAttachmentDTO> attachments;
+}
@@ -0,0 +1,28 @@
+package com.grash.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One group of a grouped analytics query: the id of the grouping dimension, the number of rows in the group and
+ * the sum of the measure the query aggregates.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupedAggregate {
+    private Long key;
+    private int count;
+    private double sum;
+
+    public static GroupedAggregate fromRow(Object[] row) {
+        return GroupedAggregate.builder()
+                .key(row[0] == null ? null : ((Number) row[0]).longValue())
+                .count(((Number) row[1]).intValue())
+                .sum(row[2] == null ? 0 : ((Number) row[2]).doubleValue())
+                .build();
+    }
+}
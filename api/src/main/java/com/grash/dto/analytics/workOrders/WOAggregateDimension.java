@@ -0,0 +1,13 @@
+package com.grash.dto.analytics.workOrders;
+
+/**
+ * Dimensions work orders can be grouped by in a single aggregation query.
+ */
+public enum WOAggregateDimension {
+    //primary user, assigned users and team members
+    ASSIGNED_USER,
+    COMPLETED_BY,
+    PRIORITY,
+    CATEGORY,
+    ASSET
+}
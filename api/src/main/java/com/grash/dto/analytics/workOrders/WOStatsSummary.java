@@ -0,0 +1,105 @@
+package com.grash.dto.analytics.workOrders;
+
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work order rollup measures of a date range, summed per status and priority.
+ */
+@Data
+@NoArgsConstructor
+public class WOStatsSummary {
+    private final Map<Status, Map<Priority, Measures>> measures = new EnumMap<>(Status.class);
+
+    @Data
+    @NoArgsConstructor
+    public static class Measures {
+        private int count;
+        private int compliant;
+        private double estimatedDuration;
+        private int reacted;
+        private long reactionHours;
+        private int cycleCount;
+        private long cycleDays;
+        private long createdAtEpochSum;
+
+        public void add(Measures other) {
+            count += other.count;
+            compliant += other.compliant;
+            estimatedDuration += other.estimatedDuration;
+            reacted += other.reacted;
+            reactionHours += other.reactionHours;
+            cycleCount += other.cycleCount;
+            cycleDays += other.cycleDays;
+            createdAtEpochSum += other.createdAtEpochSum;
+        }
+    }
+
+    public void put(Status status, Priority priority, Measures value) {
+        measures.computeIfAbsent(status, key -> new EnumMap<>(Priority.class))
+                .computeIfAbsent(priority, key -> new Measures()).add(value);
+    }
+
+    public Measures get(Status status, Priority priority) {
+        Measures result = new Measures();
+        Map<Priority, Measures> byPriority = measures.get(status);
+        if (byPriority != null && byPriority.containsKey(priority)) result.add(byPriority.get(priority));
+        return result;
+    }
+
+    public Measures byStatus(Status status) {
+        Measures result = new Measures();
+        measures.getOrDefault(status, Map.of()).values().forEach(result::add);
+        return result;
+    }
+
+    public Measures total() {
+        Measures result = new Measures();
+        measures.values().forEach(byPriority -> byPriority.values().forEach(result::add));
+        return result;
+    }
+
+    public Measures incomplete() {
+        Measures result = new Measures();
+        measures.forEach((status, byPriority) -> {
+            if (status != Status.COMPLETE) byPriority.values().forEach(result::add);
+        });
+        return result;
+    }
+
+    public Measures incompleteByPriority(Priority priority) {
+        Measures result = new Measures();
+        measures.forEach((status, byPriority) -> {
+            if (status != Status.COMPLETE && byPriority.containsKey(priority)) result.add(byPriority.get(priority));
+        });
+        return result;
+    }
+
+    //in hours
+    public long getMtta() {
+        Measures total = total();
+        return total.getReacted() == 0 ? 0 : total.getReactionHours() / total.getReacted();
+    }
+
+    //in days
+    public long getAverageCycleTime() {
+        Measures complete = byStatus(Status.COMPLETE);
+        return complete.getCycleCount() == 0 ? 0 : complete.getCycleDays() / complete.getCycleCount();
+    }
+
+    //in days
+    public int getIncompleteAverageAge(Date now) {
+        Measures incomplete = incomplete();
+        if (incomplete.getCount() == 0) return 0;
+        long nowSeconds = TimeUnit.MILLISECONDS.toSeconds(now.getTime());
+        long averageCreatedAt = incomplete.getCreatedAtEpochSum() / incomplete.getCount();
+        return (int) TimeUnit.SECONDS.toDays(nowSeconds - averageCreatedAt);
+    }
+}
@@ -2,28 +2,30 @@ package com.grash.dto.license;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
 
 import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
-@Data
-@Builder
+/**
+ * Immutable snapshot of the license check; {@link com.grash.service.LicenseService} shares one instance between
+ * all readers until the next refresh.
+ */
+@Value
+@Builder(toBuilder = true)
 @Schema(description = "Current licensing state for an organization, including plan, entitlements, and validity")
 public class LicensingState {
     @Schema(description = "Whether the organization has an active license")
-    private boolean hasLicense;
+    boolean hasLicense;
     @Schema(description = "Whether the current license is valid")
-    private boolean valid;
+    boolean valid;
     @Schema(description = "Name of the current subscription plan")
-    private String planName;
+    String planName;
     @Schema(description = "Set of entitlement codes granted by the current license")
     @Builder.Default
-    private Set<String> entitlements = new HashSet<>();
+    Set<String> entitlements = Set.of();
     @Schema(description = "Expiration date of the current license")
-    private Date expirationDate;
+    Date expirationDate;
     @Schema(description = "Number of licensed users")
-    private int usersCount;
+    int usersCount;
 }
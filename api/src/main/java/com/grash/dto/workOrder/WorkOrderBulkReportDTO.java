@@ -0,0 +1,16 @@
+package com.grash.dto.workOrder;
+
+import com.grash.advancedsearch.SearchCriteria;
+import com.grash.dto.ReportConfig;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class WorkOrderBulkReportDTO {
+    @NotNull
+    @Schema(description = "Search criteria of the work orders to export the reports of; paging is ignored")
+    private SearchCriteria criteria;
+    @Schema(description = "Sections of the reports")
+    private ReportConfig config;
+}
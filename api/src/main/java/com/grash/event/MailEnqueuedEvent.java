@@ -0,0 +1,8 @@
+package com.grash.event;
+
+/**
+ * Published after mails are written to the outbox, so that they are sent as soon as the transaction that wrote them
+ * commits.
+ */
+public class MailEnqueuedEvent {
+}
@@ -0,0 +1,22 @@
+package com.grash.event;
+
+import com.grash.model.Notification;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published for notifications to save and send, so that nothing reaches the users of work that is rolled back.
+ */
+@Getter
+public class NotificationsCreatedEvent {
+    private final List<Notification> notifications;
+    private final boolean mobile;
+    private final String title;
+
+    public NotificationsCreatedEvent(List<Notification> notifications, boolean mobile, String title) {
+        this.notifications = notifications;
+        this.mobile = mobile;
+        this.title = title;
+    }
+}
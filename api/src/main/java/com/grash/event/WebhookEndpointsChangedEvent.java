@@ -0,0 +1,16 @@
+package com.grash.event;
+
+import lombok.Getter;
+
+/**
+ * Published when a company's webhook endpoints are created, updated or deleted, so that its cached subscriptions
+ * are rebuilt once the change commits.
+ */
+@Getter
+public class WebhookEndpointsChangedEvent {
+    private final Long companyId;
+
+    public WebhookEndpointsChangedEvent(Long companyId) {
+        this.companyId = companyId;
+    }
+}
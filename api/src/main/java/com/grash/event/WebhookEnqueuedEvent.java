@@ -0,0 +1,16 @@
+package com.grash.event;
+
+import lombok.Getter;
+
+/**
+ * Published after webhook deliveries are written to the outbox, so that they are sent as soon as the transaction
+ * that wrote them commits.
+ */
+@Getter
+public class WebhookEnqueuedEvent {
+    private final Long companyId;
+
+    public WebhookEnqueuedEvent(Long companyId) {
+        this.companyId = companyId;
+    }
+}
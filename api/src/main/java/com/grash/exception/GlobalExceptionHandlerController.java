@@ -7,6 +7,7 @@ import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
 import org.springframework.boot.web.servlet.error.ErrorAttributes;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpStatus;
@@ -94,6 +95,12 @@ public class GlobalExceptionHandlerController {
         );
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<SuccessResponse> handleTaskRejected(TaskRejectedException ex) {
+        return new ResponseEntity<>(new SuccessResponse(false, "Too many tasks are running. Please retry later."),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<SuccessResponse> handleException(HttpServletResponse res, Exception ex) {
         ex.printStackTrace();
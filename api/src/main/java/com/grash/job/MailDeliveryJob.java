@@ -0,0 +1,26 @@
+package com.grash.job;
+
+import com.grash.service.MailDeliveryService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks up outbox mails that are due for a retry or whose enqueue notification was lost, and purges the mails that
+ * ran out of attempts.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class MailDeliveryJob implements Job {
+
+    private final MailDeliveryService mailDeliveryService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        mailDeliveryService.sendDue();
+        mailDeliveryService.purgeFailed();
+    }
+}
@@ -51,7 +51,13 @@ public class PreventiveMaintenanceNotificationJob extends QuartzJobBean {
             return;
         }
 
-        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
+        notifyUpcomingWorkOrder(schedule.getPreventiveMaintenance());
+    }
+
+    /**
+     * Emails the preventive maintenance's users and the company admins that its next work order is coming.
+     */
+    public void notifyUpcomingWorkOrder(PreventiveMaintenance preventiveMaintenance) {
         Locale locale = Helper.getLocale(preventiveMaintenance.getCompany());
         String title = messageSource.getMessage("coming_wo", null, locale);
 
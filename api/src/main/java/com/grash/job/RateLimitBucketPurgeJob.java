@@ -0,0 +1,24 @@
+package com.grash.job;
+
+import com.grash.service.RateLimitBucketStore;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes rate limit buckets that have been idle long enough to be full again.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class RateLimitBucketPurgeJob implements Job {
+
+    private final RateLimitBucketStore rateLimitBucketStore;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        rateLimitBucketStore.purgeIdle();
+    }
+}
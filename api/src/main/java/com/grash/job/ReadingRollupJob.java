@@ -0,0 +1,39 @@
+package com.grash.job;
+
+import com.grash.service.ReadingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes the hourly reading rollup that long range meter histograms are read from. Does nothing while the rollup
+ * is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+@Slf4j
+public class ReadingRollupJob implements Job {
+
+    private final ReadingService readingService;
+
+    @Value("${readings.histogram.rollup.enabled:false}")
+    private boolean rollupEnabled;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        if (!rollupEnabled) {
+            return;
+        }
+        try {
+            int rolledUp = readingService.rollUpReadings();
+            log.debug("Rolled up {} meter reading hours", rolledUp);
+        } catch (RuntimeException e) {
+            log.error("Error rolling up meter readings", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.grash.job;
+
+import com.grash.service.ScheduleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Moves PM schedules from their per schedule Quartz jobs to the database scheduler engine when it is enabled. The
+ * next fire times are copied to the schedules and the jobs are deleted, so it only does work on the first start
+ * and going back to the Quartz engine requires rescheduling the preventive maintenances.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Profile("!test")
+public class ScheduleEngineMigrationRunner implements ApplicationRunner {
+
+    private final Scheduler scheduler;
+    private final ScheduleService scheduleService;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!scheduleService.usesDatabaseEngine()) {
+            return;
+        }
+        int migrated = 0;
+        for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.jobGroupEquals("wo-group"))) {
+            try {
+                JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+                if (jobDetail != null && jobDetail.getJobDataMap().containsKey("scheduleId")) {
+                    Date nextFireTime = scheduler.getTriggersOfJob(jobKey).stream()
+                            .map(Trigger::getNextFireTime)
+                            .filter(Objects::nonNull)
+                            .min(Date::compareTo)
+                            .orElse(null);
+                    scheduleService.planFromQuartzTrigger(jobDetail.getJobDataMap().getLong("scheduleId"),
+                            nextFireTime);
+                }
+                scheduler.deleteJob(jobKey);
+                migrated++;
+            } catch (SchedulerException | RuntimeException e) {
+                log.error("Error moving quartz job " + jobKey + " to the database scheduler engine", e);
+            }
+        }
+        // Notifications are planned from the work order occurrences above
+        scheduler.deleteJobs(scheduler.getJobKeys(GroupMatcher.jobGroupEquals("notif-group")).stream().toList());
+        if (migrated > 0) {
+            log.info("Moved {} preventive maintenance quartz jobs to the database scheduler engine", migrated);
+        }
+    }
+}
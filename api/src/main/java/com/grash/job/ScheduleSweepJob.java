@@ -0,0 +1,114 @@
+package com.grash.job;
+
+import com.grash.service.ScheduleService;
+import com.grash.service.ScheduleSweepService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Database scheduler engine sweep: creates the work orders and sends the upcoming work order notifications of the
+ * schedules that are due, batch by batch. Does nothing while PM schedules use one Quartz job each.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+@Slf4j
+public class ScheduleSweepJob implements Job {
+
+    private final ScheduleService scheduleService;
+    private final ScheduleSweepService scheduleSweepService;
+
+    @Value("${pm.scheduler.batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        if (!scheduleService.usesDatabaseEngine()) {
+            return;
+        }
+        Date now = new Date();
+        sweepWorkOrders(now);
+        sweepNotifications(now);
+    }
+
+    private void sweepWorkOrders(Date now) {
+        int claimed;
+        do {
+            try {
+                claimed = scheduleSweepService.createDueWorkOrders(now, batchSize);
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.warn("Transient error creating a batch of preventive maintenance work orders, retrying on "
+                            + "the next sweep", e);
+                    return;
+                }
+                log.warn("Error creating a batch of preventive maintenance work orders, retrying one by one", e);
+                // The batch rolled back as a whole, nothing of it was sent
+                createOneByOne(now);
+                // What is left is picked up by the next sweep
+                return;
+            }
+        } while (claimed == batchSize);
+    }
+
+    private void createOneByOne(Date now) {
+        List<Long> scheduleIds = scheduleSweepService.findDueIds(now, batchSize);
+        for (Long scheduleId : scheduleIds) {
+            try {
+                scheduleSweepService.createDueWorkOrder(scheduleId, now);
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.warn("Transient error creating the work order of schedule {}, leaving it due", scheduleId, e);
+                    continue;
+                }
+                log.error("Error creating the work order of schedule {}, skipping this occurrence", scheduleId, e);
+                try {
+                    scheduleSweepService.skipDueOccurrence(scheduleId, now);
+                } catch (RuntimeException skipException) {
+                    log.error("Error skipping the due occurrence of schedule {}", scheduleId, skipException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether {@code e} is a failure that may not happen again, like a lock timeout, a deadlock or a lost connection,
+     * rather than something wrong with the schedule itself.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sweepNotifications(Date now) {
+        try {
+            int claimed;
+            do {
+                claimed = scheduleSweepService.sendDueNotifications(now, batchSize);
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Error sending upcoming preventive maintenance work order notifications", e);
+        }
+    }
+}
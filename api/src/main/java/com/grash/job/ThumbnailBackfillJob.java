@@ -0,0 +1,48 @@
+package com.grash.job;
+
+import com.grash.service.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.PersistJobDataAfterExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates the thumbnails of the images uploaded before thumbnails were generated on upload, or whose generation was
+ * dropped. The id of the last image processed is kept in the job data, so that a run resumes where the previous one
+ * stopped and images that can't be decoded are not retried every run. An image the storage failed to serve stops the
+ * run before it, so it is retried by the next one.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+@PersistJobDataAfterExecution
+@Slf4j
+public class ThumbnailBackfillJob implements Job {
+    static final String LAST_FILE_ID = "lastFileId";
+
+    private final ThumbnailService thumbnailService;
+
+    @Value("${files.thumbnails.backfill-batch-size:50}")
+    private int batchSize;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        JobDataMap jobDataMap = context.getJobDetail().getJobDataMap();
+        long lastId = jobDataMap.containsKey(LAST_FILE_ID) ? jobDataMap.getLong(LAST_FILE_ID) : 0L;
+        try {
+            long previousId;
+            do {
+                previousId = lastId;
+                lastId = thumbnailService.backfill(previousId, batchSize);
+                jobDataMap.put(LAST_FILE_ID, lastId);
+            } while (lastId != previousId);
+        } catch (RuntimeException e) {
+            log.error("Error generating thumbnails after file " + lastId, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.grash.job;
+
+import com.grash.service.WebhookDeliveryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks up webhook deliveries that are due for a retry or whose enqueue notification was lost, and writes the
+ * batched last triggered times to the endpoints.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@DisallowConcurrentExecution
+public class WebhookDeliveryJob implements Job {
+
+    private final WebhookDeliveryService webhookDeliveryService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        webhookDeliveryService.deliverDue();
+        webhookDeliveryService.flushLastTriggeredAt();
+        webhookDeliveryService.purgeDelivered();
+    }
+}
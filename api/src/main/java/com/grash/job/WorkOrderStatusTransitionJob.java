@@ -0,0 +1,25 @@
+package com.grash.job;
+
+import com.grash.service.WorkOrderStatusHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the new work order status changing revisions to the status transition log, so that the status history
+ * analytics only read.
+ */
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class WorkOrderStatusTransitionJob implements Job {
+
+    private final WorkOrderStatusHistoryService workOrderStatusHistoryService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        workOrderStatusHistoryService.appendNewTransitions();
+    }
+}
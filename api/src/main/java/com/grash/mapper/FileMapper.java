@@ -5,19 +5,12 @@ import com.grash.dto.FileShowDTO;
 import com.grash.dto.FileThumbnailDTO;
 import com.grash.factory.StorageServiceFactory;
 import com.grash.model.File;
-import com.grash.model.enums.FileType;
-import com.grash.repository.FileRepository;
 import com.grash.service.StorageService;
-import com.grash.utils.Helper;
-import net.coobird.thumbnailator.Thumbnails;
+import com.grash.service.ThumbnailService;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-
 @Mapper(componentModel = "spring")
 public abstract class FileMapper {
 
@@ -26,7 +19,7 @@ public abstract class FileMapper {
     private StorageServiceFactory storageServiceFactory;
     @Lazy
     @Autowired
-    private FileRepository fileRepository;
+    private ThumbnailService thumbnailService;
 
     private final Integer expirationInMinutes = 60 * 3;
 
@@ -49,8 +42,12 @@ public abstract class FileMapper {
     }
 
     private String getSignedUrl(File file) {
+        return getSignedUrl(file.getPath());
+    }
+
+    private String getSignedUrl(String path) {
         StorageService storageService = storageServiceFactory.getStorageService();
-        return storageService.generateSignedUrl(file.getPath(), expirationInMinutes);
+        return storageService.generateSignedUrl(path, expirationInMinutes);
     }
 
     @Named("toThumbnailDto")
@@ -60,49 +57,12 @@ public abstract class FileMapper {
         dto.setId(model.getId());
         dto.setName(model.getName());
         dto.setUrl(getSignedUrl(model));
-        dto.setThumbnailUrl(dto.getUrl());
-        return dto;
-    }
-
-    //TODO generate thumbnail on upload and run once a migration for existing images instead of generating on the fly
-    private String getThumbnailUrl(File file) {
-        StorageService storageService = storageServiceFactory.getStorageService();
-
-        if (file.getThumbnailPath() != null) {
-            return storageService.generateSignedUrl(file.getThumbnailPath(), expirationInMinutes);
-        }
-
-        if (file.getType() != FileType.IMAGE) {
-            return null;
-        }
-
-        try {
-            byte[] originalBytes = storageService.download(file);
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(originalBytes);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-            Thumbnails.of(inputStream)
-                    .size(200, 200)
-                    .outputFormat("jpg")
-                    .toOutputStream(outputStream);
-
-            byte[] thumbnailBytes = outputStream.toByteArray();
-
-            Helper helper = new Helper();
-            String thumbFileName = helper.generateString() + "_thumb.jpg";
-            String folder = "";
-            if (file.getPath().contains("/")) {
-                folder = file.getPath().substring(0, file.getPath().lastIndexOf('/'));
-            }
-
-            String thumbnailPath = storageService.upload(thumbnailBytes, thumbFileName, folder);
-
-            file.setThumbnailPath(thumbnailPath);
-            fileRepository.save(file);
-
-            return storageService.generateSignedUrl(thumbnailPath, expirationInMinutes);
-        } catch (IOException e) {
-            return null;
+        if (model.getThumbnailPath() == null) {
+            dto.setThumbnailUrl(dto.getUrl());
+        } else {
+            dto.setThumbnailUrl(getSignedUrl(model.getThumbnailPath()));
+            dto.setPreviewUrl(getSignedUrl(thumbnailService.getPreviewPath(model)));
         }
+        return dto;
     }
 }
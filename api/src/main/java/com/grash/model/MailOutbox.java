@@ -0,0 +1,62 @@
+package com.grash.model;
+
+import com.grash.model.enums.MailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Outbox row of one templated mail. Rows are written with the change that triggered the mail and sent by
+ * {@link com.grash.service.MailDeliveryService}, which deletes them once sent and retries them until they run out
+ * of attempts.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    //JSON array of addresses
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String recipients;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String subject;
+
+    @Column(nullable = false)
+    private String template;
+
+    //language tag
+    @Column(nullable = false, length = 35)
+    private String locale;
+
+    //JSON object of the template variables
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String variables;
+
+    //JSON array of EmailAttachmentDTO
+    @Column(columnDefinition = "TEXT")
+    private String attachments;
+
+    @Column(nullable = false)
+    private MailOutboxStatus status = MailOutboxStatus.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt;
+
+    @Column(name = "lease_token")
+    private String leaseToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+}
@@ -62,6 +62,14 @@ public class Schedule extends Audit {
     @Schema(description = "Days of week for weekly recurrence (0 = Monday)")
     private List<Integer> daysOfWeek = new ArrayList<>();//0 monday
 
+    @Schema(description = "When the next work order is created, when the database scheduler engine is used",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Date nextDueAt;
+
+    @Schema(description = "When the next upcoming work order notification is sent, when the database scheduler " +
+            "engine is used", accessMode = Schema.AccessMode.READ_ONLY)
+    private Date nextNotificationAt;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     @OnDelete(action = OnDeleteAction.CASCADE)
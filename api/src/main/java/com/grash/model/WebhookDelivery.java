@@ -0,0 +1,61 @@
+package com.grash.model;
+
+import com.grash.model.enums.webhook.WebhookDeliveryStatus;
+import com.grash.model.enums.webhook.WebhookEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Outbox row of one webhook event for one endpoint. Rows are written with the change that triggered the event and
+ * delivered by {@link com.grash.service.WebhookDeliveryService}, which retries them until they succeed or run out
+ * of attempts.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class WebhookDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "endpoint_id", nullable = false)
+    private Long endpointId;
+
+    //sent as X-Webhook-Id, identical across retries so that receivers can deduplicate
+    @Column(name = "message_id", nullable = false)
+    private String messageId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookEvent event;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt;
+
+    @Column(name = "lease_token")
+    private String leaseToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    @Column(name = "delivered_at")
+    private Date deliveredAt;
+}
@@ -0,0 +1,75 @@
+package com.grash.model;
+
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated work order counters for one company, creation day and combination of
+ * status, priority, category, primary user and asset. Rows are kept up to date by
+ * {@link com.grash.service.WorkOrderStatsService}, which applies the delta of every work order change.
+ * Missing references are stored as 0 so that they take part in the unique bucket key.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_work_order_daily_stat_bucket",
+        columnNames = {"company_id", "stat_date", "status", "priority", "category_id", "primary_user_id", "asset_id"}))
+public class WorkOrderDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private Priority priority;
+
+    @Column(nullable = false)
+    private long categoryId;
+
+    @Column(nullable = false)
+    private long primaryUserId;
+
+    @Column(nullable = false)
+    private long assetId;
+
+    @Column(nullable = false)
+    private int woCount;
+
+    @Column(nullable = false)
+    private int compliantCount;
+
+    @Column(nullable = false)
+    private double estimatedDurationSum;
+
+    @Column(nullable = false)
+    private int reactedCount;
+
+    //sum of whole hours between creation and first reaction
+    @Column(nullable = false)
+    private long reactionHoursSum;
+
+    @Column(nullable = false)
+    private int cycleCount;
+
+    //sum of whole days between (request) creation and completion
+    @Column(nullable = false)
+    private long cycleTimeDaysSum;
+
+    //sum of (request) creation instants in epoch seconds, used to derive average ages
+    @Column(nullable = false)
+    private long createdAtEpochSum;
+}
@@ -0,0 +1,38 @@
+package com.grash.model;
+
+import com.grash.model.enums.Status;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact copy of the {@link com.grash.model.envers.WorkOrderAud} revisions that created a work order or changed
+ * its status. It is appended to by {@link com.grash.service.WorkOrderStatusHistoryService} so that status history
+ * queries don't have to scan the whole audit table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_work_order_status_transition_rev",
+        columnNames = {"work_order_id", "rev"}))
+public class WorkOrderStatusTransition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "work_order_id", nullable = false)
+    private Long workOrderId;
+
+    @Column(nullable = false)
+    private int rev;
+
+    //revision timestamp in milliseconds
+    @Column(name = "changed_at", nullable = false)
+    private long changedAt;
+
+    private Status status;
+}
@@ -5,8 +5,8 @@ import com.grash.exception.CustomException;
 import com.grash.model.CompanySettings;
 import com.grash.model.User;
 import com.grash.model.enums.PermissionEntity;
-import com.grash.model.enums.RoleType;
 import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
@@ -59,24 +59,14 @@ public abstract class CategoryAbstract extends Audit {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || authentication.getPrincipal() instanceof String) return;
         Object principal = authentication.getPrincipal();
-        User user = ((CustomUserDetail) principal).getUser();
+        UserPrincipal user = ((CustomUserDetail) principal).getPrincipal();
         // Super admins can access all categories
-        if (!user.getRole().getRoleType().equals(RoleType.ROLE_SUPER_ADMIN) &&
-                !user.getCompany().getId().equals(this.getCompanySettings().getCompany().getId()) && !makesException(user)) {
-            throw new CustomException("afterLoad: the user (id=" + user.getId() + ") is not authorized to load " +
+        if (!user.canAccessCompany(this.getCompanySettings().getCompany().getId())) {
+            throw new CustomException("afterLoad: the user (id=" + user.id() + ") is not authorized to load " +
                     "category", HttpStatus.FORBIDDEN);
         }
     }
 
-    private boolean makesException(User user) {
-        return user.getSuperAccountRelations().stream()
-                .anyMatch(relation -> relation.getChildUser().getCompany().getId().equals(this.companySettings.getCompany().getId()));
-//                    || (user.getParentSuperAccount() !=null && user.getParentSuperAccount().getSuperUser()
-//                    .getSuperAccountRelations().stream().anyMatch(sar->sar.getChildUser().getCompany().getId()
-//                    .equals(this.company.getId())))
-
-    }
-
     public boolean canBeEditedBy(User user) {
         return user.getRole().getEditOtherPermissions().contains(PermissionEntity.CATEGORIES)
                 || (this.getCreatedBy() != null && this.getCreatedBy().equals(user.getId()));
@@ -5,9 +5,12 @@ import com.grash.exception.CustomException;
 import com.grash.model.Company;
 import com.grash.model.File;
 import com.grash.model.User;
-import com.grash.model.enums.RoleType;
 import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
 import lombok.Data;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,7 +19,13 @@ import jakarta.persistence.*;
 
 @MappedSuperclass
 @Data
+@FilterDef(name = CompanyAudit.TENANT_FILTER,
+        parameters = @ParamDef(name = CompanyAudit.TENANT_FILTER_COMPANY_IDS, type = Long.class))
+@Filter(name = CompanyAudit.TENANT_FILTER, condition = "company_id IN (:" + CompanyAudit.TENANT_FILTER_COMPANY_IDS + ")")
 public class CompanyAudit extends Audit {
+    public static final String TENANT_FILTER = "tenantFilter";
+    public static final String TENANT_FILTER_COMPANY_IDS = "companyIds";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -36,29 +45,21 @@ public class CompanyAudit extends Audit {
     }
 
 
+    /**
+     * Queries are already restricted by {@link #TENANT_FILTER}. Hibernate filters do not apply to lookups by id,
+     * so this check still guards {@code find} and {@code findById}.
+     */
     @PostLoad
     public void afterLoad() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || authentication.getPrincipal() instanceof String) return;
         Object principal = authentication.getPrincipal();
-        User user = ((CustomUserDetail) principal).getUser();
-        Company company = user.getCompany();
+        UserPrincipal user = ((CustomUserDetail) principal).getPrincipal();
         // check if not authorized
-        if (!user.getRole().getRoleType().equals(RoleType.ROLE_SUPER_ADMIN) &&
-                !company.getId().equals(this.getCompany().getId())
-                && !makesException(user)) {
-            throw new CustomException("afterLoad:  the user (id=" + user.getId() + ")  is not authorized to load  " +
+        if (!user.canAccessCompany(this.getCompany().getId())) {
+            throw new CustomException("afterLoad:  the user (id=" + user.id() + ")  is not authorized to load  " +
                     "this object (" + this.getClass() + ") with id " + this.id, HttpStatus.FORBIDDEN);
         }
     }
-
-    private boolean makesException(User user) {
-        return user.getSuperAccountRelations().stream()
-                .anyMatch(relation -> relation.getChildUser().getCompany().getId().equals(this.company.getId()));
-//                    || (user.getParentSuperAccount() !=null && user.getParentSuperAccount().getSuperUser()
-//                    .getSuperAccountRelations().stream().anyMatch(sar->sar.getChildUser().getCompany().getId()
-//                    .equals(this.company.getId())))
-
-    }
 }
 
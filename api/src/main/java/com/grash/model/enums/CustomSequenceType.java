@@ -0,0 +1,32 @@
+package com.grash.model.enums;
+
+/**
+ * The per-company counters of {@link com.grash.model.CustomSequence}, with the column holding the next value and
+ * the prefix of the generated custom id.
+ */
+public enum CustomSequenceType {
+    WORK_ORDER("work_order_sequence", "WO"),
+    ASSET("asset_sequence", "A"),
+    PREVENTIVE_MAINTENANCE("preventive_maintenance_sequence", "PM"),
+    LOCATION("location_sequence", "L"),
+    REQUEST("request_sequence", "R");
+
+    private final String column;
+    private final String prefix;
+
+    CustomSequenceType(String column, String prefix) {
+        this.column = column;
+        this.prefix = prefix;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Custom id shown to users, e.g. {@code WO000042}.
+     */
+    public String format(long sequence) {
+        return prefix + String.format("%06d", sequence);
+    }
+}
@@ -0,0 +1,7 @@
+package com.grash.model.enums.webhook;
+
+public enum WebhookDeliveryStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
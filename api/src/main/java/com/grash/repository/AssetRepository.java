@@ -58,6 +58,15 @@ public interface AssetRepository extends JpaRepository<Asset, Long>, JpaSpecific
             "WHERE a.company.id = :companyId")
     Page<Asset> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    @Query("SELECT a FROM Asset a " +
+            "LEFT JOIN FETCH a.location " +
+            "LEFT JOIN FETCH a.parentAsset " +
+            "LEFT JOIN FETCH a.category " +
+            "LEFT JOIN FETCH a.primaryUser " +
+            "WHERE a.company.id = :companyId AND a.id > :afterId ORDER BY a.id")
+    List<Asset> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                               Pageable pageable);
+
     List<Asset> findByCompany_IdAndCreatedAtBefore(Long id, Date date);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
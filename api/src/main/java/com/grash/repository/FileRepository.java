@@ -2,7 +2,12 @@ package com.grash.repository;
 
 import com.grash.model.File;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -11,4 +16,13 @@ public interface FileRepository extends JpaRepository<File, Long>, JpaSpecificat
     Collection<File> findByCompany_Id(Long id);
 
     List<File> findByIdIn(List<Long> ids);
+
+    @Query("SELECT f FROM File f WHERE f.type = com.grash.model.enums.FileType.IMAGE " +
+            "AND f.thumbnailPath IS NULL AND f.id > :afterId ORDER BY f.id")
+    List<File> findImagesWithoutThumbnail(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.thumbnailPath = :thumbnailPath WHERE f.id = :id")
+    void updateThumbnailPath(@Param("id") Long id, @Param("thumbnailPath") String thumbnailPath);
 }
@@ -2,11 +2,19 @@ package com.grash.repository;
 
 import com.grash.model.Labor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.Date;
 
 public interface LaborRepository extends JpaRepository<Labor, Long> {
     Collection<Labor> findByWorkOrder_Id(Long id);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
+
+    @Query("SELECT COALESCE(SUM(l.duration), 0) FROM Labor l " +
+            "WHERE l.workOrder.company.id = :companyId AND l.workOrder.createdAt BETWEEN :start AND :end")
+    long sumDurationByWorkOrderCompanyAndCreatedAtBetween(@Param("companyId") Long companyId,
+                                                          @Param("start") Date start, @Param("end") Date end);
 }
@@ -30,6 +30,12 @@ public interface LocationRepository extends JpaRepository<Location, Long>, JpaSp
             "WHERE l.company.id = :companyId")
     Page<Location> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    @Query("SELECT l FROM Location l " +
+            "LEFT JOIN FETCH l.parentLocation " +
+            "WHERE l.company.id = :companyId AND l.id > :afterId ORDER BY l.id")
+    List<Location> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
     List<Location> findByNameIgnoreCaseAndCompany_Id(String locationName, Long companyId);
 
     Optional<Location> findByIdAndCompany_Id(Long id, Long companyId);
@@ -0,0 +1,43 @@
+package com.grash.repository;
+
+import com.grash.model.MailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    /**
+     * Leases up to limit due mails to the caller by moving their next attempt past the lease. Concurrent callers
+     * skip each other's rows, so a mail is leased by one caller at a time.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE mail_outbox SET lease_token = :leaseToken, next_attempt_at = :leaseUntil
+            WHERE id IN (
+              SELECT id FROM mail_outbox
+              WHERE status = 0 AND next_attempt_at <= :now
+              ORDER BY next_attempt_at
+              LIMIT :limit
+              FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int lease(@Param("leaseToken") String leaseToken,
+              @Param("now") Date now,
+              @Param("leaseUntil") Date leaseUntil,
+              @Param("limit") int limit);
+
+    List<MailOutbox> findByLeaseTokenOrderById(String leaseToken);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE m.status = com.grash.model.enums.MailOutboxStatus.FAILED " +
+            "AND m.createdAt < :before")
+    int deleteFailedBefore(@Param("before") Date before);
+}
@@ -26,6 +26,14 @@ public interface MeterRepository extends JpaRepository<Meter, Long>, JpaSpecific
             "WHERE m.company.id = :companyId")
     Page<Meter> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    @Query("SELECT m FROM Meter m " +
+            "LEFT JOIN FETCH m.meterCategory " +
+            "LEFT JOIN FETCH m.location " +
+            "LEFT JOIN FETCH m.asset " +
+            "WHERE m.company.id = :companyId AND m.id > :afterId ORDER BY m.id")
+    List<Meter> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                               Pageable pageable);
+
     Optional<Meter> findByIdAndCompany_Id(Long id, Long companyId);
 
     List<Meter> findByIdInAndCompany_Id(List<Long> ids, Long companyId);
@@ -28,6 +28,12 @@ public interface PartRepository extends JpaRepository<Part, Long>, JpaSpecificat
             "WHERE p.company.id = :companyId")
     Page<Part> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    @Query("SELECT p FROM Part p " +
+            "LEFT JOIN FETCH p.category " +
+            "WHERE p.company.id = :companyId AND p.id > :afterId ORDER BY p.id")
+    List<Part> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                              Pageable pageable);
+
     Optional<Part> findByBarcodeAndCompany_Id(String barcode, Long companyId);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
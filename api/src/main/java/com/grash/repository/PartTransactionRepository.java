@@ -12,6 +12,11 @@ import java.util.Date;
 import java.util.List;
 
 public interface PartTransactionRepository extends JpaRepository<PartTransaction, Long> {
+    String CONSUMPTION_FILTER = """
+             pt.company_id = :companyId
+             AND pt.created_at BETWEEN :start AND :end
+             AND pt.quantity > 0
+            """;
     Collection<PartTransaction> findByCompany_Id(Long id);
 
     Collection<PartTransaction> findByWorkOrder_Id(Long id);
@@ -43,6 +48,16 @@ public interface PartTransactionRepository extends JpaRepository<PartTransaction
             """)
     Page<PartTransaction> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    @Query("""
+            SELECT pt FROM PartTransaction pt
+            LEFT JOIN FETCH pt.part
+            LEFT JOIN FETCH pt.workOrder
+            WHERE pt.company.id = :companyId AND pt.id > :afterId
+            ORDER BY pt.id
+            """)
+    List<PartTransaction> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
     @Query(value = """
             SELECT a.id, a.name, COALESCE(SUM(p.cost * pt.quantity), 0) AS total_cost
             FROM part_transaction pt
@@ -60,4 +75,33 @@ public interface PartTransactionRepository extends JpaRepository<PartTransaction
                                                @Param("start") Date start,
                                                @Param("end") Date end,
                                                @Param("limit") int limit);
+
+    @Query(value = "SELECT COALESCE(SUM(p.cost * pt.quantity), 0), " +
+            "COALESCE(SUM(CASE WHEN p.unit IS NULL THEN TRUNC(pt.quantity) ELSE 0 END), 0) " +
+            "FROM part_transaction pt JOIN part p ON pt.part_id = p.id WHERE" + CONSUMPTION_FILTER, nativeQuery = true)
+    List<Object[]> sumConsumptions(@Param("companyId") Long companyId,
+                                   @Param("start") Date start,
+                                   @Param("end") Date end);
+
+    @Query(value = "SELECT p.id, p.name, SUM(p.cost * pt.quantity) AS total_cost " +
+            "FROM part_transaction pt JOIN part p ON pt.part_id = p.id WHERE" + CONSUMPTION_FILTER +
+            "GROUP BY p.id, p.name ORDER BY total_cost DESC", nativeQuery = true)
+    List<Object[]> findConsumptionCostsByPart(@Param("companyId") Long companyId,
+                                              @Param("start") Date start,
+                                              @Param("end") Date end);
+
+    @Query(value = "SELECT p.category_id, COUNT(*), SUM(p.cost * pt.quantity) " +
+            "FROM part_transaction pt JOIN part p ON pt.part_id = p.id WHERE" + CONSUMPTION_FILTER +
+            "AND p.category_id IS NOT NULL GROUP BY p.category_id", nativeQuery = true)
+    List<Object[]> aggregateConsumptionsByPartCategory(@Param("companyId") Long companyId,
+                                                       @Param("start") Date start,
+                                                       @Param("end") Date end);
+
+    @Query(value = "SELECT wo.category_id, COUNT(*), SUM(p.cost * pt.quantity) " +
+            "FROM part_transaction pt JOIN part p ON pt.part_id = p.id " +
+            "JOIN work_order wo ON pt.work_order_id = wo.id WHERE" + CONSUMPTION_FILTER +
+            "AND wo.category_id IS NOT NULL GROUP BY wo.category_id", nativeQuery = true)
+    List<Object[]> aggregateConsumptionsByWorkOrderCategory(@Param("companyId") Long companyId,
+                                                            @Param("start") Date start,
+                                                            @Param("end") Date end);
 }
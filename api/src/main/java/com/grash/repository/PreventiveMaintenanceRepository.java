@@ -18,7 +18,13 @@ public interface PreventiveMaintenanceRepository extends JpaRepository<Preventiv
         JpaSpecificationExecutor<PreventiveMaintenance> {
     Collection<PreventiveMaintenance> findByCompany_Id(@Param("x") Long id);
 
-    List<PreventiveMaintenance> findByCreatedAtBeforeAndCompany_Id(Date start, Long companyId);
+    @Query("SELECT p FROM PreventiveMaintenance p JOIN FETCH p.schedule s LEFT JOIN FETCH s.daysOfWeek " +
+            "WHERE p.createdAt < :end AND p.company.id = :companyId AND s.disabled = false " +
+            "AND s.recurrenceBasedOn = com.grash.model.enums.RecurrenceBasedOn.SCHEDULED_DATE " +
+            "AND (s.endsOn IS NULL OR s.endsOn >= :from)")
+    List<PreventiveMaintenance> findScheduledBeforeAndCompany(@Param("end") Date end,
+                                                              @Param("companyId") Long companyId,
+                                                              @Param("from") Date from);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 
@@ -35,4 +41,11 @@ public interface PreventiveMaintenanceRepository extends JpaRepository<Preventiv
             "LEFT JOIN FETCH p.location LEFT JOIN FETCH p.asset " +
             "WHERE p.company.id = :companyId")
     Page<PreventiveMaintenance> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
+
+    @Query("SELECT p FROM PreventiveMaintenance p LEFT JOIN FETCH p.schedule " +
+            "LEFT JOIN FETCH p.team LEFT JOIN FETCH p.primaryUser LEFT JOIN FETCH p.category " +
+            "LEFT JOIN FETCH p.location LEFT JOIN FETCH p.asset " +
+            "WHERE p.company.id = :companyId AND p.id > :afterId ORDER BY p.id")
+    List<PreventiveMaintenance> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                                               Pageable pageable);
 }
@@ -1,13 +1,20 @@
 package com.grash.repository;
 
 import com.grash.model.Reading;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReadingRepository extends JpaRepository<Reading, Long> {
     @Query("SELECT r from Reading r where r.meter.company.id = :x ")
@@ -17,5 +24,74 @@ public interface ReadingRepository extends JpaRepository<Reading, Long> {
 
     Optional<Reading> findFirstByMeter_IdOrderByCreatedAtDesc(Long id);
 
-    Collection<Reading> findByMeter_IdAndCreatedAtBetween(Long meterId, Date start, Date end);
+    @Query("SELECT r.meter.id, MAX(r.createdAt) FROM Reading r WHERE r.meter.id IN :meterIds GROUP BY r.meter.id")
+    List<Object[]> findLastCreatedAtByMeterIds(@Param("meterIds") Collection<Long> meterIds);
+
+    @Query("SELECT r.createdAt, r.value FROM Reading r " +
+            "WHERE r.meter.id = :meterId AND r.createdAt BETWEEN :start AND :end")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamValuesByMeter(@Param("meterId") Long meterId, @Param("start") Date start,
+                                         @Param("end") Date end);
+
+    /**
+     * Average, minimum, maximum and count of the readings per bucket of {@code bucketDays} days, starting at
+     * {@code origin}. Buckets are computed on the wall clock of {@code timeZone}; {@code storageTimeZone} is the one
+     * created_at is stored in.
+     */
+    @Query(value = "SELECT date_bin(make_interval(days => :bucketDays), " +
+            "       (r.created_at AT TIME ZONE :storageTimeZone) AT TIME ZONE :timeZone, " +
+            "       CAST(:origin AS timestamp)) AS bucket, " +
+            "AVG(r.value), MIN(r.value), MAX(r.value), COUNT(*) " +
+            "FROM reading r " +
+            "WHERE r.meter_id = :meterId AND r.created_at BETWEEN :start AND :end " +
+            "GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> findHistogram(@Param("meterId") Long meterId, @Param("start") Date start,
+                                 @Param("end") Date end, @Param("origin") LocalDateTime origin,
+                                 @Param("bucketDays") int bucketDays, @Param("timeZone") String timeZone,
+                                 @Param("storageTimeZone") String storageTimeZone);
+
+    /**
+     * Same as {@link #findHistogram} from the hourly rollup, for long ranges. The rollup hours are UTC hours, so with
+     * a {@code timeZone} whose offset is not a whole number of hours, a day bucket gets the readings of the UTC hours
+     * starting in it, up to 45 minutes off its wall clock edges.
+     */
+    @Query(value = "SELECT date_bin(make_interval(days => :bucketDays), " +
+            "       (h.hour_start AT TIME ZONE 'UTC') AT TIME ZONE :timeZone, " +
+            "       CAST(:origin AS timestamp)) AS bucket, " +
+            "SUM(h.value_sum) / SUM(h.reading_count), MIN(h.value_min), MAX(h.value_max), SUM(h.reading_count) " +
+            "FROM reading_hourly_rollup h " +
+            "WHERE h.meter_id = :meterId " +
+            "AND h.hour_start >= date_trunc('hour', (CAST(:start AS timestamp) AT TIME ZONE :storageTimeZone) " +
+            "    AT TIME ZONE 'UTC') " +
+            "AND h.hour_start <= (CAST(:end AS timestamp) AT TIME ZONE :storageTimeZone) AT TIME ZONE 'UTC' " +
+            "GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> findHistogramFromRollup(@Param("meterId") Long meterId, @Param("start") Date start,
+                                           @Param("end") Date end, @Param("origin") LocalDateTime origin,
+                                           @Param("bucketDays") int bucketDays, @Param("timeZone") String timeZone,
+                                           @Param("storageTimeZone") String storageTimeZone);
+
+    @Query(value = "SELECT MAX(rolled_up_at) FROM reading_hourly_rollup", nativeQuery = true)
+    Date findLastRollupDate();
+
+    /**
+     * Recomputes the hourly rollup of every meter UTC hour that has a reading created or updated in
+     * {@code (since, until]}. {@code storageTimeZone} is the one created_at is stored in.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reading_hourly_rollup " +
+            "(meter_id, hour_start, reading_count, value_sum, value_min, value_max, rolled_up_at) " +
+            "SELECT r.meter_id, touched.hour_start, COUNT(*), SUM(r.value), MIN(r.value), MAX(r.value), :until " +
+            "FROM (SELECT DISTINCT meter_id, " +
+            "      date_trunc('hour', (created_at AT TIME ZONE :storageTimeZone) AT TIME ZONE 'UTC') AS hour_start " +
+            "      FROM reading WHERE updated_at > :since AND updated_at <= :until) touched " +
+            "JOIN reading r ON r.meter_id = touched.meter_id " +
+            "AND r.created_at >= (touched.hour_start AT TIME ZONE 'UTC') AT TIME ZONE :storageTimeZone " +
+            "AND r.created_at < ((touched.hour_start + INTERVAL '1 hour') AT TIME ZONE 'UTC') " +
+            "    AT TIME ZONE :storageTimeZone " +
+            "GROUP BY r.meter_id, touched.hour_start " +
+            "ON CONFLICT (meter_id, hour_start) DO UPDATE SET reading_count = EXCLUDED.reading_count, " +
+            "value_sum = EXCLUDED.value_sum, value_min = EXCLUDED.value_min, value_max = EXCLUDED.value_max, " +
+            "rolled_up_at = EXCLUDED.rolled_up_at", nativeQuery = true)
+    int rollUpReadingsUpdatedBetween(@Param("since") Date since, @Param("until") Date until,
+                                     @Param("storageTimeZone") String storageTimeZone);
 }
@@ -8,6 +8,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     @Query("SELECT s from Schedule s where s.preventiveMaintenance.company.id = :x ")
@@ -42,4 +45,30 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
                 where s.preventiveMaintenance.company.id = :companyId
             """)
     void updateDisabledTrueByCompanyId(@Param("companyId") Long companyId);
+
+    @Modifying
+    @Query("update Schedule s set s.nextDueAt = null, s.nextNotificationAt = null where s.id = :id")
+    void clearNextRuns(@Param("id") Long id);
+
+    @Query(value = "SELECT * FROM schedule " +
+            "WHERE next_due_at <= :now AND disabled = false " +
+            "ORDER BY next_due_at " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Schedule> findDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM schedule " +
+            "WHERE id = :id AND next_due_at <= :now AND disabled = false " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Schedule> findDueForUpdateById(@Param("id") Long id, @Param("now") Date now);
+
+    @Query(value = "SELECT id FROM schedule " +
+            "WHERE next_due_at <= :now AND disabled = false " +
+            "ORDER BY next_due_at LIMIT :limit", nativeQuery = true)
+    List<Long> findDueIds(@Param("now") Date now, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM schedule " +
+            "WHERE next_notification_at <= :now AND disabled = false " +
+            "ORDER BY next_notification_at " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Schedule> findNotificationDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
 }
@@ -50,4 +50,36 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     List<User> findByIdInAndCompany_Id(Collection<Long> longs, Long id);
 
     Optional<User> findBySsoProviderIdAndSsoProvider(String ldapId, String provider);
+
+    /**
+     * One row per user, in the column order expected by {@code UserPrincipal.fromRow}. Element collections are
+     * aggregated into comma separated ordinals so the principal is read in a single round trip.
+     */
+    @Query(value = """
+            SELECT u.id, u.email, u.enabled,
+                   CAST(EXTRACT(EPOCH FROM u.session_invalidated_at) * 1000 AS BIGINT),
+                   u.company_id, c.company_settings_id, u.role_id, r.role_type,
+                   (SELECT STRING_AGG(CAST(p.create_permissions AS VARCHAR), ',')
+                    FROM role_create_permissions p WHERE p.role_id = r.id),
+                   (SELECT STRING_AGG(CAST(p.view_permissions AS VARCHAR), ',')
+                    FROM role_view_permissions p WHERE p.role_id = r.id),
+                   (SELECT STRING_AGG(CAST(p.view_other_permissions AS VARCHAR), ',')
+                    FROM role_view_other_permissions p WHERE p.role_id = r.id),
+                   (SELECT STRING_AGG(CAST(p.edit_other_permissions AS VARCHAR), ',')
+                    FROM role_edit_other_permissions p WHERE p.role_id = r.id),
+                   (SELECT STRING_AGG(CAST(p.delete_other_permissions AS VARCHAR), ',')
+                    FROM role_delete_other_permissions p WHERE p.role_id = r.id),
+                   (SELECT STRING_AGG(CAST(f.features AS VARCHAR), ',')
+                    FROM subscription s JOIN subscription_plan_features f
+                        ON f.subscription_plan_id = s.subscription_plan_id
+                    WHERE s.id = c.subscription_id),
+                   (SELECT STRING_AGG(CAST(child.company_id AS VARCHAR), ',')
+                    FROM super_account_relation sar JOIN own_user child ON child.id = sar.child_user_id
+                    WHERE sar.super_user_id = u.id)
+            FROM own_user u
+            LEFT JOIN company c ON c.id = u.company_id
+            LEFT JOIN role r ON r.id = u.role_id
+            WHERE LOWER(u.email) = LOWER(:email)
+            """, nativeQuery = true)
+    List<Object[]> findPrincipalRowByEmail(@Param("email") String email);
 }
@@ -0,0 +1,61 @@
+package com.grash.repository;
+
+import com.grash.model.WebhookDelivery;
+import com.grash.model.enums.webhook.WebhookDeliveryStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    /**
+     * Leases up to limit due deliveries to the caller by moving their next attempt past the lease. Concurrent
+     * callers skip each other's rows, so a delivery is leased by one caller at a time.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE webhook_delivery SET lease_token = :leaseToken, next_attempt_at = :leaseUntil
+            WHERE id IN (
+              SELECT id FROM webhook_delivery
+              WHERE status = 0 AND next_attempt_at <= :now
+              ORDER BY next_attempt_at
+              LIMIT :limit
+              FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int lease(@Param("leaseToken") String leaseToken,
+              @Param("now") Date now,
+              @Param("leaseUntil") Date leaseUntil,
+              @Param("limit") int limit);
+
+    @Query("SELECT d.id FROM WebhookDelivery d WHERE d.leaseToken = :leaseToken")
+    List<Long> findIdsByLeaseToken(@Param("leaseToken") String leaseToken);
+
+    /**
+     * Writes the outcome of a delivery and clears its lease, if the lease is still held with the token
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = :status, d.attempts = :attempts, " +
+            "d.nextAttemptAt = :nextAttemptAt, d.deliveredAt = :deliveredAt, d.lastError = :lastError, " +
+            "d.leaseToken = NULL WHERE d.id = :id AND d.leaseToken = :leaseToken")
+    int release(@Param("id") Long id,
+                @Param("leaseToken") String leaseToken,
+                @Param("status") WebhookDeliveryStatus status,
+                @Param("attempts") int attempts,
+                @Param("nextAttemptAt") Date nextAttemptAt,
+                @Param("deliveredAt") Date deliveredAt,
+                @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM WebhookDelivery d WHERE d.status = com.grash.model.enums.webhook.WebhookDeliveryStatus.DELIVERED " +
+            "AND d.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") Date before);
+}
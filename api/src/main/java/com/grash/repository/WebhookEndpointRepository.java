@@ -2,7 +2,13 @@ package com.grash.repository;
 
 import com.grash.model.WebhookEndpoint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +16,10 @@ public interface WebhookEndpointRepository extends JpaRepository<WebhookEndpoint
     List<WebhookEndpoint> findByCompanyIdAndEnabled(Long companyId, boolean enabled);
 
     Optional<WebhookEndpoint> findByIdAndCompanyId(Long id, Long companyId);
-}
\ No newline at end of file
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEndpoint e SET e.lastTriggeredAt = :triggeredAt WHERE e.id IN :ids " +
+            "AND (e.lastTriggeredAt IS NULL OR e.lastTriggeredAt < :triggeredAt)")
+    int updateLastTriggeredAt(@Param("ids") Collection<Long> ids, @Param("triggeredAt") Date triggeredAt);
+}
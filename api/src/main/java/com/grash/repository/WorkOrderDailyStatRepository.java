@@ -0,0 +1,136 @@
+package com.grash.repository;
+
+import com.grash.model.WorkOrderDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface WorkOrderDailyStatRepository extends JpaRepository<WorkOrderDailyStat, Long> {
+
+    String BUCKET = "company_id, stat_date, status, priority, category_id, primary_user_id, asset_id";
+
+    String MEASURES = """
+            wo_count, compliant_count, estimated_duration_sum, reacted_count, reaction_hours_sum, cycle_count,
+            cycle_time_days_sum, created_at_epoch_sum""";
+
+    /**
+     * The contribution of each selected work order, in the columns of work_order_stat_entry
+     */
+    String SELECT_ENTRIES = """
+            SELECT wo.id,
+                   wo.company_id,
+                   CAST(wo.created_at AS DATE),
+                   COALESCE(wo.status, 0),
+                   COALESCE(wo.priority, 0),
+                   COALESCE(wo.category_id, 0),
+                   COALESCE(wo.primary_user_id, 0),
+                   COALESCE(wo.asset_id, 0),
+                   1,
+                   CASE WHEN wo.status = 3 AND (wo.due_date IS NULL OR wo.completed_on < wo.due_date)
+                       THEN 1 ELSE 0 END,
+                   COALESCE(wo.estimated_duration, 0),
+                   CASE WHEN wo.first_time_to_react IS NULL THEN 0 ELSE 1 END,
+                   COALESCE(TRUNC(EXTRACT(EPOCH FROM (wo.first_time_to_react - wo.created_at)) / 3600), 0),
+                   CASE WHEN wo.status = 3 AND wo.completed_on IS NOT NULL THEN 1 ELSE 0 END,
+                   CASE WHEN wo.status = 3 AND wo.completed_on IS NOT NULL
+                       THEN TRUNC(EXTRACT(EPOCH FROM (wo.completed_on - COALESCE(pr.created_at, wo.created_at)))
+                                  / 86400)
+                       ELSE 0 END,
+                   TRUNC(EXTRACT(EPOCH FROM COALESCE(pr.created_at, wo.created_at)))
+            FROM work_order wo
+            LEFT JOIN request pr ON wo.parent_request_id = pr.id
+            WHERE wo.company_id IS NOT NULL
+              AND wo.created_at IS NOT NULL
+            """;
+
+    /**
+     * Adds the sums of the rows of "entries" to their buckets, negative ones subtracting. Only the bucket rows
+     * touched are locked, so writes to different buckets of a company don't wait for each other.
+     */
+    String UPSERT_BUCKETS = """
+            INSERT INTO work_order_daily_stat (""" + BUCKET + ", " + MEASURES + """
+            )
+            SELECT company_id, stat_date, status, priority, category_id, primary_user_id, asset_id,
+                   SUM(wo_count), SUM(compliant_count), SUM(estimated_duration_sum),
+                   SUM(reacted_count), SUM(reaction_hours_sum), SUM(cycle_count),
+                   SUM(cycle_time_days_sum), SUM(created_at_epoch_sum)
+            FROM entries
+            GROUP BY company_id, stat_date, status, priority, category_id, primary_user_id, asset_id
+            ON CONFLICT (""" + BUCKET + """
+            ) DO UPDATE SET
+                wo_count = work_order_daily_stat.wo_count + EXCLUDED.wo_count,
+                compliant_count = work_order_daily_stat.compliant_count + EXCLUDED.compliant_count,
+                estimated_duration_sum = work_order_daily_stat.estimated_duration_sum + EXCLUDED.estimated_duration_sum,
+                reacted_count = work_order_daily_stat.reacted_count + EXCLUDED.reacted_count,
+                reaction_hours_sum = work_order_daily_stat.reaction_hours_sum + EXCLUDED.reaction_hours_sum,
+                cycle_count = work_order_daily_stat.cycle_count + EXCLUDED.cycle_count,
+                cycle_time_days_sum = work_order_daily_stat.cycle_time_days_sum + EXCLUDED.cycle_time_days_sum,
+                created_at_epoch_sum = work_order_daily_stat.created_at_epoch_sum + EXCLUDED.created_at_epoch_sum
+            """;
+
+    /**
+     * Removes the recorded contributions of the work orders and subtracts them from their buckets
+     */
+    @Modifying
+    @Query(value = """
+            WITH removed AS (DELETE FROM work_order_stat_entry WHERE work_order_id IN (:workOrderIds) RETURNING *),
+            entries AS (SELECT company_id, stat_date, status, priority, category_id, primary_user_id, asset_id,
+                               -wo_count AS wo_count, -compliant_count AS compliant_count,
+                               -estimated_duration_sum AS estimated_duration_sum, -reacted_count AS reacted_count,
+                               -reaction_hours_sum AS reaction_hours_sum, -cycle_count AS cycle_count,
+                               -cycle_time_days_sum AS cycle_time_days_sum,
+                               -created_at_epoch_sum AS created_at_epoch_sum
+                        FROM removed)
+            """ + UPSERT_BUCKETS, nativeQuery = true)
+    void subtractEntries(@Param("workOrderIds") Collection<Long> workOrderIds);
+
+    /**
+     * Records the current contributions of the work orders and adds them to their buckets
+     */
+    @Modifying
+    @Query(value = """
+            WITH entries AS (INSERT INTO work_order_stat_entry (work_order_id, """ + BUCKET + ", " + MEASURES + """
+            )
+            """ + SELECT_ENTRIES + """
+              AND wo.id IN (:workOrderIds)
+            RETURNING *)
+            """ + UPSERT_BUCKETS, nativeQuery = true)
+    void addEntries(@Param("workOrderIds") Collection<Long> workOrderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM work_order_stat_entry WHERE company_id = :companyId", nativeQuery = true)
+    void deleteEntriesByCompany(@Param("companyId") Long companyId);
+
+    @Modifying
+    @Query(value = "DELETE FROM work_order_daily_stat WHERE company_id = :companyId", nativeQuery = true)
+    void deleteByCompany(@Param("companyId") Long companyId);
+
+    @Modifying
+    @Query(value = """
+            WITH entries AS (INSERT INTO work_order_stat_entry (work_order_id, """ + BUCKET + ", " + MEASURES + """
+            )
+            """ + SELECT_ENTRIES + """
+              AND wo.company_id = :companyId
+            RETURNING *)
+            """ + UPSERT_BUCKETS, nativeQuery = true)
+    void addEntriesByCompany(@Param("companyId") Long companyId);
+
+    /**
+     * Sums every measure of the company's buckets between two days (inclusive), grouped by status and priority.
+     * Columns: status, priority, count, compliant, estimated duration, reacted, reaction hours, cycle count,
+     * cycle days, creation epoch sum
+     */
+    @Query("SELECT s.status, s.priority, SUM(s.woCount), SUM(s.compliantCount), SUM(s.estimatedDurationSum), " +
+            "SUM(s.reactedCount), SUM(s.reactionHoursSum), SUM(s.cycleCount), SUM(s.cycleTimeDaysSum), " +
+            "SUM(s.createdAtEpochSum) " +
+            "FROM WorkOrderDailyStat s " +
+            "WHERE s.companyId = :companyId AND s.statDate BETWEEN :start AND :end " +
+            "GROUP BY s.status, s.priority")
+    List<Object[]> sumByStatusAndPriority(@Param("companyId") Long companyId, @Param("start") LocalDate start,
+                                          @Param("end") LocalDate end);
+}
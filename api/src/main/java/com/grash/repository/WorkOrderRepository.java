@@ -15,6 +15,23 @@ import java.util.List;
 import java.util.Optional;
 
 public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, JpaSpecificationExecutor<WorkOrder> {
+    /*
+     * Grouped aggregations return one (key, count, sum) row per group, the sum being the age in days of each work
+     * order: until completion for complete ones, until :now otherwise. The status is tested like in AGGREGATE_FILTER,
+     * as a reopened work order may keep its former completion date.
+     */
+    String AGGREGATE_MEASURES = """
+             COUNT(*),
+             COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (
+                 CASE WHEN wo.status = 3 THEN COALESCE(wo.completed_on, :now) ELSE :now END - wo.created_at))
+                 / 86400)), 0)
+            """;
+    String AGGREGATE_FILTER = """
+             wo.company_id = :companyId
+             AND wo.created_at BETWEEN :start AND :end
+             AND (wo.status = 3) = :complete
+            """;
+
     Collection<WorkOrder> findByCompany_Id(Long id);
 
     @Query("SELECT w FROM WorkOrder w " +
@@ -26,6 +43,20 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, Jpa
             "WHERE w.company.id = :companyId")
     Page<WorkOrder> findByCompanyForExport(@Param("companyId") Long companyId, Pageable pageable);
 
+    /**
+     * Keyset page of work orders with an id above afterId, with the to-one associations the export reads
+     */
+    @Query("SELECT w FROM WorkOrder w " +
+            "LEFT JOIN FETCH w.category " +
+            "LEFT JOIN FETCH w.location " +
+            "LEFT JOIN FETCH w.team " +
+            "LEFT JOIN FETCH w.primaryUser " +
+            "LEFT JOIN FETCH w.asset " +
+            "LEFT JOIN FETCH w.completedBy " +
+            "WHERE w.company.id = :companyId AND w.id > :afterId ORDER BY w.id")
+    List<WorkOrder> findExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
     Collection<WorkOrder> findByIdInAndCompany_Id(List<Long> ids, Long companyId);
 
     Collection<WorkOrder> findByAsset_Id(Long id);
@@ -283,4 +314,65 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, Jpa
             @Param("companyId") Long companyId,
             Pageable pageable
     );
+
+    @Query("""
+                SELECT w
+                FROM WorkOrder w
+                WHERE w.company.id = :companyId
+                AND w.id > :afterId
+                AND (EXISTS (SELECT l.id FROM Labor l WHERE l.workOrder.id = w.id)
+                     OR EXISTS (SELECT ac.id FROM AdditionalCost ac WHERE ac.workOrder.id = w.id))
+                ORDER BY w.id
+            """)
+    List<WorkOrder> findTimeAndCostExportPage(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
+    @Query(value = "SELECT wo.completed_by_id," + AGGREGATE_MEASURES + "FROM work_order wo WHERE" + AGGREGATE_FILTER +
+            "AND wo.completed_by_id IS NOT NULL GROUP BY wo.completed_by_id", nativeQuery = true)
+    List<Object[]> aggregateByCompletedBy(@Param("companyId") Long companyId,
+                                          @Param("start") Date start,
+                                          @Param("end") Date end,
+                                          @Param("complete") boolean complete,
+                                          @Param("now") Date now);
+
+    @Query(value = "SELECT wo.priority," + AGGREGATE_MEASURES + "FROM work_order wo WHERE" + AGGREGATE_FILTER +
+            "GROUP BY wo.priority", nativeQuery = true)
+    List<Object[]> aggregateByPriority(@Param("companyId") Long companyId,
+                                       @Param("start") Date start,
+                                       @Param("end") Date end,
+                                       @Param("complete") boolean complete,
+                                       @Param("now") Date now);
+
+    @Query(value = "SELECT wo.category_id," + AGGREGATE_MEASURES + "FROM work_order wo WHERE" + AGGREGATE_FILTER +
+            "AND wo.category_id IS NOT NULL GROUP BY wo.category_id", nativeQuery = true)
+    List<Object[]> aggregateByCategory(@Param("companyId") Long companyId,
+                                       @Param("start") Date start,
+                                       @Param("end") Date end,
+                                       @Param("complete") boolean complete,
+                                       @Param("now") Date now);
+
+    @Query(value = "SELECT wo.asset_id," + AGGREGATE_MEASURES + "FROM work_order wo WHERE" + AGGREGATE_FILTER +
+            "AND wo.asset_id IS NOT NULL GROUP BY wo.asset_id", nativeQuery = true)
+    List<Object[]> aggregateByAsset(@Param("companyId") Long companyId,
+                                    @Param("start") Date start,
+                                    @Param("end") Date end,
+                                    @Param("complete") boolean complete,
+                                    @Param("now") Date now);
+
+    @Query(value = "WITH assignee AS (" +
+            "SELECT wo.id AS work_order_id, wo.primary_user_id AS user_id FROM work_order wo " +
+            "WHERE wo.primary_user_id IS NOT NULL AND" + AGGREGATE_FILTER +
+            "UNION " +
+            "SELECT wo.id, wa.assigned_to_id FROM work_order wo " +
+            "JOIN work_order_assigned_to wa ON wa.work_order_id = wo.id WHERE" + AGGREGATE_FILTER +
+            "UNION " +
+            "SELECT wo.id, tu.id_user FROM work_order wo " +
+            "JOIN t_team_user_associations tu ON tu.id_team = wo.team_id WHERE" + AGGREGATE_FILTER +
+            ") SELECT a.user_id," + AGGREGATE_MEASURES +
+            "FROM assignee a JOIN work_order wo ON wo.id = a.work_order_id GROUP BY a.user_id", nativeQuery = true)
+    List<Object[]> aggregateByAssignedUser(@Param("companyId") Long companyId,
+                                           @Param("start") Date start,
+                                           @Param("end") Date end,
+                                           @Param("complete") boolean complete,
+                                           @Param("now") Date now);
 }
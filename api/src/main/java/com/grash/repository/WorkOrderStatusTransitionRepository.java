@@ -0,0 +1,56 @@
+package com.grash.repository;
+
+import com.grash.model.WorkOrderStatusTransition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface WorkOrderStatusTransitionRepository extends JpaRepository<WorkOrderStatusTransition, Long> {
+
+    @Query("SELECT MAX(t.rev) FROM WorkOrderStatusTransition t")
+    Integer findLastRev();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO work_order_status_transition (company_id, work_order_id, rev, changed_at, status)
+            SELECT wo.company_id, a.id, a.rev, r.revtstmp, a.status
+            FROM work_order_aud a
+            JOIN revinfo r ON r.rev = a.rev
+            JOIN work_order wo ON wo.id = a.id
+            WHERE a.rev > :afterRev
+              AND (a.revtype = 0 OR a.status_mod IS NOT FALSE)
+            ON CONFLICT ON CONSTRAINT uk_work_order_status_transition_rev DO NOTHING
+            """, nativeQuery = true)
+    int appendAfter(@Param("afterRev") int afterRev);
+
+    //id, created_at and current status of the work orders created between both dates, by creation date
+    @Query(value = """
+            SELECT wo.id, wo.created_at, wo.status
+            FROM work_order wo
+            WHERE wo.company_id = :companyId
+              AND wo.created_at BETWEEN :start AND :end
+            ORDER BY wo.created_at
+            """, nativeQuery = true)
+    List<Object[]> findWorkOrderStates(@Param("companyId") Long companyId,
+                                       @Param("start") Date start,
+                                       @Param("end") Date end);
+
+    //work order id, timestamp and status of the transitions of those work orders, in revision order
+    @Query(value = """
+            SELECT t.work_order_id, t.changed_at, t.status
+            FROM work_order_status_transition t
+            JOIN work_order wo ON wo.id = t.work_order_id
+            WHERE t.company_id = :companyId
+              AND wo.created_at BETWEEN :start AND :end
+              AND t.changed_at <= :until
+            ORDER BY t.changed_at, t.rev
+            """, nativeQuery = true)
+    List<Object[]> findTransitions(@Param("companyId") Long companyId,
+                                   @Param("start") Date start,
+                                   @Param("end") Date end,
+                                   @Param("until") long until);
+}
@@ -1,11 +1,15 @@
 package com.grash.security;
 
+import com.grash.exception.CustomException;
 import com.grash.model.User;
 import com.grash.service.UserService;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
@@ -30,10 +34,26 @@ public class CurrentUserResolver implements HandlerMethodArgumentResolver {
         return parameter.getParameterAnnotation(CurrentUser.class) != null;
     }
 
+    /**
+     * Resolves {@link UserPrincipal} parameters straight from the security context without touching the database.
+     * {@link User} parameters are loaded from the authenticated principal when there is one.
+     */
     @Override
-    public User resolveArgument(@NotNull MethodParameter parameter, ModelAndViewContainer mavContainer,
-                                NativeWebRequest webRequest,
-                                WebDataBinderFactory binderFactory) throws Exception {
+    public Object resolveArgument(@NotNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) throws Exception {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserDetail userDetail = auth != null && auth.getPrincipal() instanceof CustomUserDetail detail
+                ? detail : null;
+        if (UserPrincipal.class.equals(parameter.getParameterType())) {
+            if (userDetail == null) {
+                throw new CustomException("Authentication required", HttpStatus.UNAUTHORIZED);
+            }
+            return userDetail.getPrincipal();
+        }
+        if (userDetail != null) {
+            return userDetail.getUser();
+        }
         return userService.whoami(webRequest.getNativeRequest(HttpServletRequest.class));
     }
 }
@@ -8,52 +8,75 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Supplier;
 
-@Builder
 public class CustomUserDetail implements UserDetails {
     private static final long serialVersionUID = 1L;
+    private UserPrincipal principal;
     private User user;
+    private final transient Supplier<User> userLoader;
 
+    /**
+     * Built either around a loaded {@link User}, or around a cached {@link UserPrincipal} together with a loader
+     * that fetches the entity only for the callers that still need it.
+     */
+    @Builder
+    private CustomUserDetail(User user, UserPrincipal principal, Supplier<User> userLoader) {
+        this.user = user;
+        this.principal = principal != null || user == null ? principal : UserPrincipal.of(user);
+        this.userLoader = userLoader;
+    }
+
+    public UserPrincipal getPrincipal() {
+        return principal;
+    }
+
+    //the loaded user is kept, so that it is fetched at most once per request; instances are not shared between
+    //requests
     public User getUser() {
+        if (user == null && userLoader != null) {
+            user = userLoader.get();
+        }
         return user;
     }
 
     public void setUser(User user) {
         this.user = user;
+        this.principal = UserPrincipal.of(user);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority(user.getRole().getRoleType().getAuthority()));
+        return Collections.singleton(new SimpleGrantedAuthority(principal.roleType().getAuthority()));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return getUser().getPassword();
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return principal.email();
     }
 
     @Override
     public boolean isAccountNonExpired() {
-        return user.isEnabled();
+        return principal.enabled();
     }
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.isEnabled();
+        return principal.enabled();
     }
 
     @Override
     public boolean isCredentialsNonExpired() {
-        return user.isEnabled();
+        return principal.enabled();
     }
 
     @Override
     public boolean isEnabled() {
-        return user.isEnabled();
+        return principal.enabled();
     }
 }
@@ -1,6 +1,5 @@
 package com.grash.security;
 
-import com.grash.model.User;
 import com.grash.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +7,6 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -19,11 +17,21 @@ public class CustomUserDetailsService implements UserDetailsService {
     private UserService userService;
 
     @Override
-    @Transactional(readOnly = true)
     public CustomUserDetail loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userService.whoami(username, true);
+        UserPrincipal principal = userService.findPrincipal(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return loadUserByPrincipal(principal);
+    }
+
+    /**
+     * Builds a new {@link CustomUserDetail} around an already resolved principal, with its own loader for the
+     * {@link com.grash.model.User} entity. Each request must get its own instance since the loaded entity is
+     * kept on it.
+     */
+    public CustomUserDetail loadUserByPrincipal(UserPrincipal principal) {
         return CustomUserDetail.builder()//
-                .user(user)//
+                .principal(principal)//
+                .userLoader(() -> userService.whoami(principal.email(), true))//
                 .build();
     }
 
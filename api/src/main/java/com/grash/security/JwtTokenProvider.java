@@ -1,11 +1,11 @@
 package com.grash.security;
 
 import com.grash.exception.CustomException;
-import com.grash.model.User;
 import com.grash.model.enums.RoleType;
 import com.grash.utils.Consts;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -36,14 +36,17 @@ public class JwtTokenProvider {
     private long validityInMilliseconds;
 
     private SecretKey key;
+    private JwtParser jwtParser;
 
     @PostConstruct
     protected void init() {
         byte[] keyBytes = Base64.getDecoder().decode(secretKey);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser().verifyWith(key).build();
     }
 
     private final CustomUserDetailsService customUserDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     public String createToken(String username, List<RoleType> roles) {
 
@@ -60,30 +63,45 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token).getPayload();
-        CustomUserDetail userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
+    /**
+     * Validates the token and builds its authentication with a single signature check. Verified tokens are
+     * remembered in {@link VerifiedTokenCache} so repeated requests with the same token skip both the parsing
+     * and the user lookup.
+     */
+    public Authentication authenticate(String token) {
+        VerifiedTokenCache.VerifiedToken verifiedToken = verifiedTokenCache.get(token);
+        CustomUserDetail userDetails;
+        if (verifiedToken == null) {
+            Claims claims;
+            try {
+                claims = jwtParser.parseSignedClaims(token).getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                throw new CustomException("Expired or invalid JWT token", HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            userDetails = loadUserDetails(claims.getSubject(), claims.getIssuedAt());
+            verifiedTokenCache.put(token, new VerifiedTokenCache.VerifiedToken(claims.getSubject(),
+                    claims.getIssuedAt(), claims.getExpiration(), userDetails.getPrincipal()));
+        } else {
+            userDetails = customUserDetailsService.loadUserByPrincipal(verifiedToken.principal());
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+    }
+
+    private CustomUserDetail loadUserDetails(String username, Date issuedAt) {
+        CustomUserDetail userDetails = customUserDetailsService.loadUserByUsername(username);
         if (!userDetails.isEnabled()) {
             throw new CustomException("User account is disabled", HttpStatus.UNAUTHORIZED);
         }
-        User user = userDetails.getUser();
-        Date sessionInvalidatedAt = user.getSessionInvalidatedAt();
-        Date issuedAt = claims.getIssuedAt();
-        if (sessionInvalidatedAt != null && issuedAt != null && issuedAt.before(sessionInvalidatedAt)) {
+        Long sessionInvalidatedAt = userDetails.getPrincipal().sessionInvalidatedAt();
+        if (sessionInvalidatedAt != null && issuedAt != null && issuedAt.getTime() < sessionInvalidatedAt) {
             throw new CustomException("Session has been revoked. Please sign in again",
                     HttpStatus.UNAUTHORIZED);
         }
-        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+        return userDetails;
     }
 
     public String getUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token).getPayload().getSubject();
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
     }
 
     public Date computeAccessTokenExpiration() {
@@ -106,17 +124,5 @@ public class JwtTokenProvider {
         return null;
     }
 
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            throw new CustomException("Expired or invalid JWT token", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-
 }
 
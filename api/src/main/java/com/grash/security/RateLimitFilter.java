@@ -1,6 +1,7 @@
 package com.grash.security;
 
 import com.grash.exception.CustomException;
+import com.grash.service.RateLimitClass;
 import com.grash.service.RateLimiterService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -44,18 +45,18 @@ public class RateLimitFilter extends OncePerRequestFilter {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof CustomUserDetail userDetail) {
-            Long userId = userDetail.getUser().getId();
+            Long userId = userDetail.getPrincipal().id();
             String userIdKey = "user:" + userId;
 
             // Check rate limit
-            if (!rateLimiterService.resolveAuthenticatedUserBucket(userIdKey).tryConsume(1)) {
+            if (!rateLimiterService.tryConsume(RateLimitClass.AUTHENTICATED, userIdKey)) {
                 log.warn("Rate limit exceeded for user ID: {}", userId);
                 setResponseTooManyRequests(response);
                 return;
             }
         } else {
             String clientIp = clientIpResolver.resolve(request);
-            if (!rateLimiterService.resolveUnAuthenticatedUserBucket(clientIp).tryConsume(1)) {
+            if (!rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, clientIp)) {
                 setResponseTooManyRequests(response);
                 return;
             }
@@ -0,0 +1,159 @@
+package com.grash.security;
+
+import com.grash.model.Company;
+import com.grash.model.Role;
+import com.grash.model.SuperAccountRelation;
+import com.grash.model.User;
+import com.grash.model.enums.PermissionEntity;
+import com.grash.model.enums.PlanFeatures;
+import com.grash.model.enums.RoleType;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of what request handling needs to know about the authenticated user. Unlike the
+ * {@link User} entity it holds no lazy associations, so it can be cached and shared between threads freely.
+ */
+public record UserPrincipal(Long id,
+                            String email,
+                            boolean enabled,
+                            Long sessionInvalidatedAt,
+                            Long companyId,
+                            Long companySettingsId,
+                            Long roleId,
+                            RoleType roleType,
+                            Set<PermissionEntity> createPermissions,
+                            Set<PermissionEntity> viewPermissions,
+                            Set<PermissionEntity> viewOtherPermissions,
+                            Set<PermissionEntity> editOtherPermissions,
+                            Set<PermissionEntity> deleteOtherPermissions,
+                            Set<PlanFeatures> planFeatures,
+                            Set<Long> childCompanyIds) {
+
+    private static final PermissionEntity[] PERMISSION_ENTITIES = PermissionEntity.values();
+    private static final PlanFeatures[] PLAN_FEATURES = PlanFeatures.values();
+    private static final RoleType[] ROLE_TYPES = RoleType.values();
+
+    public UserPrincipal {
+        createPermissions = immutableEnumSet(createPermissions, PermissionEntity.class);
+        viewPermissions = immutableEnumSet(viewPermissions, PermissionEntity.class);
+        viewOtherPermissions = immutableEnumSet(viewOtherPermissions, PermissionEntity.class);
+        editOtherPermissions = immutableEnumSet(editOtherPermissions, PermissionEntity.class);
+        deleteOtherPermissions = immutableEnumSet(deleteOtherPermissions, PermissionEntity.class);
+        planFeatures = immutableEnumSet(planFeatures, PlanFeatures.class);
+        childCompanyIds = childCompanyIds == null ? Collections.emptySet() : Set.copyOf(childCompanyIds);
+    }
+
+    public boolean isSuperAdmin() {
+        return roleType == RoleType.ROLE_SUPER_ADMIN;
+    }
+
+    /**
+     * Whether this user may read rows of the given company, either their own or one of the child accounts
+     * of a super account.
+     */
+    public boolean canAccessCompany(Long otherCompanyId) {
+        return isSuperAdmin() || (otherCompanyId != null && (otherCompanyId.equals(companyId)
+                || childCompanyIds.contains(otherCompanyId)));
+    }
+
+    /**
+     * The companies whose rows this user may read: their own plus the child companies of a super account.
+     */
+    public Set<Long> allowedCompanyIds() {
+        if (companyId == null) return childCompanyIds;
+        if (childCompanyIds.isEmpty()) return Set.of(companyId);
+        Set<Long> companyIds = new HashSet<>(childCompanyIds);
+        companyIds.add(companyId);
+        return Collections.unmodifiableSet(companyIds);
+    }
+
+    public boolean hasFeature(PlanFeatures feature) {
+        return planFeatures.contains(feature);
+    }
+
+    /**
+     * Approximate retained size in bytes, used to bound the principal cache by memory rather than entry count.
+     */
+    public int weight() {
+        int weight = 160;
+        weight += email == null ? 0 : 40 + 2 * email.length();
+        weight += 5 * 32 + 32;
+        weight += 48 + 32 * childCompanyIds.size();
+        return weight;
+    }
+
+    public static UserPrincipal of(User user) {
+        Role role = user.getRole();
+        Company company = user.getCompany();
+        Set<PlanFeatures> planFeatures = company != null && company.getSubscription() != null
+                && company.getSubscription().getSubscriptionPlan() != null
+                ? company.getSubscription().getSubscriptionPlan().getFeatures() : null;
+        Set<Long> childCompanyIds = user.getSuperAccountRelations() == null ? null :
+                user.getSuperAccountRelations().stream()
+                        .map(SuperAccountRelation::getChildUser)
+                        .map(User::getCompany)
+                        .filter(Objects::nonNull)
+                        .map(Company::getId)
+                        .collect(Collectors.toSet());
+        return new UserPrincipal(user.getId(),
+                user.getEmail(),
+                user.isEnabled(),
+                user.getSessionInvalidatedAt() == null ? null : user.getSessionInvalidatedAt().getTime(),
+                company == null ? null : company.getId(),
+                company == null || company.getCompanySettings() == null ? null : company.getCompanySettings().getId(),
+                role == null ? null : role.getId(),
+                role == null ? null : role.getRoleType(),
+                role == null ? null : role.getCreatePermissions(),
+                role == null ? null : role.getViewPermissions(),
+                role == null ? null : role.getViewOtherPermissions(),
+                role == null ? null : role.getEditOtherPermissions(),
+                role == null ? null : role.getDeleteOtherPermissions(),
+                planFeatures,
+                childCompanyIds);
+    }
+
+    /**
+     * Maps a row of {@code UserRepository.findPrincipalRowByEmail}. Collection columns arrive as comma separated
+     * ordinals or ids so the whole snapshot comes back in a single round trip.
+     */
+    public static UserPrincipal fromRow(Object[] row) {
+        return new UserPrincipal(toLong(row[0]),
+                (String) row[1],
+                Boolean.TRUE.equals(row[2]),
+                toLong(row[3]),
+                toLong(row[4]),
+                toLong(row[5]),
+                toLong(row[6]),
+                row[7] == null ? null : ROLE_TYPES[((Number) row[7]).intValue()],
+                parseOrdinals(row[8], PERMISSION_ENTITIES, PermissionEntity.class),
+                parseOrdinals(row[9], PERMISSION_ENTITIES, PermissionEntity.class),
+                parseOrdinals(row[10], PERMISSION_ENTITIES, PermissionEntity.class),
+                parseOrdinals(row[11], PERMISSION_ENTITIES, PermissionEntity.class),
+                parseOrdinals(row[12], PERMISSION_ENTITIES, PermissionEntity.class),
+                parseOrdinals(row[13], PLAN_FEATURES, PlanFeatures.class),
+                parseList(row[14], Long::valueOf).collect(Collectors.toSet()));
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static <E extends Enum<E>> Set<E> parseOrdinals(Object value, E[] constants, Class<E> type) {
+        return parseList(value, ordinal -> constants[Integer.parseInt(ordinal)])
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(type)));
+    }
+
+    private static <T> Stream<T> parseList(Object value, Function<String, T> parser) {
+        if (value == null || value.toString().isEmpty()) return Stream.empty();
+        return Arrays.stream(value.toString().split(",")).map(String::trim).map(parser);
+    }
+
+    private static <E extends Enum<E>> Set<E> immutableEnumSet(Collection<E> values, Class<E> type) {
+        if (values == null || values.isEmpty()) return Collections.unmodifiableSet(EnumSet.noneOf(type));
+        return Collections.unmodifiableSet(EnumSet.copyOf(values));
+    }
+}
@@ -0,0 +1,86 @@
+package com.grash.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of access tokens whose signature has already been verified, keyed by the SHA-256 of the
+ * token so raw credentials are never held in memory. An entry never outlives the token's own expiration, and
+ * is dropped whenever the subject's cached user is evicted or replaced so a session invalidation takes effect
+ * on the next request. Only the immutable {@link UserPrincipal} is kept; the {@link CustomUserDetail} around it
+ * is built per request.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final long MAX_TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private final Cache<String, VerifiedToken> cache = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(@NotNull String key, @NotNull VerifiedToken value, long currentTime) {
+                    long remaining = value.expiration().getTime() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(remaining, MAX_TTL_MILLIS)));
+                }
+
+                @Override
+                public long expireAfterUpdate(@NotNull String key, @NotNull VerifiedToken value, long currentTime,
+                                              long currentDuration) {
+                    return expireAfterCreate(key, value, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(@NotNull String key, @NotNull VerifiedToken value, long currentTime,
+                                            long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    public VerifiedToken get(String token) {
+        VerifiedToken verifiedToken = cache.getIfPresent(hash(token));
+        if (verifiedToken != null && !verifiedToken.expiration().after(new Date())) {
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (verifiedToken.expiration() != null) {
+            cache.put(hash(token), verifiedToken);
+        }
+    }
+
+    public void evictSubject(String subject) {
+        if (subject == null) return;
+        cache.asMap().values().removeIf(verifiedToken -> subject.equalsIgnoreCase(verifiedToken.subject()));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record VerifiedToken(String subject, Date issuedAt, Date expiration, UserPrincipal principal) {
+    }
+}
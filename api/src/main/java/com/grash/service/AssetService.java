@@ -13,6 +13,7 @@ import com.grash.mapper.AssetMapper;
 import com.grash.model.*;
 import com.grash.model.enums.AssetStatus;
 import com.grash.model.enums.CustomFieldEntityType;
+import com.grash.model.enums.CustomSequenceType;
 import com.grash.model.enums.NotificationType;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.PortalFieldType;
@@ -108,7 +109,7 @@ public class AssetService {
 
     private String getAssetNumber(Company company) {
         Long nextSequence = customSequenceService.getNextAssetSequence(company);
-        return "A" + String.format("%06d", nextSequence);
+        return CustomSequenceType.ASSET.format(nextSequence);
     }
 
     private void setAssetCustomFields(Asset asset, List<CustomFieldValuePostDTO> customFieldValuePostDTOS,
@@ -452,7 +453,7 @@ public class AssetService {
     }
 
     public List<Asset> findMiniPublic(String portalUUID, Long locationId, String clientIp) {
-        if (!rateLimiterService.resolvePublicMiniBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, clientIp)) {
             throw new CustomException("Rate limit exceeded. Try again later.", HttpStatus.TOO_MANY_REQUESTS);
         }
         List<Asset> assets;
@@ -484,6 +485,14 @@ public class AssetService {
 
     public void setAssetFieldsFromImportDto(Asset asset, AssetImportDTO dto, Company company,
                                             Map<String, Asset> assetsByName) {
+        setAssetFieldsFromImportDto(asset, dto, company, assetsByName, null);
+    }
+
+    /**
+     * @param customId number reserved by the caller, or {@code null} to allocate one
+     */
+    public void setAssetFieldsFromImportDto(Asset asset, AssetImportDTO dto, Company company,
+                                            Map<String, Asset> assetsByName, String customId) {
         checkUsageBasedLimit(company);
         if (!licenseService.hasEntitlement(LicenseEntitlement.ASSET_HIERARCHY) && dto.getParentAssetName() != null && !dto.getParentAssetName().isEmpty())
             throw new CustomException("You need a license to import assets with hierarchy", HttpStatus.FORBIDDEN);
@@ -512,7 +521,7 @@ public class AssetService {
         asset.setDescription(dto.getDescription());
         asset.setModel(dto.getModel());
         asset.setPower(dto.getPower());
-        asset.setCustomId(getAssetNumber(company));
+        asset.setCustomId(customId != null ? customId : getAssetNumber(company));
         asset.setManufacturer(dto.getManufacturer());
         Optional<Location> optionalLocation = locationService.findByNameIgnoreCaseAndCompany(dto.getLocationName(),
                 companyId).stream().findFirst();
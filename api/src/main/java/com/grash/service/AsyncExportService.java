@@ -1,322 +1,166 @@
 package com.grash.service;
 
+import com.grash.configuration.AsyncConfig;
 import com.grash.factory.StorageServiceFactory;
 import com.grash.model.*;
 import com.grash.model.User;
 import com.grash.utils.CsvFileGenerator;
+import com.grash.utils.ExportAssociations;
 import com.grash.utils.Helper;
-import com.grash.utils.MultipartFileImpl;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Locale;
-
+import java.util.function.ToLongFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports are streamed page by page from {@link ExportReader} into the storage, so memory use doesn't grow with the
+ * number of rows. Progress is sent on the export destination as {@code progress:<percent>} messages, followed by the
+ * signed url or {@code error: <message>}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsyncExportService {
+    private static final int PAGE_SIZE = 100;
 
-    private final WorkOrderService workOrderService;
-    private final AssetService assetService;
-    private final LocationService locationService;
-    private final PartService partService;
-    private final PartTransactionService partTransactionService;
-    private final MeterService meterService;
-    private final PreventiveMaintenanceService preventiveMaintenanceService;
+    private final ExportReader exportReader;
     private final CsvFileGenerator csvFileGenerator;
     private final StorageServiceFactory storageServiceFactory;
     private final SimpMessageSendingOperations messagingTemplate;
     private final EntityManager entityManager;
 
-    @Async
-    public void exportWorkOrders(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<WorkOrder> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = workOrderService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writeWorkOrdersToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
+    //stored with Content-Encoding gzip, so browsers decompress the download transparently
+    @Value("${export.gzip:false}")
+    private boolean gzip;
 
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Work Orders.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/work-orders");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for work-orders, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for work-orders, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
+    public void exportWorkOrders(User user, String uuid) {
+        export(user, uuid, "work-orders", "Work Orders.csv",
+                companyId -> exportReader.count(WorkOrder.class, companyId),
+                exportReader::readWorkOrders, csvFileGenerator::writeWorkOrdersToCsv);
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportAssets(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<Asset> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = assetService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writeAssetsToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Assets.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/assets");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for assets, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for assets, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "assets", "Assets.csv", companyId -> exportReader.count(Asset.class, companyId),
+                exportReader::readAssets, csvFileGenerator::writeAssetsToCsv);
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportLocations(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<Location> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = locationService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writeLocationsToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Locations.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/locations");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for locations, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for locations, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "locations", "Locations.csv", companyId -> exportReader.count(Location.class, companyId),
+                exportReader::readLocations, csvFileGenerator::writeLocationsToCsv);
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportParts(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<Part> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = partService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writePartsToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Parts.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/parts");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for parts, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for parts, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "parts", "Parts.csv", companyId -> exportReader.count(Part.class, companyId),
+                exportReader::readParts, csvFileGenerator::writePartsToCsv);
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportMeters(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<Meter> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = meterService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writeMetersToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Meters.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/meters");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for meters, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for meters, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "meters", "Meters.csv", companyId -> exportReader.count(Meter.class, companyId),
+                exportReader::readMeters, csvFileGenerator::writeMetersToCsv);
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportPreventiveMaintenances(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<PreventiveMaintenance> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = preventiveMaintenanceService.findByCompanyForExport(user.getCompany().getId(),
-                        PageRequest.of(page, 100));
-                csvFileGenerator.writePreventiveMaintenancesToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Preventive Maintenances.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/preventive-maintenances");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for preventive-maintenances, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for preventive-maintenances, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "preventive-maintenances", "Preventive Maintenances.csv",
+                companyId -> exportReader.count(PreventiveMaintenance.class, companyId),
+                exportReader::readPreventiveMaintenances,
+                (rows, associations, writer, locale, csvSeparator, includeHeaders) ->
+                        csvFileGenerator.writePreventiveMaintenancesToCsv(rows, writer, locale, csvSeparator,
+                                includeHeaders));
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportPartTransactions(User user, String uuid) {
-        try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<PartTransaction> result;
-            String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
-            Locale locale = Helper.getLocale(user);
-            do {
-                result = partTransactionService.findByCompanyForExport(user.getCompany().getId(), PageRequest.of(page, 100));
-                csvFileGenerator.writePartTransactionsToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Part Transactions.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/part-transactions");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for part-transactions, uuid: {}", uuid);
-        } catch (Exception e) {
-            log.error("Export failed for part-transactions, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
-        }
+        export(user, uuid, "part-transactions", "Part Transactions.csv",
+                companyId -> exportReader.count(PartTransaction.class, companyId),
+                exportReader::readPartTransactions,
+                (rows, associations, writer, locale, csvSeparator, includeHeaders) ->
+                        csvFileGenerator.writePartTransactionsToCsv(rows, writer, locale, csvSeparator,
+                                includeHeaders));
     }
 
-    @Async
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
     public void exportCostsAndTimes(User user, String uuid) {
+        export(user, uuid, "costs-times", "Costs and Times.csv",
+                exportReader::countCostsAndTimes,
+                exportReader::readCostsAndTimes,
+                (rows, associations, writer, locale, csvSeparator, includeHeaders) ->
+                        csvFileGenerator.writeCostsAndTimesToCsv(rows, writer, locale, csvSeparator,
+                                includeHeaders));
+    }
+
+    private <T> void export(User user, String uuid, String name, String fileName, ToLongFunction<Long> counter,
+                            PageReader<T> pageReader, PageWriter<T> pageWriter) {
+        String destination = "/exports/" + uuid;
         try {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            int page = 0;
-            Page<WorkOrder> result;
             String csvSeparator = user.getCompany().getCompanySettings().getGeneralPreferences().getCsvSeparator();
             Locale locale = Helper.getLocale(user);
-            do {
-                result = workOrderService.findByCompanyWithTimeAndCost(user.getCompany().getId(), PageRequest.of(page
-                        , 100));
-                csvFileGenerator.writeCostsAndTimesToCsv(
-                        result.getContent(),
-                        outputStreamWriter,
-                        locale,
-                        csvSeparator,
-                        page == 0);
-
-                entityManager.clear();
-                page++;
-            }
-            while (result.hasNext());
-            outputStreamWriter.close();
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Costs and Times.csv");
-            String filePath = storageServiceFactory.getStorageService().uploadAndSign(file,
-                    user.getCompany().getId() + "/exports/" + uuid + "/costs-times");
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, filePath);
-            log.info("Export completed for costs-times, uuid: {}", uuid);
+            long total = counter.applyAsLong(user.getCompany().getId());
+            String filePath = storageServiceFactory.getStorageService().upload(fileName,
+                    user.getCompany().getId() + "/exports/" + uuid + "/" + name,
+                    "text/csv",
+                    gzip ? "gzip" : null,
+                    outputStream -> {
+                        OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+                        Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+                        long afterId = 0;
+                        long written = 0;
+                        int sentProgress = 0;
+                        boolean first = true;
+                        ExportReader.ExportPage<T> page;
+                        do {
+                            page = pageReader.read(user.getCompany().getId(), afterId, PAGE_SIZE);
+                            pageWriter.write(page.rows(), page.associations(), writer, locale, csvSeparator, first);
+                            //surfaces a failed upload, which the csv generator doesn't report
+                            writer.flush();
+                            first = false;
+                            written += page.rows().size();
+                            int progress = total == 0 ? 100 : (int) Math.min(99, written * 100 / total);
+                            if (progress > sentProgress) {
+                                messagingTemplate.convertAndSendToUser(user.getEmail(), destination,
+                                        "progress:" + progress);
+                                sentProgress = progress;
+                            }
+                            if (page.lastId() != null) afterId = page.lastId();
+                            entityManager.clear();
+                        }
+                        while (page.rows().size() == PAGE_SIZE);
+                        if (target instanceof GZIPOutputStream gzipOutputStream) gzipOutputStream.finish();
+                    });
+            String signedUrl = storageServiceFactory.getStorageService().generateSignedUrl(filePath, 10);
+            messagingTemplate.convertAndSendToUser(user.getEmail(), destination, signedUrl);
+            log.info("Export completed for {}, uuid: {}", name, uuid);
         } catch (Exception e) {
-            log.error("Export failed for costs-times, uuid: {}", uuid, e);
-            messagingTemplate.convertAndSendToUser(user.getEmail(), "/exports/" + uuid, "error: " + e.getMessage());
+            log.error("Export failed for {}, uuid: {}", name, uuid, e);
+            messagingTemplate.convertAndSendToUser(user.getEmail(), destination, "error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    private interface PageReader<T> {
+        ExportReader.ExportPage<T> read(Long companyId, Long afterId, int size);
+    }
+
+    @FunctionalInterface
+    private interface PageWriter<T> {
+        void write(Collection<T> rows, ExportAssociations associations, Writer writer, Locale locale,
+                   String csvSeparator, boolean includeHeaders);
+    }
+}
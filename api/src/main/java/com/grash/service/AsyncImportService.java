@@ -1,5 +1,6 @@
 package com.grash.service;
 
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.imports.*;
 import com.grash.model.User;
 import com.grash.model.enums.PermissionEntity;
@@ -22,7 +23,7 @@ public class AsyncImportService {
     private final IntercomService intercomService;
     private final SimpMessageSendingOperations messagingTemplate;
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importWorkOrders(User user, List<WorkOrderImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.WORK_ORDERS)
@@ -41,7 +42,7 @@ public class AsyncImportService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importAssets(User user, List<AssetImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.ASSETS)
@@ -75,7 +76,7 @@ public class AsyncImportService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importLocations(User user, List<LocationImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.LOCATIONS)
@@ -94,7 +95,7 @@ public class AsyncImportService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importMeters(User user, List<MeterImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.METERS)
@@ -113,7 +114,7 @@ public class AsyncImportService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importParts(User user, List<PartImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)
@@ -132,7 +133,7 @@ public class AsyncImportService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.IMPORT_EXECUTOR)
     public void importPreventiveMaintenances(User user, List<PreventiveMaintenanceImportDTO> toImport, String uuid) {
         try {
             if (!user.getRole().getCreatePermissions().contains(PermissionEntity.PREVENTIVE_MAINTENANCES)
@@ -0,0 +1,194 @@
+package com.grash.service;
+
+import com.grash.advancedsearch.SearchCriteria;
+import com.grash.configuration.AsyncConfig;
+import com.grash.dto.ReportConfig;
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.User;
+import com.grash.model.WorkOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports the PDF reports of the work orders matching a search as one ZIP archive. Reports are rendered on the report
+ * executor, at most {@code reports.bulk.parallelism} ahead of the archive, and written to it in search order as they
+ * complete, so that only that many PDFs are held in memory while the archive is uploaded. Reports that fail are
+ * listed in an {@code errors.txt} entry instead of failing the export. Progress is sent on the export destination like
+ * {@link AsyncExportService} does.
+ */
+@Service
+@Slf4j
+public class AsyncReportExportService {
+    static final String ERRORS_ENTRY = "errors.txt";
+    private static final int PAGE_SIZE = 100;
+
+    private final WorkOrderService workOrderService;
+    private final UserService userService;
+    private final StorageServiceFactory storageServiceFactory;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final AsyncTaskExecutor reportExecutor;
+    private final ReportRenderService reportRenderService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${reports.bulk.max-work-orders:1000}")
+    private int maxWorkOrders;
+    @Value("${reports.bulk.parallelism:4}")
+    private int parallelism;
+
+    @Autowired
+    public AsyncReportExportService(WorkOrderService workOrderService, UserService userService,
+                                    StorageServiceFactory storageServiceFactory,
+                                    SimpMessageSendingOperations messagingTemplate,
+                                    @Qualifier(AsyncConfig.REPORT_EXECUTOR) AsyncTaskExecutor reportExecutor,
+                                    ReportRenderService reportRenderService,
+                                    PlatformTransactionManager transactionManager) {
+        this.workOrderService = workOrderService;
+        this.userService = userService;
+        this.storageServiceFactory = storageServiceFactory;
+        this.messagingTemplate = messagingTemplate;
+        this.reportExecutor = reportExecutor;
+        this.reportRenderService = reportRenderService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param searchCriteria criteria already restricted to the work orders the user can view, see
+     *                       {@link WorkOrderService#getSearchCriteria}
+     */
+    @Async(AsyncConfig.EXPORT_EXECUTOR)
+    public void exportWorkOrderReports(User user, SearchCriteria searchCriteria, ReportConfig config, String uuid) {
+        String destination = "/exports/" + uuid;
+        try {
+            List<Long> workOrderIds = findWorkOrderIds(searchCriteria);
+            String filePath = storageServiceFactory.getStorageService().upload("Work Order Reports.zip",
+                    user.getCompany().getId() + "/exports/" + uuid + "/work-order-reports",
+                    "application/zip", null,
+                    outputStream -> writeArchive(user, destination, workOrderIds,
+                            config == null ? new ReportConfig() : config, outputStream));
+            String signedUrl = storageServiceFactory.getStorageService().generateSignedUrl(filePath, 10);
+            messagingTemplate.convertAndSendToUser(user.getEmail(), destination, signedUrl);
+            log.info("Report export completed for {} work orders, uuid: {}", workOrderIds.size(), uuid);
+        } catch (Exception e) {
+            log.error("Report export failed, uuid: {}", uuid, e);
+            messagingTemplate.convertAndSendToUser(user.getEmail(), destination, "error: " + e.getMessage());
+        }
+    }
+
+    private List<Long> findWorkOrderIds(SearchCriteria searchCriteria) {
+        SearchCriteria criteria = searchCriteria.clone();
+        criteria.setSortField("id");
+        criteria.setDirection(Sort.Direction.ASC);
+        criteria.setPageSize(PAGE_SIZE);
+        return readOnlyTransaction.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            Page<WorkOrder> page;
+            int pageNum = 0;
+            do {
+                criteria.setPageNum(pageNum++);
+                page = workOrderService.findBySearchCriteria(criteria);
+                if (page.getTotalElements() > maxWorkOrders) {
+                    throw new CustomException("At most " + maxWorkOrders + " work order reports can be exported " +
+                            "at once", HttpStatus.BAD_REQUEST);
+                }
+                page.forEach(workOrder -> ids.add(workOrder.getId()));
+            } while (page.hasNext());
+            return ids;
+        });
+    }
+
+    private void writeArchive(User user, String destination, List<Long> workOrderIds, ReportConfig config,
+                              OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // PDFs are already compressed
+        zip.setLevel(Deflater.BEST_SPEED);
+        Set<String> entryNames = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        Deque<CompletableFuture<RenderedReport>> rendering = new ArrayDeque<>();
+        int submitted = 0;
+        int written = 0;
+        int sentProgress = 0;
+        while (submitted < workOrderIds.size() || !rendering.isEmpty()) {
+            while (submitted < workOrderIds.size() && rendering.size() < Math.max(1, parallelism)) {
+                Long workOrderId = workOrderIds.get(submitted++);
+                rendering.add(CompletableFuture.supplyAsync(() -> render(user.getId(), workOrderId, config),
+                        reportExecutor));
+            }
+            Long workOrderId = workOrderIds.get(written++);
+            try {
+                RenderedReport report = rendering.poll().join();
+                zip.putNextEntry(new ZipEntry(uniqueEntryName(report.name(), workOrderId, entryNames)));
+                zip.write(report.pdf());
+                zip.closeEntry();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                log.warn("Could not render the report of work order {}", workOrderId, cause);
+                errors.add("Work order " + workOrderId + ": " + cause.getMessage());
+            }
+            int progress = (int) Math.min(99, written * 100L / workOrderIds.size());
+            if (progress > sentProgress) {
+                messagingTemplate.convertAndSendToUser(user.getEmail(), destination, "progress:" + progress);
+                sentProgress = progress;
+            }
+        }
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    private RenderedReport render(Long userId, Long workOrderId, ReportConfig config) {
+        // Each report gets its own session, so that what a report loads is released once it is rendered. The render
+        // permit is taken first, so that a report waiting for it holds no connection
+        return reportRenderService.renderInBulk(() -> readOnlyTransaction.execute(status -> {
+            User user = userService.findById(userId)
+                    .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+            WorkOrder workOrder = workOrderService.findById(workOrderId)
+                    .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+            if (!workOrder.canBeViewedBy(user)) throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            workOrderService.generatePdfStream(workOrder, user, config, pdf);
+            String name = workOrder.getCustomId() == null ? String.valueOf(workOrder.getId()) :
+                    workOrder.getCustomId();
+            return new RenderedReport(name, pdf.toByteArray());
+        }));
+    }
+
+    private static String uniqueEntryName(String name, Long workOrderId, Set<String> entryNames) {
+        String entryName = name.replaceAll("[\\\\/:*?\"<>|]", "_") + ".pdf";
+        // Custom ids are only unique within a company
+        if (!entryNames.add(entryName)) {
+            entryName = name.replaceAll("[\\\\/:*?\"<>|]", "_") + " (" + workOrderId + ").pdf";
+            entryNames.add(entryName);
+        }
+        return entryName;
+    }
+
+    private record RenderedReport(String name, byte[] pdf) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.grash.service;
 
 import com.grash.model.User;
+import com.grash.security.UserPrincipal;
+import com.grash.security.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.Hibernate;
 import org.springframework.cache.Cache;
@@ -13,13 +15,16 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CacheService {
     private final CacheManager cacheManager;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final String USERS_CACHE = "users";
+    private final String USER_PRINCIPALS_CACHE = "userPrincipals";
 
     public void evictUserFromCache(String email) {
         Cache usersCache = cacheManager.getCache(USERS_CACHE);
         if (usersCache != null) {
             usersCache.evict(getCacheKey(email));
         }
+        evictPrincipalFromCache(email);
     }
 
     public void putUserInCache(User user) {
@@ -38,8 +43,10 @@ public class CacheService {
                 if (user.getCompany() != null && user.getCompany().getSubscription() != null) {
                     Hibernate.initialize(user.getCompany().getSubscription().getSubscriptionPlan().getFeatures());
                 }
-                if (user.getEmail() != null)
+                if (user.getEmail() != null) {
                     usersCache.put(getCacheKey(user.getEmail()), user);
+                    refreshPrincipal(user);
+                }
             }
         }
     }
@@ -52,7 +59,46 @@ public class CacheService {
         return cachedUser == null ? Optional.empty() : Optional.of(cachedUser);
     }
 
+    public Optional<UserPrincipal> getPrincipalFromCache(String email) {
+        Cache principalsCache = cacheManager.getCache(USER_PRINCIPALS_CACHE);
+        if (principalsCache == null) return Optional.empty();
+        return Optional.ofNullable(principalsCache.get(getPrincipalCacheKey(email), UserPrincipal.class));
+    }
+
+    public void putPrincipalInCache(UserPrincipal principal) {
+        Cache principalsCache = cacheManager.getCache(USER_PRINCIPALS_CACHE);
+        if (principalsCache != null && principal.email() != null) {
+            principalsCache.put(getPrincipalCacheKey(principal.email()), principal);
+        }
+    }
+
+    public void evictPrincipalFromCache(String email) {
+        if (email == null) return;
+        Cache principalsCache = cacheManager.getCache(USER_PRINCIPALS_CACHE);
+        if (principalsCache != null) {
+            principalsCache.evict(getPrincipalCacheKey(email));
+        }
+        verifiedTokenCache.evictSubject(email);
+    }
+
+    /**
+     * Replaces the cached principal with the state of the given user. Verified tokens are only dropped when the
+     * snapshot actually changed, so refilling the users cache does not force every session to re-authenticate.
+     */
+    private void refreshPrincipal(User user) {
+        UserPrincipal principal = UserPrincipal.of(user);
+        Optional<UserPrincipal> cachedPrincipal = getPrincipalFromCache(user.getEmail());
+        putPrincipalInCache(principal);
+        if (!cachedPrincipal.map(principal::equals).orElse(false)) {
+            verifiedTokenCache.evictSubject(user.getEmail());
+        }
+    }
+
     private String getCacheKey(String email) {
         return email;
     }
+
+    private String getPrincipalCacheKey(String email) {
+        return email.toLowerCase().trim();
+    }
 }
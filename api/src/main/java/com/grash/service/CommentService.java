@@ -1,5 +1,6 @@
 package com.grash.service;
 
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.comment.CommentCriteria;
 import com.grash.dto.comment.CommentPatchDTO;
 import com.grash.dto.comment.CommentPostDTO;
@@ -132,7 +133,7 @@ public class CommentService {
                 "<a href=\"" + frontendUrl + "/app/people-teams/people/$2\">@$1</a>");
     }
 
-    @Async
+    @Async(AsyncConfig.NOTIFICATION_EXECUTOR)
     public void sendCommentNotifications(Comment comment, WorkOrder workOrder, Set<User> notifiedUsers, User actor,
                                          boolean isUpdate) {
         Locale locale = Helper.getLocale(actor);
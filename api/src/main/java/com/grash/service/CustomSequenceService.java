@@ -1,17 +1,52 @@
 package com.grash.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.grash.model.Company;
 import com.grash.model.CustomSequence;
+import com.grash.model.enums.CustomSequenceType;
 import com.grash.repository.CustomSequenceRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.transaction.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out the per-company custom id numbers. Numbers are reserved from {@code custom_sequence} in blocks with a
+ * single {@code UPDATE ... RETURNING} in its own short transaction, so the row is never locked for the duration of
+ * the caller's transaction, and are then served from memory. Numbers left in a block when the node stops or the
+ * block is evicted or refilled concurrently by two requests are skipped, and numbers are unique but not always
+ * created in order.
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomSequenceService {
     private final CustomSequenceRepository customSequenceRepository;
+    private final EntityManager em;
+    private final TransactionTemplate allocationTransaction;
+    private final Cache<BlockKey, SequenceBlock> blocks = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    @Value("${custom-sequence.block-size:10}")
+    private int blockSize;
+
+    public CustomSequenceService(CustomSequenceRepository customSequenceRepository, EntityManager em,
+                                 PlatformTransactionManager transactionManager) {
+        this.customSequenceRepository = customSequenceRepository;
+        this.em = em;
+        this.allocationTransaction = new TransactionTemplate(transactionManager);
+        this.allocationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     public CustomSequence findByCompanyId(Long companyId) {
         return customSequenceRepository.findByCompanyId(companyId)
@@ -33,45 +68,99 @@ public class CustomSequenceService {
         return customSequence;
     }
 
-    @Transactional
     public Long getNextWorkOrderSequence(Company company) {
-        CustomSequence customSequence = getOrCreateCustomSequence(company);
-        Long nextSequence = customSequence.getAndIncrementWorkOrderSequence();
-        customSequenceRepository.save(customSequence);
-        return nextSequence;
+        return next(company, CustomSequenceType.WORK_ORDER);
     }
 
-
-    @Transactional
     public Long getNextAssetSequence(Company company) {
-        CustomSequence customSequence = getOrCreateCustomSequence(company);
-        Long nextSequence = customSequence.getAndIncrementAssetSequence();
-        customSequenceRepository.save(customSequence);
-        return nextSequence;
+        return next(company, CustomSequenceType.ASSET);
     }
 
-    @Transactional
     public Long getNextPreventiveMaintenanceSequence(Company company) {
-        CustomSequence customSequence = getOrCreateCustomSequence(company);
-        Long nextSequence = customSequence.getAndIncrementPreventiveMaintenanceSequence();
-        customSequenceRepository.save(customSequence);
-        return nextSequence;
+        return next(company, CustomSequenceType.PREVENTIVE_MAINTENANCE);
     }
 
-    @Transactional
     public Long getNextLocationSequence(Company company) {
-        CustomSequence customSequence = getOrCreateCustomSequence(company);
-        Long nextSequence = customSequence.getAndIncrementLocationSequence();
-        customSequenceRepository.save(customSequence);
-        return nextSequence;
+        return next(company, CustomSequenceType.LOCATION);
     }
 
-    @Transactional
     public Long getNextRequestSequence(Company company) {
-        CustomSequence customSequence = getOrCreateCustomSequence(company);
-        Long nextSequence = customSequence.getAndIncrementRequestSequence();
-        customSequenceRepository.save(customSequence);
-        return nextSequence;
+        return next(company, CustomSequenceType.REQUEST);
+    }
+
+    public long next(Company company, CustomSequenceType type) {
+        return nextN(company, type, 1).get(0);
+    }
+
+    /**
+     * Returns {@code n} ascending numbers of the company's {@code type} sequence, with at most one round trip.
+     */
+    public List<Long> nextN(Company company, CustomSequenceType type, int n) {
+        List<Long> numbers = new ArrayList<>(Math.max(n, 0));
+        if (n <= 0) return numbers;
+        SequenceBlock block = blocks.get(new BlockKey(company.getId(), type), key -> new SequenceBlock());
+        synchronized (block) {
+            block.take(numbers, n);
+        }
+        int missing = n - numbers.size();
+        if (missing == 0) return numbers;
+        // reserved outside the monitor: the allocation needs a second connection, and a thread waiting here holds
+        // the one of its own transaction
+        int count = Math.max(missing, blockSize);
+        long end = allocate(company, type, count);
+        long start = end - count;
+        for (long number = start; number < start + missing; number++) {
+            numbers.add(number);
+        }
+        synchronized (block) {
+            // another thread may have refilled the block meanwhile, the rest of this range is then skipped
+            if (block.next >= block.end) {
+                block.next = start + missing;
+                block.end = end;
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Reserves {@code count} numbers and returns the end (exclusive) of the reserved range.
+     */
+    private long allocate(Company company, CustomSequenceType type, int count) {
+        Long end = allocationTransaction.execute(status -> increment(company.getId(), type, count));
+        if (end != null) return end;
+        try {
+            allocationTransaction.executeWithoutResult(status ->
+                    customSequenceRepository.saveAndFlush(new CustomSequence(company)));
+        } catch (DataIntegrityViolationException e) {
+            // created concurrently by another request or node
+        }
+        end = allocationTransaction.execute(status -> increment(company.getId(), type, count));
+        if (end == null) {
+            throw new IllegalStateException("No custom sequence for company " + company.getId());
+        }
+        return end;
     }
 
+    private Long increment(Long companyId, CustomSequenceType type, int count) {
+        List<?> result = em.createNativeQuery("UPDATE custom_sequence SET " + type.getColumn() + " = "
+                        + type.getColumn() + " + :count WHERE company_id = :companyId RETURNING " + type.getColumn())
+                .setParameter("count", count)
+                .setParameter("companyId", companyId)
+                .getResultList();
+        return result.isEmpty() ? null : ((Number) result.get(0)).longValue();
+    }
+
+    private record BlockKey(Long companyId, CustomSequenceType type) {
+    }
+
+    private static final class SequenceBlock {
+        private long next;
+        private long end;
+
+        private void take(List<Long> numbers, int n) {
+            while (numbers.size() < n && next < end) {
+                numbers.add(next++);
+            }
+        }
+    }
 }
@@ -41,6 +41,7 @@ public class DemoDataService {
     private final LaborRepository laborRepository;
     private final PartQuantityRepository partQuantityRepository;
     private final AdditionalCostRepository additionalCostRepository;
+    private final WorkOrderStatsService workOrderStatsService;
     @Autowired
     @Lazy
     private ScheduleService scheduleService;
@@ -182,7 +183,7 @@ public class DemoDataService {
         // Request
         createRequest("Office is too cold", "The temperature in the main office is too cold.", location1, user,
                 new Date(), company, user);
-
+        workOrderStatsService.rebuild(company.getId());
     }
 
     private WorkOrderCategory createWorkOrderCategory(String name, Company company, User user) {
@@ -457,5 +458,6 @@ public class DemoDataService {
         meterCategoryRepository.deleteByCompanySettings_Company_IdAndIsDemoTrue(companyId);
         assetCategoryRepository.deleteByCompanySettings_Company_IdAndIsDemoTrue(companyId);
         workOrderCategoryRepository.deleteByCompanySettings_Company_IdAndIsDemoTrue(companyId);
+        workOrderStatsService.rebuild(companyId);
     }
 }
\ No newline at end of file
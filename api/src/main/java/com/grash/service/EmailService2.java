@@ -1,6 +1,8 @@
 package com.grash.service;
 
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.EmailAttachmentDTO;
+import com.grash.dto.RenderedMailDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.User;
 import jakarta.mail.MessagingException;
@@ -11,23 +13,19 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.mail.MailProperties;
-import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 
 @Service
 @Transactional
@@ -48,7 +46,7 @@ public class EmailService2 implements MailService {
     @Value("${spring.mail.password:#{null}}")
     private String smtpPassword;
 
-    private final SpringTemplateEngine thymeleafTemplateEngine;
+    private final MailOutboxService mailOutboxService;
 
     @Value("classpath:/static/images/logo.png")
     private Resource resourceFile;
@@ -56,9 +54,6 @@ public class EmailService2 implements MailService {
     @Value("${mail.recipients}")
     private String[] recipients;
 
-    private final Environment environment;
-
-
     @Override
     public void sendSimpleMessage(String[] to, String subject, String text) {
         if (shouldSkipSendingMail())
@@ -107,58 +102,83 @@ public class EmailService2 implements MailService {
 
 
     @Override
-    @Async
     public void sendMessageUsingThymeleafTemplate(
             String[] to, String subject, Map<String, Object> templateModel, String template, Locale locale,
             List<EmailAttachmentDTO> attachmentDTOS) {
         if (shouldSkipSendingMail())
             return;
-        Context thymeleafContext = new Context();
-        thymeleafContext.setLocale(locale);
-        thymeleafContext.setVariables(templateModel);
-        thymeleafContext.setVariable("environment", environment);
-        thymeleafContext.setVariable("brandConfig", brandingService.getBrandConfig());
-        thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
-        String htmlBody = thymeleafTemplateEngine.process(template, thymeleafContext);
+        mailOutboxService.enqueue(to, subject, templateModel, template, locale, attachmentDTOS);
+    }
 
+    /**
+     * Sends the batch over one SMTP connection. Messages the server rejects are reported with their error.
+     */
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Map<Long, String> sendRendered(List<RenderedMailDTO> mails) {
+        Map<Long, String> errors = new HashMap<>();
+        if (shouldSkipSendingMail())
+            return errors;
+        Map<MimeMessage, Long> messageIds = new IdentityHashMap<>();
+        for (RenderedMailDTO mail : mails) {
+            if (mail.getTo().length == 0) continue;
+            try {
+                messageIds.put(createHtmlMessage(mail.getTo(), mail.getSubject(), mail.getHtmlBody(),
+                        mail.getAttachments()), mail.getId());
+            } catch (MessagingException e) {
+                errors.put(mail.getId(), e.getMessage());
+            }
+        }
+        if (messageIds.isEmpty())
+            return errors;
         try {
-            sendHtmlMessage(to, subject, htmlBody, attachmentDTOS);
-        } catch (MessagingException | IOException e) {
-            throw new CustomException("Can't send the mail", HttpStatus.INTERNAL_SERVER_ERROR);
+            emailSender.send(messageIds.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Messages missing from the failed ones were sent
+            e.getFailedMessages().forEach((message, exception) -> {
+                Long id = messageIds.get(message);
+                if (id != null) errors.put(id, exception.getMessage());
+            });
+        } catch (MailException e) {
+            messageIds.values().forEach(id -> errors.put(id, e.getMessage()));
         }
+        return errors;
     }
 
-
     @Override
     public void sendHtmlMessage(String[] to, String subject, String htmlBody,
                                 List<EmailAttachmentDTO> attachmentDTOS) throws MessagingException, IOException {
         if (shouldSkipSendingMail())
             return;
         if (to.length > 0) {
+            emailSender.send(createHtmlMessage(to, subject, htmlBody, attachmentDTOS));
+        }
+    }
 
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            try {
-                String fromAddress = smtpFromAddress != null ? smtpFromAddress : mailProperties.getUsername();
-                helper.setFrom(new InternetAddress(fromAddress, brandingService.getBrandConfig().getName()));
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            }
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
-
-            if (attachmentDTOS != null) {
-                for (EmailAttachmentDTO attachmentDTO : attachmentDTOS) {
-                    helper.addAttachment(attachmentDTO.getAttachmentName(),
-                            new ByteArrayDataSource(attachmentDTO.getAttachmentData(),
-                                    attachmentDTO.getAttachmentType()));
-                }
+    private MimeMessage createHtmlMessage(String[] to, String subject, String htmlBody,
+                                          List<EmailAttachmentDTO> attachmentDTOS) throws MessagingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        try {
+            String fromAddress = smtpFromAddress != null ? smtpFromAddress : mailProperties.getUsername();
+            helper.setFrom(new InternetAddress(fromAddress, brandingService.getBrandConfig().getName()));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlBody, true);
+
+        if (attachmentDTOS != null) {
+            for (EmailAttachmentDTO attachmentDTO : attachmentDTOS) {
+                helper.addAttachment(attachmentDTO.getAttachmentName(),
+                        new ByteArrayDataSource(attachmentDTO.getAttachmentData(),
+                                attachmentDTO.getAttachmentType()));
             }
-
-            //helper.addInline("attachment.png", resourceFile);
-            emailSender.send(message);
         }
+
+        //helper.addInline("attachment.png", resourceFile);
+        return message;
     }
 
     @Override
@@ -171,12 +191,12 @@ public class EmailService2 implements MailService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void removeUserFromContactList(String userEmail) {
         throw new RuntimeException("Not implemented");
     }
 
-    @Async
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void addToContactList(User user) {
         throw new RuntimeException("Not implemented");
     }
@@ -0,0 +1,140 @@
+package com.grash.service;
+
+import com.grash.model.*;
+import com.grash.repository.*;
+import com.grash.utils.ExportAssociations;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static com.grash.utils.ExportAssociations.*;
+
+/**
+ * Read path of the CSV exports. Rows are paged by id instead of by offset, so that every page costs the same, and
+ * the to-many associations of a page are projected to their display value in one query each.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportReader {
+    private final WorkOrderRepository workOrderRepository;
+    private final AssetRepository assetRepository;
+    private final LocationRepository locationRepository;
+    private final PartRepository partRepository;
+    private final MeterRepository meterRepository;
+    private final PreventiveMaintenanceRepository preventiveMaintenanceRepository;
+    private final PartTransactionRepository partTransactionRepository;
+    private final EntityManager em;
+
+    public ExportPage<WorkOrder> readWorkOrders(Long companyId, Long afterId, int size) {
+        List<WorkOrder> rows = workOrderRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size));
+        return page(rows, WorkOrder::getId, ids -> new ExportAssociations(Map.of(
+                ASSIGNED_TO, labels("WorkOrder", ASSIGNED_TO, "email", ids),
+                CUSTOMERS, labels("WorkOrder", CUSTOMERS, "name", ids)), Map.of()));
+    }
+
+    public ExportPage<Asset> readAssets(Long companyId, Long afterId, int size) {
+        List<Asset> rows = assetRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size));
+        return page(rows, Asset::getId, ids -> new ExportAssociations(Map.of(
+                ASSIGNED_TO, labels("Asset", ASSIGNED_TO, "email", ids),
+                TEAMS, labels("Asset", TEAMS, "name", ids),
+                PARTS, labels("Asset", PARTS, "name", ids),
+                VENDORS, labels("Asset", VENDORS, "name", ids),
+                CUSTOMERS, labels("Asset", CUSTOMERS, "name", ids)),
+                Map.of(DOWNTIME, downtimes(ids))));
+    }
+
+    public ExportPage<Location> readLocations(Long companyId, Long afterId, int size) {
+        List<Location> rows = locationRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size));
+        return page(rows, Location::getId, ids -> new ExportAssociations(Map.of(
+                WORKERS, labels("Location", WORKERS, "email", ids),
+                TEAMS, labels("Location", TEAMS, "name", ids),
+                VENDORS, labels("Location", VENDORS, "name", ids),
+                CUSTOMERS, labels("Location", CUSTOMERS, "name", ids)), Map.of()));
+    }
+
+    public ExportPage<Part> readParts(Long companyId, Long afterId, int size) {
+        List<Part> rows = partRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size));
+        return page(rows, Part::getId, ids -> new ExportAssociations(Map.of(
+                ASSIGNED_TO, labels("Part", ASSIGNED_TO, "email", ids),
+                CUSTOMERS, labels("Part", CUSTOMERS, "name", ids),
+                VENDORS, labels("Part", VENDORS, "name", ids),
+                TEAMS, labels("Part", TEAMS, "name", ids)), Map.of()));
+    }
+
+    public ExportPage<Meter> readMeters(Long companyId, Long afterId, int size) {
+        List<Meter> rows = meterRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size));
+        return page(rows, Meter::getId, ids -> new ExportAssociations(Map.of(
+                USERS, labels("Meter", USERS, "email", ids)), Map.of()));
+    }
+
+    public ExportPage<PreventiveMaintenance> readPreventiveMaintenances(Long companyId, Long afterId, int size) {
+        return page(preventiveMaintenanceRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size)),
+                PreventiveMaintenance::getId, ids -> ExportAssociations.LAZY);
+    }
+
+    public ExportPage<PartTransaction> readPartTransactions(Long companyId, Long afterId, int size) {
+        return page(partTransactionRepository.findExportPage(companyId, afterId, PageRequest.ofSize(size)),
+                PartTransaction::getId, ids -> ExportAssociations.LAZY);
+    }
+
+    public ExportPage<WorkOrder> readCostsAndTimes(Long companyId, Long afterId, int size) {
+        return page(workOrderRepository.findTimeAndCostExportPage(companyId, afterId, PageRequest.ofSize(size)),
+                WorkOrder::getId, ids -> ExportAssociations.LAZY);
+    }
+
+    /**
+     * Number of rows of the entity in the company, used to report the progress of an export
+     */
+    public long count(Class<?> entity, Long companyId) {
+        return em.createQuery("SELECT COUNT(e) FROM " + entity.getSimpleName() + " e WHERE e.company.id = :companyId",
+                        Long.class)
+                .setParameter("companyId", companyId)
+                .getSingleResult();
+    }
+
+    public long countCostsAndTimes(Long companyId) {
+        return em.createQuery("SELECT COUNT(w) FROM WorkOrder w WHERE w.company.id = :companyId " +
+                        "AND (EXISTS (SELECT l.id FROM Labor l WHERE l.workOrder.id = w.id) " +
+                        "OR EXISTS (SELECT ac.id FROM AdditionalCost ac WHERE ac.workOrder.id = w.id))", Long.class)
+                .setParameter("companyId", companyId)
+                .getSingleResult();
+    }
+
+    private <T> ExportPage<T> page(List<T> rows, Function<T, Long> getId,
+                                   Function<List<Long>, ExportAssociations> loadAssociations) {
+        if (rows.isEmpty()) return new ExportPage<>(rows, ExportAssociations.LAZY, null);
+        List<Long> ids = rows.stream().map(getId).toList();
+        return new ExportPage<>(rows, loadAssociations.apply(ids), ids.get(ids.size() - 1));
+    }
+
+    //entity, association and attribute are constants of this class, never user input
+    private Map<Long, List<String>> labels(String entity, String association, String attribute, List<Long> ids) {
+        Map<Long, List<String>> labels = new HashMap<>();
+        em.createQuery("SELECT e.id, x." + attribute + " FROM " + entity + " e JOIN e." + association + " x " +
+                        "WHERE e.id IN :ids ORDER BY e.id, x.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> labels.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]));
+        return labels;
+    }
+
+    private Map<Long, Long> downtimes(List<Long> ids) {
+        Map<Long, Long> downtimes = new HashMap<>();
+        em.createQuery("SELECT d.asset.id, SUM(d.duration) FROM AssetDowntime d WHERE d.asset.id IN :ids " +
+                        "GROUP BY d.asset.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> downtimes.put((Long) row[0], ((Number) row[1]).longValue()));
+        return downtimes;
+    }
+
+    /**
+     * @param lastId id of the last row, to read the next page after. Null when the page is empty
+     */
+    public record ExportPage<T>(List<T> rows, ExportAssociations associations, Long lastId) {
+    }
+}
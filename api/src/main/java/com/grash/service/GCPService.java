@@ -2,6 +2,7 @@ package com.grash.service;
 
 import com.google.auth.Credentials;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
 import com.grash.exception.CustomException;
 import com.grash.model.File;
@@ -21,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -29,6 +31,7 @@ import java.nio.file.Paths;
 @RequiredArgsConstructor
 @Slf4j
 public class GCPService implements StorageService {
+    private static final int UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
     @Value("${storage.gcp.value}")
     private String gcpJson;
     @Value("${storage.gcp.json-path}")
@@ -134,6 +137,54 @@ public class GCPService implements StorageService {
         }
     }
 
+    /**
+     * The content is sent as a resumable upload, buffering one chunk at a time. Closing the channel finalizes the
+     * upload, so when the writer fails the channel is closed and the partial object deleted.
+     */
+    public String upload(String fileName, String folder, String contentType, String contentEncoding,
+                         ContentWriter writer) {
+        checkIfConfigured();
+
+        String filePath = Helper.generateUniqueFilePath(fileName, folder);
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(gcpBucketName, filePath))
+                .setContentType(contentType)
+                .setContentEncoding(contentEncoding)
+                .build();
+        try {
+            WriteChannel channel = storage.writer(blobInfo,
+                    Storage.BlobWriteOption.predefinedAcl(Storage.PredefinedAcl.PRIVATE));
+            boolean written = false;
+            try {
+                channel.setChunkSize(UPLOAD_CHUNK_SIZE);
+                writer.write(Channels.newOutputStream(channel));
+                written = true;
+            } finally {
+                if (written) channel.close();
+                else abort(channel, blobInfo.getBlobId());
+            }
+            return filePath;
+        } catch (IOException e) {
+            log.error("Failed to write file during upload to {}", filePath, e);
+            throw new CustomException("Failed to save the file.", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (StorageException e) {
+            log.error("GCS error during upload to {}", filePath, e);
+            throw new CustomException("Failed to save the file to storage.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void abort(WriteChannel channel, BlobId blobId) {
+        try {
+            channel.close();
+        } catch (IOException | StorageException e) {
+            log.warn("Failed to close the aborted upload to {}", blobId.getName(), e);
+        }
+        try {
+            storage.delete(blobId);
+        } catch (StorageException e) {
+            log.warn("Failed to delete the aborted upload to {}", blobId.getName(), e);
+        }
+    }
+
     public boolean exists(String filePath) {
         checkIfConfigured();
         Blob blob = storage.get(BlobId.of(gcpBucketName, filePath));
@@ -2,6 +2,7 @@ package com.grash.service;
 
 import com.grash.dto.imports.*;
 import com.grash.model.*;
+import com.grash.model.enums.CustomSequenceType;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 
@@ -19,6 +20,7 @@ public class ImportService {
     private final MeterService meterService;
     private final WorkOrderService workOrderService;
     private final PreventiveMaintenanceService preventiveMaintenanceService;
+    private final CustomSequenceService customSequenceService;
 
     @Transactional
     public ImportResponse importWorkOrders(List<WorkOrderImportDTO> toImport, Company company) {
@@ -34,6 +36,8 @@ public class ImportService {
         }
 
         List<WorkOrder> workOrdersToSave = new java.util.ArrayList<>();
+        Iterator<Long> customIds = customSequenceService.nextN(company, CustomSequenceType.WORK_ORDER,
+                toImport.size()).iterator();
         int created = 0;
         int updated = 0;
 
@@ -52,7 +56,8 @@ public class ImportService {
                 created++;
             }
 
-            workOrderService.importWorkOrder(workOrder, dto, company);
+            workOrderService.importWorkOrder(workOrder, dto, company,
+                    CustomSequenceType.WORK_ORDER.format(customIds.next()));
             workOrdersToSave.add(workOrder);
         }
 
@@ -91,6 +96,8 @@ public class ImportService {
 
         Map<String, Asset> assetsByName = new java.util.HashMap<>();
         List<Asset> assetsToSave = new java.util.ArrayList<>();
+        Iterator<Long> customIds = customSequenceService.nextN(company, CustomSequenceType.ASSET,
+                toImport.size()).iterator();
         int created = 0;
         int updated = 0;
 
@@ -109,7 +116,8 @@ public class ImportService {
                 created++;
             }
 
-            assetService.setAssetFieldsFromImportDto(asset, dto, company, assetsByName);
+            assetService.setAssetFieldsFromImportDto(asset, dto, company, assetsByName,
+                    CustomSequenceType.ASSET.format(customIds.next()));
             assetsToSave.add(asset);
             assetsByName.put(asset.getName(), asset);
         }
@@ -139,6 +147,8 @@ public class ImportService {
 
         Map<String, Location> locationsByName = new java.util.HashMap<>();
         List<Location> locationsToSave = new java.util.ArrayList<>();
+        Iterator<Long> customIds = customSequenceService.nextN(company, CustomSequenceType.LOCATION,
+                toImport.size()).iterator();
         int created = 0;
         int updated = 0;
 
@@ -157,7 +167,8 @@ public class ImportService {
                 created++;
             }
 
-            locationService.setLocationFieldsFromImportDto(location, dto, company, locationsByName);
+            locationService.setLocationFieldsFromImportDto(location, dto, company, locationsByName,
+                    CustomSequenceType.LOCATION.format(customIds.next()));
             locationsToSave.add(location);
             locationsByName.put(location.getName(), location);
         }
@@ -277,6 +288,8 @@ public class ImportService {
     public ImportResponse importPreventiveMaintenances(List<PreventiveMaintenanceImportDTO> toImport, Company company) {
         final int[] created = {0};
         final int[] updated = {0};
+        Iterator<Long> customIds = customSequenceService.nextN(company, CustomSequenceType.PREVENTIVE_MAINTENANCE,
+                toImport.size()).iterator();
         toImport.forEach(pmImportDTO -> {
             Long id = pmImportDTO.getId();
             PreventiveMaintenance preventiveMaintenance = new PreventiveMaintenance();
@@ -292,7 +305,8 @@ public class ImportService {
                     created[0]++;
                 }
             }
-            preventiveMaintenanceService.importPreventiveMaintenance(preventiveMaintenance, pmImportDTO, company);
+            preventiveMaintenanceService.importPreventiveMaintenance(preventiveMaintenance, pmImportDTO, company,
+                    CustomSequenceType.PREVENTIVE_MAINTENANCE.format(customIds.next()));
         });
         return ImportResponse.builder()
                 .created(created[0])
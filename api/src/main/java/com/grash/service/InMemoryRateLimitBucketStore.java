@@ -0,0 +1,57 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-JVM bucket store. Each limit class gets its own Caffeine cache, bounded by
+ * {@code security.rate-limit.local.maximum-size} and expiring a bucket once it has been idle for the time it takes
+ * to refill completely.
+ */
+@Component
+@ConditionalOnProperty(name = "security.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final ConcurrentMap<RateLimitClass, Cache<String, Bucket>> caches = new ConcurrentHashMap<>();
+
+    @Value("${security.rate-limit.local.maximum-size:100000}")
+    private long maximumSize;
+
+    @Override
+    public Bucket resolve(RateLimitClass limit, String key, Supplier<BucketConfiguration> configuration) {
+        return cache(limit, configuration).get(key, k -> newBucket(configuration.get()));
+    }
+
+    @Override
+    public void purgeIdle() {
+        caches.values().forEach(Cache::cleanUp);
+    }
+
+    private Cache<String, Bucket> cache(RateLimitClass limit, Supplier<BucketConfiguration> configuration) {
+        Cache<String, Bucket> cache = caches.get(limit);
+        if (cache != null) return cache;
+        return caches.computeIfAbsent(limit, l -> Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(RateLimitBucketStore.idleTimeout(configuration.get()))
+                .build());
+    }
+
+    private static Bucket newBucket(BucketConfiguration configuration) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.grash.service;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bucket store shared by every replica, so a client gets the configured limit once rather than once per node.
+ * Bucket state lives in {@code rate_limit_bucket} and each consumption is a {@code SELECT ... FOR UPDATE} round
+ * trip. A trigger stamps {@code updated_at}, which {@link #purgeIdle()} uses to delete buckets that have refilled.
+ */
+@Component
+@ConditionalOnProperty(name = "security.rate-limit.store", havingValue = "jdbc")
+@Slf4j
+public class JdbcRateLimitBucketStore implements RateLimitBucketStore {
+
+    static final String TABLE = "rate_limit_bucket";
+
+    private final ProxyManager<String> proxyManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<RateLimitClass, Duration> idleTimeouts = new EnumMap<>(RateLimitClass.class);
+
+    public JdbcRateLimitBucketStore(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.proxyManager = new PostgreSQLSelectForUpdateBasedProxyManager<>(SQLProxyConfiguration.builder()
+                .withTableSettings(BucketTableSettings.customSettings(TABLE, "id", "state"))
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .build(dataSource));
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes the idle timeout of every limit class up front: the purge job runs on a single node of the cluster,
+     * which may never have resolved a bucket of some of the classes whose buckets it has to delete.
+     */
+    @Override
+    public void configure(Map<RateLimitClass, BucketConfiguration> configurations) {
+        configurations.forEach((limit, configuration) ->
+                idleTimeouts.put(limit, RateLimitBucketStore.idleTimeout(configuration)));
+    }
+
+    @Override
+    public Bucket resolve(RateLimitClass limit, String key, Supplier<BucketConfiguration> configuration) {
+        return proxyManager.builder().build(limit.bucketKey(key), configuration);
+    }
+
+    @Override
+    public void purgeIdle() {
+        idleTimeouts.forEach((limit, idleTimeout) -> {
+            int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id LIKE ? AND updated_at < ?",
+                    limit.bucketKey("%"), Timestamp.from(Instant.now().minus(idleTimeout)));
+            if (deleted > 0) log.info("Purged {} idle {} rate limit buckets", deleted, limit);
+        });
+    }
+}
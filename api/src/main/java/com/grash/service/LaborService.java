@@ -85,6 +85,11 @@ public class LaborService {
         return laborRepository.findByWorkOrder_Id(id);
     }
 
+    //in seconds
+    public long getTotalDurationByCompanyAndWorkOrderCreatedAtBetween(Long companyId, Date start, Date end) {
+        return laborRepository.sumDurationByWorkOrderCompanyAndCreatedAtBetween(companyId, start, end);
+    }
+
     public Labor stop(Labor labor) {
         labor.setStatus(TimeStatus.STOPPED);
         labor.setDuration(labor.getDuration() + Helper.getDateDiff(labor.getStartedAt(), new Date(), TimeUnit.SECONDS));
@@ -9,6 +9,8 @@ import com.grash.utils.LicenseFileValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -16,14 +18,22 @@ import org.springframework.web.client.RestTemplate;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+/**
+ * Resolves the instance license from a license file or the Keygen API. The result is published as an immutable
+ * {@link LicenseSnapshot}: readers never lock, and once the snapshot is stale a single background refresh replaces
+ * it while the previous one keeps being served.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LicenseService {
 
     private static final long CACHE_DURATION_MILLIS = 12 * 60 * 60 * 1000; // 12 hours
+    private static final long RETRY_INTERVAL_MILLIS = 5 * 60 * 1000; // 5 minutes, when no license data was obtained
     private static final String API_URL_TEMPLATE = "https://api.keygen.sh/v1/accounts/%s/licenses/actions/validate-key";
     private static final String ENTITLEMENTS_URL_TEMPLATE = "https://api.keygen.sh/v1/accounts/%s/licenses/%s" +
             "/entitlements?limit=100";
@@ -35,6 +45,9 @@ public class LicenseService {
     private final ObjectMapper objectMapper;
     private final KeygenRequestTrackerRepository keygenRequestTrackerRepository;
     private final RestTemplate restTemplate = new RestTemplate();
+    private final TaskExecutor refreshExecutor = new SimpleAsyncTaskExecutor("license-refresh-");
+    private final AtomicReference<LicenseSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     @Value("${license-key:#{null}}")
     private String licenseKey;
@@ -48,41 +61,72 @@ public class LicenseService {
     @Value("${license-file-path:#{null}}")
     private String licenseFilePath;
 
-    private volatile LicenseValidationResponse cachedLicenseResponse;
-    private volatile DecryptedLicenseData cachedDecryptedLicenseData;
-    private volatile Set<String> cachedEntitlements = new HashSet<>();
-    private volatile long lastCheckedTime = 0;
+    public LicensingState getLicensingState() {
+        return currentSnapshot().state(System.currentTimeMillis());
+    }
+
+    public boolean isSSOEnabled() {
+        return hasEntitlement(LicenseEntitlement.SSO);
+    }
+
+    public boolean hasEntitlement(LicenseEntitlement entitlement) {
+        LicenseSnapshot current = currentSnapshot();
+        return current.isValid(System.currentTimeMillis()) && current.entitlements().contains(entitlement);
+    }
+
+    private LicenseSnapshot currentSnapshot() {
+        LicenseSnapshot current = snapshot.get();
+        if (current == null) {
+            return bootstrap();
+        }
+        if (System.currentTimeMillis() >= current.refreshAt()) {
+            refreshInBackground();
+        }
+        return current;
+    }
 
-    public synchronized LicensingState getLicensingState() {
-        if (isCacheValid()) {
-            return buildLicensingStateFromCache();
+    /**
+     * Only the very first read waits for a license check; every later one is served the published snapshot.
+     */
+    private synchronized LicenseSnapshot bootstrap() {
+        LicenseSnapshot current = snapshot.get();
+        if (current == null) {
+            current = loadSnapshot();
+            snapshot.set(current);
         }
+        return current;
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    snapshot.set(loadSnapshot());
+                } catch (RuntimeException e) {
+                    log.error("License refresh failed", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            log.error("Could not schedule license refresh", e);
+        }
+    }
 
+    LicenseSnapshot loadSnapshot() {
         if (!hasLicenseKey() && !hasLicenseFile()) {
-            return clearCacheAndReturnInvalid();
+            return noLicense();
         }
 
         // Try license file validation first if available
         if (hasLicenseFile()) {
-            return validateAndCacheLicenseFile();
+            return validateLicenseFile();
         }
 
         // Fall back to Keygen API validation
-        return validateAndCacheLicenseKey();
-    }
-
-    public boolean isSSOEnabled() {
-        return hasEntitlement(LicenseEntitlement.SSO);
-    }
-
-    public boolean hasEntitlement(LicenseEntitlement entitlement) {
-        LicensingState state = getLicensingState();
-        return state.isValid() && state.getEntitlements().contains(entitlement.toString());
-    }
-
-    private boolean isCacheValid() {
-        long now = System.currentTimeMillis();
-        return (now - lastCheckedTime) < CACHE_DURATION_MILLIS && (cachedLicenseResponse != null || cachedDecryptedLicenseData != null);
+        return validateLicenseKey();
     }
 
     private boolean hasLicenseKey() {
@@ -94,108 +138,83 @@ public class LicenseService {
         return LicenseFileValidator.licenseFileExists(licenseFilePath);
     }
 
-    private LicensingState buildLicensingStateFromCache() {
-        if (cachedDecryptedLicenseData != null) {
-            return buildStateFromDecryptedLicense();
-        }
-
-        if (cachedLicenseResponse != null) {
-            return buildStateFromKeygenResponse();
-        }
-
-        return clearCacheAndReturnInvalid();
-    }
-
-    private LicensingState buildStateFromDecryptedLicense() {
-        if (!cachedDecryptedLicenseData.isTimeValid()) {
+    private LicenseSnapshot buildSnapshotFromDecryptedLicense(DecryptedLicenseData licenseData, long now) {
+        if (!licenseData.isTimeValid()) {
             log.warn("License file has expired or is invalid based on issued/expiry timestamps");
-            return LicensingState.builder()
-                    .hasLicense(true)
-                    .valid(false)
-                    .build();
+            return LicenseSnapshot.of(invalidLicense(), Long.MAX_VALUE, now + CACHE_DURATION_MILLIS);
         }
 
-        Date expiry = cachedDecryptedLicenseData.getMeta().getExpiry();
-        return LicensingState.builder()
+        Date expiry = licenseData.getMeta().getExpiry();
+        LicensingState state = LicensingState.builder()
                 .valid(true)
                 .hasLicense(true)
-                .entitlements(cachedDecryptedLicenseData.getEntitlements())
-                .planName(cachedDecryptedLicenseData.getLicenseName())
+                .entitlements(Set.copyOf(licenseData.getEntitlements()))
+                .planName(licenseData.getLicenseName())
                 .expirationDate(expiry)
-                .usersCount(cachedDecryptedLicenseData.getUsersCount())
+                .usersCount(licenseData.getUsersCount())
                 .build();
+        // the file is not re-read on every call, so its expiry has to be enforced by the snapshot itself
+        return LicenseSnapshot.of(state, expiry == null ? Long.MAX_VALUE : expiry.getTime(),
+                now + CACHE_DURATION_MILLIS);
     }
 
-    private LicensingState buildStateFromKeygenResponse() {
-        String rawExpiry = cachedLicenseResponse.getData().getAttributes().getExpiry();
-        return LicensingState.builder()
-                .valid(cachedLicenseResponse.getMeta().isValid())
+    private LicenseSnapshot buildSnapshotFromKeygenResponse(LicenseValidationResponse response,
+                                                            Set<String> entitlements, long now) {
+        String rawExpiry = response.getData().getAttributes().getExpiry();
+        LicensingState state = LicensingState.builder()
+                .valid(response.getMeta().isValid())
                 .hasLicense(true)
-                .entitlements(cachedEntitlements)
-                .planName(cachedLicenseResponse.getData().getAttributes().getName())
+                .entitlements(entitlements)
+                .planName(response.getData().getAttributes().getName())
                 .expirationDate(rawExpiry == null ? null : Date.from(Instant.parse(rawExpiry)))
-                .usersCount(extractUsersCount(cachedLicenseResponse))
+                .usersCount(extractUsersCount(response))
                 .build();
+        return LicenseSnapshot.of(state, Long.MAX_VALUE, now + CACHE_DURATION_MILLIS);
     }
 
-    private LicensingState clearCacheAndReturnInvalid() {
-        cachedLicenseResponse = null;
-        cachedDecryptedLicenseData = null;
-        cachedEntitlements.clear();
-        lastCheckedTime = System.currentTimeMillis();
-        return LicensingState.builder()
+    private LicenseSnapshot noLicense() {
+        LicensingState state = LicensingState.builder()
                 .hasLicense(false)
                 .valid(false)
                 .build();
+        return LicenseSnapshot.of(state, Long.MAX_VALUE, System.currentTimeMillis() + RETRY_INTERVAL_MILLIS);
     }
 
-    private LicensingState validateAndCacheLicenseKey() {
+    private LicensingState invalidLicense() {
+        return LicensingState.builder()
+                .hasLicense(true)
+                .valid(false)
+                .build();
+    }
+
+    private LicenseSnapshot validateLicenseKey() {
         long now = System.currentTimeMillis();
 
         try {
             Optional<LicenseValidationResponse> response = performLicenseValidation();
 
             if (response.isPresent()) {
-                cachedLicenseResponse = response.get();
-                lastCheckedTime = now;
-
-                if (cachedLicenseResponse.getMeta().isValid()) {
-                    fetchAndCacheEntitlements(cachedLicenseResponse.getData().getId());
-                } else {
-                    cachedEntitlements.clear();
-                }
-                String rawExpiry = cachedLicenseResponse.getData().getAttributes().getExpiry();
-
-                return LicensingState.builder()
-                        .hasLicense(true)
-                        .valid(cachedLicenseResponse.getMeta().isValid())
-                        .entitlements(cachedEntitlements)
-                        .planName(cachedLicenseResponse.getData().getAttributes().getName())
-                        .expirationDate(rawExpiry == null ? null : Date.from(Instant.parse(rawExpiry)))
-                        .usersCount(extractUsersCount(cachedLicenseResponse))
-                        .build();
+                LicenseValidationResponse licenseResponse = response.get();
+                Set<String> entitlements = licenseResponse.getMeta().isValid()
+                        ? fetchEntitlements(licenseResponse.getData().getId())
+                        : Set.of();
+                return buildSnapshotFromKeygenResponse(licenseResponse, entitlements, now);
             }
         } catch (Exception e) {
             log.error("License validation failed", e);
-            cachedLicenseResponse = null;
-            cachedEntitlements.clear();
         }
 
-        lastCheckedTime = now;
-        return LicensingState.builder()
-                .hasLicense(true)
-                .valid(false)
-                .build();
+        return LicenseSnapshot.of(invalidLicense(), Long.MAX_VALUE, now + RETRY_INTERVAL_MILLIS);
     }
 
-    private LicensingState validateAndCacheLicenseFile() {
+    private LicenseSnapshot validateLicenseFile() {
         long now = System.currentTimeMillis();
         try {
             // Use license key from file or configured key
             String keyToUse = licenseKey;
             if (keyToUse == null || keyToUse.isEmpty()) {
                 log.warn("License key is required for license file decryption");
-                return clearCacheAndReturnInvalid();
+                return noLicense();
             }
 
             String decryptedData = LicenseFileValidator.validateAndDecryptLicenseFile(
@@ -205,21 +224,14 @@ public class LicenseService {
             );
 
             if (decryptedData != null) {
-                cachedDecryptedLicenseData = objectMapper.readValue(decryptedData, DecryptedLicenseData.class);
-                lastCheckedTime = now;
-                return buildStateFromDecryptedLicense();
+                DecryptedLicenseData licenseData = objectMapper.readValue(decryptedData, DecryptedLicenseData.class);
+                return buildSnapshotFromDecryptedLicense(licenseData, now);
             }
         } catch (Exception e) {
             log.error("License file validation failed", e);
-            cachedDecryptedLicenseData = null;
-            cachedEntitlements.clear();
         }
 
-        lastCheckedTime = now;
-        return LicensingState.builder()
-                .hasLicense(true)
-                .valid(false)
-                .build();
+        return LicenseSnapshot.of(invalidLicense(), Long.MAX_VALUE, now + RETRY_INTERVAL_MILLIS);
     }
 
     private Optional<LicenseValidationResponse> performLicenseValidation() throws Exception {
@@ -306,7 +318,7 @@ public class LicenseService {
         meta.setScope(scope);
     }
 
-    private void fetchAndCacheEntitlements(String licenseId) {
+    private Set<String> fetchEntitlements(String licenseId) {
         try {
             String entitlementsUrl = String.format(ENTITLEMENTS_URL_TEMPLATE, keygenAccountId, licenseId);
             HttpEntity<?> httpEntity = createEntitlementsRequestEntity();
@@ -319,12 +331,12 @@ public class LicenseService {
             );
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                cacheEntitlements(response.getBody());
+                return toEntitlementCodes(response.getBody());
             }
         } catch (Exception e) {
             log.error("Failed to fetch entitlements for license: {}", licenseId, e);
-            cachedEntitlements.clear();
         }
+        return Set.of();
     }
 
     private HttpEntity<?> createEntitlementsRequestEntity() {
@@ -334,13 +346,14 @@ public class LicenseService {
         return new HttpEntity<>(headers);
     }
 
-    private void cacheEntitlements(EntitlementsResponse response) {
-        cachedEntitlements = response.getData().stream()
+    private Set<String> toEntitlementCodes(EntitlementsResponse response) {
+        Set<String> entitlements = response.getData().stream()
                 .map(EntitlementData::getAttributes)
                 .map(EntitlementAttributes::getCode)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toUnmodifiableSet());
 
-        log.info("Cached {} entitlements: {}", cachedEntitlements.size(), cachedEntitlements);
+        log.info("Cached {} entitlements: {}", entitlements.size(), entitlements);
+        return entitlements;
     }
 
     private int extractUsersCount(LicenseValidationResponse response) {
@@ -352,4 +365,35 @@ public class LicenseService {
             return 0;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * What {@link #getLicensingState()} and {@link #hasEntitlement(LicenseEntitlement)} read: the state returned
+     * to clients, its entitlements resolved to an {@link EnumSet}, the instant the license stops being valid
+     * (license file expiry) and the instant a background refresh is due.
+     */
+    record LicenseSnapshot(LicensingState state, Set<LicenseEntitlement> entitlements, long validUntil,
+                           long refreshAt) {
+
+        static LicenseSnapshot of(LicensingState state, long validUntil, long refreshAt) {
+            EnumSet<LicenseEntitlement> entitlements = EnumSet.noneOf(LicenseEntitlement.class);
+            for (LicenseEntitlement entitlement : LicenseEntitlement.values()) {
+                if (state.getEntitlements().contains(entitlement.toString())) entitlements.add(entitlement);
+            }
+            return new LicenseSnapshot(state, Collections.unmodifiableSet(entitlements), validUntil, refreshAt);
+        }
+
+        boolean isValid(long now) {
+            return state.isValid() && now < validUntil;
+        }
+
+        LicensingState state(long now) {
+            if (state.isValid() && now >= validUntil) {
+                return LicensingState.builder()
+                        .hasLicense(true)
+                        .valid(false)
+                        .build();
+            }
+            return state;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.grash.exception.CustomException;
 import com.grash.mapper.LocationMapper;
 import com.grash.model.*;
 import com.grash.model.enums.CustomFieldEntityType;
+import com.grash.model.enums.CustomSequenceType;
 import com.grash.model.enums.NotificationType;
 import com.grash.model.enums.webhook.WebhookEvent;
 import com.grash.repository.LocationRepository;
@@ -145,7 +146,7 @@ public class LocationService {
 
     private String getLocationNumber(Company company) {
         Long nextSequence = customSequenceService.getNextLocationSequence(company);
-        return "L" + String.format("%06d", nextSequence);
+        return CustomSequenceType.LOCATION.format(nextSequence);
     }
 
     private void setLocationCustomFields(Location location, List<CustomFieldValuePostDTO> customFieldValuePostDTOS,
@@ -174,6 +175,14 @@ public class LocationService {
 
     public void setLocationFieldsFromImportDto(Location location, LocationImportDTO dto, Company company,
                                                Map<String, Location> locationsByName) {
+        setLocationFieldsFromImportDto(location, dto, company, locationsByName, null);
+    }
+
+    /**
+     * @param customId number reserved by the caller, or {@code null} to allocate one
+     */
+    public void setLocationFieldsFromImportDto(Location location, LocationImportDTO dto, Company company,
+                                               Map<String, Location> locationsByName, String customId) {
         checkUsageBasedLimit(company);
         Long companyId = company.getId();
         location.setCompany(company);
@@ -202,7 +211,7 @@ public class LocationService {
             optionalTeam.ifPresent(teams::add);
         });
         location.setTeams(teams);
-        location.setCustomId(getLocationNumber(company));
+        location.setCustomId(customId != null ? customId : getLocationNumber(company));
         List<Customer> customers = new ArrayList<>();
         dto.getCustomersNames().forEach(name -> {
             Optional<Customer> optionalCustomer = customerService.findByNameIgnoreCaseAndCompany(name, companyId);
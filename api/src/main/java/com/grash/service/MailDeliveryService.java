@@ -0,0 +1,150 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.configuration.AsyncConfig;
+import com.grash.dto.EmailAttachmentDTO;
+import com.grash.dto.RenderedMailDTO;
+import com.grash.event.MailEnqueuedEvent;
+import com.grash.factory.MailServiceFactory;
+import com.grash.model.MailOutbox;
+import com.grash.model.enums.MailOutboxStatus;
+import com.grash.repository.MailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the {@link MailOutbox}. Mails are leased in batches, each distinct template, locale and variables of a batch
+ * is rendered once, and the batch is handed to the mail back end at once so that it can reuse one SMTP connection or
+ * SendGrid request. Sent mails are deleted, failed ones retried with exponential backoff. Delivery is at least once:
+ * a mail whose lease expires is sent again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MailDeliveryService {
+    static final int MAX_ATTEMPTS = 6;
+    static final int BATCH_SIZE = 50;
+    static final long BASE_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long FAILED_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+    //batches sent by one call, the job picks up the rest
+    private static final int MAX_BATCHES = 20;
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailServiceFactory mailServiceFactory;
+    private final MailTemplateService mailTemplateService;
+    private final ObjectMapper objectMapper;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    public void onMailEnqueued(MailEnqueuedEvent event) {
+        sendDue();
+    }
+
+    public void sendDue() {
+        for (int i = 0; i < MAX_BATCHES; i++) {
+            if (sendBatch() < BATCH_SIZE) return;
+        }
+    }
+
+    /**
+     * @return how many mails were leased
+     */
+    int sendBatch() {
+        String leaseToken = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        int leased = mailOutboxRepository.lease(leaseToken, new Date(now), new Date(now + LEASE_MILLIS), BATCH_SIZE);
+        if (leased == 0) return 0;
+        List<MailOutbox> mails = mailOutboxRepository.findByLeaseTokenOrderById(leaseToken);
+
+        Map<RenderKey, String> renderedBodies = new HashMap<>();
+        List<RenderedMailDTO> renderedMails = new ArrayList<>();
+        List<MailOutbox> failed = new ArrayList<>();
+        Set<Long> unrendered = new HashSet<>();
+        for (MailOutbox mail : mails) {
+            try {
+                String htmlBody = renderedBodies.computeIfAbsent(
+                        new RenderKey(mail.getTemplate(), mail.getLocale(), mail.getVariables()), this::render);
+                renderedMails.add(new RenderedMailDTO(mail.getId(), objectMapper.readValue(mail.getRecipients(),
+                        String[].class), mail.getSubject(), htmlBody, mail.getTemplate(), readAttachments(mail)));
+            } catch (Exception e) {
+                //a mail that can't be rendered won't be on a retry either
+                log.error("Failed to render mail {}", mail.getId(), e);
+                fail(mail, e.getMessage(), false);
+                failed.add(mail);
+                unrendered.add(mail.getId());
+            }
+        }
+
+        Map<Long, String> errors;
+        try {
+            errors = renderedMails.isEmpty() ? Map.of() :
+                    mailServiceFactory.getMailService().sendRendered(renderedMails);
+        } catch (Exception e) {
+            log.warn("Failed to send {} mails", renderedMails.size(), e);
+            errors = new HashMap<>();
+            for (RenderedMailDTO renderedMail : renderedMails) errors.put(renderedMail.getId(), e.getMessage());
+        }
+
+        List<Long> sent = new ArrayList<>();
+        for (MailOutbox mail : mails) {
+            if (unrendered.contains(mail.getId())) continue;
+            if (errors.containsKey(mail.getId())) {
+                fail(mail, errors.get(mail.getId()), true);
+                failed.add(mail);
+            } else sent.add(mail.getId());
+        }
+        if (!sent.isEmpty()) mailOutboxRepository.deleteAllByIdInBatch(sent);
+        if (!failed.isEmpty()) mailOutboxRepository.saveAll(failed);
+        return leased;
+    }
+
+    private String render(RenderKey key) {
+        try {
+            Map<String, Object> variables = objectMapper.readValue(key.variables(), new TypeReference<>() {
+            });
+            return mailTemplateService.render(key.template(), Locale.forLanguageTag(key.locale()), variables);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to render " + key.template() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private List<EmailAttachmentDTO> readAttachments(MailOutbox mail) throws Exception {
+        if (mail.getAttachments() == null) return null;
+        return objectMapper.readValue(mail.getAttachments(), new TypeReference<>() {
+        });
+    }
+
+    private static void fail(MailOutbox mail, String error, boolean retryable) {
+        mail.setAttempts(mail.getAttempts() + 1);
+        mail.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 1000)));
+        mail.setLeaseToken(null);
+        if (!retryable || mail.getAttempts() >= MAX_ATTEMPTS) {
+            mail.setStatus(MailOutboxStatus.FAILED);
+        } else {
+            mail.setNextAttemptAt(new Date(System.currentTimeMillis() + getBackoffMillis(mail.getAttempts())));
+        }
+    }
+
+    //doubles with each attempt, plus up to 20% jitter so that retries of a burst don't hit the relay together
+    static long getBackoffMillis(int attempts) {
+        long delay = Math.min(BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 20), MAX_BACKOFF_MILLIS);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    public void purgeFailed() {
+        mailOutboxRepository.deleteFailedBefore(new Date(System.currentTimeMillis() - FAILED_RETENTION_MILLIS));
+    }
+
+    private record RenderKey(String template, String locale, String variables) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.EmailAttachmentDTO;
+import com.grash.event.MailEnqueuedEvent;
+import com.grash.exception.CustomException;
+import com.grash.model.MailOutbox;
+import com.grash.repository.MailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailOutboxService {
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Writes a templated mail to the outbox. It is rendered and sent by {@link MailDeliveryService} once the current
+     * transaction commits. A failed write is thrown so that it rolls back the business change the mail is about.
+     */
+    public void enqueue(String[] to, String subject, Map<String, Object> variables, String template, Locale locale,
+                        List<EmailAttachmentDTO> attachments) {
+        String[] recipients = Arrays.stream(to).filter(Objects::nonNull).distinct().toArray(String[]::new);
+        if (recipients.length == 0) return;
+        Date now = new Date();
+        MailOutbox mail = new MailOutbox();
+        mail.setSubject(subject);
+        mail.setTemplate(template);
+        mail.setLocale((locale == null ? Locale.ENGLISH : locale).toLanguageTag());
+        try {
+            mail.setRecipients(objectMapper.writeValueAsString(recipients));
+            mail.setVariables(objectMapper.writeValueAsString(variables == null ? Map.of() : variables));
+            if (attachments != null && !attachments.isEmpty()) {
+                mail.setAttachments(objectMapper.writeValueAsString(attachments));
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize mail {} for: {}", template, String.join(", ", recipients), e);
+            throw new CustomException("Failed to enqueue mail", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        mail.setNextAttemptAt(now);
+        mail.setCreatedAt(now);
+        mailOutboxRepository.save(mail);
+        applicationEventPublisher.publishEvent(new MailEnqueuedEvent());
+    }
+}
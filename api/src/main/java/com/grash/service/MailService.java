@@ -1,6 +1,7 @@
 package com.grash.service;
 
 import com.grash.dto.EmailAttachmentDTO;
+import com.grash.dto.RenderedMailDTO;
 import com.grash.model.User;
 import jakarta.mail.MessagingException;
 
@@ -17,6 +18,9 @@ public interface MailService {
     void sendMessageWithAttachment(String to, String subject, String text, String attachmentName,
                                    byte[] attachmentData, String attachmentType);
 
+    /**
+     * Writes the mail to the outbox, it is rendered and sent once the current transaction commits.
+     */
     void sendMessageUsingThymeleafTemplate(String[] to, String subject, Map<String, Object> templateModel,
                                            String template, Locale locale, List<EmailAttachmentDTO> attachmentDTOS);
 
@@ -31,6 +35,13 @@ public interface MailService {
         sendHtmlMessage(to, subject, htmlBody, null);
     }
 
+    /**
+     * Sends a batch of mails of the outbox, reusing one connection or request where the back end allows it.
+     *
+     * @return the error of each mail that could not be sent, by id
+     */
+    Map<Long, String> sendRendered(List<RenderedMailDTO> mails);
+
     void sendMailToSuperAdmins(String subject, String text);
 
     void removeUserFromContactList(String email);
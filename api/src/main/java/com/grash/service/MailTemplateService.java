@@ -0,0 +1,32 @@
+package com.grash.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the Thymeleaf mail templates, with the branding variables every template uses.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailTemplateService {
+
+    private final SpringTemplateEngine thymeleafTemplateEngine;
+    private final BrandingService brandingService;
+    private final Environment environment;
+
+    public String render(String template, Locale locale, Map<String, Object> variables) {
+        Context thymeleafContext = new Context();
+        thymeleafContext.setLocale(locale);
+        thymeleafContext.setVariables(variables);
+        thymeleafContext.setVariable("environment", environment);
+        thymeleafContext.setVariable("brandConfig", brandingService.getBrandConfig());
+        thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
+        return thymeleafTemplateEngine.process(template, thymeleafContext);
+    }
+}
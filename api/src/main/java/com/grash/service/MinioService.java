@@ -1,35 +1,39 @@
 package com.grash.service;
 
+import com.grash.configuration.AsyncConfig;
 import com.grash.exception.CustomException;
 import com.grash.model.File;
 import com.grash.utils.Helper;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.net.*;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MinioService implements StorageService {
+    private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
     @Value("${storage.minio.endpoint}")
     private String minioEndpoint;
     @Value("${storage.minio.bucket}")
@@ -41,9 +45,15 @@ public class MinioService implements StorageService {
     @Value("${storage.minio.public-endpoint}")
     private String minioPublicEndpoint;
 
+    private final AsyncTaskExecutor storageUploadExecutor;
     private MinioClient minioClient;
     private static boolean configured = false;
 
+    @Autowired
+    public MinioService(@Qualifier(AsyncConfig.STORAGE_UPLOAD_EXECUTOR) AsyncTaskExecutor storageUploadExecutor) {
+        this.storageUploadExecutor = storageUploadExecutor;
+    }
+
     @PostConstruct
     private void init() {
         if (minioEndpoint.isEmpty() || minioBucket.isEmpty() || minioAccessKey.isEmpty() || minioSecretKey.isEmpty() || minioPublicEndpoint.isEmpty()) {
@@ -146,6 +156,62 @@ public class MinioService implements StorageService {
         }
     }
 
+    /**
+     * The content is piped to a multipart upload of unknown size running on the storage upload executor, which holds
+     * one part in memory at a time. The upload closes the reading end whenever it stops, so a failed upload makes the
+     * writer fail instead of blocking on a full pipe.
+     */
+    public String upload(String fileName, String folder, String contentType, String contentEncoding,
+                         ContentWriter writer) {
+        checkIfConfigured();
+
+        String filePath = Helper.generateUniqueFilePath(fileName, folder);
+        PutObjectArgs.Builder args = PutObjectArgs.builder()
+                .bucket(minioBucket)
+                .object(filePath)
+                .contentType(contentType);
+        if (contentEncoding != null) args.headers(Map.of("Content-Encoding", contentEncoding));
+        try (PipedInputStream inputStream = new PipedInputStream(PIPE_BUFFER_SIZE)) {
+            PipedOutputStream outputStream = new PipedOutputStream(inputStream);
+            Future<ObjectWriteResponse> upload;
+            try {
+                upload = storageUploadExecutor.submit(() -> {
+                    try {
+                        return minioClient.putObject(
+                                args.stream(inputStream, -1, ObjectWriteArgs.MIN_MULTIPART_SIZE).build());
+                    } finally {
+                        inputStream.close();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                throw new CustomException("Too many uploads in progress, try again later.",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            try {
+                writer.write(outputStream);
+                outputStream.close();
+            } catch (IOException | RuntimeException e) {
+                //closing the reading end fails the upload instead of completing it with partial content
+                inputStream.close();
+                //when the upload already stopped, its failure is what broke the pipe
+                if (upload.isDone()) upload.get();
+                upload.cancel(true);
+                throw e;
+            }
+            upload.get();
+            return filePath;
+        } catch (ExecutionException e) {
+            log.error("MinIO error during upload to {}", filePath, e.getCause());
+            throw new CustomException("Failed to save the file to storage.", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (IOException e) {
+            log.error("Failed to write file during upload to {}", filePath, e);
+            throw new CustomException("Failed to save the file.", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Upload interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public boolean exists(String filePath) {
         checkIfConfigured();
         try {
@@ -202,6 +268,11 @@ public class MinioService implements StorageService {
                 byteArrayOutputStream.write(buffer, 0, bytesRead);
             }
             return byteArrayOutputStream.toByteArray();
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                throw new CustomException("File not found", HttpStatus.NOT_FOUND);
+            }
+            throw new CustomException("Error retrieving file", HttpStatus.INTERNAL_SERVER_ERROR);
         } catch (MinioException | IOException | InvalidKeyException | NoSuchAlgorithmException e) {
             throw new CustomException("Error retrieving file", HttpStatus.INTERNAL_SERVER_ERROR);
         } finally {
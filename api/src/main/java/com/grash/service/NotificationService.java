@@ -2,28 +2,28 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.NotificationPatchDTO;
+import com.grash.event.NotificationsCreatedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.NotificationMapper;
 import com.grash.model.Notification;
-import com.grash.model.User;
-import com.grash.model.PushNotificationToken;
 import com.grash.repository.NotificationRepository;
-import io.github.jav.exposerversdk.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,33 +31,48 @@ import java.util.stream.Collectors;
 public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
-    private final PushNotificationTokenService pushNotificationTokenService;
+    private final PushNotificationService pushNotificationService;
     private final SimpMessageSendingOperations messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
-    @Async
+    @Async(AsyncConfig.NOTIFICATION_EXECUTOR)
     public void create(Notification notification) {
         Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSendToUser(notification.getUser().getEmail(),
-                "/notifications", savedNotification);
+        sendToConnectedUser(savedNotification);
     }
 
-    @Async
+    /**
+     * Saves and sends the notifications once the current transaction commits, or right away outside of one.
+     */
     public void createMultiple(List<Notification> notifications, boolean mobile, String title) {
         if (notifications.isEmpty()) return;
+        applicationEventPublisher.publishEvent(new NotificationsCreatedEvent(notifications, mobile, title));
+    }
+
+    @Async(AsyncConfig.NOTIFICATION_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        List<Notification> notifications = event.getNotifications();
+        String title = event.getTitle();
         List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
-        savedNotifications.forEach(notification ->
-                messagingTemplate.convertAndSendToUser(notification.getUser().getEmail(),
-                        "/notifications", notification));
-        if (mobile && !notifications.isEmpty())
-            try {
-                sendPushNotifications(notifications.stream().map(Notification::getUser).collect(Collectors.toList()),
-                        title, notifications.get(0).getMessage(), new HashMap<String, Object>() {{
-                            put("type", notifications.get(0).getNotificationType());
-                            put("id", notifications.get(0).getResourceId());
-                        }});
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        savedNotifications.forEach(this::sendToConnectedUser);
+        if (event.isMobile()) {
+            Notification notification = notifications.get(0);
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", notification.getNotificationType());
+            data.put("id", notification.getResourceId());
+            pushNotificationService.send(notifications.stream().map(n -> n.getUser().getId()).toList(),
+                    title, notification.getMessage(), data);
+        }
+    }
+
+    // Users without a web socket session would not get the message, skip serializing it for them
+    private void sendToConnectedUser(Notification notification) {
+        String email = notification.getUser().getEmail();
+        if (simpUserRegistry.getUser(email) == null) return;
+        messagingTemplate.convertAndSendToUser(email, "/notifications", notification);
     }
 
     public Notification update(Long id, NotificationPatchDTO notificationsPatchDTO) {
@@ -92,108 +107,6 @@ public class NotificationService {
         return notificationRepository.findAll(builder.build(), page);
     }
 
-    public void sendPushNotifications(Collection<User> users, String title, String message,
-                                      Map<String, Object> data) throws PushClientException, InterruptedException {
-
-        List<String> tokens = new ArrayList<>();
-        users.forEach(user -> {
-            Optional<PushNotificationToken> optionalPushNotificationToken =
-                    pushNotificationTokenService.findByUser(user.getId());
-            if (optionalPushNotificationToken.isPresent()) {
-                String token = optionalPushNotificationToken.get().getToken();
-                if (PushClient.isExponentPushToken(token))
-                    tokens.add(token);
-            }
-        });
-
-        ExpoPushMessage expoPushMessage = new ExpoPushMessage();
-        expoPushMessage.getTo().addAll(tokens);
-        expoPushMessage.setTitle(title);
-        expoPushMessage.setBody(message);
-        expoPushMessage.setData(data);
-
-        List<ExpoPushMessage> expoPushMessages = new ArrayList<>();
-        expoPushMessages.add(expoPushMessage);
-
-        PushClient client = new PushClient();
-        List<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(expoPushMessages);
-
-        List<CompletableFuture<List<ExpoPushTicket>>> messageRepliesFutures = new ArrayList<>();
-
-        for (List<ExpoPushMessage> chunk : chunks) {
-            messageRepliesFutures.add(client.sendPushNotificationsAsync(chunk));
-        }
-
-        // Wait for each completable future to finish
-        List<ExpoPushTicket> allTickets = new ArrayList<>();
-        for (CompletableFuture<List<ExpoPushTicket>> messageReplyFuture : messageRepliesFutures) {
-            try {
-                allTickets.addAll(messageReplyFuture.get());
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
-        }
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> zippedMessagesTickets =
-                client.zipMessagesTickets(expoPushMessages, allTickets);
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> okTicketMessages =
-                client.filterAllSuccessfulMessages(zippedMessagesTickets);
-        String okTicketMessagesString = okTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Id:" + p.ticket.getId()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved OK ticket for " +
-                        okTicketMessages.size() +
-                        " messages: " + okTicketMessagesString
-        );
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> errorTicketMessages =
-                client.filterAllMessagesWithError(zippedMessagesTickets);
-        String errorTicketMessagesString = errorTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Error: " + p.ticket.getDetails().getError()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved ERROR ticket for " +
-                        errorTicketMessages.size() +
-                        " messages: " +
-                        errorTicketMessagesString
-        );
-
-
-        // TODO
-        // Countdown 30s
-//            int wait = 30;
-//            for (int i = wait; i >= 0; i--) {
-//                System.out.print("Waiting for " + wait + " seconds. " + i + "s\r");
-//                Thread.sleep(1000);
-//            }
-//        System.out.println("Fetching receipts...");
-//
-//        List<String> ticketIds = (client.getTicketIdsFromPairs(okTicketMessages));
-//        CompletableFuture<List<ExpoPushReceipt>> receiptFutures = client.getPushNotificationReceiptsAsync(ticketIds);
-//
-//        List<ExpoPushReceipt> receipts = new ArrayList<>();
-//        try {
-//            receipts = receiptFutures.get();
-//        } catch (ExecutionException | InterruptedException e) {
-//            e.printStackTrace();
-//        }
-//
-//        System.out.println(
-//                "Received " + receipts.size() + " receipts:");
-//
-//        for (ExpoPushReceipt receipt : receipts) {
-//            System.out.println(
-//                    "Receipt for id: " +
-//                            receipt.getId() +
-//                            " had status: " +
-//                            receipt.getStatus());
-//
-//        }
-
-    }
-
     public void readAll(Long userId) {
         notificationRepository.readAll(userId);
     }
@@ -1,17 +1,21 @@
 package com.grash.service;
 
+import com.grash.dto.analytics.GroupedAggregate;
 import com.grash.model.PartTransaction;
 import com.grash.repository.PartTransactionRepository;
 import com.grash.utils.Sanitizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -55,6 +59,30 @@ public class PartTransactionService {
         return partTransactionRepository.findTopNAssetsByConsumption(companyId, start, end, limit);
     }
 
+    //total cost and count of the consumed parts without unit
+    public Pair<Double, Integer> sumConsumptions(Long companyId, Date start, Date end) {
+        Object[] row = partTransactionRepository.sumConsumptions(companyId, start, end).get(0);
+        return Pair.of(((Number) row[0]).doubleValue(), ((Number) row[1]).intValue());
+    }
+
+    public List<Object[]> findConsumptionCostsByPart(Long companyId, Date start, Date end) {
+        return partTransactionRepository.findConsumptionCostsByPart(companyId, start, end);
+    }
+
+    public Map<Long, GroupedAggregate> aggregateConsumptionsByPartCategory(Long companyId, Date start, Date end) {
+        return toAggregateMap(partTransactionRepository.aggregateConsumptionsByPartCategory(companyId, start, end));
+    }
+
+    public Map<Long, GroupedAggregate> aggregateConsumptionsByWorkOrderCategory(Long companyId, Date start, Date end) {
+        return toAggregateMap(partTransactionRepository.aggregateConsumptionsByWorkOrderCategory(companyId, start,
+                end));
+    }
+
+    private Map<Long, GroupedAggregate> toAggregateMap(List<Object[]> rows) {
+        return rows.stream().map(GroupedAggregate::fromRow)
+                .collect(Collectors.toMap(GroupedAggregate::getKey, aggregate -> aggregate));
+    }
+
     public Page<PartTransaction> findByCompanyForExport(Long companyId, Pageable pageable) {
         return partTransactionRepository.findByCompanyForExport(companyId, pageable);
     }
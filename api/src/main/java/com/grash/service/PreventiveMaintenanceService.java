@@ -20,11 +20,6 @@ import com.grash.utils.Helper;
 import com.grash.utils.Sanitizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.Trigger;
-import org.quartz.TriggerKey;
-import org.quartz.spi.OperableTrigger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +31,7 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.JoinType;
 
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -47,10 +43,11 @@ import static com.grash.utils.Consts.usageBasedFreeLimits;
 @RequiredArgsConstructor
 @Slf4j
 public class PreventiveMaintenanceService {
+    private static final int MAX_CALENDAR_EVENTS_PER_SCHEDULE = 1000;
+
     private final PreventiveMaintenanceRepository preventiveMaintenanceRepository;
     private final EntityManager em;
     private final CustomSequenceService customSequenceService;
-    private final Scheduler scheduler;
     private final PreventiveMaintenanceMapper preventiveMaintenanceMapper;
     private final LocationService locationService;
     private final TeamService teamService;
@@ -74,7 +71,7 @@ public class PreventiveMaintenanceService {
         checkUsageBasedLimit(user.getCompany());
         Company company = user.getCompany();
         Long nextSequence = customSequenceService.getNextPreventiveMaintenanceSequence(company);
-        preventiveMaintenance.setCustomId("PM" + String.format("%06d", nextSequence));
+        preventiveMaintenance.setCustomId(CustomSequenceType.PREVENTIVE_MAINTENANCE.format(nextSequence));
 
         if (!preventiveMaintenancePost.getCustomFields().isEmpty()) {
             setPMCustomFields(preventiveMaintenance, preventiveMaintenancePost.getCustomFields(), company);
@@ -111,28 +108,49 @@ public class PreventiveMaintenanceService {
 
     @Transactional
     public WorkOrder createWorkOrderFromPreventiveMaintenance(PreventiveMaintenance preventiveMaintenance) {
+        WorkOrder savedWorkOrder = workOrderService.create(newWorkOrder(preventiveMaintenance),
+                preventiveMaintenance.getCompany());
+        taskService.createAll(copyTasks(preventiveMaintenance, savedWorkOrder));
+        return savedWorkOrder;
+    }
+
+    /**
+     * Creates the next work order of each preventive maintenance with {@link WorkOrderService#createAll(List)}.
+     */
+    @Transactional
+    public List<WorkOrder> createWorkOrdersFromPreventiveMaintenances(List<PreventiveMaintenance> preventiveMaintenances) {
+        List<WorkOrder> savedWorkOrders = workOrderService.createAll(preventiveMaintenances.stream()
+                .map(this::newWorkOrder)
+                .toList());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < preventiveMaintenances.size(); i++) {
+            tasks.addAll(copyTasks(preventiveMaintenances.get(i), savedWorkOrders.get(i)));
+        }
+        taskService.createAll(tasks);
+        return savedWorkOrders;
+    }
+
+    private WorkOrderPostDTO newWorkOrder(PreventiveMaintenance preventiveMaintenance) {
         WorkOrderPostDTO workOrder = workOrderService.getWorkOrderFromWorkOrderBase(preventiveMaintenance);
         workOrder.getCustomFields().removeIf(customFieldValue -> !workOrder.getCustomFieldValues()
                 .stream().filter(customFieldValue1 -> customFieldValue1.getCustomField().getId().equals(customFieldValue.getId()))
                 .findFirst().get().getCustomField().isCopyOnRepeat());
 
-        Collection<Task> tasks = taskService.findByPreventiveMaintenance(preventiveMaintenance.getId());
         workOrder.setParentPreventiveMaintenance(preventiveMaintenance);
 
         Schedule schedule = preventiveMaintenance.getSchedule();
         if (schedule.getDueDateDelay() != null) {
             workOrder.setDueDate(Helper.incrementDays(new Date(), schedule.getDueDateDelay()));
         }
+        return workOrder;
+    }
 
-        WorkOrder savedWorkOrder = workOrderService.create(workOrder, preventiveMaintenance.getCompany());
-
-        tasks.forEach(task -> {
-            Task copiedTask = new Task(task.getTaskBase(), savedWorkOrder, null, task.getValue());
+    private List<Task> copyTasks(PreventiveMaintenance preventiveMaintenance, WorkOrder workOrder) {
+        return taskService.findByPreventiveMaintenance(preventiveMaintenance.getId()).stream().map(task -> {
+            Task copiedTask = new Task(task.getTaskBase(), workOrder, null, task.getValue());
             copiedTask.setCompany(preventiveMaintenance.getCompany());
-            taskService.create(copiedTask);
-        });
-
-        return savedWorkOrder;
+            return copiedTask;
+        }).toList();
     }
 
     private void setPMCustomFields(PreventiveMaintenance preventiveMaintenance,
@@ -210,85 +228,36 @@ public class PreventiveMaintenanceService {
     public List<CalendarEvent<PreventiveMaintenance>> getEvents(Date end, Long companyId) {
         if (!licenseService.hasEntitlement(LicenseEntitlement.PM_CALENDAR))
             return Collections.emptyList();
+        // Past occurrences are not shown; flooring to the hour lets calls within the same hour share cached windows
+        Date from = Date.from(Instant.now().truncatedTo(ChronoUnit.HOURS));
+        if (!from.before(end)) return Collections.emptyList();
         List<PreventiveMaintenance> preventiveMaintenances =
-                preventiveMaintenanceRepository.findByCreatedAtBeforeAndCompany_Id(end, companyId);
+                preventiveMaintenanceRepository.findScheduledBeforeAndCompany(end, companyId, from);
+        if (preventiveMaintenances.isEmpty()) return Collections.emptyList();
+        ZoneId zoneId = TimeZone.getTimeZone(preventiveMaintenances.get(0).getCompany()
+                .getCompanySettings().getGeneralPreferences().getTimeZone()).toZoneId();
         List<CalendarEvent<PreventiveMaintenance>> result = new ArrayList<>();
 
         for (PreventiveMaintenance preventiveMaintenance : preventiveMaintenances) {
             Schedule schedule = preventiveMaintenance.getSchedule();
-            if (schedule == null || schedule.isDisabled()) continue;
-
-            if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.SCHEDULED_DATE) continue;
-
             try {
-                TriggerKey triggerKey = new TriggerKey("wo-trigger-" + schedule.getId(), "wo-group");
-                Trigger trigger = scheduler.getTrigger(triggerKey);
-
-                if (trigger == null) {
-                    log.warn("No trigger found for schedule {}", schedule.getId());
-                    continue;
+                List<Date> occurrences = scheduleService.getOccurrences(schedule, from, end, zoneId,
+                        MAX_CALENDAR_EVENTS_PER_SCHEDULE);
+                if (occurrences.size() == MAX_CALENDAR_EVENTS_PER_SCHEDULE) {
+                    log.warn("Reached safety limit of {} events for schedule {}", MAX_CALENDAR_EVENTS_PER_SCHEDULE,
+                            schedule.getId());
                 }
-
-                // Get all fire times up to the end date
-                List<Date> fireTimes = new ArrayList<>();
-
-                // Use TriggerUtils to get computed fire times
-                if (trigger instanceof OperableTrigger) {
-                    OperableTrigger operableTrigger = (OperableTrigger) trigger;
-                    Date currentTime = new Date();
-
-                    // Start from now or startsOn, whichever is earlier
-                    Date startTime = schedule.getStartsOn().before(currentTime) ?
-                            schedule.getStartsOn() : currentTime;
-
-                    // Compute fire times
-                    Date fireTime = operableTrigger.getFireTimeAfter(startTime);
-                    while (fireTime != null && (fireTime.before(end) || fireTime.equals(end))) {
-                        if (shouldFireOnDate(schedule, fireTime)) {
-                            fireTimes.add(fireTime);
-                        }
-                        fireTime = operableTrigger.getFireTimeAfter(fireTime);
-
-                        // Safety limit to prevent infinite loops
-                        if (fireTimes.size() > 1000) {
-                            log.warn("Reached safety limit of 1000 events for schedule {}", schedule.getId());
-                            break;
-                        }
-                    }
-                }
-
-                // Convert fire times to calendar events
-                result.addAll(fireTimes.stream()
+                result.addAll(occurrences.stream()
                         .map(date -> new CalendarEvent<>("PREVENTIVE_MAINTENANCE", preventiveMaintenance, date))
                         .toList());
-
-            } catch (SchedulerException e) {
-                log.error("Error getting trigger fire times for schedule {}", schedule.getId(), e);
+            } catch (CustomException e) {
+                log.warn("Invalid recurrence for schedule {}: {}", schedule.getId(), e.getMessage());
             }
         }
 
         return result;
     }
 
-    private boolean shouldFireOnDate(Schedule schedule, Date fireTime) {
-        if (schedule.getRecurrenceType() != RecurrenceType.WEEKLY || schedule.getFrequency() <= 1) {
-            return true;
-        }
-
-        String tzId = schedule.getPreventiveMaintenance()
-                .getCompany().getCompanySettings()
-                .getGeneralPreferences().getTimeZone();
-        ZoneId zoneId = ZoneId.of(tzId);
-
-        long daysSinceStart = ChronoUnit.DAYS.between(
-                schedule.getStartsOn().toInstant().atZone(zoneId).toLocalDate(),
-                fireTime.toInstant().atZone(zoneId).toLocalDate()
-        );
-        long weeksSinceStart = daysSinceStart / 7;
-
-        return weeksSinceStart % schedule.getFrequency() == 0;
-    }
-
     public Optional<PreventiveMaintenance> findByIdAndCompany(Long id, Long companyId) {
         return preventiveMaintenanceRepository.findByIdAndCompany_Id(id, companyId);
     }
@@ -303,6 +272,15 @@ public class PreventiveMaintenanceService {
 
     public void importPreventiveMaintenance(PreventiveMaintenance preventiveMaintenance,
                                             PreventiveMaintenanceImportDTO pmImportDTO, Company company) {
+        importPreventiveMaintenance(preventiveMaintenance, pmImportDTO, company, null);
+    }
+
+    /**
+     * @param customId number reserved by the caller, or {@code null} to allocate one
+     */
+    public void importPreventiveMaintenance(PreventiveMaintenance preventiveMaintenance,
+                                            PreventiveMaintenanceImportDTO pmImportDTO, Company company,
+                                            String customId) {
         checkUsageBasedLimit(company);
         Helper.populateWorkOrderBaseFromImportDTO(preventiveMaintenance, pmImportDTO, company, locationService,
                 teamService, userService, assetService, workOrderCategoryService);
@@ -320,8 +298,8 @@ public class PreventiveMaintenanceService {
                 "\\s+", "_").toUpperCase()));
         schedule.setDaysOfWeek(pmImportDTO.getDaysOfWeek().stream().map(this::getDayOfWeekNumber).collect(Collectors.toList()));
 
-        preventiveMaintenance.setCustomId("PM" + String.format("%06d",
-                customSequenceService.getNextPreventiveMaintenanceSequence(company)));
+        preventiveMaintenance.setCustomId(customId != null ? customId : CustomSequenceType.PREVENTIVE_MAINTENANCE
+                .format(customSequenceService.getNextPreventiveMaintenanceSequence(company)));
         Sanitizer.sanitizePreventiveMaintenance(preventiveMaintenance);
 
         PreventiveMaintenance savedPM = preventiveMaintenanceRepository.save(preventiveMaintenance);
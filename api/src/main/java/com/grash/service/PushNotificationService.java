@@ -0,0 +1,195 @@
+package com.grash.service;
+
+import com.grash.configuration.AsyncConfig;
+import io.github.jav.exposerversdk.*;
+import io.github.jav.exposerversdk.enums.ReceiptError;
+import io.github.jav.exposerversdk.enums.Status;
+import io.github.jav.exposerversdk.enums.TicketError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Mobile push notifications, sent through Expo. Notifications queued for a user within the coalescing window are sent
+ * as one message, the tokens of all the recipients of a window are loaded in one query, and tickets are handled when
+ * Expo answers instead of blocking the notification executor. Delivery receipts are checked later, and the tokens of
+ * devices that are no longer registered are removed. Queued notifications and pending receipts are kept in memory.
+ */
+@Service
+@Slf4j
+public class PushNotificationService {
+
+    // Bodies kept for a user within one window; older ones are dropped from the coalesced message
+    static final int MAX_COALESCED_NOTIFICATIONS = 5;
+
+    private final PushNotificationTokenService pushNotificationTokenService;
+    private final PushClient pushClient;
+    private final TaskScheduler pushScheduler;
+    private final AsyncTaskExecutor notificationExecutor;
+    private final Duration coalesceWindow;
+    private final Duration receiptDelay;
+
+    private final Map<Long, List<PushNotification>> queued = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    @Autowired
+    public PushNotificationService(PushNotificationTokenService pushNotificationTokenService,
+                                   PushClient pushClient,
+                                   @Qualifier(AsyncConfig.PUSH_SCHEDULER) TaskScheduler pushScheduler,
+                                   @Qualifier(AsyncConfig.NOTIFICATION_EXECUTOR) AsyncTaskExecutor notificationExecutor,
+                                   @Value("${notifications.push.coalesce-window-ms:2000}") long coalesceWindowMs,
+                                   @Value("${notifications.push.receipt-delay-minutes:15}") long receiptDelayMinutes) {
+        this.pushNotificationTokenService = pushNotificationTokenService;
+        this.pushClient = pushClient;
+        this.pushScheduler = pushScheduler;
+        this.notificationExecutor = notificationExecutor;
+        this.coalesceWindow = Duration.ofMillis(coalesceWindowMs);
+        this.receiptDelay = Duration.ofMinutes(receiptDelayMinutes);
+    }
+
+    /**
+     * Queues a push notification to the users. It is sent at the end of the current window, together with the other
+     * notifications queued for them.
+     */
+    public void send(Collection<Long> userIds, String title, String body, Map<String, Object> data) {
+        PushNotification notification = new PushNotification(title, body, data);
+        userIds.stream().filter(Objects::nonNull).distinct().forEach(userId ->
+                queued.compute(userId, (id, notifications) -> {
+                    List<PushNotification> userNotifications = notifications == null ? new ArrayList<>() :
+                            notifications;
+                    userNotifications.add(notification);
+                    if (userNotifications.size() > MAX_COALESCED_NOTIFICATIONS) userNotifications.remove(0);
+                    return userNotifications;
+                }));
+        if (flushScheduled.compareAndSet(false, true)) {
+            pushScheduler.schedule(() -> notificationExecutor.execute(this::flush),
+                    Instant.now().plus(coalesceWindow));
+        }
+    }
+
+    /**
+     * Sends the queued notifications. Users getting the same message share one, addressed to all their tokens.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        Map<Long, List<PushNotification>> notificationsByUser = new HashMap<>();
+        for (Long userId : new ArrayList<>(queued.keySet())) {
+            List<PushNotification> notifications = queued.remove(userId);
+            if (notifications != null) notificationsByUser.put(userId, notifications);
+        }
+        if (notificationsByUser.isEmpty()) return;
+
+        Map<Long, String> tokens = pushNotificationTokenService.findTokensByUsers(notificationsByUser.keySet());
+        Map<PushNotification, ExpoPushMessage> messages = new LinkedHashMap<>();
+        notificationsByUser.forEach((userId, notifications) -> {
+            String token = tokens.get(userId);
+            if (token == null || !PushClient.isExponentPushToken(token)) return;
+            messages.computeIfAbsent(coalesce(notifications), PushNotificationService::toMessage)
+                    .getTo().add(token);
+        });
+        if (messages.isEmpty()) return;
+        pushClient.chunkPushNotifications(new ArrayList<>(messages.values())).forEach(this::sendChunk);
+    }
+
+    static PushNotification coalesce(List<PushNotification> notifications) {
+        PushNotification latest = notifications.get(notifications.size() - 1);
+        if (notifications.size() == 1) return latest;
+        String body = notifications.stream().map(PushNotification::body).collect(Collectors.joining("\n"));
+        return new PushNotification(latest.title(), body, latest.data());
+    }
+
+    private static ExpoPushMessage toMessage(PushNotification notification) {
+        ExpoPushMessage message = new ExpoPushMessage();
+        message.setTitle(notification.title());
+        message.setBody(notification.body());
+        message.setData(notification.data());
+        return message;
+    }
+
+    private void sendChunk(List<ExpoPushMessage> chunk) {
+        // Expo answers with one ticket per token, in the order of the messages and of their tokens
+        List<String> tokens = chunk.stream().flatMap(message -> message.getTo().stream()).toList();
+        CompletableFuture<List<ExpoPushTicket>> tickets;
+        try {
+            tickets = pushClient.sendPushNotificationsAsync(chunk);
+        } catch (PushNotificationException e) {
+            log.error("Error sending push notifications", e);
+            return;
+        }
+        tickets.whenCompleteAsync((result, error) -> {
+            if (error != null) log.error("Error sending push notifications", error);
+            else handleTickets(tokens, result);
+        }, notificationExecutor);
+    }
+
+    void handleTickets(List<String> tokens, List<ExpoPushTicket> tickets) {
+        Set<String> unregisteredTokens = new HashSet<>();
+        Map<String, String> tokensByTicket = new HashMap<>();
+        for (int i = 0; i < tickets.size() && i < tokens.size(); i++) {
+            ExpoPushTicket ticket = tickets.get(i);
+            if (ticket.getStatus() == Status.OK) {
+                if (ticket.getId() != null) tokensByTicket.put(ticket.getId(), tokens.get(i));
+            } else if (ticket.getDetails() != null
+                    && ticket.getDetails().getError() == TicketError.DEVICENOTREGISTERED) {
+                unregisteredTokens.add(tokens.get(i));
+            } else log.warn("Push notification not sent: {}", ticket.getMessage());
+        }
+        prune(unregisteredTokens);
+        if (!tokensByTicket.isEmpty()) {
+            // Receipts are only available once Expo has handed the notifications to Apple and Google
+            pushScheduler.schedule(() -> notificationExecutor.execute(() -> checkReceipts(tokensByTicket)),
+                    Instant.now().plus(receiptDelay));
+        }
+    }
+
+    void checkReceipts(Map<String, String> tokensByTicket) {
+        for (List<String> ticketIds :
+                pushClient.chunkPushNotificationReceiptIds(new ArrayList<>(tokensByTicket.keySet()))) {
+            CompletableFuture<List<ExpoPushReceipt>> receipts;
+            try {
+                receipts = pushClient.getPushNotificationReceiptsAsync(ticketIds);
+            } catch (PushNotificationReceiptsException e) {
+                log.error("Error fetching push notification receipts", e);
+                continue;
+            }
+            receipts.whenCompleteAsync((result, error) -> {
+                if (error != null) log.error("Error fetching push notification receipts", error);
+                else handleReceipts(tokensByTicket, result);
+            }, notificationExecutor);
+        }
+    }
+
+    void handleReceipts(Map<String, String> tokensByTicket, List<ExpoPushReceipt> receipts) {
+        Set<String> unregisteredTokens = new HashSet<>();
+        for (ExpoPushReceipt receipt : receipts) {
+            if (receipt.getStatus() != Status.ERROR) continue;
+            if (receipt.getDetails() != null
+                    && receipt.getDetails().getError() == ReceiptError.DEVICENOTREGISTERED
+                    && tokensByTicket.containsKey(receipt.getId())) {
+                unregisteredTokens.add(tokensByTicket.get(receipt.getId()));
+            } else log.warn("Push notification {} not delivered: {}", receipt.getId(), receipt.getMessage());
+        }
+        prune(unregisteredTokens);
+    }
+
+    private void prune(Set<String> tokens) {
+        if (tokens.isEmpty()) return;
+        int deleted = pushNotificationTokenService.deleteByTokens(tokens);
+        log.info("Removed {} push notification tokens of unregistered devices", deleted);
+    }
+
+    record PushNotification(String title, String body, Map<String, Object> data) {
+    }
+}
@@ -5,6 +5,9 @@ import com.grash.repository.PushNotificationTokenRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -22,6 +25,22 @@ public class PushNotificationTokenService {
         return pushNotificationTokenRepository.findByUser_Id(userId);
     }
 
+    /**
+     * Push notification tokens of the users, by user id, in one query. Users without a token are absent.
+     */
+    public Map<Long, String> findTokensByUsers(Collection<Long> userIds) {
+        Map<Long, String> tokens = new HashMap<>();
+        if (userIds.isEmpty()) return tokens;
+        for (Object[] row : pushNotificationTokenRepository.findTokensByUserIds(userIds)) {
+            if (row[1] != null) tokens.put((Long) row[0], (String) row[1]);
+        }
+        return tokens;
+    }
+
+    public int deleteByTokens(Collection<String> tokens) {
+        return tokens.isEmpty() ? 0 : pushNotificationTokenRepository.deleteByTokens(tokens);
+    }
+
     public PushNotificationToken save(PushNotificationToken pushNotificationToken) {
         return pushNotificationTokenRepository.save(pushNotificationToken);
     }
@@ -0,0 +1,47 @@
+package com.grash.service;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds the token buckets behind {@link RateLimiterService}. Selected with {@code security.rate-limit.store}:
+ * {@code memory} (default) keeps them in this JVM, {@code jdbc} shares them between replicas through PostgreSQL.
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Called once at startup with the configuration of every limit class, before any bucket is resolved.
+     */
+    default void configure(Map<RateLimitClass, BucketConfiguration> configurations) {
+    }
+
+    /**
+     * Returns the bucket of {@code key} for the given limit, creating it with {@code configuration} if needed.
+     */
+    Bucket resolve(RateLimitClass limit, String key, Supplier<BucketConfiguration> configuration);
+
+    /**
+     * Drops buckets that have been idle long enough to be full again, so forgetting them changes nothing.
+     */
+    void purgeIdle();
+
+    /**
+     * Time after which an untouched bucket has refilled every bandwidth of {@code configuration}.
+     */
+    static Duration idleTimeout(BucketConfiguration configuration) {
+        return Duration.ofNanos(Arrays.stream(configuration.getBandwidths())
+                .mapToLong(bandwidth -> ceilDiv(bandwidth.getCapacity(), bandwidth.getRefillTokens())
+                        * bandwidth.getRefillPeriodNanos())
+                .max()
+                .orElse(0));
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,22 @@
+package com.grash.service;
+
+/**
+ * The independent limits enforced by {@link RateLimiterService}. Each class has its own buckets and its own
+ * rejection counter.
+ */
+public enum RateLimitClass {
+    AUTHENTICATED,
+    UNAUTHENTICATED,
+    FILE_UPLOAD,
+    FILE_UPLOAD_AUTHENTICATED,
+    FILE_UPLOAD_BYPASS,
+    DEMO,
+    PUBLIC_MINI;
+
+    /**
+     * Key of a bucket in a store shared by every limit class.
+     */
+    public String bucketKey(String key) {
+        return name() + ":" + key;
+    }
+}
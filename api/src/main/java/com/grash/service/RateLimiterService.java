@@ -1,27 +1,36 @@
 package com.grash.service;
 
 import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.BlockingBucket;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token-bucket rate limits for the API, the file uploads and the public endpoints. Buckets are kept in the
+ * configured {@link RateLimitBucketStore}; rejected requests are counted per {@link RateLimitClass} in the
+ * {@code rate_limit.rejected} meter.
+ */
 @Component
+@RequiredArgsConstructor
 public class RateLimiterService {
 
-    private final ConcurrentMap<String, Bucket> demoCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> fileUploadCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> publicMiniCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> authenticatedUserCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> unAuthenticatedUserCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> fileUploadAuthenticatedCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Bucket> fileUploadBypassCache = new ConcurrentHashMap<>();
+    static final String REJECTED_METER = "rate_limit.rejected";
+
+    private final RateLimitBucketStore bucketStore;
+    private final MeterRegistry meterRegistry;
+    private final Map<RateLimitClass, Counter> rejectedCounters = new EnumMap<>(RateLimitClass.class);
+    private final Map<RateLimitClass, BucketConfiguration> configurations = new EnumMap<>(RateLimitClass.class);
 
     /**
      * -- GETTER --
@@ -79,59 +88,74 @@ public class RateLimiterService {
     @Value("${security.rate-limit.file-upload.bypass.long-term-period-hours:24}")
     private int fileUploadBypassLongTermPeriodHours;
 
-
-    public Bucket resolveDemoBucket(String key) {
-        return demoCache.computeIfAbsent(key, this::newDemoBucket);
+    @PostConstruct
+    void init() {
+        for (RateLimitClass limit : RateLimitClass.values()) {
+            configurations.put(limit, newConfiguration(limit));
+            rejectedCounters.put(limit, Counter.builder(REJECTED_METER)
+                    .description("Requests rejected by a rate limit")
+                    .tag("limit", limit.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        bucketStore.configure(configurations);
     }
 
-    public Bucket resolveFileUploadBucket(String key) {
-        return fileUploadCache.computeIfAbsent(key, this::newFileUploadBucket);
-    }
-
-    public Bucket resolveFileUploadAuthenticatedBucket(String key) {
-        return fileUploadAuthenticatedCache.computeIfAbsent(key, this::newFileUploadAuthenticatedBucket);
+    /**
+     * Takes one token from the bucket of {@code key}, counting the request as rejected if none is left.
+     */
+    public boolean tryConsume(RateLimitClass limit, String key) {
+        if (resolveBucket(limit, key).tryConsume(1)) return true;
+        rejectedCounters.get(limit).increment();
+        return false;
     }
 
-    public Bucket resolveFileUploadBypassBucket(String key) {
-        return fileUploadBypassCache.computeIfAbsent(key, this::newFileUploadBypassBucket);
+    private Bucket resolveBucket(RateLimitClass limit, String key) {
+        return bucketStore.resolve(limit, key, () -> configurations.get(limit));
     }
 
     public boolean tryConsumeFileUpload(String key, boolean bypass) {
-        Bucket bucket = bypass ? resolveFileUploadBypassBucket(key) : resolveFileUploadAuthenticatedBucket(key);
-        return bucket.tryConsume(1);
+        return tryConsume(bypass ? RateLimitClass.FILE_UPLOAD_BYPASS : RateLimitClass.FILE_UPLOAD_AUTHENTICATED, key);
     }
 
-    public Bucket resolvePublicMiniBucket(String key) {
-        return publicMiniCache.computeIfAbsent(key, this::newPublicMiniBucket);
+    private BucketConfiguration newConfiguration(RateLimitClass limit) {
+        return switch (limit) {
+            case AUTHENTICATED -> newAuthenticatedUserConfiguration();
+            case UNAUTHENTICATED -> newUnAuthenticatedUserConfiguration();
+            case FILE_UPLOAD -> newFileUploadConfiguration();
+            case FILE_UPLOAD_AUTHENTICATED -> newFileUploadAuthenticatedConfiguration();
+            case FILE_UPLOAD_BYPASS -> newFileUploadBypassConfiguration();
+            case DEMO -> newDemoConfiguration();
+            case PUBLIC_MINI -> newPublicMiniConfiguration();
+        };
     }
 
-    private Bucket newDemoBucket(String key) {
+    private BucketConfiguration newDemoConfiguration() {
         // 1 request per minute
         Bandwidth onePerMinute = Bandwidth.classic(1, Refill.greedy(1, Duration.ofMinutes(1)));
 
         // 2 requests per 5 hours
         Bandwidth twoPer5Hours = Bandwidth.classic(2, Refill.greedy(2, Duration.ofHours(5)));
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(onePerMinute)
                 .addLimit(twoPer5Hours)
                 .build();
     }
 
-    private Bucket newFileUploadBucket(String key) {
+    private BucketConfiguration newFileUploadConfiguration() {
         // 1 requests per minute
         Bandwidth tenPerMinute = Bandwidth.classic(4, Refill.greedy(1, Duration.ofMinutes(1)));
 
         // 4 requests per hour
         Bandwidth fiftyPerHour = Bandwidth.classic(12, Refill.greedy(12, Duration.ofHours(1)));
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(tenPerMinute)
                 .addLimit(fiftyPerHour)
                 .build();
     }
 
-    private Bucket newFileUploadAuthenticatedBucket(String key) {
+    private BucketConfiguration newFileUploadAuthenticatedConfiguration() {
         Bandwidth shortTerm = Bandwidth.classic(
                 fileUploadAuthShortTermRequests,
                 Refill.greedy(fileUploadAuthShortTermRequests, Duration.ofMinutes(fileUploadAuthShortTermPeriodMinutes))
@@ -142,13 +166,13 @@ public class RateLimiterService {
                 Refill.greedy(fileUploadAuthLongTermRequests, Duration.ofHours(fileUploadAuthLongTermPeriodHours))
         );
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(shortTerm)
                 .addLimit(longTerm)
                 .build();
     }
 
-    private Bucket newFileUploadBypassBucket(String key) {
+    private BucketConfiguration newFileUploadBypassConfiguration() {
         Bandwidth shortTerm = Bandwidth.classic(
                 fileUploadBypassShortTermRequests,
                 Refill.greedy(fileUploadBypassShortTermRequests,
@@ -160,33 +184,26 @@ public class RateLimiterService {
                 Refill.greedy(fileUploadBypassLongTermRequests, Duration.ofHours(fileUploadBypassLongTermPeriodHours))
         );
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(shortTerm)
                 .addLimit(longTerm)
                 .build();
     }
 
-    private Bucket newPublicMiniBucket(String key) {
+    private BucketConfiguration newPublicMiniConfiguration() {
         // 3 requests per minute
         Bandwidth thirtyPerMinute = Bandwidth.classic(10, Refill.greedy(10, Duration.ofMinutes(1)));
 
         //20
         Bandwidth twoHundredPerHour = Bandwidth.classic(60, Refill.greedy(60, Duration.ofHours(1)));
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(thirtyPerMinute)
                 .addLimit(twoHundredPerHour)
                 .build();
     }
 
-    /**
-     * Resolve rate limit bucket for authenticated users by user ID
-     */
-    public Bucket resolveAuthenticatedUserBucket(String userId) {
-        return authenticatedUserCache.computeIfAbsent(userId, this::newAuthenticatedUserBucket);
-    }
-
-    private Bucket newAuthenticatedUserBucket(String key) {
+    private BucketConfiguration newAuthenticatedUserConfiguration() {
         // Short-term limit: e.g., 100 requests per minute
         Bandwidth shortTerm = Bandwidth.classic(
                 authenticatedShortTermRequests,
@@ -199,17 +216,13 @@ public class RateLimiterService {
                 Refill.greedy(authenticatedLongTermRequests, Duration.ofHours(authenticatedLongTermPeriodHours))
         );
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(shortTerm)
                 .addLimit(longTerm)
                 .build();
     }
 
-    public Bucket resolveUnAuthenticatedUserBucket(String clientIp) {
-        return unAuthenticatedUserCache.computeIfAbsent(clientIp, this::newUnAuthenticatedUserBucket);
-    }
-
-    private Bucket newUnAuthenticatedUserBucket(String key) {
+    private BucketConfiguration newUnAuthenticatedUserConfiguration() {
         Bandwidth shortTerm = Bandwidth.classic(
                 unauthenticatedShortTermRequests,
                 Refill.greedy(unauthenticatedShortTermRequests,
@@ -221,7 +234,7 @@ public class RateLimiterService {
                 Refill.greedy(unauthenticatedLongTermRequests, Duration.ofHours(unauthenticatedLongTermPeriodHours))
         );
 
-        return Bucket.builder()
+        return BucketConfiguration.builder()
                 .addLimit(shortTerm)
                 .addLimit(longTerm)
                 .build();
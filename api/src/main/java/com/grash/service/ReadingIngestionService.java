@@ -0,0 +1,201 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingBatchItemDTO;
+import com.grash.dto.ReadingBatchResponse;
+import com.grash.dto.workOrder.WorkOrderPostDTO;
+import com.grash.mapper.WorkOrderMapper;
+import com.grash.model.*;
+import com.grash.model.enums.NotificationType;
+import com.grash.model.enums.WorkOrderMeterTriggerCondition;
+import com.grash.model.enums.webhook.WebhookEvent;
+import com.grash.utils.Helper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates meter readings and fires the work order meter triggers they breach, one reading at a time or in batches.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReadingIngestionService {
+
+    static final int JDBC_BATCH_SIZE = 100;
+    // Readings up to this far in the future are accepted, for gateways whose clock is slightly ahead
+    private static final long MAX_CLOCK_SKEW_MILLIS = 5 * 60 * 1000;
+
+    private final ReadingService readingService;
+    private final MeterService meterService;
+    private final WorkOrderMeterTriggerService workOrderMeterTriggerService;
+    private final NotificationService notificationService;
+    private final WorkOrderService workOrderService;
+    private final MessageSource messageSource;
+    private final WebhookDispatchService webhookDispatchService;
+    private final WorkOrderMapper workOrderMapper;
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates a batch of readings in one transaction. Meters, their last reading dates and their triggers are loaded
+     * for the whole batch up front, readings are inserted with JDBC batching, and each breached trigger creates one
+     * work order for its latest breaching reading of the batch. Readings that cannot be created are reported rather
+     * than failing the batch.
+     */
+    @Transactional
+    public ReadingBatchResponse ingest(List<ReadingBatchItemDTO> items, User user) {
+        Company company = user.getCompany();
+        Date now = new Date();
+        ZoneId zoneId = ZoneId.of(company.getCompanySettings().getGeneralPreferences().getTimeZone());
+        List<Long> meterIds = items.stream().map(ReadingBatchItemDTO::getMeterId).distinct().toList();
+
+        Map<Long, Meter> meters = meterService.findByIdsAndCompany(meterIds, company.getId()).stream()
+                .collect(Collectors.toMap(Meter::getId, Function.identity()));
+        Map<Long, Date> lastReadingDates = readingService.findLastDatesByMeters(meters.keySet());
+        Map<Long, List<WorkOrderMeterTrigger>> triggersByMeter = meters.isEmpty() ? Map.of() :
+                workOrderMeterTriggerService.findByMeters(meters.keySet()).stream()
+                        .collect(Collectors.groupingBy(trigger -> trigger.getMeter().getId()));
+
+        ReadingBatchResponse response = new ReadingBatchResponse();
+        List<Reading> readings = new ArrayList<>();
+        List<Date> readDates = new ArrayList<>();
+        Map<Long, Breach> breaches = new LinkedHashMap<>();
+        Map<Long, Boolean> viewableMeters = new HashMap<>();
+
+        // Oldest first, so that the update frequency and the latest breach follow the order the values were read in
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> readDate(items.get(i), now)));
+
+        for (int index : order) {
+            ReadingBatchItemDTO item = items.get(index);
+            Date readAt = readDate(item, now);
+            Meter meter = meters.get(item.getMeterId());
+            String rejection = null;
+            if (meter == null) rejection = "Not found";
+            else if (!viewableMeters.computeIfAbsent(meter.getId(), id -> meter.canBeViewedBy(user)))
+                rejection = "Access denied";
+            else if (readAt.getTime() > now.getTime() + MAX_CLOCK_SKEW_MILLIS)
+                rejection = "The reading date is in the future";
+            else if (!isUpdateFrequencyRespected(meter, lastReadingDates.get(meter.getId()), readAt, zoneId))
+                rejection = "The update frequency has not been respected";
+            if (rejection != null) {
+                response.getRejected().add(new ReadingBatchResponse.Rejection(index, item.getMeterId(), rejection));
+                continue;
+            }
+
+            Reading reading = new Reading();
+            reading.setMeter(meter);
+            reading.setValue(item.getValue());
+            readings.add(reading);
+            readDates.add(item.getReadAt());
+            lastReadingDates.put(meter.getId(), readAt);
+            for (WorkOrderMeterTrigger trigger : triggersByMeter.getOrDefault(meter.getId(), List.of())) {
+                if (isBreached(trigger, item.getValue())) {
+                    breaches.put(trigger.getId(), new Breach(meter, trigger, item.getValue()));
+                }
+            }
+        }
+
+        persist(readings, readDates);
+        response.setCreated(readings.size());
+        breaches.values().forEach(breach -> response.getWorkOrderIds()
+                .add(fireTrigger(breach.meter(), breach.trigger(), breach.value(), user).getId()));
+        return response;
+    }
+
+    /**
+     * Fires every trigger of the meter that the reading value breaches.
+     */
+    public void processMeterTriggers(Meter meter, double readingValue, User user) {
+        workOrderMeterTriggerService.findByMeter(meter.getId()).stream()
+                .filter(meterTrigger -> isBreached(meterTrigger, readingValue))
+                .forEach(meterTrigger -> fireTrigger(meter, meterTrigger, readingValue, user));
+    }
+
+    static boolean isBreached(WorkOrderMeterTrigger meterTrigger, double readingValue) {
+        if (meterTrigger.getTriggerCondition().equals(WorkOrderMeterTriggerCondition.LESS_THAN)) {
+            return readingValue < meterTrigger.getValue();
+        }
+        return readingValue > meterTrigger.getValue();
+    }
+
+    private WorkOrder fireTrigger(Meter meter, WorkOrderMeterTrigger meterTrigger, double readingValue, User user) {
+        Locale locale = Helper.getLocale(user);
+        String title = messageSource.getMessage("new_wo", null, locale);
+        Object[] notificationArgs = new Object[]{meter.getName(), meterTrigger.getValue(), meter.getUnit()};
+        String message = messageSource.getMessage(
+                meterTrigger.getTriggerCondition().equals(WorkOrderMeterTriggerCondition.LESS_THAN)
+                        ? "notification_reading_less_than" : "notification_reading_more_than",
+                notificationArgs, locale);
+        notificationService.createMultiple(meter.getUsers().stream().map(user1 ->
+                new Notification(message, user1, NotificationType.METER, meter.getId())
+        ).collect(Collectors.toList()), true, title);
+        WorkOrderPostDTO workOrder = workOrderService.getWorkOrderFromWorkOrderBase(meterTrigger);
+        WorkOrder createdWorkOrder = workOrderService.create(workOrder, user.getCompany());
+
+        Map<String, Object> webhookPayload = new HashMap<>();
+        webhookPayload.put("meterId", meter.getId());
+        webhookPayload.put("meterName", meter.getName());
+        webhookPayload.put("meterTriggerId", meterTrigger.getId());
+        webhookPayload.put("meterTriggerName", meterTrigger.getName());
+        webhookPayload.put("readingValue", readingValue);
+        webhookPayload.put("triggerValue", meterTrigger.getValue());
+        webhookPayload.put("triggerCondition", meterTrigger.getTriggerCondition().name());
+        webhookPayload.put("workOrderId", createdWorkOrder.getId());
+        Object serializedWorkOrder = workOrderMapper.toShowDto(createdWorkOrder);
+        webhookDispatchService.dispatchWebhook(user.getCompany(),
+                WebhookEvent.METER_TRIGGER_STATUS_CHANGE, webhookPayload,
+                "triggeredWorkOrder", serializedWorkOrder, null, null, null, null, null);
+        return createdWorkOrder;
+    }
+
+    private void persist(List<Reading> readings, List<Date> readDates) {
+        if (readings.isEmpty()) return;
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+        try {
+            readings.forEach(em::persist);
+            em.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+
+        // Auditing stamps created_at on insert; readings read earlier get their own date afterwards
+        List<Object[]> backdated = new ArrayList<>();
+        for (int i = 0; i < readings.size(); i++) {
+            Date readAt = readDates.get(i);
+            if (readAt != null) {
+                readings.get(i).setCreatedAt(readAt);
+                backdated.add(new Object[]{readAt, readings.get(i).getId()});
+            }
+        }
+        if (!backdated.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE reading SET created_at = ? WHERE id = ?", backdated);
+        }
+    }
+
+    private static boolean isUpdateFrequencyRespected(Meter meter, Date lastReadingDate, Date readAt, ZoneId zoneId) {
+        if (lastReadingDate == null) return true;
+        LocalDate nextReading = lastReadingDate.toInstant().atZone(zoneId).toLocalDate()
+                .plusDays(meter.getUpdateFrequency());
+        return !readAt.toInstant().atZone(zoneId).toLocalDate().isBefore(nextReading);
+    }
+
+    private static Date readDate(ReadingBatchItemDTO item, Date now) {
+        return item.getReadAt() == null ? now : item.getReadAt();
+    }
+
+    private record Breach(Meter meter, WorkOrderMeterTrigger trigger, double value) {
+    }
+}
@@ -9,21 +9,38 @@ import com.grash.repository.ReadingRepository;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ReadingService {
+    static final int MAX_HISTOGRAM_POINTS = 30;
+    static final long ROLLUP_RESCAN_MILLIS = 2 * 60 * 60 * 1000;
+
     private final ReadingRepository readingRepository;
     private final ReadingMapper readingMapper;
     private final LicenseService licenseService;
     private MeterService meterService;
 
+    @Value("${readings.histogram.bucketing:sql}")
+    private String histogramBucketing;
+    @Value("${readings.histogram.rollup.enabled:false}")
+    private boolean rollupEnabled;
+    @Value("${readings.histogram.rollup.min-days:31}")
+    private int rollupMinDays;
+
     @Autowired
     public void setDeps(@Lazy MeterService meterService
     ) {
@@ -65,62 +82,115 @@ public class ReadingService {
         return readingRepository.findFirstByMeter_IdOrderByCreatedAtDesc(id);
     }
 
-    public List<ReadingHistogramDTO> getHistogramData(Long meterId, Date start, Date end, @NotNull String timeZone) {
-        Collection<Reading> readings = readingRepository.findByMeter_IdAndCreatedAtBetween(meterId, start, end);
-        if (readings.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Date of the last reading of each of the meters that have one, keyed by meter id.
+     */
+    public Map<Long, Date> findLastDatesByMeters(Collection<Long> meterIds) {
+        Map<Long, Date> lastDates = new HashMap<>();
+        for (Object[] row : readingRepository.findLastCreatedAtByMeterIds(meterIds)) {
+            lastDates.put((Long) row[0], (Date) row[1]);
         }
+        return lastDates;
+    }
 
+    /**
+     * Average, minimum, maximum and count of the readings of a meter per bucket of whole days, at most
+     * {@link #MAX_HISTOGRAM_POINTS} buckets, starting at midnight of {@code start} in {@code timeZone}. Each point is
+     * dated at the middle of its bucket.
+     */
+    @Transactional(readOnly = true)
+    public List<ReadingHistogramDTO> getHistogramData(Long meterId, Date start, Date end, @NotNull String timeZone) {
+        ZoneId zoneId = TimeZone.getTimeZone(timeZone).toZoneId();
         long totalDays = TimeUnit.MILLISECONDS.toDays(end.getTime() - start.getTime()) + 1;
-        int maxPoints = 30;
-
-        List<Reading> sorted = readings.stream()
-                .sorted(Comparator.comparing(Reading::getCreatedAt))
-                .toList();
+        int bucketDays = (int) Math.max(1, Math.ceil((double) totalDays / MAX_HISTOGRAM_POINTS));
+        LocalDateTime origin = start.toInstant().atZone(zoneId).toLocalDate().atStartOfDay();
 
-        int bucketSize = (int) Math.max(1, Math.ceil((double) totalDays / maxPoints));
+        if ("java".equalsIgnoreCase(histogramBucketing)) {
+            return getHistogramDataInMemory(meterId, start, end, zoneId, origin, bucketDays);
+        }
+        String storageTimeZone = TimeZone.getDefault().getID();
+        List<Object[]> rows = rollupEnabled && totalDays >= rollupMinDays
+                ? readingRepository.findHistogramFromRollup(meterId, start, end, origin, bucketDays, zoneId.getId(),
+                storageTimeZone)
+                : readingRepository.findHistogram(meterId, start, end, origin, bucketDays, zoneId.getId(),
+                storageTimeZone);
+        List<ReadingHistogramDTO> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            result.add(toHistogramPoint(toLocalDateTime(row[0]), bucketDays, zoneId, end,
+                    ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue(),
+                    ((Number) row[3]).doubleValue(), ((Number) row[4]).intValue()));
+        }
+        return result;
+    }
 
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(start);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        cal.setTimeZone(TimeZone.getTimeZone(timeZone));
+    /**
+     * Recomputes the hourly rollup of the hours that got readings since the last run. {@code updated_at} is stamped
+     * before commit, so a reading may become visible after a run past its {@code updated_at}: each run re-scans the
+     * readings updated up to {@link #ROLLUP_RESCAN_MILLIS} before the previous one, and only readings committed later
+     * than that are missed. Hours whose readings were all deleted, or moved to another hour, keep their previous
+     * rollup.
+     *
+     * @return how many meter hours were rolled up
+     */
+    @Transactional
+    public int rollUpReadings() {
+        Date until = new Date();
+        Date since = Optional.ofNullable(readingRepository.findLastRollupDate())
+                .map(lastRollup -> new Date(lastRollup.getTime() - ROLLUP_RESCAN_MILLIS))
+                .orElse(new Date(0));
+        return readingRepository.rollUpReadingsUpdatedBetween(since, until, TimeZone.getDefault().getID());
+    }
 
+    private List<ReadingHistogramDTO> getHistogramDataInMemory(Long meterId, Date start, Date end, ZoneId zoneId,
+                                                               LocalDateTime origin, int bucketDays) {
+        // Single pass over a cursor, readings do not need to be sorted nor held in memory
+        Map<Long, HistogramBucket> buckets = new TreeMap<>();
+        try (Stream<Object[]> rows = readingRepository.streamValuesByMeter(meterId, start, end)) {
+            rows.forEach(row -> {
+                LocalDateTime readAt = ((Date) row[0]).toInstant().atZone(zoneId).toLocalDateTime();
+                long index = ChronoUnit.DAYS.between(origin, readAt) / bucketDays;
+                buckets.computeIfAbsent(index, key -> new HistogramBucket()).add(((Number) row[1]).doubleValue());
+            });
+        }
         List<ReadingHistogramDTO> result = new ArrayList<>();
-        Date bucketStart = cal.getTime();
-
-        while (!bucketStart.after(end)) {
-            cal.setTime(bucketStart);
-            cal.add(Calendar.DAY_OF_MONTH, bucketSize);
-            cal.add(Calendar.MILLISECOND, -1);
-            Date bucketEnd = cal.getTime();
-            if (bucketEnd.after(end)) {
-                bucketEnd = end;
-            }
-
-            final Date bStart = bucketStart;
-            final Date bEnd = bucketEnd;
-            List<Reading> bucket = sorted.stream()
-                    .filter(r -> !r.getCreatedAt().before(bStart) && !r.getCreatedAt().after(bEnd))
-                    .toList();
-
-            if (!bucket.isEmpty()) {
-                double avg = bucket.stream().mapToDouble(Reading::getValue).average().orElse(0);
-                Date midpoint = new Date((bStart.getTime() + bEnd.getTime()) / 2);
-                result.add(ReadingHistogramDTO.builder()
-                        .date(midpoint)
-                        .value(Math.round(avg * 100.0) / 100.0)
-                        .count(bucket.size())
-                        .build());
-            }
-
-            cal.setTime(bucketStart);
-            cal.add(Calendar.DAY_OF_MONTH, bucketSize);
-            bucketStart = cal.getTime();
+        buckets.forEach((index, bucket) -> result.add(toHistogramPoint(
+                origin.plusDays(index * bucketDays), bucketDays, zoneId, end,
+                bucket.sum / bucket.count, bucket.min, bucket.max, bucket.count)));
+        return result;
+    }
+
+    private static ReadingHistogramDTO toHistogramPoint(LocalDateTime bucketStart, int bucketDays, ZoneId zoneId,
+                                                        Date end, double avg, double min, double max, int count) {
+        Date bStart = Date.from(bucketStart.atZone(zoneId).toInstant());
+        Date bEnd = new Date(bucketStart.plusDays(bucketDays).atZone(zoneId).toInstant().toEpochMilli() - 1);
+        if (bEnd.after(end)) {
+            bEnd = end;
         }
+        return ReadingHistogramDTO.builder()
+                .date(new Date((bStart.getTime() + bEnd.getTime()) / 2))
+                .value(Math.round(avg * 100.0) / 100.0)
+                .min(min)
+                .max(max)
+                .count(count)
+                .build();
+    }
 
-        return result;
+    private static LocalDateTime toLocalDateTime(Object bucket) {
+        if (bucket instanceof LocalDateTime localDateTime) return localDateTime;
+        return ((Timestamp) bucket).toLocalDateTime();
+    }
+
+    private static final class HistogramBucket {
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.configuration.AsyncConfig;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.utils.PdfReportUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Images of the PDF reports, downloaded and optimized for PDF ahead of rendering, concurrently on the report image
+ * executor, and cached by storage path so that reports generated again or mailed reuse them. Storage paths are never
+ * reused for other content, so cached images don't go stale.
+ */
+@Service
+public class ReportImageService {
+
+    private final StorageServiceFactory storageServiceFactory;
+    private final AsyncTaskExecutor reportImageExecutor;
+    private final AsyncCache<String, byte[]> optimizedImages;
+
+    @Autowired
+    public ReportImageService(StorageServiceFactory storageServiceFactory,
+                              @Qualifier(AsyncConfig.REPORT_IMAGE_EXECUTOR) AsyncTaskExecutor reportImageExecutor,
+                              @Value("${reports.image-cache.max-size-mb:64}") long maxSizeMb) {
+        this.storageServiceFactory = storageServiceFactory;
+        this.reportImageExecutor = reportImageExecutor;
+        this.optimizedImages = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((String path, byte[] image) -> image.length)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .buildAsync();
+    }
+
+    /**
+     * Starts loading the images of a report and returns the image loader to render it with. The loader waits for the
+     * image it is asked for, or loads it then if it was not prefetched; a failed image throws.
+     */
+    public Function<String, byte[]> prefetch(Collection<String> storagePaths) {
+        Map<String, CompletableFuture<byte[]>> images = new ConcurrentHashMap<>();
+        storagePaths.stream().filter(Objects::nonNull).distinct()
+                .forEach(path -> images.put(path, load(path)));
+        return path -> images.computeIfAbsent(path, this::load).join();
+    }
+
+    private CompletableFuture<byte[]> load(String path) {
+        // Loads of the same path share one download, failed ones are not cached
+        return optimizedImages.get(path, (key, executor) -> CompletableFuture.supplyAsync(() ->
+                PdfReportUtils.optimizeImageForPdf(storageServiceFactory.getStorageService().download(key), key),
+                reportImageExecutor));
+    }
+}
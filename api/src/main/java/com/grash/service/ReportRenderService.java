@@ -0,0 +1,128 @@
+package com.grash.service;
+
+import com.grash.exception.CustomException;
+import com.grash.utils.PdfReportUtils;
+import com.itextpdf.html2pdf.HtmlConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Converts rendered report HTML to PDF. Conversions are CPU and memory heavy, so at most
+ * {@code reports.pdf.max-concurrent-renders} run at once; the others wait for their turn up to
+ * {@code reports.pdf.queue-timeout-seconds}, then fail. Bulk exports have their own
+ * {@code reports.bulk.max-concurrent-renders} permits, see {@link #renderInBulk}, so that they neither fail nor take
+ * the permits of interactive reports.
+ */
+@Service
+public class ReportRenderService {
+    static final String RENDER_TIMER = "reports.pdf.render";
+    static final String BYTES_SUMMARY = "reports.pdf.bytes";
+    static final String REJECTED_COUNTER = "reports.pdf.rejected";
+
+    private final Semaphore renderPermits;
+    private final Semaphore bulkRenderPermits;
+    private final ThreadLocal<Boolean> bulkRender = new ThreadLocal<>();
+    private final long queueTimeoutSeconds;
+    private final Timer renderTimer;
+    private final DistributionSummary bytesSummary;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public ReportRenderService(MeterRegistry meterRegistry,
+                               @Value("${reports.pdf.max-concurrent-renders:4}") int maxConcurrentRenders,
+                               @Value("${reports.pdf.queue-timeout-seconds:30}") long queueTimeoutSeconds,
+                               @Value("${reports.bulk.max-concurrent-renders:2}") int maxConcurrentBulkRenders) {
+        this.renderPermits = new Semaphore(maxConcurrentRenders, true);
+        this.bulkRenderPermits = new Semaphore(maxConcurrentBulkRenders, true);
+        this.queueTimeoutSeconds = queueTimeoutSeconds;
+        this.renderTimer = Timer.builder(RENDER_TIMER)
+                .description("Time spent converting reports to PDF")
+                .register(meterRegistry);
+        this.bytesSummary = DistributionSummary.builder(BYTES_SUMMARY)
+                .description("Size of the PDF reports produced")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REJECTED_COUNTER)
+                .description("Reports not rendered because too many were being rendered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes the PDF of {@code html} to {@code outputStream}. The PDF is rendered in memory and only copied to
+     * {@code outputStream} once the render permit is released, so that a slow client reading the response does not
+     * hold it.
+     *
+     * @param imageLoader loads the images of the report by storage path, see
+     *                    {@link PdfReportUtils#createReportConverterProperties}
+     */
+    public void render(String html, OutputStream outputStream, Function<String, byte[]> imageLoader) {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        // Within renderInBulk the bulk permit is already held
+        boolean bulk = Boolean.TRUE.equals(bulkRender.get());
+        if (!bulk) acquirePermit();
+        try {
+            renderTimer.record(() -> HtmlConverter.convertToPdf(html, pdf,
+                    PdfReportUtils.createReportConverterProperties(imageLoader)));
+        } finally {
+            if (!bulk) renderPermits.release();
+        }
+        bytesSummary.record(pdf.size());
+        try {
+            pdf.writeTo(outputStream);
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs {@code report}, whose renders use a bulk render permit instead of an interactive one. The permit is waited
+     * for without timeout and taken before {@code report} runs, so that a report waiting for its turn holds no
+     * connection nor loaded entities.
+     */
+    public <T> T renderInBulk(Supplier<T> report) {
+        try {
+            bulkRenderPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting to render the report", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        bulkRender.set(true);
+        try {
+            return report.get();
+        } finally {
+            bulkRender.remove();
+            bulkRenderPermits.release();
+        }
+    }
+
+    private void acquirePermit() {
+        boolean acquired;
+        try {
+            acquired = renderPermits.tryAcquire(queueTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new CustomException("Too many reports are being generated, try again later",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.grash.exception.CustomException;
 import com.grash.mapper.RequestMapper;
 import com.grash.model.*;
 import com.grash.model.enums.CustomFieldEntityType;
+import com.grash.model.enums.CustomSequenceType;
 import com.grash.model.enums.PortalFieldType;
 import com.grash.model.enums.Priority;
 import com.grash.model.enums.webhook.WebhookEvent;
@@ -58,7 +59,7 @@ public class RequestService {
         if (request.getAudioDescription() != null && !licenseService.hasEntitlement(LicenseEntitlement.VOICE_NOTES))
             throw new CustomException("You need a license to add voice notes", HttpStatus.FORBIDDEN);
         Long nextSequence = customSequenceService.getNextRequestSequence(company);
-        request.setCustomId("R" + String.format("%06d", nextSequence));
+        request.setCustomId(CustomSequenceType.REQUEST.format(nextSequence));
         Sanitizer.sanitizeRequest(request);
 
         Request savedRequest = requestRepository.saveAndFlush(request);
@@ -76,7 +77,7 @@ public class RequestService {
         if (request.getAudioDescription() != null && !licenseService.hasEntitlement(LicenseEntitlement.VOICE_NOTES))
             throw new CustomException("You need a license to add voice notes", HttpStatus.FORBIDDEN);
         Long nextSequence = customSequenceService.getNextRequestSequence(company);
-        request.setCustomId("R" + String.format("%06d", nextSequence));
+        request.setCustomId(CustomSequenceType.REQUEST.format(nextSequence));
         request.setRequestPortal(requestPortal);
         request.setCompany(requestPortal.getCompany());
         Sanitizer.sanitizeRequest(request);
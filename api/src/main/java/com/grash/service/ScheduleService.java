@@ -1,5 +1,7 @@
 package com.grash.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.grash.dto.SchedulePatchDTO;
 import com.grash.exception.CustomException;
 import com.grash.job.PreventiveMaintenanceNotificationJob;
@@ -11,9 +13,11 @@ import com.grash.model.WorkOrder;
 import com.grash.model.enums.RecurrenceType;
 import com.grash.model.enums.Status;
 import com.grash.repository.ScheduleRepository;
+import com.grash.utils.ScheduleOccurrences;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -28,6 +32,7 @@ import org.quartz.CronScheduleBuilder;
 import org.quartz.SimpleScheduleBuilder; // Added import for SimpleScheduleBuilder
 
 import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,12 +47,23 @@ public class ScheduleService {
     // Quartz Scheduler
     private final Scheduler scheduler;
 
+    @Value("${pm.scheduler.engine:quartz}")
+    private String schedulerEngine;
+
+    // Calendar occurrences per schedule and window. The key holds the recurrence fields, so a schedule changed on
+    // another node is recomputed here too
+    private final Cache<OccurrenceWindow, List<Date>> occurrences = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
     public Schedule create(Schedule Schedule) {
         return scheduleRepository.save(Schedule);
     }
 
     public Schedule update(Long id, SchedulePatchDTO schedule) {
         if (scheduleRepository.existsById(id)) {
+            evictOccurrences(id);
             Schedule savedSchedule = scheduleRepository.findById(id).get();
             return scheduleRepository.save(scheduleMapper.updateSchedule(savedSchedule, schedule));
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
@@ -87,7 +103,9 @@ public class ScheduleService {
         boolean shouldSchedule =
                 !schedule.isDisabled() && (schedule.getEndsOn() == null || schedule.getEndsOn().after(new Date())) && !isStale;
 
-        if (shouldSchedule) {
+        if (usesDatabaseEngine()) {
+            planFirstRun(schedule, workOrdersPage, shouldSchedule);
+        } else if (shouldSchedule) {
             try {
                 ScheduleBuilder<?> scheduleBuilder = null;
                 Date startsOn = schedule.getStartsOn();
@@ -223,6 +241,10 @@ public class ScheduleService {
     }
 
     public void stopScheduleJobs(Long scheduleId) {
+        evictOccurrences(scheduleId);
+        if (usesDatabaseEngine()) {
+            scheduleRepository.clearNextRuns(scheduleId);
+        }
         try {
             // Delete Work Order Job
             scheduler.deleteJob(new JobKey("wo-job-" + scheduleId, "wo-group"));
@@ -335,6 +357,14 @@ public class ScheduleService {
         // Only applies to COMPLETED_DATE schedules
         if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.COMPLETED_DATE) return;
 
+        if (usesDatabaseEngine()) {
+            if (schedule.isDisabled()) return;
+            Date nextRunDate = ScheduleOccurrences.afterCompletion(schedule, completedDate, timeZone.toZoneId());
+            planNextRuns(schedule, nextRunDate, new Date());
+            scheduleRepository.save(schedule);
+            return;
+        }
+
         // 1. Calculate the next run date based on Frequency
         Calendar cal = Calendar.getInstance(timeZone);
         cal.setTime(completedDate);
@@ -393,6 +423,121 @@ public class ScheduleService {
         }
     }
 
+    /**
+     * Occurrences of a scheduled date based schedule between {@code from} and {@code to}, computed from its fields
+     * without reading Quartz triggers.
+     */
+    public List<Date> getOccurrences(Schedule schedule, Date from, Date to, ZoneId zoneId, int limit) {
+        return occurrences.get(OccurrenceWindow.of(schedule, zoneId, from, to, limit),
+                window -> List.copyOf(ScheduleOccurrences.between(schedule, from, to, zoneId, limit)));
+    }
+
+    public void evictOccurrences(Long scheduleId) {
+        occurrences.asMap().keySet().removeIf(window -> window.scheduleId().equals(scheduleId));
+    }
+
+    public boolean usesDatabaseEngine() {
+        return "database".equalsIgnoreCase(schedulerEngine);
+    }
+
+    private void planFirstRun(Schedule schedule, Page<WorkOrder> lastWorkOrders, boolean shouldSchedule) {
+        Date now = new Date();
+        Date nextDueAt;
+        if (!shouldSchedule) {
+            nextDueAt = null;
+        } else if (schedule.getRecurrenceBasedOn() == RecurrenceBasedOn.COMPLETED_DATE) {
+            WorkOrder lastCompletedWorkOrder = lastWorkOrders.stream()
+                    .filter(w -> Status.COMPLETE.equals(w.getStatus()))
+                    .max(Comparator.comparing(WorkOrder::getCompletedOn))
+                    .orElse(null);
+            if (lastWorkOrders.isEmpty()) nextDueAt = schedule.getStartsOn();
+            else if (lastCompletedWorkOrder == null) nextDueAt = null; // planned again on completion
+            else nextDueAt = ScheduleOccurrences.afterCompletion(schedule, lastCompletedWorkOrder.getCompletedOn(),
+                        getZoneId(schedule));
+        } else {
+            nextDueAt = ScheduleOccurrences.firstAtOrAfter(schedule, now, getZoneId(schedule));
+        }
+        planNextRuns(schedule, nextDueAt, now);
+        scheduleRepository.save(schedule);
+    }
+
+    /**
+     * Sets when the database scheduler engine next creates a work order and sends the upcoming work order
+     * notification for this schedule. Does not save it.
+     */
+    public void planNextRuns(Schedule schedule, Date nextDueAt, Date from) {
+        int daysBeforePMNotification = schedule.getPreventiveMaintenance().getCompany()
+                .getCompanySettings().getGeneralPreferences().getDaysBeforePrevMaintNotification();
+        schedule.setNextDueAt(nextDueAt);
+        schedule.setNextNotificationAt(ScheduleOccurrences.nextNotification(schedule, nextDueAt,
+                daysBeforePMNotification, from, getZoneId(schedule)));
+    }
+
+    /**
+     * Moves a schedule past the occurrence the database scheduler engine just ran. Occurrences missed while no node
+     * was sweeping are collapsed into the one that ran, like the Quartz misfire policy did. Completed date based
+     * schedules wait for the work order to be completed.
+     */
+    public void advanceAfterRun(Schedule schedule, Date now) {
+        Date nextDueAt = null;
+        if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.COMPLETED_DATE) {
+            Date ranAt = schedule.getNextDueAt() != null && schedule.getNextDueAt().after(now)
+                    ? schedule.getNextDueAt() : now;
+            nextDueAt = ScheduleOccurrences.firstAtOrAfter(schedule, new Date(ranAt.getTime() + 1),
+                    getZoneId(schedule));
+        }
+        planNextRuns(schedule, nextDueAt, now);
+    }
+
+    /**
+     * Moves a schedule past the upcoming work order notification the database scheduler engine just sent.
+     */
+    public void advanceAfterNotification(Schedule schedule, Date now) {
+        int daysBeforePMNotification = schedule.getPreventiveMaintenance().getCompany()
+                .getCompanySettings().getGeneralPreferences().getDaysBeforePrevMaintNotification();
+        Date sentAt = schedule.getNextNotificationAt() != null && schedule.getNextNotificationAt().after(now)
+                ? schedule.getNextNotificationAt() : now;
+        schedule.setNextNotificationAt(ScheduleOccurrences.nextNotification(schedule, schedule.getNextDueAt(),
+                daysBeforePMNotification, new Date(sentAt.getTime() + 1), getZoneId(schedule)));
+    }
+
+    /**
+     * Plans a schedule that still had a Quartz work order job for the database scheduler engine. Scheduled date based
+     * schedules are recomputed, since weekly Quartz triggers also fire on the weeks the job skips; chained completed
+     * date based jobs keep their fire time.
+     */
+    public void planFromQuartzTrigger(Long scheduleId, Date nextFireTime) {
+        Schedule schedule = scheduleRepository.findById(scheduleId).orElse(null);
+        if (schedule == null || schedule.isDisabled()) return;
+        Date now = new Date();
+        Date nextDueAt;
+        if (schedule.getRecurrenceBasedOn() == RecurrenceBasedOn.COMPLETED_DATE) {
+            nextDueAt = nextFireTime;
+            if (schedule.getNextDueAt() != null && (nextDueAt == null || schedule.getNextDueAt().before(nextDueAt)))
+                nextDueAt = schedule.getNextDueAt();
+        } else {
+            nextDueAt = ScheduleOccurrences.firstAtOrAfter(schedule, now, getZoneId(schedule));
+        }
+        planNextRuns(schedule, nextDueAt, now);
+        scheduleRepository.save(schedule);
+    }
+
+    private ZoneId getZoneId(Schedule schedule) {
+        return TimeZone.getTimeZone(schedule.getPreventiveMaintenance().getCompany()
+                .getCompanySettings().getGeneralPreferences().getTimeZone()).toZoneId();
+    }
+
+    private record OccurrenceWindow(Long scheduleId, Date startsOn, Date endsOn, int frequency,
+                                    RecurrenceType recurrenceType, List<Integer> daysOfWeek, ZoneId zoneId,
+                                    long from, long to, int limit) {
+        static OccurrenceWindow of(Schedule schedule, ZoneId zoneId, Date from, Date to, int limit) {
+            return new OccurrenceWindow(schedule.getId(), schedule.getStartsOn(), schedule.getEndsOn(),
+                    schedule.getFrequency(), schedule.getRecurrenceType(),
+                    schedule.getDaysOfWeek() == null ? List.of() : List.copyOf(schedule.getDaysOfWeek()),
+                    zoneId, from.getTime(), to.getTime(), limit);
+        }
+    }
+
     public Schedule save(Schedule schedule) {
         return scheduleRepository.saveAndFlush(schedule);
     }
@@ -0,0 +1,92 @@
+package com.grash.service;
+
+import com.grash.job.PreventiveMaintenanceNotificationJob;
+import com.grash.model.Schedule;
+import com.grash.repository.ScheduleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Work of the database scheduler engine. Due schedules are claimed with {@code FOR UPDATE SKIP LOCKED}, so nodes
+ * sweeping at the same time never claim the same schedule, and are advanced in the transaction that ran them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleSweepService {
+
+    private final ScheduleRepository scheduleRepository;
+    private final ScheduleService scheduleService;
+    private final PreventiveMaintenanceService preventiveMaintenanceService;
+    private final PreventiveMaintenanceNotificationJob preventiveMaintenanceNotificationJob;
+
+    /**
+     * Creates the work orders of up to {@code batchSize} due schedules in one transaction, as a single insert batch.
+     * Everything they trigger is either written in that transaction or sent once it commits.
+     *
+     * @return how many schedules were claimed
+     */
+    @Transactional
+    public int createDueWorkOrders(Date now, int batchSize) {
+        List<Schedule> schedules = scheduleRepository.findDueForUpdate(now, batchSize);
+        if (schedules.isEmpty()) return 0;
+        preventiveMaintenanceService.createWorkOrdersFromPreventiveMaintenances(schedules.stream()
+                .map(Schedule::getPreventiveMaintenance)
+                .toList());
+        schedules.forEach(schedule -> scheduleService.advanceAfterRun(schedule, now));
+        return schedules.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findDueIds(Date now, int limit) {
+        return scheduleRepository.findDueIds(now, limit);
+    }
+
+    /**
+     * Creates the work order of a single due schedule, for when its batch failed.
+     */
+    @Transactional
+    public void createDueWorkOrder(Long scheduleId, Date now) {
+        scheduleRepository.findDueForUpdateById(scheduleId, now)
+                .ifPresent(schedule -> createWorkOrder(schedule, now));
+    }
+
+    /**
+     * Advances a due schedule whose work order could not be created, so that it does not block every sweep.
+     */
+    @Transactional
+    public void skipDueOccurrence(Long scheduleId, Date now) {
+        scheduleRepository.findDueForUpdateById(scheduleId, now)
+                .ifPresent(schedule -> scheduleService.advanceAfterRun(schedule, now));
+    }
+
+    /**
+     * Sends the upcoming work order notifications of up to {@code batchSize} schedules in one transaction. A failed
+     * notification is not retried.
+     *
+     * @return how many schedules were claimed
+     */
+    @Transactional
+    public int sendDueNotifications(Date now, int batchSize) {
+        List<Schedule> schedules = scheduleRepository.findNotificationDueForUpdate(now, batchSize);
+        for (Schedule schedule : schedules) {
+            try {
+                preventiveMaintenanceNotificationJob.notifyUpcomingWorkOrder(schedule.getPreventiveMaintenance());
+            } catch (Exception e) {
+                log.error("Error sending the upcoming work order notification of schedule " + schedule.getId(), e);
+            }
+            scheduleService.advanceAfterNotification(schedule, now);
+        }
+        return schedules.size();
+    }
+
+    private void createWorkOrder(Schedule schedule, Date now) {
+        preventiveMaintenanceService.createWorkOrderFromPreventiveMaintenance(schedule.getPreventiveMaintenance());
+        scheduleService.advanceAfterRun(schedule, now);
+    }
+}
@@ -2,7 +2,9 @@ package com.grash.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.configuration.AsyncConfig;
 import com.grash.dto.EmailAttachmentDTO;
+import com.grash.dto.RenderedMailDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.User;
 import com.sendgrid.*;
@@ -15,13 +17,10 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import jakarta.transaction.Transactional;
 
@@ -35,10 +34,9 @@ import java.util.*;
 @RequiredArgsConstructor
 public class SendgridService implements MailService {
 
-    private final SpringTemplateEngine thymeleafTemplateEngine;
     private final BrandingService brandingService;
-    private final Environment environment;
     private final ObjectMapper objectMapper;
+    private final MailOutboxService mailOutboxService;
 
     @Value("${sendgrid.api.key}")
     private String sendGridApiKey;
@@ -48,6 +46,9 @@ public class SendgridService implements MailService {
 
     private String fromName;
 
+    // Shared by every request, so that its HTTP connections are reused
+    private SendGrid sendGrid;
+
     @Value("classpath:/static/images/logo.png")
     private Resource resourceFile;
 
@@ -69,6 +70,7 @@ public class SendgridService implements MailService {
     @PostConstruct
     public void init() {
         fromName = brandingService.getBrandConfig().getName();
+        sendGrid = new SendGrid(sendGridApiKey);
     }
 
     /**
@@ -77,14 +79,13 @@ public class SendgridService implements MailService {
 
 
     @Override
-    @Async
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void addToContactList(User user) {
         if (shouldSkipSendingEmail() || !cloudVersion) {
             return;
         }
         try {
             String userEmail = user.getEmail();
-            SendGrid sg = new SendGrid(sendGridApiKey);
             Request request = new Request();
             request.setMethod(Method.PUT);
             request.setEndpoint("marketing/contacts");
@@ -110,7 +111,7 @@ public class SendgridService implements MailService {
             String jsonBody = objectMapper.writeValueAsString(body);
 
             request.setBody(jsonBody);
-            Response response = sg.api(request);
+            Response response = sendGrid.api(request);
 
             if (response.getStatusCode() >= 400) {
                 log.error("SendGrid Marketing API error: Status={}, Body={}",
@@ -128,13 +129,12 @@ public class SendgridService implements MailService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void removeUserFromContactList(String userEmail) {
         if (shouldSkipSendingEmail() || !cloudVersion) {
             return;
         }
         try {
-            SendGrid sg = new SendGrid(sendGridApiKey);
 
             String safeEmail = userEmail.replace("'", "\\'");
 
@@ -147,7 +147,7 @@ public class SendgridService implements MailService {
 
             searchRequest.setBody(objectMapper.writeValueAsString(searchBody));
 
-            Response searchResponse = sg.api(searchRequest);
+            Response searchResponse = sendGrid.api(searchRequest);
 
             if (searchResponse.getStatusCode() >= 400) {
                 // Log error but DO NOT throw exception in void @Async
@@ -173,7 +173,7 @@ public class SendgridService implements MailService {
             removeRequest.setEndpoint("marketing/lists/" + contactListId + "/contacts");
             removeRequest.addQueryParam("contact_ids", contactId);
 
-            Response removeResponse = sg.api(removeRequest);
+            Response removeResponse = sendGrid.api(removeRequest);
 
             if (removeResponse.getStatusCode() >= 400) {
                 log.error("SendGrid list removal failed for {}: Status={}, Body={}",
@@ -207,13 +207,12 @@ public class SendgridService implements MailService {
             }
             mail.addPersonalization(personalization);
 
-            SendGrid sg = new SendGrid(sendGridApiKey);
             Request request = new Request();
             request.setMethod(Method.POST);
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
 
-            Response response = sg.api(request);
+            Response response = sendGrid.api(request);
 
             if (response.getStatusCode() >= 400) {
                 log.error("SendGrid error: Status={}, Body={}",
@@ -256,13 +255,12 @@ public class SendgridService implements MailService {
             attachments.setDisposition("attachment");
             mail.addAttachments(attachments);
 
-            SendGrid sg = new SendGrid(sendGridApiKey);
             Request request = new Request();
             request.setMethod(Method.POST);
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
 
-            Response response = sg.api(request);
+            Response response = sendGrid.api(request);
 
             if (response.getStatusCode() >= 400) {
                 log.error("SendGrid error: Status={}, Body={}",
@@ -281,31 +279,46 @@ public class SendgridService implements MailService {
         }
     }
 
-    /**
-     * Send email using Thymeleaf template
-     */
-    @Async
+    @Override
     public void sendMessageUsingThymeleafTemplate(
             String[] to, String subject, Map<String, Object> templateModel,
             String template, Locale locale, List<EmailAttachmentDTO> attachmentDTOS) {
         if (to.length == 0) return;
         if (shouldSkipSendingEmail())
             return;
-        Context thymeleafContext = new Context();
-        thymeleafContext.setLocale(locale);
-        thymeleafContext.setVariables(templateModel);
-        thymeleafContext.setVariable("environment", environment);
-        thymeleafContext.setVariable("brandConfig", brandingService.getBrandConfig());
-        thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
-
-        String htmlBody = thymeleafTemplateEngine.process(template, thymeleafContext);
+        mailOutboxService.enqueue(to, subject, templateModel, template, locale, attachmentDTOS);
+    }
 
-        try {
-            sendHtmlMessage(to, subject, htmlBody, attachmentDTOS, template);
-        } catch (IOException e) {
-            log.error("Error sending templated email", e);
-            throw new CustomException("Can't send the mail", HttpStatus.INTERNAL_SERVER_ERROR);
+    /**
+     * Sends the mails of the batch sharing their content as one request, with a personalization per mail, so that
+     * recipients of different mails don't see each other. Mails with attachments are sent on their own.
+     */
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Map<Long, String> sendRendered(List<RenderedMailDTO> mails) {
+        Map<Long, String> errors = new HashMap<>();
+        if (shouldSkipSendingEmail())
+            return errors;
+        Map<List<Object>, List<RenderedMailDTO>> mailsByContent = new LinkedHashMap<>();
+        for (RenderedMailDTO mail : mails) {
+            if (mail.getTo().length == 0 || isDemoOnly(mail.getTo())) continue;
+            List<Object> content = mail.getAttachments() == null || mail.getAttachments().isEmpty()
+                    ? Arrays.asList(mail.getSubject(), mail.getHtmlBody(), mail.getTemplate())
+                    : List.of(mail.getId());
+            mailsByContent.computeIfAbsent(content, key -> new ArrayList<>()).add(mail);
         }
+        for (List<RenderedMailDTO> sameContent : mailsByContent.values()) {
+            RenderedMailDTO first = sameContent.get(0);
+            Mail mail = createHtmlMail(first.getSubject(), first.getHtmlBody(), first.getAttachments(),
+                    first.getTemplate());
+            sameContent.forEach(renderedMail -> mail.addPersonalization(personalization(renderedMail.getTo())));
+            try {
+                send(mail);
+            } catch (IOException e) {
+                sameContent.forEach(renderedMail -> errors.put(renderedMail.getId(), e.getMessage()));
+            }
+        }
+        return errors;
     }
 
     /**
@@ -315,8 +328,19 @@ public class SendgridService implements MailService {
                                  List<EmailAttachmentDTO> attachmentDTOS, String template) throws IOException {
         if (shouldSkipSendingEmail())
             return;
-        if (to != null && Arrays.stream(to).allMatch(recipient -> recipient != null && recipient.toLowerCase().endsWith("@demo.com")))
+        if (to != null && isDemoOnly(to))
             return;
+        Mail mail = createHtmlMail(subject, htmlBody, attachmentDTOS, template);
+        mail.addPersonalization(personalization(to));
+        send(mail);
+    }
+
+    private static boolean isDemoOnly(String[] to) {
+        return Arrays.stream(to).allMatch(recipient -> recipient != null && recipient.toLowerCase().endsWith("@demo.com"));
+    }
+
+    private Mail createHtmlMail(String subject, String htmlBody, List<EmailAttachmentDTO> attachmentDTOS,
+                                String template) {
         Email from = new Email(fromEmail, fromName);
         Content content = new Content("text/html", htmlBody);
 
@@ -325,12 +349,6 @@ public class SendgridService implements MailService {
         mail.setSubject(subject);
         mail.addContent(content);
         if (template != null) mail.addCategory(template);
-        // Add recipients
-        Personalization personalization = new Personalization();
-        for (String recipient : to) {
-            personalization.addTo(new Email(recipient));
-        }
-        mail.addPersonalization(personalization);
 
         // Add attachments if any
         if (attachmentDTOS != null && !attachmentDTOS.isEmpty()) {
@@ -345,14 +363,24 @@ public class SendgridService implements MailService {
                 mail.addAttachments(attachment);
             }
         }
+        return mail;
+    }
+
+    private static Personalization personalization(String[] to) {
+        Personalization personalization = new Personalization();
+        for (String recipient : to) {
+            personalization.addTo(new Email(recipient));
+        }
+        return personalization;
+    }
 
-        SendGrid sg = new SendGrid(sendGridApiKey);
+    private void send(Mail mail) throws IOException {
         Request request = new Request();
         request.setMethod(Method.POST);
         request.setEndpoint("mail/send");
         request.setBody(mail.build());
 
-        Response response = sg.api(request);
+        Response response = sendGrid.api(request);
 
         if (response.getStatusCode() >= 400) {
             log.error("SendGrid error: Status={}, Body={}",
@@ -3,6 +3,9 @@ package com.grash.service;
 import com.grash.model.File;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public interface StorageService {
     /**
      * Uploads a file to the storage and returns the public URL.
@@ -50,4 +53,22 @@ public interface StorageService {
     void uploadAt(byte[] data, String filePath, String contentType);
 
     boolean exists(String filePath);
+
+    /**
+     * Uploads content as the writer produces it, so that only a bounded buffer is held in memory. The object is
+     * only created if the writer completes; a failing writer aborts the upload.
+     *
+     * @param fileName        The name of the file, used to generate its path.
+     * @param folder          The folder where the file should be uploaded.
+     * @param contentType     The content type of the file.
+     * @param contentEncoding The content encoding of the file, e.g. gzip, or null.
+     * @param writer          Writes the content to the upload stream. It must not close the stream.
+     * @return The file Path of the uploaded file.
+     */
+    String upload(String fileName, String folder, String contentType, String contentEncoding, ContentWriter writer);
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
 }
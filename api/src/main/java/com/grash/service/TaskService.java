@@ -34,6 +34,12 @@ public class TaskService {
         return savedTask;
     }
 
+    public List<Task> createAll(List<Task> tasks) {
+        if (tasks.isEmpty()) return tasks;
+        tasks.forEach(Sanitizer::sanitizeTask);
+        return taskRepository.saveAll(tasks);
+    }
+
     @Transactional
     public Task update(Long id, TaskPatchDTO task) {
         if (taskRepository.existsById(id)) {
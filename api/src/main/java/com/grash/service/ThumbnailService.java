@@ -0,0 +1,132 @@
+package com.grash.service;
+
+import com.grash.configuration.AsyncConfig;
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.File;
+import com.grash.model.enums.FileType;
+import com.grash.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the thumbnails of image files once, when they are uploaded, so that mapping a file never downloads nor
+ * re-encodes it. Each configured size is stored next to the original, at a path derived from it; the smallest one is
+ * recorded as the file thumbnail path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+    private final FileRepository fileRepository;
+    private final StorageServiceFactory storageServiceFactory;
+
+    @Value("${files.thumbnails.sizes:200,800}")
+    private List<Integer> sizes;
+
+    /**
+     * Generates the thumbnails of an uploaded image on the image executor, downloading it back from the storage so
+     * that queued tasks do not hold the uploads. When the executor is full, or the storage fails, the upload is left
+     * to {@code ThumbnailBackfillJob}.
+     */
+    @Async(AsyncConfig.IMAGE_EXECUTOR)
+    public void generateAsync(Long fileId) {
+        try {
+            fileRepository.findById(fileId).ifPresent(this::generate);
+        } catch (RuntimeException e) {
+            log.warn("Could not generate the thumbnails of file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * Generates the thumbnails of an image file and records its thumbnail path. An image that can't be decoded is
+     * skipped, storage errors are thrown.
+     *
+     * @return whether the thumbnails were generated
+     */
+    public boolean generate(File file) {
+        if (file.getType() != FileType.IMAGE || file.getThumbnailPath() != null) return false;
+        StorageService storageService = storageServiceFactory.getStorageService();
+        byte[] original = storageService.download(file);
+        Map<String, byte[]> thumbnails = new LinkedHashMap<>();
+        try {
+            for (int size : sortedSizes()) {
+                thumbnails.put(thumbnailPath(file.getPath(), size), resize(original, size));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not decode image {}: {}", file.getId(), e.getMessage());
+            return false;
+        }
+        if (thumbnails.isEmpty()) return false;
+        thumbnails.forEach((path, thumbnail) -> storageService.uploadAt(thumbnail, path, "image/jpeg"));
+        fileRepository.updateThumbnailPath(file.getId(), thumbnails.keySet().iterator().next());
+        return true;
+    }
+
+    /**
+     * Generates the thumbnails of up to {@code batchSize} images that have none, in id order. Stops at the first image
+     * the storage fails to serve or store, so that it is retried by the next run, except when it is missing.
+     *
+     * @return the id of the last image processed, or {@code afterId} when there was none left
+     */
+    public Long backfill(Long afterId, int batchSize) {
+        Long lastId = afterId;
+        for (File file : fileRepository.findImagesWithoutThumbnail(afterId, PageRequest.of(0, batchSize))) {
+            try {
+                generate(file);
+            } catch (RuntimeException e) {
+                if (!(e instanceof CustomException customException
+                        && customException.getHttpStatus() == HttpStatus.NOT_FOUND)) {
+                    log.warn("Could not generate the thumbnails of file {}, retrying on the next run: {}",
+                            file.getId(), e.getMessage());
+                    break;
+                }
+                log.warn("Image {} is missing from the storage, skipping it", file.getId());
+            }
+            lastId = file.getId();
+        }
+        return lastId;
+    }
+
+    /**
+     * Storage path of the largest thumbnail of a file, or null when it has no thumbnails.
+     */
+    public String getPreviewPath(File file) {
+        if (file.getThumbnailPath() == null) return null;
+        List<Integer> sortedSizes = sortedSizes();
+        return thumbnailPath(file.getPath(), sortedSizes.get(sortedSizes.size() - 1));
+    }
+
+    static String thumbnailPath(String path, int size) {
+        return path + "_thumb_" + size + ".jpg";
+    }
+
+    private List<Integer> sortedSizes() {
+        return sizes.stream().sorted().toList();
+    }
+
+    private static byte[] resize(byte[] original, int size) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Thumbnails.of(new ByteArrayInputStream(original))
+                .size(size, size)
+                // jpg has no alpha channel
+                .imageType(BufferedImage.TYPE_INT_RGB)
+                .outputFormat("jpg")
+                .toOutputStream(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -21,6 +21,7 @@ import com.grash.repository.UserRepository;
 import com.grash.repository.VerificationTokenRepository;
 import com.grash.security.CustomUserDetail;
 import com.grash.security.JwtTokenProvider;
+import com.grash.security.UserPrincipal;
 import com.grash.utils.Helper;
 import com.grash.utils.Sanitizer;
 import jakarta.mail.MessagingException;
@@ -290,6 +291,20 @@ public class UserService {
         return userOptional;
     }
 
+    public Optional<UserPrincipal> findPrincipal(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<UserPrincipal> cachedPrincipal = cacheService.getPrincipalFromCache(email);
+        if (cachedPrincipal.isPresent()) return cachedPrincipal;
+
+        Optional<UserPrincipal> principal = userRepository.findPrincipalRowByEmail(email.trim()).stream()
+                .findFirst()
+                .map(UserPrincipal::fromRow);
+        principal.ifPresent(cacheService::putPrincipalInCache);
+        return principal;
+    }
+
     public List<User> getAll() {
         return userRepository.findAll();
     }
@@ -0,0 +1,292 @@
+package com.grash.service;
+
+import com.grash.configuration.AsyncConfig;
+import com.grash.event.WebhookEnqueuedEvent;
+import com.grash.model.WebhookDelivery;
+import com.grash.model.WebhookEndpoint;
+import com.grash.model.enums.webhook.WebhookDeliveryStatus;
+import com.grash.repository.WebhookDeliveryRepository;
+import com.grash.repository.WebhookEndpointRepository;
+import com.grash.utils.WebhookUrlValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the {@link WebhookDelivery} outbox. Deliveries are leased in batches, sent concurrently on the webhook
+ * executor with a bounded number of requests per endpoint, and retried with exponential backoff, except those the
+ * endpoint refuses with a 4xx other than 408 and 429. Endpoints failing repeatedly are skipped for a while. Delivery is at least once: a delivery whose lease expires is sent again.
+ */
+@Service
+@Slf4j
+public class WebhookDeliveryService {
+    static final int MAX_ATTEMPTS = 8;
+    static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    static final long BASE_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long CIRCUIT_OPEN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final long BUSY_ENDPOINT_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long DELIVERED_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_CONCURRENT_PER_ENDPOINT = 2;
+
+    private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final WebhookEndpointRepository webhookEndpointRepository;
+    private final AsyncTaskExecutor webhookExecutor;
+    private final RestTemplate restTemplate;
+
+    private final Map<Long, Semaphore> endpointPermits = new ConcurrentHashMap<>();
+    private final Map<Long, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    //endpoint id to last successful delivery time, written to the endpoints by flushLastTriggeredAt
+    private final Map<Long, Long> lastTriggeredAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WebhookDeliveryService(WebhookDeliveryRepository webhookDeliveryRepository,
+                                  WebhookEndpointRepository webhookEndpointRepository,
+                                  @Qualifier(AsyncConfig.WEBHOOK_EXECUTOR) AsyncTaskExecutor webhookExecutor) {
+        this(webhookDeliveryRepository, webhookEndpointRepository, webhookExecutor, createRestTemplate());
+    }
+
+    WebhookDeliveryService(WebhookDeliveryRepository webhookDeliveryRepository,
+                           WebhookEndpointRepository webhookEndpointRepository,
+                           AsyncTaskExecutor webhookExecutor,
+                           RestTemplate restTemplate) {
+        this.webhookDeliveryRepository = webhookDeliveryRepository;
+        this.webhookEndpointRepository = webhookEndpointRepository;
+        this.webhookExecutor = webhookExecutor;
+        this.restTemplate = restTemplate;
+    }
+
+    private static RestTemplate createRestTemplate() {
+        Timeout timeout = Timeout.ofSeconds(10);
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(64)
+                        .setMaxConnPerRoute(MAX_CONCURRENT_PER_ENDPOINT * 2)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofSeconds(5))
+                                .setSocketTimeout(timeout)
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(5))
+                        .setResponseTimeout(timeout)
+                        .build())
+                //a redirect could point to an address the url validator rejects
+                .disableRedirectHandling()
+                .build()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Async(AsyncConfig.WEBHOOK_EXECUTOR)
+    public void onWebhookEnqueued(WebhookEnqueuedEvent event) {
+        deliverDue();
+    }
+
+    public void deliverDue() {
+        String leaseToken = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        int leased = webhookDeliveryRepository.lease(leaseToken, new Date(now), new Date(now + LEASE_MILLIS),
+                BATCH_SIZE);
+        if (leased == 0) return;
+        webhookDeliveryRepository.findIdsByLeaseToken(leaseToken)
+                .forEach(id -> webhookExecutor.execute(() -> deliver(id, leaseToken)));
+    }
+
+    /**
+     * Sends a delivery leased with the token. Its outcome is only written while the lease is still held, so a
+     * delivery whose lease expired and was taken by another caller is left to that caller.
+     */
+    void deliver(Long deliveryId, String leaseToken) {
+        WebhookDelivery delivery = webhookDeliveryRepository.findById(deliveryId).orElse(null);
+        if (delivery == null || delivery.getStatus() != WebhookDeliveryStatus.PENDING
+                || !leaseToken.equals(delivery.getLeaseToken())) return;
+        WebhookEndpoint endpoint = webhookEndpointRepository.findById(delivery.getEndpointId()).orElse(null);
+        if (endpoint == null || !endpoint.isEnabled()) {
+            fail(delivery, leaseToken, "Endpoint is disabled", false);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(endpoint.getId(),
+                id -> new CircuitBreaker());
+        if (!circuitBreaker.allows(now)) {
+            reschedule(delivery, leaseToken, circuitBreaker.getOpenUntil());
+            return;
+        }
+        Semaphore permits = endpointPermits.computeIfAbsent(endpoint.getId(),
+                id -> new Semaphore(MAX_CONCURRENT_PER_ENDPOINT));
+        if (!permits.tryAcquire()) {
+            reschedule(delivery, leaseToken, now + BUSY_ENDPOINT_DELAY_MILLIS);
+            return;
+        }
+        try {
+            send(endpoint, delivery);
+            circuitBreaker.recordSuccess();
+            succeed(delivery, leaseToken);
+        } catch (WebhookUrlValidator.WebhookUrlValidationException e) {
+            log.error("Invalid webhook url for endpoint {}: {}", endpoint.getId(), e.getMessage());
+            fail(delivery, leaseToken, e.getMessage(), false);
+        } catch (HttpClientErrorException e) {
+            //the endpoint is up but refuses the request, which won't change on a retry unless it asks to slow down
+            boolean retryable = isRetryable(e.getStatusCode());
+            log.warn("Webhook refused by: {} with status {}", endpoint.getUrl(), e.getStatusCode());
+            if (retryable) circuitBreaker.recordFailure(System.currentTimeMillis());
+            fail(delivery, leaseToken, e.getMessage(), retryable);
+        } catch (Exception e) {
+            log.warn("Failed to send webhook to: {}", endpoint.getUrl(), e);
+            circuitBreaker.recordFailure(System.currentTimeMillis());
+            fail(delivery, leaseToken, e.getMessage(), true);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void send(WebhookEndpoint endpoint, WebhookDelivery delivery) {
+        WebhookUrlValidator.validate(endpoint.getUrl());
+        log.info("Sending webhook to: {}", endpoint.getUrl());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Webhook-Signature", generateSignature(delivery.getPayload(), endpoint.getSecret()));
+        headers.set("X-Webhook-Timestamp", String.valueOf(System.currentTimeMillis()));
+        headers.set("X-Webhook-Id", delivery.getMessageId());
+        headers.set("X-Webhook-Event", delivery.getEvent().name());
+
+        ResponseEntity<String> response = restTemplate.postForEntity(endpoint.getUrl(),
+                new HttpEntity<>(delivery.getPayload(), headers), String.class);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Webhook failed with status: " + response.getStatusCode());
+        }
+    }
+
+    static boolean isRetryable(HttpStatusCode status) {
+        return status.value() == HttpStatus.REQUEST_TIMEOUT.value()
+                || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void succeed(WebhookDelivery delivery, String leaseToken) {
+        long now = System.currentTimeMillis();
+        delivery.setStatus(WebhookDeliveryStatus.DELIVERED);
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setDeliveredAt(new Date(now));
+        delivery.setLeaseToken(null);
+        delivery.setLastError(null);
+        if (release(delivery, leaseToken)) lastTriggeredAt.merge(delivery.getEndpointId(), now, Math::max);
+    }
+
+    private void fail(WebhookDelivery delivery, String leaseToken, String error, boolean retryable) {
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 1000)));
+        delivery.setLeaseToken(null);
+        if (!retryable || delivery.getAttempts() >= MAX_ATTEMPTS) {
+            delivery.setStatus(WebhookDeliveryStatus.FAILED);
+        } else {
+            delivery.setNextAttemptAt(new Date(System.currentTimeMillis() + getBackoffMillis(delivery.getAttempts())));
+        }
+        release(delivery, leaseToken);
+    }
+
+    private void reschedule(WebhookDelivery delivery, String leaseToken, long nextAttemptAt) {
+        delivery.setNextAttemptAt(new Date(nextAttemptAt));
+        delivery.setLeaseToken(null);
+        release(delivery, leaseToken);
+    }
+
+    //writes the outcome and clears the lease, unless the lease was lost meanwhile
+    private boolean release(WebhookDelivery delivery, String leaseToken) {
+        boolean released = webhookDeliveryRepository.release(delivery.getId(), leaseToken, delivery.getStatus(),
+                delivery.getAttempts(), delivery.getNextAttemptAt(), delivery.getDeliveredAt(),
+                delivery.getLastError()) > 0;
+        if (!released) log.warn("Lease of webhook delivery {} was lost, its outcome is discarded", delivery.getId());
+        return released;
+    }
+
+    //doubles with each attempt, plus up to 20% jitter so that retries of a burst don't hit the endpoint together
+    static long getBackoffMillis(int attempts) {
+        long delay = Math.min(BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 20), MAX_BACKOFF_MILLIS);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    /**
+     * Writes the last successful delivery times to the endpoints, with one update per distinct time.
+     */
+    public void flushLastTriggeredAt() {
+        Map<Long, List<Long>> endpointIdsByTime = new HashMap<>();
+        for (Long endpointId : new ArrayList<>(lastTriggeredAt.keySet())) {
+            Long triggeredAt = lastTriggeredAt.remove(endpointId);
+            if (triggeredAt == null) continue;
+            endpointIdsByTime.computeIfAbsent(triggeredAt, time -> new ArrayList<>()).add(endpointId);
+        }
+        endpointIdsByTime.forEach((triggeredAt, endpointIds) ->
+                webhookEndpointRepository.updateLastTriggeredAt(endpointIds, new Date(triggeredAt)));
+    }
+
+    public void purgeDelivered() {
+        webhookDeliveryRepository.deleteDeliveredBefore(new Date(System.currentTimeMillis() - DELIVERED_RETENTION_MILLIS));
+    }
+
+    static String generateSignature(String payload, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            SecretKeySpec secretKeySpec = new SecretKeySpec(
+                    secret.getBytes(StandardCharsets.UTF_8),
+                    "HmacSHA256"
+            );
+            mac.init(secretKeySpec);
+            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate signature", e);
+        }
+    }
+
+    static class CircuitBreaker {
+        private int consecutiveFailures;
+        private long openUntil;
+
+        synchronized boolean allows(long now) {
+            return now >= openUntil;
+        }
+
+        synchronized long getOpenUntil() {
+            return openUntil;
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            openUntil = 0;
+        }
+
+        synchronized void recordFailure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures >= CIRCUIT_FAILURE_THRESHOLD) openUntil = now + CIRCUIT_OPEN_MILLIS;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.grash.service;
 import com.grash.dto.license.LicenseEntitlement;
 import com.grash.dto.webhookEndpoint.WebhookEndpointPatchDTO;
 import com.grash.dto.webhookEndpoint.WebhookEndpointPostDTO;
+import com.grash.event.WebhookEndpointsChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.WebhookEndpointMapper;
 import com.grash.model.*;
@@ -11,6 +12,8 @@ import com.grash.model.enums.PlanFeatures;
 import com.grash.repository.WebhookEndpointRepository;
 import com.grash.utils.WebhookUrlValidator;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +31,7 @@ public class WebhookEndpointService {
     private final WebhookEndpointRepository webhookEndpointRepository;
     private final WebhookEndpointMapper webhookEndpointMapper;
     private final LicenseService licenseService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     public WebhookEndpoint create(WebhookEndpointPostDTO webhookEndpointReq, User user) {
         if (!(licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK)
@@ -40,13 +44,31 @@ public class WebhookEndpointService {
             webhookEndpointReq.setSerialize(true);
         WebhookEndpoint webhookEndpoint = webhookEndpointMapper.fromPostDto(webhookEndpointReq);
         webhookEndpoint.setSecret(generateWebhookSecret());
-        return webhookEndpointRepository.save(webhookEndpoint);
+        WebhookEndpoint savedWebhookEndpoint = webhookEndpointRepository.save(webhookEndpoint);
+        publishChange(savedWebhookEndpoint);
+        return savedWebhookEndpoint;
     }
 
     public List<WebhookEndpoint> getActiveEndpointsByCompany(Long companyId) {
         return webhookEndpointRepository.findByCompanyIdAndEnabled(companyId, true);
     }
 
+    /**
+     * Same as {@link #getActiveEndpointsByCompany} with the filter collections loaded, for use outside the session
+     */
+    @Transactional(readOnly = true)
+    public List<WebhookEndpoint> getActiveEndpointsWithFilters(Long companyId) {
+        List<WebhookEndpoint> endpoints = getActiveEndpointsByCompany(companyId);
+        endpoints.forEach(endpoint -> {
+            Hibernate.initialize(endpoint.getWoFields());
+            Hibernate.initialize(endpoint.getAssetStatuses());
+            Hibernate.initialize(endpoint.getWorkOrderStatuses());
+            Hibernate.initialize(endpoint.getWorkOrderCategories());
+            Hibernate.initialize(endpoint.getPartFields());
+        });
+        return endpoints;
+    }
+
     public WebhookEndpoint update(Long id, WebhookEndpointPatchDTO webhookEndpointReq, User user) {
         if (!(licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK))
                 && user.getRole().getViewPermissions().contains(PermissionEntity.SETTINGS)
@@ -58,14 +80,22 @@ public class WebhookEndpointService {
             WebhookUrlValidator.validate(webhookEndpointReq.getUrl());
             WebhookEndpoint webhookEndpoint1 = webhookEndpointMapper.updateWebhookEndpoint(savedWebhookEndpoint,
                     webhookEndpointReq);
-            return webhookEndpointRepository.save(webhookEndpoint1);
+            WebhookEndpoint updatedWebhookEndpoint = webhookEndpointRepository.save(webhookEndpoint1);
+            publishChange(updatedWebhookEndpoint);
+            return updatedWebhookEndpoint;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
     public void delete(Long id) {
+        webhookEndpointRepository.findById(id).ifPresent(this::publishChange);
         webhookEndpointRepository.deleteById(id);
     }
 
+    private void publishChange(WebhookEndpoint webhookEndpoint) {
+        if (webhookEndpoint.getCompany() != null)
+            applicationEventPublisher.publishEvent(new WebhookEndpointsChangedEvent(webhookEndpoint.getCompany().getId()));
+    }
+
 
     public String rotateSecret(Long endpointId, Long companyId) {
         WebhookEndpoint endpoint = webhookEndpointRepository
@@ -0,0 +1,126 @@
+package com.grash.service;
+
+import com.grash.event.WebhookEndpointsChangedEvent;
+import com.grash.model.WebhookEndpoint;
+import com.grash.model.WorkOrderCategory;
+import com.grash.model.enums.AssetStatus;
+import com.grash.model.enums.Status;
+import com.grash.model.enums.webhook.PartField;
+import com.grash.model.enums.webhook.WOField;
+import com.grash.model.enums.webhook.WebhookEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the enabled webhook endpoints of each company by event, with their filters precomputed, so that an event
+ * nobody subscribed to is dropped without touching the database. A company's entry is evicted when
+ * {@link WebhookEndpointService} changes one of its endpoints, and expires with the cache otherwise.
+ */
+@Service
+@RequiredArgsConstructor
+public class WebhookSubscriptionIndex {
+    static final String CACHE_NAME = "webhookSubscriptions";
+
+    private final CacheManager cacheManager;
+    private final WebhookEndpointService webhookEndpointService;
+
+    public List<WebhookSubscription> getMatching(Long companyId,
+                                                 WebhookEvent event,
+                                                 Collection<WOField> changedFields,
+                                                 AssetStatus assetStatus,
+                                                 Status workOrderStatus,
+                                                 Collection<WorkOrderCategory> workOrderCategories,
+                                                 Collection<PartField> partFields) {
+        List<WebhookSubscription> subscriptions = getSubscriptions(companyId).getOrDefault(event,
+                Collections.emptyList());
+        if (subscriptions.isEmpty()) return subscriptions;
+        Set<Long> categoryIds = workOrderCategories == null ? Collections.emptySet() :
+                workOrderCategories.stream().map(WorkOrderCategory::getId).collect(Collectors.toSet());
+        return subscriptions.stream()
+                .filter(subscription -> subscription.matches(changedFields, assetStatus, workOrderStatus,
+                        categoryIds, partFields))
+                .toList();
+    }
+
+    private Map<WebhookEvent, List<WebhookSubscription>> getSubscriptions(Long companyId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) return load(companyId);
+        return cache.get(companyId, () -> load(companyId));
+    }
+
+    private Map<WebhookEvent, List<WebhookSubscription>> load(Long companyId) {
+        Map<WebhookEvent, List<WebhookSubscription>> subscriptions = new EnumMap<>(WebhookEvent.class);
+        webhookEndpointService.getActiveEndpointsWithFilters(companyId).forEach(endpoint ->
+                subscriptions.computeIfAbsent(endpoint.getEvent(), event -> new ArrayList<>())
+                        .add(WebhookSubscription.of(endpoint)));
+        subscriptions.replaceAll((event, list) -> List.copyOf(list));
+        return Collections.unmodifiableMap(subscriptions);
+    }
+
+    public void evict(Long companyId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) cache.evict(companyId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWebhookEndpointsChanged(WebhookEndpointsChangedEvent event) {
+        evict(event.getCompanyId());
+    }
+
+    /**
+     * Snapshot of an endpoint's filters. An empty filter accepts every value, as does an event that doesn't
+     * carry the filtered attribute.
+     */
+    public record WebhookSubscription(Long endpointId,
+                                      String url,
+                                      boolean serialize,
+                                      Set<WOField> woFields,
+                                      Set<AssetStatus> assetStatuses,
+                                      Set<Status> workOrderStatuses,
+                                      Set<Long> workOrderCategoryIds,
+                                      Set<PartField> partFields) {
+
+        static WebhookSubscription of(WebhookEndpoint endpoint) {
+            return new WebhookSubscription(endpoint.getId(),
+                    endpoint.getUrl(),
+                    endpoint.isSerialize(),
+                    enumSet(WOField.class, endpoint.getWoFields()),
+                    enumSet(AssetStatus.class, endpoint.getAssetStatuses()),
+                    enumSet(Status.class, endpoint.getWorkOrderStatuses()),
+                    endpoint.getWorkOrderCategories() == null ? Collections.emptySet() :
+                            endpoint.getWorkOrderCategories().stream().map(WorkOrderCategory::getId)
+                                    .collect(Collectors.toUnmodifiableSet()),
+                    enumSet(PartField.class, endpoint.getPartFields()));
+        }
+
+        boolean matches(Collection<WOField> changedFields,
+                        AssetStatus assetStatus,
+                        Status workOrderStatus,
+                        Set<Long> categoryIds,
+                        Collection<PartField> changedPartFields) {
+            return intersects(woFields, changedFields)
+                    && (assetStatus == null || assetStatuses.isEmpty() || assetStatuses.contains(assetStatus))
+                    && (workOrderStatus == null || workOrderStatuses.isEmpty()
+                    || workOrderStatuses.contains(workOrderStatus))
+                    && intersects(workOrderCategoryIds, categoryIds)
+                    && intersects(partFields, changedPartFields);
+        }
+
+        private static <T> boolean intersects(Set<T> filter, Collection<T> values) {
+            return values == null || values.isEmpty() || filter.isEmpty() || values.stream().anyMatch(filter::contains);
+        }
+
+        private static <E extends Enum<E>> Set<E> enumSet(Class<E> type, Collection<E> values) {
+            EnumSet<E> set = EnumSet.noneOf(type);
+            if (values != null) set.addAll(values);
+            return Collections.unmodifiableSet(set);
+        }
+    }
+}
@@ -90,5 +90,9 @@ public class WorkOrderMeterTriggerService {
     public Collection<WorkOrderMeterTrigger> findByMeter(Long id) {
         return workOrderMeterTriggerRepository.findByMeter_Id(id);
     }
+
+    public List<WorkOrderMeterTrigger> findByMeters(Collection<Long> ids) {
+        return workOrderMeterTriggerRepository.findByMeter_IdIn(ids);
+    }
 }
 
@@ -4,6 +4,8 @@ import com.grash.advancedsearch.FilterField;
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
 import com.grash.dto.*;
+import com.grash.dto.analytics.GroupedAggregate;
+import com.grash.dto.analytics.workOrders.WOAggregateDimension;
 import com.grash.dto.comment.CommentCriteria;
 import com.grash.dto.cutomField.CustomFieldValuePostDTO;
 import com.grash.dto.workOrder.WorkOrderPatchDTO;
@@ -30,7 +32,6 @@ import com.grash.utils.MultipartFileImpl;
 import com.grash.utils.PdfReportUtils;
 import com.grash.utils.Sanitizer;
 import com.grash.utils.TenantAspectUtils;
-import com.itextpdf.html2pdf.HtmlConverter;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.transaction.Transactional;
@@ -86,6 +87,7 @@ public class WorkOrderService {
     private WorkflowService workflowService;
     private final MessageSource messageSource;
     private final CustomSequenceService customSequenceService;
+    private final WorkOrderStatsService workOrderStatsService;
 
     @Value("${frontend.url}")
     private String frontendUrl;
@@ -98,6 +100,8 @@ public class WorkOrderService {
     private final WorkOrderHistoryService workOrderHistoryService;
     private final SpringTemplateEngine thymeleafTemplateEngine;
     private final StorageServiceFactory storageServiceFactory;
+    private final ReportImageService reportImageService;
+    private final ReportRenderService reportRenderService;
     private final Environment environment;
     private final ResourceBundleMessageSource emailMessageSource;
     private TaskService taskService;
@@ -110,6 +114,52 @@ public class WorkOrderService {
     @Transactional
     public WorkOrder create(WorkOrder workOrder, Company company) {
         checkUsageBasedLimit(company);
+        workOrder = prepareForCreation(workOrder, company);
+        workOrder.setCustomId(getWorkOrderNumber(company));
+
+        WorkOrder savedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
+        em.refresh(savedWorkOrder);
+        workOrderStatsService.refresh(savedWorkOrder);
+        afterCreation(savedWorkOrder, company);
+        return savedWorkOrder;
+    }
+
+    /**
+     * Creates work orders of possibly several companies like {@link #create(WorkOrder, Company)}, with one custom id
+     * reservation per company and a single insert batch. Each work order must have its company set.
+     */
+    @Transactional
+    public List<WorkOrder> createAll(List<? extends WorkOrder> workOrders) {
+        Map<Long, Company> companies = new LinkedHashMap<>();
+        workOrders.forEach(workOrder -> companies.putIfAbsent(workOrder.getCompany().getId(), workOrder.getCompany()));
+        companies.values().forEach(this::checkUsageBasedLimit);
+
+        Map<Long, List<WorkOrder>> workOrdersByCompany = new LinkedHashMap<>();
+        List<WorkOrder> preparedWorkOrders = new ArrayList<>(workOrders.size());
+        for (WorkOrder workOrder : workOrders) {
+            Company company = companies.get(workOrder.getCompany().getId());
+            WorkOrder preparedWorkOrder = prepareForCreation(workOrder, company);
+            preparedWorkOrders.add(preparedWorkOrder);
+            workOrdersByCompany.computeIfAbsent(company.getId(), id -> new ArrayList<>()).add(preparedWorkOrder);
+        }
+        workOrdersByCompany.forEach((companyId, companyWorkOrders) -> {
+            List<Long> numbers = customSequenceService.nextN(companies.get(companyId), CustomSequenceType.WORK_ORDER,
+                    companyWorkOrders.size());
+            for (int i = 0; i < companyWorkOrders.size(); i++) {
+                companyWorkOrders.get(i).setCustomId(CustomSequenceType.WORK_ORDER.format(numbers.get(i)));
+            }
+        });
+
+        List<WorkOrder> savedWorkOrders = workOrderRepository.saveAll(preparedWorkOrders);
+        workOrderRepository.flush();
+        savedWorkOrders.forEach(em::refresh);
+        workOrderStatsService.refresh(savedWorkOrders);
+        savedWorkOrders.forEach(savedWorkOrder ->
+                afterCreation(savedWorkOrder, companies.get(savedWorkOrder.getCompany().getId())));
+        return savedWorkOrders;
+    }
+
+    private WorkOrder prepareForCreation(WorkOrder workOrder, Company company) {
         if (workOrder instanceof WorkOrderPostDTO workOrderPostDTO) {
             workOrder = workOrderMapper.fromPostDto(workOrderPostDTO);
             workOrder.setCustomFieldValues(new ArrayList<>());
@@ -122,12 +172,12 @@ public class WorkOrderService {
                 setWOCustomFields(workOrder, workOrderPostDTO.getCustomFields(), company);
             }
         }
-        workOrder.setCustomId(getWorkOrderNumber(company));
         workOrder.setId(null);
         Sanitizer.sanitizeWorkOrder(workOrder);
+        return workOrder;
+    }
 
-        WorkOrder savedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
-        em.refresh(savedWorkOrder);
+    private void afterCreation(WorkOrder savedWorkOrder, Company company) {
         notify(savedWorkOrder, Helper.getLocale(company));
         Collection<Workflow> workflows =
                 workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_CREATED, company.getId());
@@ -137,7 +187,6 @@ public class WorkOrderService {
         Object serializedWorkOrder = workOrderMapper.toShowDto(savedWorkOrder);
         webhookDispatchService.dispatchWebhook(company, WebhookEvent.NEW_WORK_ORDER, webhookPayload,
                 "newWorkOrder", serializedWorkOrder, null, null, null, null, null);
-        return savedWorkOrder;
     }
 
     private void setWOCustomFields(WorkOrder workOrder, List<CustomFieldValuePostDTO> customFieldValuePostDTOS,
@@ -154,7 +203,7 @@ public class WorkOrderService {
 
     public String getWorkOrderNumber(Company company) {
         Long nextSequence = customSequenceService.getNextWorkOrderSequence(company);
-        return "WO" + String.format("%06d", nextSequence);
+        return CustomSequenceType.WORK_ORDER.format(nextSequence);
     }
 
     @Autowired
@@ -209,6 +258,7 @@ public class WorkOrderService {
             WorkOrder updatedWorkOrder =
                     workOrderRepository.saveAndFlush(newWorkOrder);
             em.refresh(updatedWorkOrder);
+            workOrderStatsService.refresh(updatedWorkOrder);
             Object serializedWorkOrder = workOrderMapper.toShowDto(updatedWorkOrder);
             Map<String, Object> webhookPayload = new HashMap<>();
             webhookPayload.put("workOrderId", updatedWorkOrder.getId());
@@ -274,6 +324,7 @@ public class WorkOrderService {
         webhookDispatchService.dispatchWebhook(company, WebhookEvent.WORK_ORDER_DELETE, webhookPayload,
                 "deleteWorkOrder", serializedWorkOrder, null, null, null, null, null);
         workOrderRepository.deleteById(workOrder.getId());
+        workOrderStatsService.refresh(workOrder);
     }
 
     public Optional<WorkOrder> findById(Long id) {
@@ -391,11 +442,15 @@ public class WorkOrderService {
     }
 
     public WorkOrder save(WorkOrder workOrder) {
-        return workOrderRepository.save(workOrder);
+        WorkOrder savedWorkOrder = workOrderRepository.save(workOrder);
+        workOrderStatsService.refresh(savedWorkOrder);
+        return savedWorkOrder;
     }
 
     public List<WorkOrder> saveAll(List<WorkOrder> workOrders) {
-        return workOrderRepository.saveAll(workOrders);
+        List<WorkOrder> savedWorkOrders = workOrderRepository.saveAll(workOrders);
+        workOrderStatsService.refresh(savedWorkOrders);
+        return savedWorkOrders;
     }
 
 
@@ -409,6 +464,7 @@ public class WorkOrderService {
         boolean categoryChanged = !Objects.equals(originalCategoryId, newCategoryId);
         WorkOrder updatedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
         em.refresh(updatedWorkOrder);
+        workOrderStatsService.refresh(updatedWorkOrder);
         Object serializedWorkOrder = workOrderMapper.toShowDto(updatedWorkOrder);
         Map<String, Object> webhookPayload = new HashMap<>();
         webhookPayload.put("workOrderId", updatedWorkOrder.getId());
@@ -538,12 +594,19 @@ public class WorkOrderService {
     }
 
     public void importWorkOrder(WorkOrder workOrder, WorkOrderImportDTO dto, Company company) {
+        importWorkOrder(workOrder, dto, company, null);
+    }
+
+    /**
+     * @param customId number reserved by the caller, or {@code null} to allocate one
+     */
+    public void importWorkOrder(WorkOrder workOrder, WorkOrderImportDTO dto, Company company, String customId) {
         checkUsageBasedLimit(company);
         Helper.populateWorkOrderBaseFromImportDTO(workOrder, dto, company, locationService, teamService, userService,
                 assetService, workOrderCategoryService);
         workOrder.setCompany(company);
         workOrder.setDueDate(Helper.getDateFromExcelDate(dto.getDueDate()));
-        workOrder.setCustomId(getWorkOrderNumber(company));
+        workOrder.setCustomId(customId != null ? customId : getWorkOrderNumber(company));
         workOrder.setRequiredSignature(Helper.getBooleanFromString(dto.getRequiredSignature()));
 
         Optional<User> optionalCompletedBy = userService.findByEmailAndCompany(dto.getCompletedByEmail(),
@@ -670,6 +733,24 @@ public class WorkOrderService {
         return workOrderRepository.findByCompany_IdAndCreatedAtBetween(id, start, end);
     }
 
+    /**
+     * Groups the complete or incomplete work orders created between both dates by the given dimension in a single
+     * query. The sum of each group is the age of its work orders in days.
+     */
+    public Map<Long, GroupedAggregate> aggregateBy(WOAggregateDimension dimension, Long companyId, Date start,
+                                                   Date end, boolean complete) {
+        Date now = new Date();
+        List<Object[]> rows = switch (dimension) {
+            case ASSIGNED_USER -> workOrderRepository.aggregateByAssignedUser(companyId, start, end, complete, now);
+            case COMPLETED_BY -> workOrderRepository.aggregateByCompletedBy(companyId, start, end, complete, now);
+            case PRIORITY -> workOrderRepository.aggregateByPriority(companyId, start, end, complete, now);
+            case CATEGORY -> workOrderRepository.aggregateByCategory(companyId, start, end, complete, now);
+            case ASSET -> workOrderRepository.aggregateByAsset(companyId, start, end, complete, now);
+        };
+        return rows.stream().map(GroupedAggregate::fromRow)
+                .collect(Collectors.toMap(GroupedAggregate::getKey, aggregate -> aggregate));
+    }
+
     public List<Object[]> findTopNAssetsByIncompleteWO(Long companyId, Date start, Date end, int limit) {
         return workOrderRepository.findTopNAssetsByIncompleteWO(companyId, start, end, limit);
     }
@@ -933,7 +1014,6 @@ public class WorkOrderService {
     }
 
     public void generatePdfStream(WorkOrder savedWorkOrder, User user, ReportConfig config, OutputStream outputStream) {
-        StorageService storageService = storageServiceFactory.getStorageService();
         Context thymeleafContext = new Context();
         thymeleafContext.setLocale(Helper.getLocale(user));
         Optional<User> creator = savedWorkOrder.getCreatedBy() == null ? Optional.empty() :
@@ -1015,10 +1095,18 @@ public class WorkOrderService {
         }};
         thymeleafContext.setVariables(variables);
 
+        // Images are fetched concurrently while the template renders, rather than one by one by the converter
+        List<String> imagePaths = new ArrayList<>();
+        imagePaths.add((String) variables.get("companyLogo"));
+        imagePaths.add((String) variables.get("workOrderImagePath"));
+        tasksImagesPaths.values().forEach(paths -> imagePaths.addAll(Arrays.asList(paths)));
+        commentFilesPaths.values().forEach(paths -> imagePaths.addAll(Arrays.asList(paths)));
+        imagePaths.addAll(Arrays.asList(workOrderFilesPaths));
+        Function<String, byte[]> imageLoader = reportImageService.prefetch(imagePaths);
+
         String reportHtml = thymeleafTemplateEngine.process("work-order-report.html", thymeleafContext);
 
-        HtmlConverter.convertToPdf(reportHtml, outputStream,
-                PdfReportUtils.createReportConverterProperties(storageService::download));
+        reportRenderService.render(reportHtml, outputStream, imageLoader);
     }
 
     @Deprecated
@@ -0,0 +1,93 @@
+package com.grash.service;
+
+import com.grash.dto.analytics.workOrders.WOStatsSummary;
+import com.grash.model.WorkOrder;
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderDailyStatRepository;
+import com.grash.utils.Helper;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the {@link com.grash.model.WorkOrderDailyStat} rollup. The contribution of each work order to its bucket
+ * is recorded in work_order_stat_entry, so a change is applied as a delta: the recorded contribution is subtracted
+ * and the current one added, with upserts that only lock the buckets involved. Concurrent changes of one work order
+ * are already serialized by the lock on its row, taken when it is written before the refresh.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkOrderStatsService {
+    private final WorkOrderDailyStatRepository workOrderDailyStatRepository;
+    private final EntityManager em;
+
+    /**
+     * Brings the work order's contribution up to date, removing it if the work order was deleted
+     */
+    @Transactional
+    public void refresh(WorkOrder workOrder) {
+        if (workOrder.getId() == null) return;
+        refreshByIds(List.of(workOrder.getId()));
+    }
+
+    @Transactional
+    public void refresh(Collection<WorkOrder> workOrders) {
+        refreshByIds(workOrders.stream().map(WorkOrder::getId).filter(Objects::nonNull).distinct().toList());
+    }
+
+    private void refreshByIds(List<Long> workOrderIds) {
+        if (workOrderIds.isEmpty()) return;
+        em.flush();
+        workOrderDailyStatRepository.subtractEntries(workOrderIds);
+        workOrderDailyStatRepository.addEntries(workOrderIds);
+    }
+
+    /**
+     * Rebuilds every bucket of a company, for bulk writes that bypass {@link WorkOrderService}
+     */
+    @Transactional
+    public void rebuild(Long companyId) {
+        em.flush();
+        workOrderDailyStatRepository.deleteEntriesByCompany(companyId);
+        workOrderDailyStatRepository.deleteByCompany(companyId);
+        workOrderDailyStatRepository.addEntriesByCompany(companyId);
+    }
+
+    /**
+     * Sums the buckets of the work orders created between both dates. Buckets are whole days, so the range is
+     * widened to the days containing start and end.
+     */
+    public WOStatsSummary getSummary(Long companyId, Date start, Date end) {
+        List<Object[]> rows = workOrderDailyStatRepository.sumByStatusAndPriority(companyId,
+                Helper.dateToLocalDate(start), Helper.dateToLocalDate(end));
+        WOStatsSummary summary = new WOStatsSummary();
+        rows.forEach(row -> {
+            WOStatsSummary.Measures measures = new WOStatsSummary.Measures();
+            measures.setCount(toInt(row[2]));
+            measures.setCompliant(toInt(row[3]));
+            measures.setEstimatedDuration(row[4] == null ? 0 : ((Number) row[4]).doubleValue());
+            measures.setReacted(toInt(row[5]));
+            measures.setReactionHours(toLong(row[6]));
+            measures.setCycleCount(toInt(row[7]));
+            measures.setCycleDays(toLong(row[8]));
+            measures.setCreatedAtEpochSum(toLong(row[9]));
+            summary.put((Status) row[0], (Priority) row[1], measures);
+        });
+        return summary;
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.grash.service;
+
+import com.grash.dto.analytics.workOrders.WOStatusesByDate;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderStatusTransitionRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Computes work order status counts at several points in time from the
+ * {@link com.grash.model.WorkOrderStatusTransition} log, in one sweep over the transitions ordered by time.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkOrderStatusHistoryService {
+
+    private final WorkOrderStatusTransitionRepository workOrderStatusTransitionRepository;
+
+    /**
+     * @param points label and cutoff date of each point, with non decreasing cutoffs. A point counts the work
+     *               orders created between start and its cutoff, each with its last status at the cutoff.
+     */
+    public List<WOStatusesByDate> getStatusesByDate(Long companyId, Date start, List<Pair<Date, Date>> points) {
+        List<WOStatusesByDate> result = new ArrayList<>();
+        if (points.isEmpty()) return result;
+        Date end = points.get(points.size() - 1).getSecond();
+        List<Object[]> workOrders = workOrderStatusTransitionRepository.findWorkOrderStates(companyId, start, end);
+        List<Object[]> transitions = workOrderStatusTransitionRepository.findTransitions(companyId, start, end,
+                end.getTime());
+
+        Map<Long, Status> currentStatuses = new HashMap<>();
+        workOrders.forEach(row -> currentStatuses.put(((Number) row[0]).longValue(), toStatus(row[2])));
+        Map<Long, Status> replayedStatuses = new HashMap<>();
+        Set<Long> counted = new HashSet<>();
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        int workOrderIndex = 0;
+        int transitionIndex = 0;
+
+        for (Pair<Date, Date> point : points) {
+            long cutoff = point.getSecond().getTime();
+            for (; transitionIndex < transitions.size(); transitionIndex++) {
+                Object[] transition = transitions.get(transitionIndex);
+                if (((Number) transition[1]).longValue() > cutoff) break;
+                Long workOrderId = ((Number) transition[0]).longValue();
+                boolean isCounted = counted.contains(workOrderId);
+                if (isCounted) increment(counts, getStatus(workOrderId, replayedStatuses, currentStatuses), -1);
+                replayedStatuses.put(workOrderId, toStatus(transition[2]));
+                if (isCounted) increment(counts, getStatus(workOrderId, replayedStatuses, currentStatuses), 1);
+            }
+            for (; workOrderIndex < workOrders.size(); workOrderIndex++) {
+                Object[] workOrder = workOrders.get(workOrderIndex);
+                if (((Date) workOrder[1]).getTime() > cutoff) break;
+                Long workOrderId = ((Number) workOrder[0]).longValue();
+                counted.add(workOrderId);
+                increment(counts, getStatus(workOrderId, replayedStatuses, currentStatuses), 1);
+            }
+            result.add(WOStatusesByDate.builder()
+                    .open(counts.getOrDefault(Status.OPEN, 0))
+                    .onHold(counts.getOrDefault(Status.ON_HOLD, 0))
+                    .inProgress(counts.getOrDefault(Status.IN_PROGRESS, 0))
+                    .complete(counts.getOrDefault(Status.COMPLETE, 0))
+                    .date(point.getFirst())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Copies the status changing revisions the log doesn't have yet. The revision number is the watermark rather
+     * than the revision timestamp: the number is generated when the revision is inserted, right before its
+     * transaction commits, while the timestamp is taken when the revision starts and can be far older by then.
+     */
+    @Transactional
+    public int appendNewTransitions() {
+        Integer lastRev = workOrderStatusTransitionRepository.findLastRev();
+        return workOrderStatusTransitionRepository.appendAfter(lastRev == null ? -1 : lastRev);
+    }
+
+    //a work order without revision up to the cutoff keeps its current status
+    private static Status getStatus(Long workOrderId, Map<Long, Status> replayedStatuses,
+                                    Map<Long, Status> currentStatuses) {
+        return replayedStatuses.containsKey(workOrderId) ? replayedStatuses.get(workOrderId) :
+                currentStatuses.get(workOrderId);
+    }
+
+    private static void increment(Map<Status, Integer> counts, Status status, int delta) {
+        if (status != null) counts.merge(status, delta, Integer::sum);
+    }
+
+    private static Status toStatus(Object ordinal) {
+        return ordinal == null ? null : Status.values()[((Number) ordinal).intValue()];
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static com.grash.utils.ExportAssociations.*;
+
 @Component
 @RequiredArgsConstructor
 public class CsvFileGenerator {
@@ -29,8 +31,13 @@ public class CsvFileGenerator {
     private final LaborService laborService;
     private final UserService userService;
 
-    public void writeWorkOrdersToCsv(Collection<WorkOrder> workOrders, Writer writer, Locale locale,
-                                     String csvSeparator, boolean includeHeaders) {
+    public void writeWorkOrdersToCsv(Collection<WorkOrder> workOrders, Writer writer, Locale locale, String csvSeparator,
+                                     boolean includeHeaders) {
+        writeWorkOrdersToCsv(workOrders, ExportAssociations.LAZY, writer, locale, csvSeparator, includeHeaders);
+    }
+
+    public void writeWorkOrdersToCsv(Collection<WorkOrder> workOrders, ExportAssociations associations,
+                                     Writer writer, Locale locale, String csvSeparator, boolean includeHeaders) {
         try {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withDelimiter(csvSeparator.charAt(0));
             CSVPrinter printer = new CSVPrinter(writer, csvFormat);
@@ -56,13 +63,15 @@ public class CsvFileGenerator {
                         workOrder.getLocation() == null ? null : workOrder.getLocation().getName(),
                         workOrder.getTeam() == null ? null : workOrder.getTeam().getName(),
                         workOrder.getPrimaryUser() == null ? null : workOrder.getPrimaryUser().getEmail(),
-                        Helper.enumerate(workOrder.getAssignedTo().stream().map(User::getEmail).collect(Collectors.toList())),
+                        associations.enumerate(ASSIGNED_TO, workOrder.getId(),
+                                () -> workOrder.getAssignedTo().stream().map(User::getEmail)),
                         workOrder.getAsset() == null ? null : workOrder.getAsset().getName(),
                         workOrder.getCompletedBy() == null ? null : workOrder.getCompletedBy().getEmail(),
                         workOrder.getCompletedOn(),
                         Helper.getStringFromBoolean(workOrder.isArchived(), messageSource, locale),
                         workOrder.getFeedback(),
-                        Helper.enumerate(workOrder.getCustomers().stream().map(Customer::getName).collect(Collectors.toList())),
+                        associations.enumerate(CUSTOMERS, workOrder.getId(),
+                                () -> workOrder.getCustomers().stream().map(Customer::getName)),
                         workOrder.getCreatedAt()
                 );
             }
@@ -74,6 +83,11 @@ public class CsvFileGenerator {
 
     public void writeAssetsToCsv(Collection<Asset> assets, Writer writer, Locale locale, String csvSeparator,
                                  boolean includeHeaders) {
+        writeAssetsToCsv(assets, ExportAssociations.LAZY, writer, locale, csvSeparator, includeHeaders);
+    }
+
+    public void writeAssetsToCsv(Collection<Asset> assets, ExportAssociations associations,
+                                 Writer writer, Locale locale, String csvSeparator, boolean includeHeaders) {
         try {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withDelimiter(csvSeparator.charAt(0));
             CSVPrinter printer = new CSVPrinter(writer, csvFormat);
@@ -100,9 +114,9 @@ public class CsvFileGenerator {
                 printer.printRecord(headers.stream().map(header -> messageSource.getMessage(header, null, locale)).collect(Collectors.toList()));
             }
             for (Asset asset : assets) {
-                Collection<AssetDowntime> downtimes = assetDowntimeService.findByAsset(asset.getId());
-                long downTimeDuration = downtimes.stream().map(AssetDowntime::getDuration)
-                        .reduce(0L, Long::sum);
+                long downTimeDuration = associations.total(DOWNTIME, asset.getId(),
+                        () -> assetDowntimeService.findByAsset(asset.getId()).stream()
+                                .mapToLong(AssetDowntime::getDuration).sum());
 
                 printer.printRecord(asset.getId(),
                         asset.getName(),
@@ -118,11 +132,16 @@ public class CsvFileGenerator {
                         asset.getWarrantyExpirationDate(),
                         asset.getAdditionalInfos(),
                         asset.getSerialNumber(),
-                        Helper.enumerate(asset.getAssignedTo().stream().map(User::getEmail).collect(Collectors.toList())),
-                        Helper.enumerate(asset.getTeams().stream().map(Team::getName).collect(Collectors.toList())),
-                        Helper.enumerate(asset.getParts().stream().map(Part::getName).collect(Collectors.toList())),
-                        Helper.enumerate(asset.getVendors().stream().map(Vendor::getName).collect(Collectors.toList())),
-                        Helper.enumerate(asset.getCustomers().stream().map(Customer::getName).collect(Collectors.toList())),
+                        associations.enumerate(ASSIGNED_TO, asset.getId(),
+                                () -> asset.getAssignedTo().stream().map(User::getEmail)),
+                        associations.enumerate(TEAMS, asset.getId(),
+                                () -> asset.getTeams().stream().map(Team::getName)),
+                        associations.enumerate(PARTS, asset.getId(),
+                                () -> asset.getParts().stream().map(Part::getName)),
+                        associations.enumerate(VENDORS, asset.getId(),
+                                () -> asset.getVendors().stream().map(Vendor::getName)),
+                        associations.enumerate(CUSTOMERS, asset.getId(),
+                                () -> asset.getCustomers().stream().map(Customer::getName)),
                         downTimeDuration
                 );
             }
@@ -132,8 +151,13 @@ public class CsvFileGenerator {
         }
     }
 
-    public void writeLocationsToCsv(Collection<Location> locations, Writer writer, Locale locale, String csvSeparator
-            , boolean includeHeaders) {
+    public void writeLocationsToCsv(Collection<Location> locations, Writer writer, Locale locale, String csvSeparator,
+                                    boolean includeHeaders) {
+        writeLocationsToCsv(locations, ExportAssociations.LAZY, writer, locale, csvSeparator, includeHeaders);
+    }
+
+    public void writeLocationsToCsv(Collection<Location> locations, ExportAssociations associations,
+                                    Writer writer, Locale locale, String csvSeparator, boolean includeHeaders) {
         try {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withDelimiter(csvSeparator.charAt(0));
             CSVPrinter printer = new CSVPrinter(writer, csvFormat);
@@ -152,10 +176,14 @@ public class CsvFileGenerator {
                         location.getName(),
                         location.getAddress(),
                         location.getParentLocation() == null ? null : location.getParentLocation().getName(),
-                        Helper.enumerate(location.getWorkers().stream().map(User::getEmail).collect(Collectors.toList())),
-                        Helper.enumerate(location.getTeams().stream().map(Team::getName).collect(Collectors.toList())),
-                        Helper.enumerate(location.getVendors().stream().map(Vendor::getName).collect(Collectors.toList())),
-                        Helper.enumerate(location.getCustomers().stream().map(Customer::getName).collect(Collectors.toList()))
+                        associations.enumerate(WORKERS, location.getId(),
+                                () -> location.getWorkers().stream().map(User::getEmail)),
+                        associations.enumerate(TEAMS, location.getId(),
+                                () -> location.getTeams().stream().map(Team::getName)),
+                        associations.enumerate(VENDORS, location.getId(),
+                                () -> location.getVendors().stream().map(Vendor::getName)),
+                        associations.enumerate(CUSTOMERS, location.getId(),
+                                () -> location.getCustomers().stream().map(Customer::getName))
                 );
             }
             printer.flush();
@@ -166,6 +194,11 @@ public class CsvFileGenerator {
 
     public void writePartsToCsv(Collection<Part> parts, Writer writer, Locale locale, String csvSeparator,
                                 boolean includeHeaders) {
+        writePartsToCsv(parts, ExportAssociations.LAZY, writer, locale, csvSeparator, includeHeaders);
+    }
+
+    public void writePartsToCsv(Collection<Part> parts, ExportAssociations associations,
+                                Writer writer, Locale locale, String csvSeparator, boolean includeHeaders) {
         try {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withDelimiter(csvSeparator.charAt(0));
             CSVPrinter printer = new CSVPrinter(writer, csvFormat);
@@ -199,10 +232,14 @@ public class CsvFileGenerator {
                         part.getAdditionalInfos(),
                         part.getArea(),
                         part.getMinQuantity(),
-                        Helper.enumerate(part.getAssignedTo().stream().map(User::getEmail).collect(Collectors.toList())),
-                        Helper.enumerate(part.getCustomers().stream().map(Customer::getName).collect(Collectors.toList())),
-                        Helper.enumerate(part.getVendors().stream().map(Vendor::getName).collect(Collectors.toList())),
-                        Helper.enumerate(part.getTeams().stream().map(Team::getName).collect(Collectors.toList()))
+                        associations.enumerate(ASSIGNED_TO, part.getId(),
+                                () -> part.getAssignedTo().stream().map(User::getEmail)),
+                        associations.enumerate(CUSTOMERS, part.getId(),
+                                () -> part.getCustomers().stream().map(Customer::getName)),
+                        associations.enumerate(VENDORS, part.getId(),
+                                () -> part.getVendors().stream().map(Vendor::getName)),
+                        associations.enumerate(TEAMS, part.getId(),
+                                () -> part.getTeams().stream().map(Team::getName))
                 );
             }
             printer.flush();
@@ -213,6 +250,11 @@ public class CsvFileGenerator {
 
     public void writeMetersToCsv(Collection<Meter> meters, Writer writer, Locale locale, String csvSeparator,
                                  boolean includeHeaders) {
+        writeMetersToCsv(meters, ExportAssociations.LAZY, writer, locale, csvSeparator, includeHeaders);
+    }
+
+    public void writeMetersToCsv(Collection<Meter> meters, ExportAssociations associations,
+                                 Writer writer, Locale locale, String csvSeparator, boolean includeHeaders) {
         try {
             CSVFormat csvFormat = CSVFormat.DEFAULT.withDelimiter(csvSeparator.charAt(0));
             CSVPrinter printer = new CSVPrinter(writer, csvFormat);
@@ -235,7 +277,8 @@ public class CsvFileGenerator {
                         meter.getMeterCategory() == null ? null : meter.getMeterCategory().getName(),
                         meter.getAsset() == null ? null : meter.getAsset().getName(),
                         meter.getLocation() == null ? null : meter.getLocation().getName(),
-                        Helper.enumerate(meter.getUsers().stream().map(User::getEmail).collect(Collectors.toList())));
+                        associations.enumerate(USERS, meter.getId(),
+                                () -> meter.getUsers().stream().map(User::getEmail)));
             }
             printer.flush();
         } catch (IOException e) {
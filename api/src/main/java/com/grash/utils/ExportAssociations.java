@@ -0,0 +1,46 @@
+package com.grash.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Display values of the to-many associations of a page of exported rows, keyed by association then row id. They
+ * are loaded with one query per association and page by {@link com.grash.service.ExportReader}, so that
+ * {@link CsvFileGenerator} doesn't lazy load them row by row. {@link #LAZY} reads them from the entities instead.
+ */
+public class ExportAssociations {
+    public static final String ASSIGNED_TO = "assignedTo";
+    public static final String CUSTOMERS = "customers";
+    public static final String TEAMS = "teams";
+    public static final String VENDORS = "vendors";
+    public static final String PARTS = "parts";
+    public static final String WORKERS = "workers";
+    public static final String USERS = "users";
+    public static final String DOWNTIME = "downtime";
+
+    public static final ExportAssociations LAZY = new ExportAssociations(null, null);
+
+    private final Map<String, Map<Long, List<String>>> labels;
+    private final Map<String, Map<Long, Long>> totals;
+
+    public ExportAssociations(Map<String, Map<Long, List<String>>> labels, Map<String, Map<Long, Long>> totals) {
+        this.labels = labels;
+        this.totals = totals;
+    }
+
+    public String enumerate(String association, Long id, Supplier<Stream<String>> fromEntity) {
+        if (labels == null) return Helper.enumerate(fromEntity.get().collect(Collectors.toList()));
+        return Helper.enumerate(labels.getOrDefault(association, Collections.emptyMap())
+                .getOrDefault(id, Collections.emptyList()));
+    }
+
+    public long total(String association, Long id, LongSupplier fromEntity) {
+        if (totals == null) return fromEntity.getAsLong();
+        return totals.getOrDefault(association, Collections.emptyMap()).getOrDefault(id, 0L);
+    }
+}
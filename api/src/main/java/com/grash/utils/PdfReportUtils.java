@@ -1,5 +1,7 @@
 package com.grash.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.grash.model.File;
 import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.attach.ITagWorker;
@@ -13,6 +15,7 @@ import com.itextpdf.kernel.colors.WebColors;
 import com.itextpdf.layout.IPropertyContainer;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
 import com.itextpdf.styledxmlparser.node.IElementNode;
 import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
@@ -46,7 +49,14 @@ public final class PdfReportUtils {
             "/fonts/Inter-Medium.ttf",
             "/fonts/Inter-SemiBold.ttf",
             "/fonts/Inter-Bold.ttf");
-    private static final FontProvider REPORT_FONT_PROVIDER = createReportFontProvider();
+    // Family of DefaultFontProvider, used for text without a font-family
+    private static final String REPORT_DEFAULT_FONT_FAMILY = "Times";
+    // Parsed once; a FontSet is read only once built and can be shared by concurrent renders
+    private static final FontSet REPORT_FONT_SET = createReportFontSet();
+    private static final ITagWorkerFactory DEFAULT_TAG_WORKER_FACTORY = new DefaultTagWorkerFactory();
+    private static final Cache<String, String> CSS_COLORS = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
 
     private PdfReportUtils() {
     }
@@ -141,7 +151,7 @@ public final class PdfReportUtils {
         return normalized;
     }
 
-    private static FontProvider createReportFontProvider() {
+    private static FontSet createReportFontSet() {
         DefaultFontProvider fontProvider = new DefaultFontProvider(true, false, false);
         for (String fontResource : REPORT_FONT_RESOURCES) {
             try (InputStream fontStream = PdfReportUtils.class.getResourceAsStream(fontResource)) {
@@ -154,11 +164,28 @@ public final class PdfReportUtils {
                 log.warn("Failed to register report font {}", fontResource, e);
             }
         }
-        return fontProvider;
+        return fontProvider.getFontSet();
+    }
+
+    /**
+     * Font provider of one render over the shared report fonts. Providers cache font selections in a map that is not
+     * thread safe, so they can't be shared.
+     */
+    static FontProvider createReportFontProvider() {
+        return new FontProvider(REPORT_FONT_SET, REPORT_DEFAULT_FONT_FAMILY);
     }
 
     public static @Nullable String resolveCssColor(String candidateColor) {
         if (candidateColor == null || candidateColor.trim().isEmpty()) return null;
+        // Unresolvable colors are cached as empty strings
+        String resolved = CSS_COLORS.get(candidateColor, color -> {
+            String hexColor = parseCssColor(color);
+            return hexColor == null ? "" : hexColor;
+        });
+        return resolved.isEmpty() ? null : resolved;
+    }
+
+    private static @Nullable String parseCssColor(String candidateColor) {
         String value = candidateColor.trim().toLowerCase(Locale.ROOT);
         try {
             float[] rgb;
@@ -230,19 +257,22 @@ public final class PdfReportUtils {
         return Math.max(0, Math.min(255, Math.round(component)));
     }
 
+    /**
+     * Converter properties of one render. They are cheap to build: fonts are only parsed once.
+     *
+     * @param imageLoader loads the image at a storage path, already {@link #optimizeImageForPdf optimized}
+     */
     public static ConverterProperties createReportConverterProperties(Function<String, byte[]> imageLoader) {
         return new ConverterProperties()
-                .setFontProvider(REPORT_FONT_PROVIDER)
+                .setFontProvider(createReportFontProvider())
                 .setTagWorkerFactory(new ITagWorkerFactory() {
-                    private final DefaultTagWorkerFactory defaultFactory = new DefaultTagWorkerFactory();
-
                     @Override
                     public ITagWorker getTagWorker(IElementNode tag, ProcessorContext context) {
                         if ("img".equals(tag.name()) && tag.getAttribute("data-storage-path") != null) {
                             return new DirectImageTagWorker(tag, imageLoader);
                         }
                         try {
-                            return defaultFactory.getTagWorker(tag, context);
+                            return DEFAULT_TAG_WORKER_FACTORY.getTagWorker(tag, context);
                         } catch (Exception e) {
                             log.warn("Failed to create tag worker for <{}>: {}", tag.name(), e.getMessage());
                             return null;
@@ -264,8 +294,7 @@ public final class PdfReportUtils {
             Image img = null;
             if (path != null && !path.isBlank()) {
                 try {
-                    byte[] optimized = optimizeImageForPdf(imageLoader.apply(path), path);
-                    ImageData imageData = ImageDataFactory.create(optimized);
+                    ImageData imageData = ImageDataFactory.create(imageLoader.apply(path));
                     img = new Image(imageData);
                 } catch (Exception | OutOfMemoryError e) {
                     log.warn("Failed to embed image '{}' in PDF report", path, e);
@@ -0,0 +1,130 @@
+package com.grash.utils;
+
+import com.grash.exception.CustomException;
+import com.grash.model.Schedule;
+import com.grash.model.enums.RecurrenceBasedOn;
+import com.grash.model.enums.RecurrenceType;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Computes when a {@link Schedule} is due, in the company time zone, for the database scheduler engine. Weekly
+ * schedules follow the same week interval rule as {@code ScheduleService#checkIfWeeklyShouldRun}.
+ */
+public final class ScheduleOccurrences {
+
+    private ScheduleOccurrences() {
+    }
+
+    /**
+     * First occurrence of a scheduled date based schedule at or after {@code from}, or {@code null} when the schedule
+     * ends before it.
+     */
+    public static Date firstAtOrAfter(Schedule schedule, Date from, ZoneId zoneId) {
+        ZonedDateTime start = schedule.getStartsOn().toInstant().atZone(zoneId);
+        ZonedDateTime target = from.toInstant().atZone(zoneId);
+        if (target.isBefore(start)) target = start;
+        int frequency = schedule.getFrequency();
+
+        ZonedDateTime occurrence = switch (schedule.getRecurrenceType()) {
+            case DAILY -> nthPeriodAtOrAfter(start, target, ChronoUnit.DAYS, frequency);
+            case MONTHLY -> nthPeriodAtOrAfter(start, target, ChronoUnit.MONTHS, frequency);
+            case YEARLY -> nthPeriodAtOrAfter(start, target, ChronoUnit.YEARS, frequency);
+            case WEEKLY -> weeklyAtOrAfter(schedule, start, target);
+        };
+        return endsBefore(schedule, occurrence) ? null : Date.from(occurrence.toInstant());
+    }
+
+    /**
+     * Occurrences of a scheduled date based schedule between {@code from} and {@code to} inclusive, at most
+     * {@code limit} of them.
+     */
+    public static List<Date> between(Schedule schedule, Date from, Date to, ZoneId zoneId, int limit) {
+        List<Date> occurrences = new ArrayList<>();
+        Date occurrence = firstAtOrAfter(schedule, from, zoneId);
+        while (occurrence != null && !occurrence.after(to) && occurrences.size() < limit) {
+            occurrences.add(occurrence);
+            occurrence = firstAtOrAfter(schedule, new Date(occurrence.getTime() + 1), zoneId);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Occurrence of a completed date based schedule that follows a work order completed on {@code completedOn}, or
+     * {@code null} when the schedule ends before it.
+     */
+    public static Date afterCompletion(Schedule schedule, Date completedOn, ZoneId zoneId) {
+        ZonedDateTime completed = completedOn.toInstant().atZone(zoneId);
+        ChronoUnit unit = unitOf(schedule.getRecurrenceType());
+        ZonedDateTime occurrence = completed.plus(schedule.getFrequency(), unit);
+        return endsBefore(schedule, occurrence) ? null : Date.from(occurrence.toInstant());
+    }
+
+    /**
+     * When the next upcoming work order notification is due, at or after {@code from}, or {@code null} when there is
+     * none. Scheduled date based schedules notify {@code daysBefore} days ahead of each occurrence; completed date
+     * based ones only ahead of {@code nextDueAt}, which is not known earlier.
+     */
+    public static Date nextNotification(Schedule schedule, Date nextDueAt, int daysBefore, Date from, ZoneId zoneId) {
+        if (nextDueAt == null || daysBefore <= 0) return null;
+        Date notifiedOccurrence = nextDueAt;
+        if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.COMPLETED_DATE) {
+            Date horizon = Date.from(from.toInstant().atZone(zoneId).plusDays(daysBefore).toInstant());
+            notifiedOccurrence = firstAtOrAfter(schedule, horizon, zoneId);
+            if (notifiedOccurrence == null) return null;
+        }
+        Date notifyAt = Date.from(notifiedOccurrence.toInstant().atZone(zoneId).minusDays(daysBefore).toInstant());
+        return notifyAt.before(from) ? null : notifyAt;
+    }
+
+    private static ZonedDateTime nthPeriodAtOrAfter(ZonedDateTime start, ZonedDateTime target, ChronoUnit unit,
+                                                    int frequency) {
+        // Always add to the start so that month ends and daylight saving changes do not drift the time of day
+        long periods = unit.between(start, target) / frequency;
+        ZonedDateTime occurrence = start.plus(periods * frequency, unit);
+        while (occurrence.isBefore(target)) {
+            periods++;
+            occurrence = start.plus(periods * frequency, unit);
+        }
+        return occurrence;
+    }
+
+    private static ZonedDateTime weeklyAtOrAfter(Schedule schedule, ZonedDateTime start, ZonedDateTime target) {
+        if (schedule.getDaysOfWeek() == null || schedule.getDaysOfWeek().isEmpty()) {
+            throw new CustomException("Days of week are required for weekly recurrence.", HttpStatus.BAD_REQUEST);
+        }
+        LocalDate startDate = start.toLocalDate();
+        LocalDate day = target.toLocalDate();
+        // One full cycle of weeks plus a week covers every possible next occurrence
+        for (int i = 0; i <= 7 * (schedule.getFrequency() + 1); i++, day = day.plusDays(1)) {
+            ZonedDateTime candidate = ZonedDateTime.of(day, start.toLocalTime(), start.getZone());
+            if (candidate.isBefore(target)) continue;
+            long weeksSinceStart = ChronoUnit.DAYS.between(startDate, day) / 7;
+            if (weeksSinceStart % schedule.getFrequency() == 0
+                    && schedule.getDaysOfWeek().contains(day.getDayOfWeek().getValue() - 1)) {
+                return candidate;
+            }
+        }
+        throw new CustomException("Days of week are invalid for weekly recurrence.", HttpStatus.BAD_REQUEST);
+    }
+
+    private static ChronoUnit unitOf(RecurrenceType recurrenceType) {
+        return switch (recurrenceType) {
+            case DAILY -> ChronoUnit.DAYS;
+            case WEEKLY -> ChronoUnit.WEEKS;
+            case MONTHLY -> ChronoUnit.MONTHS;
+            case YEARLY -> ChronoUnit.YEARS;
+        };
+    }
+
+    private static boolean endsBefore(Schedule schedule, ZonedDateTime occurrence) {
+        return schedule.getEndsOn() != null && schedule.getEndsOn().toInstant().isBefore(occurrence.toInstant());
+    }
+}
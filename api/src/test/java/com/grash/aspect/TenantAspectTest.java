@@ -1,21 +1,38 @@
 package com.grash.aspect;
 
+import com.grash.exception.CustomException;
 import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.RoleType;
+import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Filter;
+import org.hibernate.Session;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,17 +48,55 @@ class TenantAspectTest {
     @Mock
     private MethodSignature methodSignature;
 
+    @Mock
+    private Metamodel metamodel;
+
+    @Mock
+    private EntityType<?> entityType;
+
+    @Mock
+    private TypedQuery<Long> query;
+
+    @Mock
+    private Session session;
+
     @InjectMocks
     private TenantAspect tenantAspect;
 
     @BeforeEach
     void setUp() {
         lenient().when(joinPoint.getSignature()).thenReturn(methodSignature);
+        lenient().when(entityManager.unwrap(Session.class)).thenReturn(session);
+        lenient().when(entityManager.getMetamodel()).thenReturn(metamodel);
+        lenient().doReturn(entityType).when(metamodel).entity(any(Class.class));
+        lenient().when(entityType.getName()).thenReturn("TestEntity");
+        lenient().when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(query);
+        lenient().when(query.setParameter(anyString(), any())).thenReturn(query);
+        lenient().when(query.setFlushMode(any(FlushModeType.class))).thenReturn(query);
+        lenient().when(query.setMaxResults(anyInt())).thenReturn(query);
+        lenient().when(query.getResultList()).thenReturn(Collections.emptyList());
+        authenticate(RoleType.ROLE_CLIENT, Set.of());
     }
 
     @AfterEach
     void tearDown() {
         TenantAspect.enableCompanyCheck();
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(RoleType roleType, Set<Long> childCompanyIds) {
+        UserPrincipal principal = new UserPrincipal(1L, "john@test.com", true, null, 10L, null, null, roleType,
+                null, null, null, null, null, null, childCompanyIds);
+        CustomUserDetail userDetail = CustomUserDetail.builder().principal(principal).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, "", userDetail.getAuthorities()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> queriedIds() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(query).setParameter(eq("ids"), captor.capture());
+        return (Set<Long>) captor.getValue();
     }
 
     static class TestController {
@@ -108,7 +163,9 @@ class TenantAspectTest {
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager).find(TestEntity.class, 5L);
+        assertEquals(Set.of(5L), queriedIds());
+        verify(query).setParameter("companyIds", Set.of(10L));
+        verify(entityManager, never()).find(any(), any());
     }
 
     @Test
@@ -120,7 +177,8 @@ class TenantAspectTest {
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager, times(2)).find(TestEntity.class, 5L);
+        verify(entityManager, times(1)).createQuery(anyString(), eq(Long.class));
+        assertEquals(Set.of(5L), queriedIds());
     }
 
     @Test
@@ -131,19 +189,19 @@ class TenantAspectTest {
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager).find(TestEntity.class, 6L);
-        verify(entityManager).find(TestEntity.class, 7L);
+        verify(entityManager, times(1)).createQuery(anyString(), eq(Long.class));
+        assertEquals(Set.of(6L, 7L), queriedIds());
     }
 
     @Test
-    void companyAuditWithNullId_skipsEntityManagerFind() throws Exception {
+    void companyAuditWithNullId_skipsQuery() throws Exception {
         stubMethod("create", Object.class);
         DtoWithNullIdField dto = new DtoWithNullIdField();
         when(joinPoint.getArgs()).thenReturn(new Object[]{dto});
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager, never()).find(any(), any());
+        verifyNoInteractions(entityManager);
     }
 
     @Test
@@ -166,7 +224,7 @@ class TenantAspectTest {
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager).find(TestEntity.class, 5L);
+        assertEquals(Set.of(5L), queriedIds());
     }
 
     @Test
@@ -179,6 +237,56 @@ class TenantAspectTest {
 
         tenantAspect.validateTenant(joinPoint);
 
-        verify(entityManager, never()).find(any(), any());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void referenceFromOtherCompany_throwsForbidden() throws Exception {
+        stubMethod("create", Object.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new DtoWithAuditField()});
+        when(query.getResultList()).thenReturn(List.of(5L));
+
+        CustomException ex = assertThrows(CustomException.class, () -> tenantAspect.validateTenant(joinPoint));
+
+        assertEquals(HttpStatus.FORBIDDEN, ex.getHttpStatus());
+    }
+
+    @Test
+    void superAccount_allowsChildCompanies() throws Exception {
+        authenticate(RoleType.ROLE_CLIENT, Set.of(20L));
+        stubMethod("create", Object.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new DtoWithAuditField()});
+
+        tenantAspect.validateTenant(joinPoint);
+
+        verify(query).setParameter("companyIds", Set.of(10L, 20L));
+    }
+
+    @Test
+    void enabledTenantFilter_isSuspendedDuringCheck() throws Exception {
+        Filter filter = mock(Filter.class);
+        when(session.getEnabledFilter(CompanyAudit.TENANT_FILTER)).thenReturn(filter);
+        when(session.enableFilter(CompanyAudit.TENANT_FILTER)).thenReturn(filter);
+        stubMethod("create", Object.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new DtoWithAuditField()});
+
+        tenantAspect.validateTenant(joinPoint);
+
+        var inOrder = inOrder(session, query);
+        inOrder.verify(session).disableFilter(CompanyAudit.TENANT_FILTER);
+        inOrder.verify(query).getResultList();
+        inOrder.verify(session).enableFilter(CompanyAudit.TENANT_FILTER);
+        verify(filter).setParameterList(CompanyAudit.TENANT_FILTER_COMPANY_IDS, Set.of(10L));
+    }
+
+    @Test
+    void superAdmin_skipsQuery() throws Exception {
+        authenticate(RoleType.ROLE_SUPER_ADMIN, Set.of());
+        stubMethod("create", Object.class);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new DtoWithAuditField()});
+
+        tenantAspect.validateTenant(joinPoint);
+
+        verifyNoInteractions(entityManager);
     }
 }
@@ -0,0 +1,88 @@
+package com.grash.aspect;
+
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.RoleType;
+import com.grash.security.CustomUserDetail;
+import com.grash.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantFilterAspectTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Filter filter;
+
+    @InjectMocks
+    private TenantFilterAspect tenantFilterAspect;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(RoleType roleType, Set<Long> childCompanyIds) {
+        UserPrincipal principal = new UserPrincipal(1L, "john@test.com", true, null, 10L, null, null, roleType,
+                null, null, null, null, null, null, childCompanyIds);
+        CustomUserDetail userDetail = CustomUserDetail.builder().principal(principal).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, "", userDetail.getAuthorities()));
+    }
+
+    @Test
+    void anonymous_leavesSessionUnfiltered() {
+        tenantFilterAspect.enableTenantFilter();
+
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void superAdmin_leavesSessionUnfiltered() {
+        authenticate(RoleType.ROLE_SUPER_ADMIN, Set.of());
+
+        tenantFilterAspect.enableTenantFilter();
+
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void client_enablesFilterWithOwnAndChildCompanies() {
+        authenticate(RoleType.ROLE_CLIENT, Set.of(20L));
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.enableFilter(CompanyAudit.TENANT_FILTER)).thenReturn(filter);
+
+        tenantFilterAspect.enableTenantFilter();
+
+        verify(filter).setParameterList(CompanyAudit.TENANT_FILTER_COMPANY_IDS, Set.of(10L, 20L));
+    }
+
+    @Test
+    void alreadyEnabled_isNotReconfigured() {
+        authenticate(RoleType.ROLE_CLIENT, Set.of());
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.getEnabledFilter(CompanyAudit.TENANT_FILTER)).thenReturn(filter);
+
+        tenantFilterAspect.enableTenantFilter();
+
+        verify(session, never()).enableFilter(anyString());
+    }
+}
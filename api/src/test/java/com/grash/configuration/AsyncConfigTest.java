@@ -1,12 +1,14 @@
 package com.grash.configuration;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.*;
 
 class AsyncConfigTest {
 
@@ -22,4 +24,80 @@ class AsyncConfigTest {
         assertEquals(11, taskExecutor.getQueueCapacity());
         assertEquals("MyExecutor-", taskExecutor.getThreadNamePrefix());
     }
+
+    @Test
+    void exportExecutor_usesExportPoolAndAbortsWhenFull() {
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setExport(new AsyncProperties.Pool(1, 5, 7));
+
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                asyncConfig.exportExecutor(asyncProperties));
+        executor.initialize();
+
+        assertEquals(1, executor.getCorePoolSize());
+        assertEquals(5, executor.getMaxPoolSize());
+        assertEquals(7, executor.getQueueCapacity());
+        assertEquals("export-", executor.getThreadNamePrefix());
+        assertInstanceOf(ThreadPoolExecutor.AbortPolicy.class,
+                executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+        executor.shutdown();
+    }
+
+    @Test
+    void ioBoundExecutors_runOnCallerWhenFull() {
+        AsyncProperties asyncProperties = new AsyncProperties();
+
+        for (AsyncTaskExecutor taskExecutor : new AsyncTaskExecutor[]{
+                asyncConfig.webhookExecutor(asyncProperties),
+                asyncConfig.notificationExecutor(asyncProperties),
+                asyncConfig.reportImageExecutor(asyncProperties)}) {
+            ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class, taskExecutor);
+            executor.initialize();
+            assertInstanceOf(ThreadPoolExecutor.CallerRunsPolicy.class,
+                    executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void imageExecutor_discardsWhenFull() {
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                asyncConfig.imageExecutor(new AsyncProperties()));
+        executor.initialize();
+
+        assertEquals("image-", executor.getThreadNamePrefix());
+        assertInstanceOf(ThreadPoolExecutor.DiscardPolicy.class,
+                executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+        executor.shutdown();
+    }
+
+    @Test
+    void mailExecutor_discardsWhenFull_evenWithVirtualThreads() {
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setVirtualThreads(true);
+
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                asyncConfig.mailExecutor(asyncProperties));
+        executor.initialize();
+
+        assertEquals("mail-", executor.getThreadNamePrefix());
+        assertInstanceOf(ThreadPoolExecutor.DiscardPolicy.class,
+                executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+        executor.shutdown();
+    }
+
+    @Test
+    void virtualThreads_fallBackToPoolBeforeJava21() {
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setVirtualThreads(true);
+
+        AsyncTaskExecutor executor = asyncConfig.webhookExecutor(asyncProperties);
+
+        if (AsyncConfig.supportsVirtualThreads()) {
+            SimpleAsyncTaskExecutor virtualExecutor = assertInstanceOf(SimpleAsyncTaskExecutor.class, executor);
+            assertEquals(asyncProperties.getWebhook().getMaxSize(), virtualExecutor.getConcurrencyLimit());
+        } else {
+            assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.grash.configuration;
 
+import com.grash.model.enums.RoleType;
+import com.grash.security.UserPrincipal;
 import org.junit.jupiter.api.Test;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -21,6 +23,18 @@ class CacheConfigTest {
         assertEquals("value", cache.get("key").get());
     }
 
+    @Test
+    void cacheManager_userPrincipalsCache_storesAndRetrieves() {
+        CacheManager cacheManager = cacheConfig.cacheManager();
+        UserPrincipal principal = new UserPrincipal(1L, "john@test.com", true, null, 2L, 3L, 4L,
+                RoleType.ROLE_CLIENT, null, null, null, null, null, null, null);
+
+        Cache cache = cacheManager.getCache("userPrincipals");
+        assertNotNull(cache);
+        cache.put("john@test.com", principal);
+        assertEquals(principal, cache.get("john@test.com", UserPrincipal.class));
+    }
+
     @Test
     void cacheManager_defaultCache_storesAndRetrieves() {
         CacheManager cacheManager = cacheConfig.cacheManager();
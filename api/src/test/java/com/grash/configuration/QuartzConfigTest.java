@@ -25,4 +25,12 @@ class QuartzConfigTest {
 
         assertEquals("deleteDemoCompaniesTrigger", trigger.getKey().getName());
     }
+
+    @Test
+    void webhookDeliveryJobDetail_hasExpectedIdentityAndIsDurable() {
+        JobDetail jobDetail = quartzConfig.webhookDeliveryJobDetail();
+
+        assertEquals("webhookDeliveryJob", jobDetail.getKey().getName());
+        assertTrue(jobDetail.isDurable());
+    }
 }
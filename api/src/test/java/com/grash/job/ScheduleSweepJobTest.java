@@ -0,0 +1,106 @@
+package com.grash.job;
+
+import com.grash.service.ScheduleService;
+import com.grash.service.ScheduleSweepService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.JobExecutionContext;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleSweepJobTest {
+
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private ScheduleSweepService scheduleSweepService;
+    @Mock
+    private JobExecutionContext context;
+
+    @InjectMocks
+    private ScheduleSweepJob scheduleSweepJob;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduleSweepJob, "batchSize", 2);
+    }
+
+    @Test
+    void quartzEngine_doesNothing() {
+        when(scheduleService.usesDatabaseEngine()).thenReturn(false);
+
+        scheduleSweepJob.execute(context);
+
+        verifyNoInteractions(scheduleSweepService);
+    }
+
+    @Test
+    void fullBatches_areSweptUntilAPartialOne() {
+        when(scheduleService.usesDatabaseEngine()).thenReturn(true);
+        when(scheduleSweepService.createDueWorkOrders(any(Date.class), eq(2))).thenReturn(2, 2, 1);
+        when(scheduleSweepService.sendDueNotifications(any(Date.class), eq(2))).thenReturn(0);
+
+        scheduleSweepJob.execute(context);
+
+        verify(scheduleSweepService, times(3)).createDueWorkOrders(any(Date.class), eq(2));
+        verify(scheduleSweepService).sendDueNotifications(any(Date.class), eq(2));
+    }
+
+    @Test
+    void failedBatch_isRetriedOneByOneAndFailingScheduleSkipped() {
+        when(scheduleService.usesDatabaseEngine()).thenReturn(true);
+        when(scheduleSweepService.createDueWorkOrders(any(Date.class), eq(2)))
+                .thenThrow(new IllegalStateException("boom"));
+        when(scheduleSweepService.findDueIds(any(Date.class), eq(2))).thenReturn(List.of(1L, 2L));
+        doThrow(new IllegalStateException("boom"))
+                .when(scheduleSweepService).createDueWorkOrder(eq(2L), any(Date.class));
+
+        scheduleSweepJob.execute(context);
+
+        verify(scheduleSweepService).createDueWorkOrder(eq(1L), any(Date.class));
+        verify(scheduleSweepService, never()).skipDueOccurrence(eq(1L), any(Date.class));
+        verify(scheduleSweepService).skipDueOccurrence(eq(2L), any(Date.class));
+        verify(scheduleSweepService, times(1)).createDueWorkOrders(any(Date.class), eq(2));
+        verify(scheduleSweepService).sendDueNotifications(any(Date.class), eq(2));
+    }
+
+    @Test
+    void transientBatchFailure_isLeftForTheNextSweep() {
+        when(scheduleService.usesDatabaseEngine()).thenReturn(true);
+        when(scheduleSweepService.createDueWorkOrders(any(Date.class), eq(2)))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        scheduleSweepJob.execute(context);
+
+        verify(scheduleSweepService, never()).findDueIds(any(Date.class), anyInt());
+        verify(scheduleSweepService, never()).skipDueOccurrence(any(), any(Date.class));
+    }
+
+    @Test
+    void transientFailureOneByOne_leavesTheOccurrenceDue() {
+        when(scheduleService.usesDatabaseEngine()).thenReturn(true);
+        when(scheduleSweepService.createDueWorkOrders(any(Date.class), eq(2)))
+                .thenThrow(new IllegalStateException("boom"));
+        when(scheduleSweepService.findDueIds(any(Date.class), eq(2))).thenReturn(List.of(1L, 2L));
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(scheduleSweepService).createDueWorkOrder(eq(1L), any(Date.class));
+
+        scheduleSweepJob.execute(context);
+
+        verify(scheduleSweepService).createDueWorkOrder(eq(2L), any(Date.class));
+        verify(scheduleSweepService, never()).skipDueOccurrence(any(), any(Date.class));
+    }
+}
@@ -1,6 +1,7 @@
 package com.grash.security;
 
 import com.grash.model.User;
+import com.grash.model.enums.RoleType;
 import com.grash.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.NativeWebRequest;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,8 +52,48 @@ class CurrentUserResolverTest {
         when(webRequest.getNativeRequest(HttpServletRequest.class)).thenReturn(httpRequest);
         when(userService.whoami(httpRequest)).thenReturn(expectedUser);
 
-        User result = resolver.resolveArgument(parameter, null, webRequest, null);
+        Object result = resolver.resolveArgument(parameter, null, webRequest, null);
 
         assertSame(expectedUser, result);
     }
+
+    @Test
+    void resolveArgument_userPrincipalParameter_returnsPrincipalFromSecurityContext() throws Exception {
+        MethodParameter parameter = mock(MethodParameter.class);
+        doReturn(UserPrincipal.class).when(parameter).getParameterType();
+        UserPrincipal principal = new UserPrincipal(1L, "john@test.com", true, null, 2L, 3L, 4L,
+                RoleType.ROLE_CLIENT, null, null, null, null, null, null, null);
+        CustomUserDetail userDetail = CustomUserDetail.builder().principal(principal).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, "", userDetail.getAuthorities()));
+
+        try {
+            Object result = resolver.resolveArgument(parameter, null, mock(NativeWebRequest.class), null);
+
+            assertSame(principal, result);
+            verifyNoInteractions(userService);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void resolveArgument_userParameter_loadsUserFromAuthenticatedPrincipal() throws Exception {
+        MethodParameter parameter = mock(MethodParameter.class);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("john@test.com");
+        CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, "", null));
+
+        try {
+            Object result = resolver.resolveArgument(parameter, null, mock(NativeWebRequest.class), null);
+
+            assertSame(user, result);
+            verifyNoInteractions(userService);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
 }
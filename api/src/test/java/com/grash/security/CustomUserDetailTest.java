@@ -5,6 +5,8 @@ import com.grash.model.User;
 import com.grash.model.enums.RoleType;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CustomUserDetailTest {
@@ -80,4 +82,22 @@ class CustomUserDetailTest {
         assertSame(newUser, detail.getUser());
         assertFalse(detail.isEnabled());
     }
+
+    @Test
+    void lazyUser_isLoadedOnce() {
+        User user = createUserWithRole(true);
+        AtomicInteger loads = new AtomicInteger();
+        CustomUserDetail detail = CustomUserDetail.builder()
+                .principal(UserPrincipal.of(user))
+                .userLoader(() -> {
+                    loads.incrementAndGet();
+                    return user;
+                })
+                .build();
+
+        assertSame(user, detail.getUser());
+        assertEquals("secret", detail.getPassword());
+        assertSame(user, detail.getUser());
+        assertEquals(1, loads.get());
+    }
 }
@@ -1,12 +1,16 @@
 package com.grash.security;
 
 import com.grash.model.User;
+import com.grash.model.enums.RoleType;
 import com.grash.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,27 +24,58 @@ class CustomUserDetailsServiceTest {
     @InjectMocks
     private CustomUserDetailsService customUserDetailsService;
 
+    private UserPrincipal principal(String email) {
+        return new UserPrincipal(1L, email, true, null, 2L, 3L, 4L, RoleType.ROLE_CLIENT,
+                null, null, null, null, null, null, null);
+    }
+
     @Test
-    void loadUserByUsername_returnsCustomUserDetailForUser() {
-        User user = new User();
-        user.setEmail("john@test.com");
-        when(userService.whoami("john@test.com", true)).thenReturn(user);
+    void loadUserByUsername_returnsCustomUserDetailForPrincipal() {
+        UserPrincipal principal = principal("john@test.com");
+        when(userService.findPrincipal("john@test.com")).thenReturn(Optional.of(principal));
 
         CustomUserDetail result = customUserDetailsService.loadUserByUsername("john@test.com");
 
         assertNotNull(result);
-        assertSame(user, result.getUser());
+        assertSame(principal, result.getPrincipal());
         assertEquals("john@test.com", result.getUsername());
+        verify(userService, never()).whoami(anyString(), anyBoolean());
     }
 
     @Test
-    void loadUserByUsername_callsWhoamiWithCorrectParameters() {
+    void getUser_loadsEntityThroughWhoami() {
         User user = new User();
         user.setEmail("test@test.com");
+        when(userService.findPrincipal("test@test.com")).thenReturn(Optional.of(principal("test@test.com")));
         when(userService.whoami("test@test.com", true)).thenReturn(user);
 
-        customUserDetailsService.loadUserByUsername("test@test.com");
+        CustomUserDetail result = customUserDetailsService.loadUserByUsername("test@test.com");
 
+        assertSame(user, result.getUser());
         verify(userService).whoami("test@test.com", true);
     }
+
+    @Test
+    void loadUserByPrincipal_returnsNewInstanceWithItsOwnLoader() {
+        UserPrincipal principal = principal("shared@test.com");
+        User first = new User();
+        User second = new User();
+        when(userService.whoami("shared@test.com", true)).thenReturn(first, second);
+
+        CustomUserDetail a = customUserDetailsService.loadUserByPrincipal(principal);
+        CustomUserDetail b = customUserDetailsService.loadUserByPrincipal(principal);
+
+        assertNotSame(a, b);
+        assertSame(first, a.getUser());
+        assertSame(second, b.getUser());
+        verify(userService, never()).findPrincipal(anyString());
+    }
+
+    @Test
+    void unknownUser_throwsUsernameNotFound() {
+        when(userService.findPrincipal("missing@test.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> customUserDetailsService.loadUserByUsername("missing@test.com"));
+    }
 }
@@ -0,0 +1,121 @@
+package com.grash.security;
+
+import com.grash.model.Role;
+import com.grash.model.User;
+import com.grash.model.enums.RoleType;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token in {@link JwtTokenFilter}. {@code legacy} reproduces the
+ * former validate-then-authenticate path, which verified the signature twice; {@code singleParse} and
+ * {@code cached} exercise {@link JwtTokenProvider#authenticate(String)} with a cold and a warm
+ * {@link VerifiedTokenCache}. The user
+ * lookup is stubbed, so the read-only transaction the real lookup opens is not part of the numbers.
+ * <p>
+ * Not run by surefire; start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+    private static final String USERNAME = "bench@test.com";
+
+    private CustomUserDetailsService customUserDetailsService;
+    private SecretKey key;
+    private JwtTokenProvider jwtTokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtTokenFilter filter;
+    private MockHttpServletRequest request;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        User user = new User();
+        user.setEmail(USERNAME);
+        user.setEnabled(true);
+        user.setRole(role);
+        CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
+
+        verifiedTokenCache = new VerifiedTokenCache();
+        customUserDetailsService = new CustomUserDetailsService() {
+            @Override
+            public CustomUserDetail loadUserByUsername(String username) {
+                return userDetail;
+            }
+        };
+        jwtTokenProvider = new JwtTokenProvider(customUserDetailsService, verifiedTokenCache);
+        byte[] keyBytes = new byte[32];
+        key = Keys.hmacShaKeyFor(keyBytes);
+        ReflectionTestUtils.setField(jwtTokenProvider, "secretKey", Base64.getEncoder().encodeToString(keyBytes));
+        ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", 3600000L);
+        jwtTokenProvider.init();
+
+        filter = new JwtTokenFilter(jwtTokenProvider);
+        token = jwtTokenProvider.createToken(USERNAME, List.of(RoleType.ROLE_CLIENT));
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Authentication legacy() {
+        String resolved = jwtTokenProvider.resolveToken(request);
+        if (resolved != null) {
+            //the signature was verified once to validate the token and again to read its subject
+            Jwts.parser().verifyWith(key).build().parseSignedClaims(resolved);
+            Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(resolved).getPayload();
+            CustomUserDetail userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
+            Authentication auth = new UsernamePasswordAuthenticationToken(userDetails, "",
+                    userDetails.getAuthorities());
+            SecurityContextHolder.getContext().setAuthentication(auth);
+        }
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication singleParse() throws Exception {
+        verifiedTokenCache.clear();
+        filter.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication cached() throws Exception {
+        filter.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
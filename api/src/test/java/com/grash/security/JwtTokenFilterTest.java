@@ -1,6 +1,10 @@
 package com.grash.security;
 
 import com.grash.exception.CustomException;
+import com.grash.model.Role;
+import com.grash.model.User;
+import com.grash.model.enums.RoleType;
+import io.jsonwebtoken.JwtParser;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -13,6 +17,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -55,8 +63,7 @@ class JwtTokenFilterTest {
         String token = "valid-jwt";
         Authentication auth = mock(Authentication.class);
         when(jwtTokenProvider.resolveToken(request)).thenReturn(token);
-        when(jwtTokenProvider.validateToken(token)).thenReturn(true);
-        when(jwtTokenProvider.getAuthentication(token)).thenReturn(auth);
+        when(jwtTokenProvider.authenticate(token)).thenReturn(auth);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -69,7 +76,7 @@ class JwtTokenFilterTest {
         String token = "invalid-jwt";
         CustomException ex = new CustomException("Expired or invalid JWT token", HttpStatus.INTERNAL_SERVER_ERROR);
         when(jwtTokenProvider.resolveToken(request)).thenReturn(token);
-        when(jwtTokenProvider.validateToken(token)).thenThrow(ex);
+        when(jwtTokenProvider.authenticate(token)).thenThrow(ex);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -79,30 +86,50 @@ class JwtTokenFilterTest {
     }
 
     @Test
-    void validateTokenReturnsFalse_doesNotCallGetAuthentication_andContinuesChain() throws Exception {
-        String token = "invalid-but-not-throwing";
+    void disabledUser_clearsContext_andSendsError() throws Exception {
+        String token = "token-of-disabled-user";
+        CustomException ex = new CustomException("User account is disabled", HttpStatus.UNAUTHORIZED);
         when(jwtTokenProvider.resolveToken(request)).thenReturn(token);
-        when(jwtTokenProvider.validateToken(token)).thenReturn(false);
+        when(jwtTokenProvider.authenticate(token)).thenThrow(ex);
 
         filter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtTokenProvider, never()).getAuthentication(anyString());
         assertNull(SecurityContextHolder.getContext().getAuthentication());
-        verify(filterChain).doFilter(request, response);
+        verify(response).sendError(HttpStatus.UNAUTHORIZED.value(), "User account is disabled");
+        verify(filterChain, never()).doFilter(request, response);
     }
 
     @Test
-    void getAuthenticationThrows_clearsContext_andSendsError() throws Exception {
-        String token = "token-that-passes-validation";
-        CustomException ex = new CustomException("User account is disabled", HttpStatus.UNAUTHORIZED);
-        when(jwtTokenProvider.resolveToken(request)).thenReturn(token);
-        when(jwtTokenProvider.validateToken(token)).thenReturn(true);
-        when(jwtTokenProvider.getAuthentication(token)).thenThrow(ex);
-
-        filter.doFilterInternal(request, response, filterChain);
+    void validToken_isParsedOnce() throws Exception {
+        CustomUserDetailsService customUserDetailsService = mock(CustomUserDetailsService.class);
+        JwtTokenProvider provider = new JwtTokenProvider(customUserDetailsService, new VerifiedTokenCache());
+        ReflectionTestUtils.setField(provider, "secretKey", Base64.getEncoder().encodeToString(new byte[32]));
+        ReflectionTestUtils.setField(provider, "validityInMilliseconds", 3600000L);
+        provider.init();
+        JwtParser jwtParser = spy((JwtParser) ReflectionTestUtils.getField(provider, "jwtParser"));
+        ReflectionTestUtils.setField(provider, "jwtParser", jwtParser);
+
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        User user = new User();
+        user.setEmail("john@test.com");
+        user.setEnabled(true);
+        user.setRole(role);
+        CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
+        when(customUserDetailsService.loadUserByUsername("john@test.com")).thenReturn(userDetail);
+        when(customUserDetailsService.loadUserByPrincipal(userDetail.getPrincipal()))
+                .thenReturn(CustomUserDetail.builder().principal(userDetail.getPrincipal()).build());
+        String token = provider.createToken("john@test.com", List.of(RoleType.ROLE_CLIENT));
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        JwtTokenFilter realFilter = new JwtTokenFilter(provider);
+
+        realFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        realFilter.doFilterInternal(request, response, filterChain);
 
-        assertNull(SecurityContextHolder.getContext().getAuthentication());
-        verify(response).sendError(HttpStatus.UNAUTHORIZED.value(), "User account is disabled");
-        verify(filterChain, never()).doFilter(request, response);
+        verify(jwtParser, times(1)).parseSignedClaims(token);
+        verify(customUserDetailsService, times(1)).loadUserByUsername("john@test.com");
+        verify(filterChain, times(2)).doFilter(request, response);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
     }
 }
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -28,8 +29,7 @@ import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class JwtTokenProviderTest {
@@ -37,6 +37,9 @@ class JwtTokenProviderTest {
     @Mock
     private CustomUserDetailsService customUserDetailsService;
 
+    @Spy
+    private VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+
     @InjectMocks
     private JwtTokenProvider jwtTokenProvider;
 
@@ -73,7 +76,7 @@ class JwtTokenProviderTest {
     }
 
     @Nested
-    class GetAuthentication {
+    class AuthenticateUser {
 
         private User createUserWithRole(String email, boolean enabled) {
             Role role = new Role();
@@ -93,7 +96,7 @@ class JwtTokenProviderTest {
             CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
             when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
 
-            Authentication auth = jwtTokenProvider.getAuthentication(token);
+            Authentication auth = jwtTokenProvider.authenticate(token);
 
             assertNotNull(auth);
             assertEquals(userDetail, auth.getPrincipal());
@@ -109,7 +112,7 @@ class JwtTokenProviderTest {
             when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
 
             CustomException ex = assertThrows(CustomException.class,
-                    () -> jwtTokenProvider.getAuthentication(token));
+                    () -> jwtTokenProvider.authenticate(token));
             assertEquals(HttpStatus.UNAUTHORIZED, ex.getHttpStatus());
             assertEquals("User account is disabled", ex.getMessage());
         }
@@ -124,7 +127,7 @@ class JwtTokenProviderTest {
             when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
 
             CustomException ex = assertThrows(CustomException.class,
-                    () -> jwtTokenProvider.getAuthentication(token));
+                    () -> jwtTokenProvider.authenticate(token));
             assertEquals(HttpStatus.UNAUTHORIZED, ex.getHttpStatus());
             assertEquals("Session has been revoked. Please sign in again", ex.getMessage());
         }
@@ -138,13 +141,113 @@ class JwtTokenProviderTest {
             CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
             when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
 
-            Authentication auth = jwtTokenProvider.getAuthentication(token);
+            Authentication auth = jwtTokenProvider.authenticate(token);
 
             assertNotNull(auth);
             assertTrue(auth.isAuthenticated());
         }
     }
 
+    @Nested
+    class Authenticate {
+
+        private User user(String email) {
+            Role role = new Role();
+            role.setRoleType(RoleType.ROLE_CLIENT);
+            User user = new User();
+            user.setEmail(email);
+            user.setEnabled(true);
+            user.setRole(role);
+            return user;
+        }
+
+        private CustomUserDetail userDetail(String email) {
+            return CustomUserDetail.builder().user(user(email)).build();
+        }
+
+        @Test
+        void repeatedToken_loadsUserOnce() {
+            String username = "cached@test.com";
+            String token = jwtTokenProvider.createToken(username, List.of(RoleType.ROLE_CLIENT));
+            CustomUserDetail userDetail = userDetail(username);
+            when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
+            CustomUserDetail rebuilt = CustomUserDetail.builder().principal(userDetail.getPrincipal()).build();
+            when(customUserDetailsService.loadUserByPrincipal(userDetail.getPrincipal())).thenReturn(rebuilt);
+
+            Authentication first = jwtTokenProvider.authenticate(token);
+            Authentication second = jwtTokenProvider.authenticate(token);
+
+            assertEquals(userDetail, first.getPrincipal());
+            assertEquals(rebuilt, second.getPrincipal());
+            verify(customUserDetailsService, times(1)).loadUserByUsername(username);
+        }
+
+        @Test
+        void cachedToken_onlyKeepsThePrincipal() {
+            String username = "principal@test.com";
+            String token = jwtTokenProvider.createToken(username, List.of(RoleType.ROLE_CLIENT));
+            CustomUserDetail userDetail = userDetail(username);
+            when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
+
+            jwtTokenProvider.authenticate(token);
+
+            assertSame(userDetail.getPrincipal(), verifiedTokenCache.get(token).principal());
+        }
+
+        @Test
+        void evictedSubject_isCheckedAgainstSessionInvalidation() {
+            String username = "evicted@test.com";
+            String token = jwtTokenProvider.createToken(username, List.of(RoleType.ROLE_CLIENT));
+            CustomUserDetail userDetail = userDetail(username);
+            when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
+            jwtTokenProvider.authenticate(token);
+
+            User invalidated = user(username);
+            invalidated.setSessionInvalidatedAt(new Date(System.currentTimeMillis() + 1000));
+            when(customUserDetailsService.loadUserByUsername(username))
+                    .thenReturn(CustomUserDetail.builder().user(invalidated).build());
+            verifiedTokenCache.evictSubject(username);
+
+            CustomException ex = assertThrows(CustomException.class,
+                    () -> jwtTokenProvider.authenticate(token));
+            assertEquals("Session has been revoked. Please sign in again", ex.getMessage());
+        }
+
+        @Test
+        void invalidToken_throwsCustomException_andIsNotCached() {
+            String badToken = "eyJhbGciOiJIUzI1NiJ9.invalid.token";
+
+            CustomException ex = assertThrows(CustomException.class,
+                    () -> jwtTokenProvider.authenticate(badToken));
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
+            assertNull(verifiedTokenCache.get(badToken));
+            verifyNoInteractions(customUserDetailsService);
+        }
+
+        @Test
+        void expiredToken_throwsCustomException() {
+            ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", -1000L);
+            String expiredToken = jwtTokenProvider.createToken("expired@test.com", List.of(RoleType.ROLE_CLIENT));
+
+            CustomException ex = assertThrows(CustomException.class,
+                    () -> jwtTokenProvider.authenticate(expiredToken));
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
+        }
+
+        @Test
+        void disabledUser_isNotCached() {
+            String username = "disabled@test.com";
+            String token = jwtTokenProvider.createToken(username, List.of(RoleType.ROLE_CLIENT));
+            User user = user(username);
+            user.setEnabled(false);
+            when(customUserDetailsService.loadUserByUsername(username))
+                    .thenReturn(CustomUserDetail.builder().user(user).build());
+
+            assertThrows(CustomException.class, () -> jwtTokenProvider.authenticate(token));
+            assertNull(verifiedTokenCache.get(token));
+        }
+    }
+
     @Nested
     class ResolveToken {
 
@@ -214,39 +317,6 @@ class JwtTokenProviderTest {
         }
     }
 
-    @Nested
-    class ValidateToken {
-
-        @Test
-        void validToken_returnsTrue() {
-            String token = jwtTokenProvider.createToken("user@test.com", List.of(RoleType.ROLE_CLIENT));
-
-            boolean result = jwtTokenProvider.validateToken(token);
-
-            assertTrue(result);
-        }
-
-        @Test
-        void invalidToken_throwsCustomException() {
-            String badToken = "eyJhbGciOiJIUzI1NiJ9.invalid.token";
-
-            CustomException ex = assertThrows(CustomException.class,
-                    () -> jwtTokenProvider.validateToken(badToken));
-            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
-        }
-
-        @Test
-        void expiredToken_throwsCustomException() {
-            ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", -1000L);
-            jwtTokenProvider.init();
-            String expiredToken = jwtTokenProvider.createToken("expired@test.com", List.of(RoleType.ROLE_CLIENT));
-
-            CustomException ex = assertThrows(CustomException.class,
-                    () -> jwtTokenProvider.validateToken(expiredToken));
-            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
-        }
-    }
-
     @Nested
     class SignatureValidation {
 
@@ -261,8 +331,9 @@ class JwtTokenProviderTest {
                     .compact();
 
             CustomException ex = assertThrows(CustomException.class,
-                    () -> jwtTokenProvider.validateToken(tamperedToken));
+                    () -> jwtTokenProvider.authenticate(tamperedToken));
             assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
+            verifyNoInteractions(customUserDetailsService);
         }
     }
 
@@ -285,12 +356,12 @@ class JwtTokenProviderTest {
                     () -> jwtTokenProvider.getUsername(expiredToken));
         }
 
-        // NOTE: Inconsistency — validateToken wraps JwtException in CustomException,
-        // but getUsername (and getAuthentication) let raw JJWT exceptions propagate.
+        // NOTE: Inconsistency — authenticate wraps JwtException in CustomException,
+        // but getUsername lets raw JJWT exceptions propagate.
     }
 
     @Nested
-    class GetAuthenticationWithMultipleRoles {
+    class AuthenticateWithMultipleRoles {
 
         @Test
         void tokenWithMultipleRoles_claimContainsAllRoles_butAuthenticationUsesUserRole() {
@@ -318,11 +389,11 @@ class JwtTokenProviderTest {
             CustomUserDetail userDetail = CustomUserDetail.builder().user(user).build();
             when(customUserDetailsService.loadUserByUsername(username)).thenReturn(userDetail);
 
-            Authentication authentication = jwtTokenProvider.getAuthentication(token);
+            Authentication authentication = jwtTokenProvider.authenticate(token);
 
             Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
             assertEquals(1, authorities.size(),
-                    "getAuthentication derives authorities from userDetails, not from the JWT auth claim");
+                    "authenticate derives authorities from userDetails, not from the JWT auth claim");
             assertEquals("ROLE_CLIENT", authorities.iterator().next().getAuthority());
         }
     }
@@ -1,8 +1,8 @@
 package com.grash.security;
 
 import com.grash.model.User;
+import com.grash.service.RateLimitClass;
 import com.grash.service.RateLimiterService;
-import io.github.bucket4j.Bucket;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -30,8 +30,6 @@ class RateLimitFilterTest {
     @Mock
     private ClientIpResolver clientIpResolver;
     @Mock
-    private Bucket bucket;
-    @Mock
     private FilterChain filterChain;
     @Mock
     private HttpServletRequest request;
@@ -53,8 +51,7 @@ class RateLimitFilterTest {
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verify(rateLimiterService, never()).resolveAuthenticatedUserBucket(any());
-        verify(rateLimiterService, never()).resolveUnAuthenticatedUserBucket(any());
+        verify(rateLimiterService, never()).tryConsume(any(), any());
     }
 
     @Test
@@ -62,15 +59,14 @@ class RateLimitFilterTest {
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
         SecurityContextHolder.getContext().setAuthentication(null);
         when(clientIpResolver.resolve(request)).thenReturn("10.0.0.1");
-        when(rateLimiterService.resolveUnAuthenticatedUserBucket("10.0.0.1")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1")).thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verify(rateLimiterService, never()).resolveAuthenticatedUserBucket(any());
+        verify(rateLimiterService, never()).tryConsume(eq(RateLimitClass.AUTHENTICATED), any());
         verify(clientIpResolver).resolve(request);
-        verify(rateLimiterService).resolveUnAuthenticatedUserBucket("10.0.0.1");
+        verify(rateLimiterService).tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1");
     }
 
     @Test
@@ -80,15 +76,14 @@ class RateLimitFilterTest {
         SecurityContextHolder.getContext().setAuthentication(auth);
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
         when(clientIpResolver.resolve(request)).thenReturn("11.11.11.11");
-        when(rateLimiterService.resolveUnAuthenticatedUserBucket("11.11.11.11")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "11.11.11.11")).thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verify(rateLimiterService, never()).resolveAuthenticatedUserBucket(any());
+        verify(rateLimiterService, never()).tryConsume(eq(RateLimitClass.AUTHENTICATED), any());
         verify(clientIpResolver).resolve(request);
-        verify(rateLimiterService).resolveUnAuthenticatedUserBucket("11.11.11.11");
+        verify(rateLimiterService).tryConsume(RateLimitClass.UNAUTHENTICATED, "11.11.11.11");
     }
 
     @Test
@@ -99,15 +94,14 @@ class RateLimitFilterTest {
         SecurityContextHolder.getContext().setAuthentication(auth);
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
         when(clientIpResolver.resolve(request)).thenReturn("192.168.1.1");
-        when(rateLimiterService.resolveUnAuthenticatedUserBucket("192.168.1.1")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "192.168.1.1")).thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verify(rateLimiterService, never()).resolveAuthenticatedUserBucket(any());
+        verify(rateLimiterService, never()).tryConsume(eq(RateLimitClass.AUTHENTICATED), any());
         verify(clientIpResolver).resolve(request);
-        verify(rateLimiterService).resolveUnAuthenticatedUserBucket("192.168.1.1");
+        verify(rateLimiterService).tryConsume(RateLimitClass.UNAUTHENTICATED, "192.168.1.1");
     }
 
     @Test
@@ -115,8 +109,7 @@ class RateLimitFilterTest {
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
         SecurityContextHolder.getContext().setAuthentication(null);
         when(clientIpResolver.resolve(request)).thenReturn("10.0.0.1");
-        when(rateLimiterService.resolveUnAuthenticatedUserBucket("10.0.0.1")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(false);
+        when(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1")).thenReturn(false);
 
         StringWriter stringWriter = new StringWriter();
         PrintWriter printWriter = new PrintWriter(stringWriter);
@@ -143,8 +136,7 @@ class RateLimitFilterTest {
         SecurityContextHolder.getContext().setAuthentication(auth);
 
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
-        when(rateLimiterService.resolveAuthenticatedUserBucket("user:1")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiterService.tryConsume(RateLimitClass.AUTHENTICATED, "user:1")).thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -167,8 +159,7 @@ class RateLimitFilterTest {
         when(response.getWriter()).thenReturn(printWriter);
 
         when(rateLimiterService.isRateLimitEnabled()).thenReturn(true);
-        when(rateLimiterService.resolveAuthenticatedUserBucket("user:1")).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(false);
+        when(rateLimiterService.tryConsume(RateLimitClass.AUTHENTICATED, "user:1")).thenReturn(false);
 
         filter.doFilterInternal(request, response, filterChain);
 
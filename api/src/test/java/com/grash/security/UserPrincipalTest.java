@@ -0,0 +1,89 @@
+package com.grash.security;
+
+import com.grash.model.Company;
+import com.grash.model.Role;
+import com.grash.model.SuperAccountRelation;
+import com.grash.model.User;
+import com.grash.model.enums.PermissionEntity;
+import com.grash.model.enums.PlanFeatures;
+import com.grash.model.enums.RoleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPrincipalTest {
+
+    @Test
+    void fromRow_mapsAggregatedColumns() {
+        Object[] row = {1L, "john@test.com", true, 1700000000000L, 2L, 3L, 4, (short) 1,
+                "0,3", "3", null, "", "1", "0,4", "7,8"};
+
+        UserPrincipal principal = UserPrincipal.fromRow(row);
+
+        assertEquals(1L, principal.id());
+        assertEquals("john@test.com", principal.email());
+        assertTrue(principal.enabled());
+        assertEquals(1700000000000L, principal.sessionInvalidatedAt());
+        assertEquals(2L, principal.companyId());
+        assertEquals(3L, principal.companySettingsId());
+        assertEquals(4L, principal.roleId());
+        assertEquals(RoleType.ROLE_CLIENT, principal.roleType());
+        assertEquals(Set.of(PermissionEntity.PEOPLE_AND_TEAMS, PermissionEntity.WORK_ORDERS),
+                principal.createPermissions());
+        assertEquals(Set.of(PermissionEntity.WORK_ORDERS), principal.viewPermissions());
+        assertTrue(principal.viewOtherPermissions().isEmpty());
+        assertTrue(principal.editOtherPermissions().isEmpty());
+        assertEquals(Set.of(PermissionEntity.CATEGORIES), principal.deleteOtherPermissions());
+        assertEquals(Set.of(PlanFeatures.PREVENTIVE_MAINTENANCE, PlanFeatures.METER), principal.planFeatures());
+        assertEquals(Set.of(7L, 8L), principal.childCompanyIds());
+    }
+
+    @Test
+    void of_copiesEntityState() {
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        role.getViewPermissions().add(PermissionEntity.ASSETS);
+        Company company = new Company();
+        company.setId(2L);
+        Company childCompany = new Company();
+        childCompany.setId(9L);
+        User child = new User();
+        child.setCompany(childCompany);
+        SuperAccountRelation relation = new SuperAccountRelation();
+        relation.setChildUser(child);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("john@test.com");
+        user.setEnabled(true);
+        user.setSessionInvalidatedAt(new Date(1000));
+        user.setRole(role);
+        user.setCompany(company);
+        user.setSuperAccountRelations(List.of(relation));
+
+        UserPrincipal principal = UserPrincipal.of(user);
+        role.getViewPermissions().add(PermissionEntity.PARTS_AND_MULTIPARTS);
+
+        assertEquals(Set.of(PermissionEntity.ASSETS), principal.viewPermissions());
+        assertEquals(1000L, principal.sessionInvalidatedAt());
+        assertEquals(Set.of(9L), principal.childCompanyIds());
+        assertThrows(UnsupportedOperationException.class,
+                () -> principal.viewPermissions().add(PermissionEntity.METERS));
+    }
+
+    @Test
+    void canAccessCompany_ownChildOrSuperAdmin() {
+        UserPrincipal client = new UserPrincipal(1L, "a@test.com", true, null, 2L, null, null,
+                RoleType.ROLE_CLIENT, null, null, null, null, null, null, Set.of(9L));
+        UserPrincipal superAdmin = new UserPrincipal(3L, "b@test.com", true, null, 5L, null, null,
+                RoleType.ROLE_SUPER_ADMIN, null, null, null, null, null, null, null);
+
+        assertTrue(client.canAccessCompany(2L));
+        assertTrue(client.canAccessCompany(9L));
+        assertFalse(client.canAccessCompany(3L));
+        assertTrue(superAdmin.canAccessCompany(3L));
+    }
+}
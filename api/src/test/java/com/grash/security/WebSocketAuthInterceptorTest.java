@@ -39,7 +39,7 @@ class WebSocketAuthInterceptorTest {
         accessor.setNativeHeader("token", "valid-jwt");
         Message<?> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
         Authentication auth = mock(Authentication.class);
-        when(jwtTokenProvider.getAuthentication("valid-jwt")).thenReturn(auth);
+        when(jwtTokenProvider.authenticate("valid-jwt")).thenReturn(auth);
 
         interceptor.preSend(message, channel);
 
@@ -55,7 +55,7 @@ class WebSocketAuthInterceptorTest {
         interceptor.preSend(message, channel);
 
         assertNull(accessor.getUser());
-        verify(jwtTokenProvider, never()).getAuthentication(anyString());
+        verify(jwtTokenProvider, never()).authenticate(anyString());
     }
 
     @Test
@@ -68,6 +68,6 @@ class WebSocketAuthInterceptorTest {
         interceptor.preSend(message, channel);
 
         assertNull(accessor.getUser());
-        verify(jwtTokenProvider, never()).getAuthentication(anyString());
+        verify(jwtTokenProvider, never()).authenticate(anyString());
     }
 }
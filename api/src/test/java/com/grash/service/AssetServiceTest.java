@@ -13,7 +13,6 @@ import com.grash.model.enums.*;
 import com.grash.model.enums.webhook.WebhookEvent;
 import com.grash.repository.AssetRepository;
 import com.grash.utils.Consts;
-import io.github.bucket4j.Bucket;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -864,17 +863,9 @@ class AssetServiceTest {
     @Nested
     class FindMiniPublic {
 
-        private Bucket bucket;
-
-        @BeforeEach
-        void initBucket() {
-            bucket = mock(Bucket.class);
-            when(rateLimiterService.resolvePublicMiniBucket("1.2.3.4")).thenReturn(bucket);
-        }
-
         @Test
         void rateLimitExceeded_throwsTooManyRequests() {
-            when(bucket.tryConsume(1)).thenReturn(false);
+            when(rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, "1.2.3.4")).thenReturn(false);
 
             CustomException ex = assertThrows(CustomException.class,
                     () -> assetService.findMiniPublic("uuid", null, "1.2.3.4"));
@@ -884,7 +875,7 @@ class AssetServiceTest {
 
         @Test
         void portalWithAssetField_throwsForbidden() {
-            when(bucket.tryConsume(1)).thenReturn(true);
+            when(rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, "1.2.3.4")).thenReturn(true);
             RequestPortal portal = new RequestPortal();
             portal.setCompany(company);
             RequestPortalField field = new RequestPortalField();
@@ -901,7 +892,7 @@ class AssetServiceTest {
 
         @Test
         void withoutLocation_returnsCompanyAssets() {
-            when(bucket.tryConsume(1)).thenReturn(true);
+            when(rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, "1.2.3.4")).thenReturn(true);
             RequestPortal portal = new RequestPortal();
             portal.setCompany(company);
             when(requestPortalService.findByUuidByUser("uuid")).thenReturn(Optional.of(portal));
@@ -915,7 +906,7 @@ class AssetServiceTest {
 
         @Test
         void withLocation_returnsLocationAssets() {
-            when(bucket.tryConsume(1)).thenReturn(true);
+            when(rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, "1.2.3.4")).thenReturn(true);
             RequestPortal portal = new RequestPortal();
             portal.setCompany(company);
             when(requestPortalService.findByUuidByUser("uuid")).thenReturn(Optional.of(portal));
@@ -0,0 +1,138 @@
+package com.grash.service;
+
+import com.grash.advancedsearch.SearchCriteria;
+import com.grash.dto.ReportConfig;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.Company;
+import com.grash.model.Subscription;
+import com.grash.model.User;
+import com.grash.model.WorkOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncReportExportServiceTest {
+
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private StorageServiceFactory storageServiceFactory;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AsyncReportExportService asyncReportExportService;
+    private User user;
+    private final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        asyncReportExportService = new AsyncReportExportService(workOrderService, userService, storageServiceFactory,
+                messagingTemplate, new TaskExecutorAdapter(Runnable::run),
+                new ReportRenderService(new SimpleMeterRegistry(), 1, 0, 1), transactionManager);
+        ReflectionTestUtils.setField(asyncReportExportService, "maxWorkOrders", 10);
+        ReflectionTestUtils.setField(asyncReportExportService, "parallelism", 2);
+
+        Company company = new Company("TestCo", 10, Subscription.builder().id(1L).build());
+        company.setId(1L);
+        user = new User();
+        user.setId(7L);
+        user.setEmail("auditor@example.com");
+        user.setCompany(company);
+
+        lenient().when(storageServiceFactory.getStorageService()).thenReturn(storageService);
+        lenient().when(storageService.upload(anyString(), anyString(), eq("application/zip"), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    StorageService.ContentWriter writer = invocation.getArgument(4);
+                    writer.write(archive);
+                    return "1/exports/uuid/work-order-reports/Work Order Reports.zip";
+                });
+        lenient().when(storageService.generateSignedUrl(anyString(), anyLong())).thenReturn("https://signed");
+    }
+
+    private WorkOrder workOrder(Long id, String customId, boolean viewable) {
+        WorkOrder workOrder = spy(new WorkOrder());
+        workOrder.setId(id);
+        workOrder.setCustomId(customId);
+        lenient().doReturn(viewable).when(workOrder).canBeViewedBy(user);
+        return workOrder;
+    }
+
+    private Map<String, String> readArchive() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void export_writesOneEntryPerReportInSearchOrderAndListsFailures() throws IOException {
+        WorkOrder first = workOrder(1L, "WO1", true);
+        WorkOrder hidden = workOrder(2L, "WO2", false);
+        WorkOrder third = workOrder(3L, "WO1", true);
+        when(workOrderService.findBySearchCriteria(any())).thenReturn(
+                new PageImpl<>(List.of(first, hidden, third), PageRequest.of(0, 100), 3));
+        when(userService.findById(7L)).thenReturn(Optional.of(user));
+        when(workOrderService.findById(anyLong())).thenAnswer(invocation -> Optional.of(
+                Map.of(1L, first, 2L, hidden, 3L, third).get(invocation.<Long>getArgument(0))));
+        doAnswer(invocation -> {
+            WorkOrder workOrder = invocation.getArgument(0);
+            OutputStream outputStream = invocation.getArgument(3);
+            outputStream.write(("pdf " + workOrder.getId()).getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(workOrderService).generatePdfStream(any(WorkOrder.class), eq(user), any(ReportConfig.class), any());
+
+        asyncReportExportService.exportWorkOrderReports(user, new SearchCriteria(), null, "uuid");
+
+        Map<String, String> entries = readArchive();
+        assertEquals(List.of("WO1.pdf", "WO1 (3).pdf", AsyncReportExportService.ERRORS_ENTRY),
+                new ArrayList<>(entries.keySet()));
+        assertEquals("pdf 1", entries.get("WO1.pdf"));
+        assertTrue(entries.get(AsyncReportExportService.ERRORS_ENTRY).contains("Work order 2"));
+        verify(messagingTemplate).convertAndSendToUser(user.getEmail(), "/exports/uuid", "https://signed");
+    }
+
+    @Test
+    void export_failsWhenTooManyWorkOrdersMatch() {
+        when(workOrderService.findBySearchCriteria(any())).thenReturn(
+                new PageImpl<>(List.of(new WorkOrder()), PageRequest.of(0, 100), 11));
+
+        asyncReportExportService.exportWorkOrderReports(user, new SearchCriteria(), new ReportConfig(), "uuid");
+
+        verify(messagingTemplate).convertAndSendToUser(eq(user.getEmail()), eq("/exports/uuid"),
+                startsWith("error: "));
+        verifyNoInteractions(storageService);
+    }
+}
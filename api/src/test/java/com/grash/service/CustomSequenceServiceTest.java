@@ -0,0 +1,110 @@
+package com.grash.service;
+
+import com.grash.model.Company;
+import com.grash.model.CustomSequence;
+import com.grash.model.enums.CustomSequenceType;
+import com.grash.repository.CustomSequenceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomSequenceServiceTest {
+
+    @Mock
+    private CustomSequenceRepository customSequenceRepository;
+    @Mock
+    private EntityManager em;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private Query query;
+
+    private CustomSequenceService customSequenceService;
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        customSequenceService = new CustomSequenceService(customSequenceRepository, em, transactionManager);
+        ReflectionTestUtils.setField(customSequenceService, "blockSize", 10);
+        company = new Company();
+        company.setId(7L);
+        lenient().when(em.createNativeQuery(anyString())).thenReturn(query);
+        lenient().when(query.setParameter(anyString(), any())).thenReturn(query);
+    }
+
+    @Test
+    void next_reservesABlockOnceAndServesFromMemory() {
+        when(query.getResultList()).thenReturn(List.of(11L));
+
+        assertEquals(1L, customSequenceService.getNextWorkOrderSequence(company));
+        assertEquals(2L, customSequenceService.getNextWorkOrderSequence(company));
+        assertEquals(3L, customSequenceService.getNextWorkOrderSequence(company));
+
+        verify(em, times(1)).createNativeQuery(
+                "UPDATE custom_sequence SET work_order_sequence = work_order_sequence + :count " +
+                        "WHERE company_id = :companyId RETURNING work_order_sequence");
+        verify(query).setParameter("count", 10);
+        verify(query).setParameter("companyId", 7L);
+    }
+
+    @Test
+    void nextN_drainsTheBlockThenReservesTheRestInOneRoundTrip() {
+        when(query.getResultList()).thenReturn(List.of(11L), List.of(36L));
+        customSequenceService.next(company, CustomSequenceType.ASSET);
+
+        List<Long> numbers = customSequenceService.nextN(company, CustomSequenceType.ASSET, 34);
+
+        assertEquals(34, numbers.size());
+        assertEquals(2L, numbers.get(0));
+        assertEquals(10L, numbers.get(8));
+        assertEquals(11L, numbers.get(9));
+        assertEquals(35L, numbers.get(33));
+        verify(query).setParameter("count", 25);
+    }
+
+    @Test
+    void sequencesAreSeparatedByType() {
+        when(query.getResultList()).thenReturn(List.of(11L), List.of(41L));
+
+        assertEquals(1L, customSequenceService.next(company, CustomSequenceType.WORK_ORDER));
+        assertEquals(31L, customSequenceService.next(company, CustomSequenceType.REQUEST));
+    }
+
+    @Test
+    void missingRow_isCreatedThenAllocated() {
+        when(query.getResultList()).thenReturn(List.of(), List.of(11L));
+
+        assertEquals(1L, customSequenceService.next(company, CustomSequenceType.LOCATION));
+
+        verify(customSequenceRepository).saveAndFlush(any(CustomSequence.class));
+    }
+
+    @Test
+    void rowCreatedConcurrently_isReused() {
+        when(query.getResultList()).thenReturn(List.of(), List.of(11L));
+        when(customSequenceRepository.saveAndFlush(any(CustomSequence.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_custom_sequence_company"));
+
+        assertEquals(1L, customSequenceService.next(company, CustomSequenceType.PREVENTIVE_MAINTENANCE));
+    }
+
+    @Test
+    void format_padsWithPrefix() {
+        assertEquals("WO000042", CustomSequenceType.WORK_ORDER.format(42));
+        assertEquals("PM000001", CustomSequenceType.PREVENTIVE_MAINTENANCE.format(1));
+    }
+}
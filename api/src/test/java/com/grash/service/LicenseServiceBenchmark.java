@@ -0,0 +1,69 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.license.LicenseEntitlement;
+import com.grash.dto.license.LicensingState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LicenseService#hasEntitlement(LicenseEntitlement)} with 16 threads asking at once, as
+ * webhook dispatch and the PM/meter services do under load. {@code synchronizedRead} funnels the same lookup
+ * through one monitor, like the former {@code synchronized getLicensingState()}, and {@code snapshotRead} is the
+ * lock-free path. The license check itself is stubbed.
+ * <p>
+ * Not run by surefire; start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class LicenseServiceBenchmark {
+
+    private LicenseService licenseService;
+    private final Object monitor = new Object();
+
+    @Setup
+    public void setUp() {
+        LicensingState state = LicensingState.builder()
+                .hasLicense(true)
+                .valid(true)
+                .entitlements(Set.of("SSO", "WEBHOOK", "CONDITION_BASED_PM", "PM_CALENDAR"))
+                .build();
+        LicenseService.LicenseSnapshot snapshot =
+                LicenseService.LicenseSnapshot.of(state, Long.MAX_VALUE, Long.MAX_VALUE);
+        licenseService = new LicenseService(new ObjectMapper(), null) {
+            @Override
+            LicenseSnapshot loadSnapshot() {
+                return snapshot;
+            }
+        };
+        licenseService.hasEntitlement(LicenseEntitlement.SSO);
+    }
+
+    @Benchmark
+    public boolean synchronizedRead() {
+        synchronized (monitor) {
+            return licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK);
+        }
+    }
+
+    @Benchmark
+    public boolean snapshotRead() {
+        return licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LicenseServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.license.LicenseEntitlement;
+import com.grash.dto.license.LicensingState;
+import com.grash.repository.KeygenRequestTrackerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LicenseServiceTest {
+
+    @Mock
+    private KeygenRequestTrackerRepository keygenRequestTrackerRepository;
+
+    private LicenseService licenseService;
+    private final List<Runnable> scheduledRefreshes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        licenseService = spy(new LicenseService(new ObjectMapper(), keygenRequestTrackerRepository));
+        ReflectionTestUtils.setField(licenseService, "refreshExecutor", (TaskExecutor) scheduledRefreshes::add);
+    }
+
+    private static LicenseService.LicenseSnapshot validSnapshot(long validUntil, long refreshAt, String... codes) {
+        LicensingState state = LicensingState.builder()
+                .hasLicense(true)
+                .valid(true)
+                .entitlements(Set.of(codes))
+                .usersCount(10)
+                .build();
+        return LicenseService.LicenseSnapshot.of(state, validUntil, refreshAt);
+    }
+
+    @Test
+    void noLicenseConfigured_isInvalidWithoutKeygenCalls() {
+        assertFalse(licenseService.getLicensingState().isHasLicense());
+        assertFalse(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        verifyNoInteractions(keygenRequestTrackerRepository);
+    }
+
+    @Test
+    void freshSnapshot_isLoadedOnceAndGrantsOnlyKnownEntitlements() {
+        doReturn(validSnapshot(Long.MAX_VALUE, Long.MAX_VALUE, "SSO", "WEBHOOK", "RETIRED_FEATURE"))
+                .when(licenseService).loadSnapshot();
+
+        assertTrue(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        assertTrue(licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK));
+        assertFalse(licenseService.hasEntitlement(LicenseEntitlement.WORKFLOW));
+        assertEquals(10, licenseService.getLicensingState().getUsersCount());
+
+        verify(licenseService, times(1)).loadSnapshot();
+        assertTrue(scheduledRefreshes.isEmpty());
+    }
+
+    @Test
+    void expiredLicenseFile_turnsInvalidWithoutReload() {
+        doReturn(validSnapshot(System.currentTimeMillis() - 1, Long.MAX_VALUE, "SSO"))
+                .when(licenseService).loadSnapshot();
+
+        assertFalse(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        LicensingState state = licenseService.getLicensingState();
+        assertTrue(state.isHasLicense());
+        assertFalse(state.isValid());
+        verify(licenseService, times(1)).loadSnapshot();
+    }
+
+    @Test
+    void staleSnapshot_isServedWhileASingleRefreshRuns() {
+        doReturn(validSnapshot(Long.MAX_VALUE, 0, "SSO"))
+                .doReturn(validSnapshot(Long.MAX_VALUE, Long.MAX_VALUE, "WEBHOOK"))
+                .when(licenseService).loadSnapshot();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        }
+        assertEquals(1, scheduledRefreshes.size());
+
+        scheduledRefreshes.get(0).run();
+
+        assertFalse(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        assertTrue(licenseService.hasEntitlement(LicenseEntitlement.WEBHOOK));
+        assertEquals(1, scheduledRefreshes.size());
+    }
+
+    @Test
+    void failedRefresh_keepsPreviousSnapshotAndAllowsRetry() {
+        doReturn(validSnapshot(Long.MAX_VALUE, 0, "SSO"))
+                .doThrow(new IllegalStateException("boom"))
+                .when(licenseService).loadSnapshot();
+
+        licenseService.hasEntitlement(LicenseEntitlement.SSO);
+        scheduledRefreshes.get(0).run();
+
+        assertTrue(licenseService.hasEntitlement(LicenseEntitlement.SSO));
+        assertEquals(2, scheduledRefreshes.size());
+    }
+}
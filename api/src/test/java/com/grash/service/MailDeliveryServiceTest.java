@@ -0,0 +1,149 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.RenderedMailDTO;
+import com.grash.factory.MailServiceFactory;
+import com.grash.model.MailOutbox;
+import com.grash.model.enums.MailOutboxStatus;
+import com.grash.repository.MailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailDeliveryServiceTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+    @Mock
+    private MailServiceFactory mailServiceFactory;
+    @Mock
+    private MailService mailService;
+    @Mock
+    private MailTemplateService mailTemplateService;
+
+    private MailDeliveryService mailDeliveryService;
+
+    @BeforeEach
+    void setUp() {
+        mailDeliveryService = new MailDeliveryService(mailOutboxRepository, mailServiceFactory, mailTemplateService,
+                new ObjectMapper());
+        lenient().when(mailServiceFactory.getMailService()).thenReturn(mailService);
+    }
+
+    private static MailOutbox mail(long id, String template, String variables) {
+        MailOutbox mail = new MailOutbox();
+        mail.setId(id);
+        mail.setRecipients("[\"user" + id + "@example.com\"]");
+        mail.setSubject("Subject");
+        mail.setTemplate(template);
+        mail.setLocale("en");
+        mail.setVariables(variables);
+        mail.setNextAttemptAt(new Date());
+        mail.setCreatedAt(new Date());
+        return mail;
+    }
+
+    private void lease(MailOutbox... mails) {
+        when(mailOutboxRepository.lease(anyString(), any(), any(), eq(MailDeliveryService.BATCH_SIZE)))
+                .thenReturn(mails.length);
+        when(mailOutboxRepository.findByLeaseTokenOrderById(anyString())).thenReturn(List.of(mails));
+    }
+
+    @Test
+    void sendBatch_nothingLeased_sendsNothing() {
+        when(mailOutboxRepository.lease(anyString(), any(), any(), anyInt())).thenReturn(0);
+
+        assertEquals(0, mailDeliveryService.sendBatch());
+
+        verifyNoInteractions(mailServiceFactory, mailTemplateService);
+    }
+
+    @Test
+    void sendBatch_rendersIdenticalContentOnceAndDeletesSentMails() {
+        lease(mail(1, "new-user.html", "{\"name\":\"a\"}"), mail(2, "new-user.html", "{\"name\":\"a\"}"),
+                mail(3, "new-user.html", "{\"name\":\"b\"}"));
+        when(mailTemplateService.render(eq("new-user.html"), eq(Locale.ENGLISH), anyMap())).thenReturn("<p>hi</p>");
+        when(mailService.sendRendered(anyList())).thenReturn(Map.of());
+
+        assertEquals(3, mailDeliveryService.sendBatch());
+
+        verify(mailTemplateService, times(2)).render(anyString(), any(), anyMap());
+        ArgumentCaptor<List<RenderedMailDTO>> sent = ArgumentCaptor.forClass(List.class);
+        verify(mailService).sendRendered(sent.capture());
+        assertEquals(3, sent.getValue().size());
+        assertArrayEquals(new String[]{"user1@example.com"}, sent.getValue().get(0).getTo());
+        verify(mailOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(mailOutboxRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void sendBatch_failedMailIsRetriedWithBackoffAndTheOthersDeleted() {
+        MailOutbox failing = mail(1, "new-user.html", "{}");
+        lease(failing, mail(2, "new-user.html", "{}"));
+        when(mailTemplateService.render(anyString(), any(), anyMap())).thenReturn("<p>hi</p>");
+        when(mailService.sendRendered(anyList())).thenReturn(Map.of(1L, "Invalid address"));
+        long before = System.currentTimeMillis();
+
+        mailDeliveryService.sendBatch();
+
+        assertEquals(1, failing.getAttempts());
+        assertEquals(MailOutboxStatus.PENDING, failing.getStatus());
+        assertEquals("Invalid address", failing.getLastError());
+        assertNull(failing.getLeaseToken());
+        assertTrue(failing.getNextAttemptAt().getTime() >= before + MailDeliveryService.BASE_BACKOFF_MILLIS);
+        verify(mailOutboxRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(mailOutboxRepository).saveAll(List.of(failing));
+    }
+
+    @Test
+    void sendBatch_sendErrorFailsTheWholeBatchAndTheLastAttemptMarksItFailed() {
+        MailOutbox lastAttempt = mail(1, "new-user.html", "{}");
+        lastAttempt.setAttempts(MailDeliveryService.MAX_ATTEMPTS - 1);
+        MailOutbox firstAttempt = mail(2, "new-user.html", "{}");
+        lease(lastAttempt, firstAttempt);
+        when(mailTemplateService.render(anyString(), any(), anyMap())).thenReturn("<p>hi</p>");
+        when(mailService.sendRendered(anyList())).thenThrow(new MailSendException("Connection refused"));
+
+        mailDeliveryService.sendBatch();
+
+        assertEquals(MailOutboxStatus.FAILED, lastAttempt.getStatus());
+        assertEquals(MailOutboxStatus.PENDING, firstAttempt.getStatus());
+        assertEquals(1, firstAttempt.getAttempts());
+        verify(mailOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(mailOutboxRepository).saveAll(List.of(lastAttempt, firstAttempt));
+    }
+
+    @Test
+    void sendBatch_mailThatCannotBeRenderedFailsWithoutRetry() {
+        MailOutbox broken = mail(1, "missing.html", "{}");
+        lease(broken);
+        when(mailTemplateService.render(eq("missing.html"), any(), anyMap()))
+                .thenThrow(new IllegalArgumentException("Template not found"));
+
+        mailDeliveryService.sendBatch();
+
+        assertEquals(MailOutboxStatus.FAILED, broken.getStatus());
+        assertEquals(1, broken.getAttempts());
+        verify(mailService, never()).sendRendered(any());
+        verify(mailOutboxRepository).saveAll(List.of(broken));
+    }
+
+    @Test
+    void backoff_isCapped() {
+        long backoff = MailDeliveryService.getBackoffMillis(30);
+
+        assertTrue(backoff >= MailDeliveryService.MAX_BACKOFF_MILLIS);
+        assertTrue(backoff <= MailDeliveryService.MAX_BACKOFF_MILLIS * 6 / 5 + 1);
+    }
+}
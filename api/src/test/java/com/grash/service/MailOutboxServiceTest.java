@@ -0,0 +1,67 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.event.MailEnqueuedEvent;
+import com.grash.model.MailOutbox;
+import com.grash.repository.MailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxServiceTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private MailOutboxService mailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxService = new MailOutboxService(mailOutboxRepository, new ObjectMapper(), applicationEventPublisher);
+    }
+
+    @Test
+    void enqueue_savesTheMailAndPublishesTheEvent() {
+        mailOutboxService.enqueue(new String[]{"a@test.com", null, "a@test.com"}, "Subject", Map.of("name", "A"),
+                "welcome.html", Locale.FRENCH, null);
+
+        ArgumentCaptor<MailOutbox> captor = ArgumentCaptor.forClass(MailOutbox.class);
+        verify(mailOutboxRepository).save(captor.capture());
+        assertEquals("[\"a@test.com\"]", captor.getValue().getRecipients());
+        assertEquals("fr", captor.getValue().getLocale());
+        verify(applicationEventPublisher).publishEvent(any(MailEnqueuedEvent.class));
+    }
+
+    @Test
+    void enqueue_failedSave_isThrownToTheCaller() {
+        when(mailOutboxRepository.save(any(MailOutbox.class)))
+                .thenThrow(new DataIntegrityViolationException("subject too long"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> mailOutboxService.enqueue(
+                new String[]{"a@test.com"}, "Subject", Map.of(), "welcome.html", null, null));
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    void enqueue_withoutRecipients_doesNothing() {
+        mailOutboxService.enqueue(new String[]{null}, "Subject", Map.of(), "welcome.html", null, null);
+
+        verifyNoInteractions(mailOutboxRepository, applicationEventPublisher);
+    }
+}
@@ -0,0 +1,81 @@
+package com.grash.service;
+
+import com.grash.exception.CustomException;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MinioServiceTest {
+
+    private static final int CONTENT_SIZE = 8 * 1024 * 1024;
+
+    @Mock
+    private MinioClient minioClient;
+
+    private MinioService minioService;
+
+    @BeforeEach
+    void setUp() {
+        minioService = new MinioService(new SimpleAsyncTaskExecutor("storage-upload-"));
+        ReflectionTestUtils.setField(minioService, "minioClient", minioClient);
+        ReflectionTestUtils.setField(minioService, "minioBucket", "bucket");
+        ReflectionTestUtils.setField(MinioService.class, "configured", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(MinioService.class, "configured", false);
+    }
+
+    private static void writeContent(OutputStream outputStream) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        for (int written = 0; written < CONTENT_SIZE; written += chunk.length) {
+            outputStream.write(chunk);
+        }
+    }
+
+    @Test
+    void upload_streamsTheWrittenContent() throws Exception {
+        AtomicLong received = new AtomicLong();
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            received.set(args.stream().readAllBytes().length);
+            return null;
+        });
+
+        String filePath = minioService.upload("report.pdf", "reports", "application/pdf", null,
+                MinioServiceTest::writeContent);
+
+        assertTrue(filePath.startsWith("reports/"));
+        assertEquals(CONTENT_SIZE, received.get());
+    }
+
+    @Test
+    void upload_failingPutObject_failsTheUploadInsteadOfBlockingTheWriter() throws Exception {
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenThrow(new IOException("Connection reset"));
+
+        CustomException ex = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(CustomException.class, () -> minioService.upload("report.pdf", "reports",
+                        "application/pdf", null, MinioServiceTest::writeContent)));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getHttpStatus());
+    }
+}
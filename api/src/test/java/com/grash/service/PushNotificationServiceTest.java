@@ -0,0 +1,143 @@
+package com.grash.service;
+
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import io.github.jav.exposerversdk.ExpoPushReceipt;
+import io.github.jav.exposerversdk.ExpoPushTicket;
+import io.github.jav.exposerversdk.PushClient;
+import io.github.jav.exposerversdk.enums.ReceiptError;
+import io.github.jav.exposerversdk.enums.Status;
+import io.github.jav.exposerversdk.enums.TicketError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PushNotificationServiceTest {
+
+    private static final String TOKEN_1 = "ExponentPushToken[one]";
+    private static final String TOKEN_2 = "ExponentPushToken[two]";
+
+    @Mock
+    private PushNotificationTokenService pushNotificationTokenService;
+    @Mock
+    private PushClient pushClient;
+    @Mock
+    private TaskScheduler pushScheduler;
+
+    private PushNotificationService pushNotificationService;
+
+    @BeforeEach
+    void setUp() {
+        pushNotificationService = new PushNotificationService(pushNotificationTokenService, pushClient, pushScheduler,
+                new TaskExecutorAdapter(Runnable::run), 2000, 15);
+    }
+
+    @Test
+    void notificationsOfAWindow_areCoalescedPerUserAndTheirTokensLoadedOnce() throws Exception {
+        when(pushNotificationTokenService.findTokensByUsers(Set.of(1L, 2L, 3L)))
+                .thenReturn(Map.of(1L, TOKEN_1, 2L, TOKEN_2, 3L, "not-an-expo-token"));
+        when(pushClient.chunkPushNotifications(any())).thenAnswer(invocation -> List.of(invocation.getArgument(0)));
+        when(pushClient.sendPushNotificationsAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        pushNotificationService.send(List.of(1L, 2L, 3L), "Title", "First", Map.of("id", 5L));
+        pushNotificationService.send(List.of(1L), "Title", "Second", Map.of("id", 6L));
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(pushScheduler, times(1)).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+
+        ArgumentCaptor<List<ExpoPushMessage>> chunk = ArgumentCaptor.forClass(List.class);
+        verify(pushClient).sendPushNotificationsAsync(chunk.capture());
+        Map<String, ExpoPushMessage> messagesByToken = new HashMap<>();
+        chunk.getValue().forEach(message -> message.getTo().forEach(token -> messagesByToken.put(token, message)));
+        assertEquals(Set.of(TOKEN_1, TOKEN_2), messagesByToken.keySet());
+        assertEquals("First\nSecond", messagesByToken.get(TOKEN_1).getBody());
+        assertEquals(6L, messagesByToken.get(TOKEN_1).getData().get("id"));
+        assertEquals("First", messagesByToken.get(TOKEN_2).getBody());
+        verify(pushNotificationTokenService, times(1)).findTokensByUsers(any());
+    }
+
+    @Test
+    void usersGettingTheSameNotification_shareOneMessage() throws Exception {
+        when(pushNotificationTokenService.findTokensByUsers(Set.of(1L, 2L)))
+                .thenReturn(Map.of(1L, TOKEN_1, 2L, TOKEN_2));
+        when(pushClient.chunkPushNotifications(any())).thenAnswer(invocation -> List.of(invocation.getArgument(0)));
+        when(pushClient.sendPushNotificationsAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        pushNotificationService.send(List.of(1L, 2L), "Title", "Body", Map.of());
+        pushNotificationService.flush();
+
+        ArgumentCaptor<List<ExpoPushMessage>> chunk = ArgumentCaptor.forClass(List.class);
+        verify(pushClient).sendPushNotificationsAsync(chunk.capture());
+        assertEquals(1, chunk.getValue().size());
+        assertEquals(Set.of(TOKEN_1, TOKEN_2), new HashSet<>(chunk.getValue().get(0).getTo()));
+    }
+
+    @Test
+    void unregisteredDeviceTickets_pruneTheirTokensAndOkTicketsScheduleAReceiptCheck() {
+        ExpoPushTicket ok = ticket(Status.OK, "ticket-1");
+        ExpoPushTicket unregistered = ticket(Status.ERROR, null);
+        unregistered.setDetails(new ExpoPushTicket.Details().setError(TicketError.DEVICENOTREGISTERED));
+
+        pushNotificationService.handleTickets(List.of(TOKEN_1, TOKEN_2), List.of(ok, unregistered));
+
+        verify(pushNotificationTokenService).deleteByTokens(Set.of(TOKEN_2));
+        verify(pushScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void unregisteredDeviceReceipts_pruneTheirTokens() {
+        ExpoPushReceipt delivered = new ExpoPushReceipt();
+        delivered.setId("ticket-1");
+        delivered.setStatus(Status.OK);
+        ExpoPushReceipt unregistered = new ExpoPushReceipt();
+        unregistered.setId("ticket-2");
+        unregistered.setStatus(Status.ERROR);
+        unregistered.setDetails(new ExpoPushReceipt.Details().setError(ReceiptError.DEVICENOTREGISTERED));
+
+        pushNotificationService.handleReceipts(Map.of("ticket-1", TOKEN_1, "ticket-2", TOKEN_2),
+                List.of(delivered, unregistered));
+
+        verify(pushNotificationTokenService).deleteByTokens(Set.of(TOKEN_2));
+    }
+
+    @Test
+    void coalescing_keepsTheLatestNotificationsOfAUser() throws Exception {
+        when(pushNotificationTokenService.findTokensByUsers(Set.of(1L))).thenReturn(Map.of(1L, TOKEN_1));
+        when(pushClient.chunkPushNotifications(any())).thenAnswer(invocation -> List.of(invocation.getArgument(0)));
+        when(pushClient.sendPushNotificationsAsync(any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        int sent = PushNotificationService.MAX_COALESCED_NOTIFICATIONS + 2;
+        for (int i = 0; i < sent; i++) {
+            pushNotificationService.send(List.of(1L), "Title", "Body " + i, Map.of());
+        }
+
+        pushNotificationService.flush();
+
+        ArgumentCaptor<List<ExpoPushMessage>> chunk = ArgumentCaptor.forClass(List.class);
+        verify(pushClient).sendPushNotificationsAsync(chunk.capture());
+        String[] bodies = chunk.getValue().get(0).getBody().split("\n");
+        assertEquals(PushNotificationService.MAX_COALESCED_NOTIFICATIONS, bodies.length);
+        assertEquals("Body 2", bodies[0]);
+        assertEquals("Body " + (sent - 1), bodies[bodies.length - 1]);
+    }
+
+    private static ExpoPushTicket ticket(Status status, String id) {
+        ExpoPushTicket ticket = new ExpoPushTicket();
+        ticket.setStatus(status);
+        ticket.setId(id);
+        return ticket;
+    }
+}
@@ -0,0 +1,93 @@
+package com.grash.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RateLimiterServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryRateLimitBucketStore bucketStore;
+    private RateLimiterService rateLimiterService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bucketStore = new InMemoryRateLimitBucketStore();
+        ReflectionTestUtils.setField(bucketStore, "maximumSize", 1000L);
+        rateLimiterService = new RateLimiterService(bucketStore, meterRegistry);
+        ReflectionTestUtils.setField(rateLimiterService, "unauthenticatedShortTermRequests", 2);
+        ReflectionTestUtils.setField(rateLimiterService, "unauthenticatedShortTermPeriodMinutes", 1);
+        ReflectionTestUtils.setField(rateLimiterService, "unauthenticatedLongTermRequests", 80);
+        ReflectionTestUtils.setField(rateLimiterService, "unauthenticatedLongTermPeriodHours", 1);
+        rateLimiterService.init();
+    }
+
+    private double rejected(RateLimitClass limit) {
+        return meterRegistry.get(RateLimiterService.REJECTED_METER)
+                .tag("limit", limit.name().toLowerCase())
+                .counter()
+                .count();
+    }
+
+    @Test
+    void exhaustedBucket_isRejectedAndCounted() {
+        assertTrue(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1"));
+        assertTrue(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1"));
+        assertFalse(rateLimiterService.tryConsume(RateLimitClass.UNAUTHENTICATED, "10.0.0.1"));
+
+        assertEquals(1, rejected(RateLimitClass.UNAUTHENTICATED));
+        assertEquals(0, rejected(RateLimitClass.AUTHENTICATED));
+    }
+
+    @Test
+    void bucketsAreSeparatedByKeyAndLimitClass() {
+        assertTrue(rateLimiterService.tryConsume(RateLimitClass.DEMO, "10.0.0.1"));
+        assertFalse(rateLimiterService.tryConsume(RateLimitClass.DEMO, "10.0.0.1"));
+
+        assertTrue(rateLimiterService.tryConsume(RateLimitClass.DEMO, "10.0.0.2"));
+        assertTrue(rateLimiterService.tryConsume(RateLimitClass.PUBLIC_MINI, "10.0.0.1"));
+        assertFalse(rateLimiterService.tryConsume(RateLimitClass.DEMO, "10.0.0.1"));
+        assertEquals(2, rejected(RateLimitClass.DEMO));
+        assertEquals(0, rejected(RateLimitClass.PUBLIC_MINI));
+    }
+
+    @Test
+    void init_passesEveryLimitClassToTheStore() {
+        RateLimitBucketStore store = mock(RateLimitBucketStore.class);
+
+        new RateLimiterService(store, meterRegistry).init();
+
+        verify(store).configure(argThat((Map<RateLimitClass, BucketConfiguration> configurations) ->
+                configurations.keySet().equals(EnumSet.allOf(RateLimitClass.class))));
+    }
+
+    @Test
+    void idleTimeout_isTheTimeToRefillEveryBandwidth() {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(4, Refill.greedy(1, Duration.ofMinutes(1))))
+                .addLimit(Bandwidth.classic(12, Refill.greedy(12, Duration.ofHours(1))))
+                .build();
+
+        assertEquals(Duration.ofHours(1), RateLimitBucketStore.idleTimeout(configuration));
+
+        BucketConfiguration slowRefill = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(90, Refill.greedy(1, Duration.ofMinutes(1))))
+                .build();
+
+        assertEquals(Duration.ofMinutes(90), RateLimitBucketStore.idleTimeout(slowRefill));
+    }
+}
@@ -0,0 +1,168 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingBatchItemDTO;
+import com.grash.dto.ReadingBatchResponse;
+import com.grash.dto.workOrder.WorkOrderPostDTO;
+import com.grash.mapper.WorkOrderMapper;
+import com.grash.model.*;
+import com.grash.model.enums.PermissionEntity;
+import com.grash.model.enums.WorkOrderMeterTriggerCondition;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadingIngestionServiceTest {
+
+    @Mock
+    private ReadingService readingService;
+    @Mock
+    private MeterService meterService;
+    @Mock
+    private WorkOrderMeterTriggerService workOrderMeterTriggerService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private WebhookDispatchService webhookDispatchService;
+    @Mock
+    private WorkOrderMapper workOrderMapper;
+    @Mock
+    private EntityManager em;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private Session session;
+
+    @InjectMocks
+    private ReadingIngestionService readingIngestionService;
+
+    private User user;
+    private Meter meter;
+    private WorkOrderMeterTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        CompanySettings companySettings = new CompanySettings();
+        GeneralPreferences generalPreferences = new GeneralPreferences(companySettings);
+        generalPreferences.setTimeZone("UTC");
+        companySettings.setGeneralPreferences(generalPreferences);
+        Company company = new Company("TestCo", 10, Subscription.builder().id(1L).build());
+        company.setId(1L);
+        company.setCompanySettings(companySettings);
+
+        Role role = Role.builder()
+                .id(1L)
+                .viewPermissions(new HashSet<>(Set.of(PermissionEntity.METERS)))
+                .viewOtherPermissions(new HashSet<>(Set.of(PermissionEntity.METERS)))
+                .build();
+        user = new User();
+        user.setId(1L);
+        user.setRole(role);
+        user.setCompany(company);
+
+        meter = new Meter();
+        meter.setId(5L);
+        meter.setName("Pressure");
+        meter.setUpdateFrequency(1);
+        meter.setUsers(new ArrayList<>());
+
+        trigger = new WorkOrderMeterTrigger();
+        trigger.setId(9L);
+        trigger.setMeter(meter);
+        trigger.setValue(10);
+        trigger.setTriggerCondition(WorkOrderMeterTriggerCondition.MORE_THAN);
+
+        lenient().when(em.unwrap(Session.class)).thenReturn(session);
+        lenient().when(messageSource.getMessage(anyString(), any(), any(Locale.class))).thenReturn("message");
+    }
+
+    private static Date daysAgo(int days) {
+        return new Date(System.currentTimeMillis() - days * 24L * 60 * 60 * 1000);
+    }
+
+    @Test
+    void batch_loadsMetersReadingsAndTriggersOnceAndCreatesOneWorkOrderPerBreachedTrigger() {
+        when(meterService.findByIdsAndCompany(List.of(5L, 6L), 1L)).thenReturn(List.of(meter));
+        when(readingService.findLastDatesByMeters(Set.of(5L))).thenReturn(new HashMap<>());
+        when(workOrderMeterTriggerService.findByMeters(Set.of(5L))).thenReturn(List.of(trigger));
+        WorkOrderPostDTO workOrderPostDTO = new WorkOrderPostDTO();
+        when(workOrderService.getWorkOrderFromWorkOrderBase(trigger)).thenReturn(workOrderPostDTO);
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(42L);
+        when(workOrderService.create(workOrderPostDTO, user.getCompany())).thenReturn(workOrder);
+
+        ReadingBatchResponse response = readingIngestionService.ingest(List.of(
+                new ReadingBatchItemDTO(5L, 11.0, daysAgo(3)),
+                new ReadingBatchItemDTO(6L, 1.0, null),
+                new ReadingBatchItemDTO(5L, 12.0, daysAgo(2)),
+                new ReadingBatchItemDTO(5L, 2.0, null)), user);
+
+        assertEquals(3, response.getCreated());
+        assertEquals(List.of(42L), response.getWorkOrderIds());
+        assertEquals(1, response.getRejected().size());
+        assertEquals(1, response.getRejected().get(0).getIndex());
+        assertEquals("Not found", response.getRejected().get(0).getReason());
+
+        verify(session).setJdbcBatchSize(ReadingIngestionService.JDBC_BATCH_SIZE);
+        verify(em, times(3)).persist(any(Reading.class));
+        verify(em).flush();
+        ArgumentCaptor<List<Object[]>> backdated = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE reading SET created_at = ? WHERE id = ?"), backdated.capture());
+        assertEquals(2, backdated.getValue().size());
+        verify(workOrderService, times(1)).create(any(), any());
+    }
+
+    @Test
+    void readingsWithinTheUpdateFrequency_areRejected() {
+        when(meterService.findByIdsAndCompany(List.of(5L), 1L)).thenReturn(List.of(meter));
+        when(readingService.findLastDatesByMeters(Set.of(5L))).thenReturn(new HashMap<>(Map.of(5L, daysAgo(3))));
+        when(workOrderMeterTriggerService.findByMeters(Set.of(5L))).thenReturn(List.of());
+
+        ReadingBatchResponse response = readingIngestionService.ingest(List.of(
+                new ReadingBatchItemDTO(5L, 1.0, daysAgo(1)),
+                new ReadingBatchItemDTO(5L, 2.0, daysAgo(3))), user);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getRejected().get(0).getIndex());
+        assertEquals("The update frequency has not been respected", response.getRejected().get(0).getReason());
+    }
+
+    @Test
+    void futureReading_isRejected() {
+        when(meterService.findByIdsAndCompany(List.of(5L), 1L)).thenReturn(List.of(meter));
+        when(readingService.findLastDatesByMeters(Set.of(5L))).thenReturn(new HashMap<>());
+        when(workOrderMeterTriggerService.findByMeters(Set.of(5L))).thenReturn(List.of());
+
+        ReadingBatchResponse response = readingIngestionService.ingest(List.of(
+                new ReadingBatchItemDTO(5L, 1.0, daysAgo(-1))), user);
+
+        assertEquals(0, response.getCreated());
+        verifyNoInteractions(em, jdbcTemplate);
+    }
+
+    @Test
+    void lessThanTrigger_isBreachedBelowItsValue() {
+        trigger.setTriggerCondition(WorkOrderMeterTriggerCondition.LESS_THAN);
+
+        assertTrue(ReadingIngestionService.isBreached(trigger, 9.5));
+        assertFalse(ReadingIngestionService.isBreached(trigger, 10));
+    }
+}
@@ -0,0 +1,109 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingHistogramDTO;
+import com.grash.repository.ReadingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadingServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+
+    @Mock
+    private ReadingRepository readingRepository;
+
+    @InjectMocks
+    private ReadingService readingService;
+
+    private static Date at(LocalDateTime localDateTime) {
+        return Date.from(localDateTime.atZone(ZONE).toInstant());
+    }
+
+    @Test
+    void sqlBucketing_mapsOneRowPerBucketAndDatesItAtTheMiddle() {
+        ReflectionTestUtils.setField(readingService, "histogramBucketing", "sql");
+        Date start = at(LocalDateTime.of(2026, 1, 1, 10, 0));
+        Date end = at(LocalDateTime.of(2026, 3, 1, 10, 0));
+        LocalDateTime origin = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(readingRepository.findHistogram(eq(1L), eq(start), eq(end), eq(origin), eq(2), eq("Europe/Paris"),
+                anyString())).thenReturn(List.of(
+                new Object[]{Timestamp.valueOf(origin), 2.0, 1.0, 3.0, 4L},
+                new Object[]{origin.plusDays(2), 5.126, 5.0, 5.5, 2L}));
+
+        List<ReadingHistogramDTO> histogram = readingService.getHistogramData(1L, start, end, "Europe/Paris");
+
+        assertEquals(2, histogram.size());
+        assertEquals(at(LocalDateTime.of(2026, 1, 2, 0, 0)).getTime() - 1, histogram.get(0).getDate().getTime());
+        assertEquals(2.0, histogram.get(0).getValue());
+        assertEquals(1.0, histogram.get(0).getMin());
+        assertEquals(3.0, histogram.get(0).getMax());
+        assertEquals(4, histogram.get(0).getCount());
+        assertEquals(5.13, histogram.get(1).getValue());
+        verify(readingRepository, never()).findHistogramFromRollup(any(), any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void longRanges_readTheRollupWhenEnabled() {
+        ReflectionTestUtils.setField(readingService, "histogramBucketing", "sql");
+        ReflectionTestUtils.setField(readingService, "rollupEnabled", true);
+        ReflectionTestUtils.setField(readingService, "rollupMinDays", 31);
+        Date start = at(LocalDateTime.of(2025, 1, 1, 0, 0));
+        Date end = at(LocalDateTime.of(2026, 1, 1, 0, 0));
+        when(readingRepository.findHistogramFromRollup(eq(1L), eq(start), eq(end), any(), eq(13), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(), readingService.getHistogramData(1L, start, end, "Europe/Paris"));
+        verify(readingRepository, never()).findHistogram(any(), any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void javaBucketing_aggregatesTheStreamInOnePass() {
+        ReflectionTestUtils.setField(readingService, "histogramBucketing", "java");
+        Date start = at(LocalDateTime.of(2026, 1, 1, 10, 0));
+        Date end = at(LocalDateTime.of(2026, 1, 10, 10, 0));
+        when(readingRepository.streamValuesByMeter(1L, start, end)).thenReturn(Stream.of(
+                new Object[]{at(LocalDateTime.of(2026, 1, 3, 23, 30)), 4.0},
+                new Object[]{at(LocalDateTime.of(2026, 1, 1, 12, 0)), 1.0},
+                new Object[]{at(LocalDateTime.of(2026, 1, 3, 0, 30)), 2.0}));
+
+        List<ReadingHistogramDTO> histogram = readingService.getHistogramData(1L, start, end, "Europe/Paris");
+
+        assertEquals(2, histogram.size());
+        assertEquals(1, histogram.get(0).getCount());
+        assertEquals(1.0, histogram.get(0).getValue());
+        assertEquals(2, histogram.get(1).getCount());
+        assertEquals(3.0, histogram.get(1).getValue());
+        assertEquals(2.0, histogram.get(1).getMin());
+        assertEquals(4.0, histogram.get(1).getMax());
+        verify(readingRepository, never()).findHistogram(any(), any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void rollUp_rescansTheReadingsUpdatedShortlyBeforeTheLastRun() {
+        Date lastRollup = at(LocalDateTime.of(2026, 1, 1, 10, 0));
+        when(readingRepository.findLastRollupDate()).thenReturn(lastRollup);
+        when(readingRepository.rollUpReadingsUpdatedBetween(any(), any(), anyString())).thenReturn(3);
+
+        assertEquals(3, readingService.rollUpReadings());
+
+        verify(readingRepository).rollUpReadingsUpdatedBetween(
+                eq(new Date(lastRollup.getTime() - ReadingService.ROLLUP_RESCAN_MILLIS)), any(Date.class),
+                anyString());
+    }
+}
@@ -0,0 +1,62 @@
+package com.grash.service;
+
+import com.grash.factory.StorageServiceFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportImageServiceTest {
+
+    @Mock
+    private StorageServiceFactory storageServiceFactory;
+    @Mock
+    private StorageService storageService;
+
+    private ReportImageService reportImageService;
+
+    @BeforeEach
+    void setUp() {
+        when(storageServiceFactory.getStorageService()).thenReturn(storageService);
+        reportImageService = new ReportImageService(storageServiceFactory, new TaskExecutorAdapter(Runnable::run), 16);
+    }
+
+    @Test
+    void prefetch_downloadsEachPathOnceAcrossReports() {
+        byte[] logo = {1, 2, 3};
+        when(storageService.download("logo.png")).thenReturn(logo);
+        when(storageService.download("notes.txt")).thenReturn(new byte[]{4});
+
+        Function<String, byte[]> first = reportImageService.prefetch(Arrays.asList("logo.png", null, "logo.png"));
+        Function<String, byte[]> second = reportImageService.prefetch(List.of("logo.png"));
+
+        assertArrayEquals(logo, first.apply("logo.png"));
+        assertArrayEquals(logo, second.apply("logo.png"));
+        // Paths missed by the prefetch are still loaded
+        assertArrayEquals(new byte[]{4}, second.apply("notes.txt"));
+        verify(storageService, times(1)).download("logo.png");
+    }
+
+    @Test
+    void failedDownloads_areNotCached() {
+        when(storageService.download("photo.jpg"))
+                .thenThrow(new RuntimeException("unavailable"))
+                .thenReturn(new byte[]{1});
+
+        Function<String, byte[]> first = reportImageService.prefetch(List.of("photo.jpg"));
+        assertThrows(CompletionException.class, () -> first.apply("photo.jpg"));
+
+        assertArrayEquals(new byte[]{1}, reportImageService.prefetch(List.of("photo.jpg")).apply("photo.jpg"));
+    }
+}
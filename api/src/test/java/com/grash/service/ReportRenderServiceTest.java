@@ -0,0 +1,107 @@
+package com.grash.service;
+
+import com.grash.exception.CustomException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportRenderServiceTest {
+
+    private static final String HTML = "<html><body><p style=\"font-family: Inter\">Report</p></body></html>";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void render_recordsTimeAndBytes() {
+        ReportRenderService reportRenderService = new ReportRenderService(meterRegistry, 2, 30, 1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        reportRenderService.render(HTML, outputStream, path -> new byte[0]);
+
+        assertTrue(outputStream.size() > 0);
+        assertEquals(1, meterRegistry.get(ReportRenderService.RENDER_TIMER).timer().count());
+        assertEquals(outputStream.size(),
+                meterRegistry.get(ReportRenderService.BYTES_SUMMARY).summary().totalAmount());
+    }
+
+    @Test
+    void render_releasesThePermitBeforeWritingToTheOutput() {
+        ReportRenderService reportRenderService = new ReportRenderService(meterRegistry, 1, 0, 1);
+        List<Integer> renderedWhileWriting = new ArrayList<>();
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (!renderedWhileWriting.isEmpty()) return;
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                reportRenderService.render(HTML, outputStream, path -> new byte[0]);
+                renderedWhileWriting.add(outputStream.size());
+            }
+        };
+
+        reportRenderService.render(HTML, slowClient, path -> new byte[0]);
+
+        assertTrue(renderedWhileWriting.get(0) > 0);
+    }
+
+    @Test
+    void concurrentRenders_shareTheReportFonts() throws Exception {
+        ReportRenderService reportRenderService = new ReportRenderService(meterRegistry, 4, 30, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> sizes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sizes.add(executor.submit(() -> {
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                    reportRenderService.render(HTML, outputStream, path -> new byte[0]);
+                    return outputStream.size();
+                }));
+            }
+            for (Future<Integer> size : sizes) {
+                assertTrue(size.get() > 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void bulkRenders_doNotTakeInteractivePermits() {
+        ReportRenderService reportRenderService = new ReportRenderService(meterRegistry, 0, 0, 1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        reportRenderService.renderInBulk(() -> {
+            reportRenderService.render(HTML, outputStream, path -> new byte[0]);
+            return null;
+        });
+
+        assertTrue(outputStream.size() > 0);
+        assertThrows(CustomException.class,
+                () -> reportRenderService.render(HTML, new ByteArrayOutputStream(), path -> new byte[0]));
+    }
+
+    @Test
+    void render_failsWhenNoRenderSlotFreesUp() {
+        ReportRenderService reportRenderService = new ReportRenderService(meterRegistry, 0, 0, 1);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> reportRenderService.render(HTML, new ByteArrayOutputStream(), path -> new byte[0]));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+        assertEquals(1, meterRegistry.get(ReportRenderService.REJECTED_COUNTER).counter().count());
+    }
+}
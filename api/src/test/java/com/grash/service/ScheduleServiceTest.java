@@ -0,0 +1,84 @@
+package com.grash.service;
+
+import com.grash.mapper.ScheduleMapper;
+import com.grash.model.Schedule;
+import com.grash.model.enums.RecurrenceType;
+import com.grash.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.quartz.Scheduler;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+    @Mock
+    private ScheduleMapper scheduleMapper;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private ScheduleService scheduleService;
+
+    private Schedule schedule;
+    private final Date from = at(2026, 6, 1);
+    private final Date to = at(2026, 6, 30);
+
+    private static Date at(int year, int month, int day) {
+        return Date.from(ZonedDateTime.of(year, month, day, 8, 0, 0, 0, ZONE).toInstant());
+    }
+
+    @BeforeEach
+    void setUp() {
+        schedule = new Schedule();
+        schedule.setId(3L);
+        schedule.setStartsOn(at(2026, 1, 1));
+        schedule.setRecurrenceType(RecurrenceType.DAILY);
+        schedule.setFrequency(7);
+    }
+
+    @Test
+    void occurrences_areCachedPerScheduleAndWindow() {
+        List<Date> first = scheduleService.getOccurrences(schedule, from, to, ZONE, 1000);
+
+        assertEquals(4, first.size());
+        assertSame(first, scheduleService.getOccurrences(schedule, from, to, ZONE, 1000));
+        assertNotSame(first, scheduleService.getOccurrences(schedule, from, at(2026, 7, 31), ZONE, 1000));
+    }
+
+    @Test
+    void changedRecurrence_isRecomputedWithoutEviction() {
+        List<Date> weekly = scheduleService.getOccurrences(schedule, from, to, ZONE, 1000);
+        schedule.setFrequency(1);
+
+        List<Date> daily = scheduleService.getOccurrences(schedule, from, to, ZONE, 1000);
+
+        assertEquals(4, weekly.size());
+        assertEquals(30, daily.size());
+    }
+
+    @Test
+    void stoppedSchedule_isEvicted() {
+        List<Date> first = scheduleService.getOccurrences(schedule, from, to, ZONE, 1000);
+
+        scheduleService.stopScheduleJobs(schedule.getId());
+
+        assertNotSame(first, scheduleService.getOccurrences(schedule, from, to, ZONE, 1000));
+    }
+}
@@ -0,0 +1,132 @@
+package com.grash.service;
+
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.File;
+import com.grash.model.enums.FileType;
+import com.grash.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private StorageServiceFactory storageServiceFactory;
+    @Mock
+    private StorageService storageService;
+
+    @InjectMocks
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(thumbnailService, "sizes", List.of(800, 200));
+        lenient().when(storageServiceFactory.getStorageService()).thenReturn(storageService);
+    }
+
+    private static File image(Long id) {
+        File file = new File("photo.png", "company 1/photo.png", FileType.IMAGE, null, false);
+        file.setId(id);
+        return file;
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void generate_uploadsEverySizeAndRecordsTheSmallest() throws IOException {
+        File image = image(1L);
+        when(storageService.download(image)).thenReturn(png());
+
+        assertTrue(thumbnailService.generate(image));
+
+        verify(storageService).uploadAt(any(), eq("company 1/photo.png_thumb_200.jpg"), eq("image/jpeg"));
+        verify(storageService).uploadAt(any(), eq("company 1/photo.png_thumb_800.jpg"), eq("image/jpeg"));
+        verify(fileRepository).updateThumbnailPath(1L, "company 1/photo.png_thumb_200.jpg");
+    }
+
+    @Test
+    void generateAsync_downloadsTheUploadedImage() throws IOException {
+        File image = image(6L);
+        when(fileRepository.findById(6L)).thenReturn(Optional.of(image));
+        when(storageService.download(image)).thenReturn(png());
+
+        thumbnailService.generateAsync(6L);
+
+        verify(fileRepository).updateThumbnailPath(6L, "company 1/photo.png_thumb_200.jpg");
+    }
+
+    @Test
+    void generate_skipsFilesThatAreNotImagesOrAlreadyHaveThumbnails() {
+        File document = new File("doc.pdf", "company 1/doc.pdf", FileType.OTHER, null, false);
+        File thumbnailed = image(2L);
+        thumbnailed.setThumbnailPath("company 1/photo.png_thumb_200.jpg");
+
+        assertFalse(thumbnailService.generate(document));
+        assertFalse(thumbnailService.generate(thumbnailed));
+        verifyNoInteractions(storageService, fileRepository);
+    }
+
+    @Test
+    void backfill_continuesPastUnreadableImages() throws IOException {
+        File unreadable = image(3L);
+        File readable = image(4L);
+        when(fileRepository.findImagesWithoutThumbnail(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(unreadable, readable));
+        when(storageService.download(unreadable)).thenReturn(new byte[]{1, 2, 3});
+        when(storageService.download(readable)).thenReturn(png());
+
+        assertEquals(4L, thumbnailService.backfill(0L, 50));
+        verify(fileRepository, never()).updateThumbnailPath(eq(3L), any());
+        verify(fileRepository).updateThumbnailPath(4L, "company 1/photo.png_thumb_200.jpg");
+    }
+
+    @Test
+    void backfill_stopsAtStorageErrorsSoThatTheImageIsRetried() throws IOException {
+        File missing = image(3L);
+        File unavailable = image(4L);
+        File readable = image(5L);
+        when(fileRepository.findImagesWithoutThumbnail(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(missing, unavailable, readable));
+        when(storageService.download(missing)).thenThrow(new CustomException("File not found", HttpStatus.NOT_FOUND));
+        when(storageService.download(unavailable))
+                .thenThrow(new CustomException("Error retrieving file", HttpStatus.INTERNAL_SERVER_ERROR));
+
+        assertEquals(3L, thumbnailService.backfill(2L, 50));
+        verify(storageService, never()).download(readable);
+        verify(fileRepository, never()).updateThumbnailPath(any(), any());
+    }
+
+    @Test
+    void previewPath_isTheLargestSize() {
+        File file = image(5L);
+        assertNull(thumbnailService.getPreviewPath(file));
+
+        file.setThumbnailPath("company 1/photo.png_thumb_200.jpg");
+        assertEquals("company 1/photo.png_thumb_800.jpg", thumbnailService.getPreviewPath(file));
+    }
+}
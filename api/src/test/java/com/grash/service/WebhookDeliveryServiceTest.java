@@ -0,0 +1,305 @@
+package com.grash.service;
+
+import com.grash.model.WebhookDelivery;
+import com.grash.model.WebhookEndpoint;
+import com.grash.model.enums.webhook.WebhookDeliveryStatus;
+import com.grash.model.enums.webhook.WebhookEvent;
+import com.grash.repository.WebhookDeliveryRepository;
+import com.grash.repository.WebhookEndpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookDeliveryServiceTest {
+
+    private static final String URL = "http://8.8.8.8/hook";
+    private static final String LEASE = "lease";
+
+    @Mock
+    private WebhookDeliveryRepository webhookDeliveryRepository;
+
+    @Mock
+    private WebhookEndpointRepository webhookEndpointRepository;
+
+    @Mock
+    private AsyncTaskExecutor webhookExecutor;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private WebhookDeliveryService webhookDeliveryService;
+
+    private WebhookEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        webhookDeliveryService = new WebhookDeliveryService(webhookDeliveryRepository, webhookEndpointRepository,
+                webhookExecutor, restTemplate);
+        endpoint = new WebhookEndpoint();
+        endpoint.setId(2L);
+        endpoint.setUrl(URL);
+        endpoint.setSecret("secret");
+        endpoint.setEnabled(true);
+    }
+
+    private WebhookDelivery delivery(long id) {
+        WebhookDelivery delivery = new WebhookDelivery();
+        delivery.setId(id);
+        delivery.setCompanyId(1L);
+        delivery.setEndpointId(endpoint.getId());
+        delivery.setMessageId("message-" + id);
+        delivery.setEvent(WebhookEvent.NEW_WORK_ORDER);
+        delivery.setPayload("{\"id\":" + id + "}");
+        delivery.setNextAttemptAt(new Date());
+        delivery.setCreatedAt(new Date());
+        delivery.setLeaseToken(LEASE);
+        when(webhookDeliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        lenient().when(webhookDeliveryRepository.release(eq(id), eq(LEASE), any(), anyInt(), any(), any(), any()))
+                .thenReturn(1);
+        return delivery;
+    }
+
+    @Test
+    void deliverDue_nothingLeased_doesNotSubmit() {
+        when(webhookDeliveryRepository.lease(anyString(), any(), any(), anyInt())).thenReturn(0);
+
+        webhookDeliveryService.deliverDue();
+
+        verify(webhookDeliveryRepository, never()).findIdsByLeaseToken(any());
+        verifyNoInteractions(webhookExecutor);
+    }
+
+    @Test
+    void deliverDue_submitsEachLeasedDelivery() {
+        when(webhookDeliveryRepository.lease(anyString(), any(), any(), anyInt())).thenReturn(2);
+        when(webhookDeliveryRepository.findIdsByLeaseToken(anyString())).thenReturn(List.of(1L, 2L));
+
+        webhookDeliveryService.deliverDue();
+
+        verify(webhookExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliver_success_signsPayloadAndMarksDelivered() {
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("ok"));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        ArgumentCaptor<HttpEntity<String>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq(URL), request.capture(), eq(String.class));
+        assertEquals("message-1", request.getValue().getHeaders().getFirst("X-Webhook-Id"));
+        assertEquals(WebhookDeliveryService.generateSignature(delivery.getPayload(), "secret"),
+                request.getValue().getHeaders().getFirst("X-Webhook-Signature"));
+        assertEquals(WebhookDeliveryStatus.DELIVERED, delivery.getStatus());
+        assertEquals(1, delivery.getAttempts());
+        assertNotNull(delivery.getDeliveredAt());
+        verify(webhookDeliveryRepository).release(eq(1L), eq(LEASE), eq(WebhookDeliveryStatus.DELIVERED), eq(1),
+                any(), eq(delivery.getDeliveredAt()), isNull());
+    }
+
+    @Test
+    void deliver_failure_schedulesRetryWithBackoff() {
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+        long before = System.currentTimeMillis();
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.PENDING, delivery.getStatus());
+        assertEquals(1, delivery.getAttempts());
+        assertEquals("Read timed out", delivery.getLastError());
+        assertTrue(delivery.getNextAttemptAt().getTime() >= before + WebhookDeliveryService.BASE_BACKOFF_MILLIS);
+    }
+
+    @Test
+    void deliver_non2xxOnLastAttempt_marksFailed() {
+        WebhookDelivery delivery = delivery(1L);
+        delivery.setAttempts(WebhookDeliveryService.MAX_ATTEMPTS - 1);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.status(HttpStatus.FOUND).build());
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.FAILED, delivery.getStatus());
+        assertEquals(WebhookDeliveryService.MAX_ATTEMPTS, delivery.getAttempts());
+    }
+
+    @Test
+    void deliver_clientError_marksFailedWithoutRetry() {
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.FAILED, delivery.getStatus());
+        assertEquals(1, delivery.getAttempts());
+    }
+
+    @Test
+    void deliver_tooManyRequests_schedulesRetry() {
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null,
+                        null, null));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.PENDING, delivery.getStatus());
+        assertEquals(1, delivery.getAttempts());
+    }
+
+    @Test
+    void deliver_leaseTakenByAnotherCaller_doesNotSend() {
+        WebhookDelivery delivery = delivery(1L);
+        delivery.setLeaseToken("other");
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        verifyNoInteractions(restTemplate);
+        verify(webhookDeliveryRepository, never()).release(any(), any(), any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void deliver_leaseLostWhileSending_doesNotRecordTrigger() {
+        delivery(1L);
+        when(webhookDeliveryRepository.release(eq(1L), eq(LEASE), any(), anyInt(), any(), any(), any()))
+                .thenReturn(0);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("ok"));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+        webhookDeliveryService.flushLastTriggeredAt();
+
+        verify(webhookEndpointRepository, never()).updateLastTriggeredAt(any(), any());
+    }
+
+    @Test
+    void deliver_invalidUrl_failsWithoutSending() {
+        endpoint.setUrl("http://127.0.0.1/hook");
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.FAILED, delivery.getStatus());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void deliver_disabledEndpoint_failsWithoutSending() {
+        endpoint.setEnabled(false);
+        WebhookDelivery delivery = delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        assertEquals(WebhookDeliveryStatus.FAILED, delivery.getStatus());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void deliver_repeatedFailures_openCircuitAndDeferWithoutSending() {
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        for (long id = 1; id <= WebhookDeliveryService.CIRCUIT_FAILURE_THRESHOLD; id++) {
+            delivery(id);
+            webhookDeliveryService.deliver(id, LEASE);
+        }
+        WebhookDelivery deferred = delivery(100L);
+
+        webhookDeliveryService.deliver(100L, LEASE);
+
+        verify(restTemplate, times(WebhookDeliveryService.CIRCUIT_FAILURE_THRESHOLD))
+                .postForEntity(eq(URL), any(HttpEntity.class), eq(String.class));
+        assertEquals(0, deferred.getAttempts());
+        assertTrue(deferred.getNextAttemptAt().getTime() > System.currentTimeMillis());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushLastTriggeredAt_updatesDeliveredEndpointsOnce() {
+        delivery(1L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("ok"));
+        webhookDeliveryService.deliver(1L, LEASE);
+
+        webhookDeliveryService.flushLastTriggeredAt();
+        webhookDeliveryService.flushLastTriggeredAt();
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(webhookEndpointRepository).updateLastTriggeredAt(ids.capture(), any(Date.class));
+        assertEquals(List.of(2L), List.copyOf(ids.getValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushLastTriggeredAt_writesEachEndpointItsOwnTime() throws Exception {
+        WebhookEndpoint other = new WebhookEndpoint();
+        other.setId(3L);
+        other.setUrl(URL);
+        other.setSecret("secret");
+        other.setEnabled(true);
+        delivery(1L);
+        delivery(2L).setEndpointId(3L);
+        when(webhookEndpointRepository.findById(2L)).thenReturn(Optional.of(endpoint));
+        when(webhookEndpointRepository.findById(3L)).thenReturn(Optional.of(other));
+        when(restTemplate.postForEntity(eq(URL), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("ok"));
+        webhookDeliveryService.deliver(1L, LEASE);
+        Thread.sleep(5);
+        webhookDeliveryService.deliver(2L, LEASE);
+
+        webhookDeliveryService.flushLastTriggeredAt();
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Date> times = ArgumentCaptor.forClass(Date.class);
+        verify(webhookEndpointRepository, times(2)).updateLastTriggeredAt(ids.capture(), times.capture());
+        Map<Long, Date> timeByEndpoint = new HashMap<>();
+        for (int i = 0; i < ids.getAllValues().size(); i++) {
+            for (Long id : ids.getAllValues().get(i)) timeByEndpoint.put(id, times.getAllValues().get(i));
+        }
+        assertTrue(timeByEndpoint.get(2L).before(timeByEndpoint.get(3L)));
+    }
+
+    @Test
+    void getBackoffMillis_growsExponentiallyAndIsCapped() {
+        long first = WebhookDeliveryService.getBackoffMillis(1);
+        long third = WebhookDeliveryService.getBackoffMillis(3);
+        long last = WebhookDeliveryService.getBackoffMillis(50);
+
+        assertTrue(first >= WebhookDeliveryService.BASE_BACKOFF_MILLIS
+                && first <= WebhookDeliveryService.BASE_BACKOFF_MILLIS * 6 / 5 + 1);
+        assertTrue(third >= WebhookDeliveryService.BASE_BACKOFF_MILLIS * 4);
+        assertTrue(last <= WebhookDeliveryService.MAX_BACKOFF_MILLIS * 6 / 5 + 1);
+    }
+}
@@ -0,0 +1,89 @@
+package com.grash.service;
+
+import com.grash.event.WebhookEndpointsChangedEvent;
+import com.grash.model.WebhookEndpoint;
+import com.grash.model.WorkOrderCategory;
+import com.grash.model.enums.Status;
+import com.grash.model.enums.webhook.WOField;
+import com.grash.model.enums.webhook.WebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookSubscriptionIndexTest {
+
+    @Mock
+    private WebhookEndpointService webhookEndpointService;
+
+    private WebhookSubscriptionIndex webhookSubscriptionIndex;
+
+    @BeforeEach
+    void setUp() {
+        webhookSubscriptionIndex = new WebhookSubscriptionIndex(new ConcurrentMapCacheManager(), webhookEndpointService);
+    }
+
+    private static WebhookEndpoint endpoint(long id, WebhookEvent event) {
+        WebhookEndpoint endpoint = new WebhookEndpoint();
+        endpoint.setId(id);
+        endpoint.setUrl("https://example.com/" + id);
+        endpoint.setEvent(event);
+        return endpoint;
+    }
+
+    private static WorkOrderCategory category(long id) {
+        WorkOrderCategory category = new WorkOrderCategory();
+        category.setId(id);
+        return category;
+    }
+
+    @Test
+    void noEndpointForEvent_returnsEmpty() {
+        when(webhookEndpointService.getActiveEndpointsWithFilters(1L))
+                .thenReturn(List.of(endpoint(10L, WebhookEvent.NEW_ASSET)));
+
+        assertTrue(webhookSubscriptionIndex.getMatching(1L, WebhookEvent.NEW_WORK_ORDER, null, null, null,
+                null, null).isEmpty());
+    }
+
+    @Test
+    void loadsEachCompanyOnceUntilEndpointsChange() {
+        when(webhookEndpointService.getActiveEndpointsWithFilters(1L))
+                .thenReturn(List.of(endpoint(10L, WebhookEvent.NEW_WORK_ORDER)));
+
+        webhookSubscriptionIndex.getMatching(1L, WebhookEvent.NEW_WORK_ORDER, null, null, null, null, null);
+        webhookSubscriptionIndex.getMatching(1L, WebhookEvent.WORK_ORDER_CHANGE, null, null, null, null, null);
+        verify(webhookEndpointService, times(1)).getActiveEndpointsWithFilters(1L);
+
+        webhookSubscriptionIndex.onWebhookEndpointsChanged(new WebhookEndpointsChangedEvent(1L));
+        webhookSubscriptionIndex.getMatching(1L, WebhookEvent.NEW_WORK_ORDER, null, null, null, null, null);
+        verify(webhookEndpointService, times(2)).getActiveEndpointsWithFilters(1L);
+    }
+
+    @Test
+    void filtersByFieldsStatusAndCategory() {
+        WebhookEndpoint fieldFiltered = endpoint(10L, WebhookEvent.WORK_ORDER_CHANGE);
+        fieldFiltered.setWoFields(List.of(WOField.TITLE));
+        WebhookEndpoint statusFiltered = endpoint(11L, WebhookEvent.WORK_ORDER_CHANGE);
+        statusFiltered.setWorkOrderStatuses(List.of(Status.COMPLETE));
+        WebhookEndpoint categoryFiltered = endpoint(12L, WebhookEvent.WORK_ORDER_CHANGE);
+        categoryFiltered.setWorkOrderCategories(List.of(category(5L)));
+        WebhookEndpoint unfiltered = endpoint(13L, WebhookEvent.WORK_ORDER_CHANGE);
+        when(webhookEndpointService.getActiveEndpointsWithFilters(1L))
+                .thenReturn(List.of(fieldFiltered, statusFiltered, categoryFiltered, unfiltered));
+
+        List<Long> matching = webhookSubscriptionIndex.getMatching(1L, WebhookEvent.WORK_ORDER_CHANGE,
+                        List.of(WOField.DESCRIPTION), null, Status.COMPLETE, List.of(category(6L)), null)
+                .stream().map(WebhookSubscriptionIndex.WebhookSubscription::endpointId).toList();
+
+        assertEquals(List.of(11L, 13L), matching);
+    }
+}
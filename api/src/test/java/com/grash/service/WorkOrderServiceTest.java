@@ -6,6 +6,8 @@ import com.grash.dto.CalendarEvent;
 import com.grash.dto.DateRange;
 import com.grash.dto.WorkOrderChangeStatusDTO;
 import com.grash.dto.WorkOrderBaseMiniDTO;
+import com.grash.dto.analytics.GroupedAggregate;
+import com.grash.dto.analytics.workOrders.WOAggregateDimension;
 import com.grash.dto.cutomField.CustomFieldValuePostDTO;
 import com.grash.dto.license.LicenseEntitlement;
 import com.grash.dto.workOrder.WorkOrderPatchDTO;
@@ -23,6 +25,7 @@ import com.grash.model.enums.webhook.WebhookEvent;
 import com.grash.repository.WorkOrderRepository;
 import com.grash.utils.Consts;
 import com.grash.utils.PdfReportUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -31,6 +34,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -61,6 +65,8 @@ class WorkOrderServiceTest {
     @Mock
     private WorkOrderRepository workOrderRepository;
     @Mock
+    private WorkOrderStatsService workOrderStatsService;
+    @Mock
     private TeamService teamService;
     @Mock
     private AssetService assetService;
@@ -157,6 +163,10 @@ class WorkOrderServiceTest {
         ReflectionTestUtils.setField(workOrderService, "locationService", locationService);
         ReflectionTestUtils.setField(workOrderService, "workOrderCategoryService", workOrderCategoryService);
         ReflectionTestUtils.setField(workOrderService, "storageServiceFactory", storageServiceFactory);
+        ReflectionTestUtils.setField(workOrderService, "reportImageService",
+                new ReportImageService(storageServiceFactory, new TaskExecutorAdapter(Runnable::run), 16));
+        ReflectionTestUtils.setField(workOrderService, "reportRenderService",
+                new ReportRenderService(new SimpleMeterRegistry(), 4, 30, 1));
         ReflectionTestUtils.setField(workOrderService, "thymeleafTemplateEngine", thymeleafTemplateEngine);
         ReflectionTestUtils.setField(workOrderService, "brandingService", brandingService);
         ReflectionTestUtils.setField(workOrderService, "workOrderHistoryService", workOrderHistoryService);
@@ -1780,6 +1790,19 @@ class WorkOrderServiceTest {
 
             verify(workOrderRepository).saveAndFlush(argThat(wo -> "WO000001".equals(wo.getCustomId())));
         }
+
+        @Test
+        void refreshesDailyStats() {
+            WorkOrderPostDTO postDto = new WorkOrderPostDTO();
+            postDto.setTitle("New WO");
+
+            WorkOrder mapped = buildWorkOrder(1L);
+            stubCreateBase(mapped);
+
+            WorkOrder created = workOrderService.create(postDto, company);
+
+            verify(workOrderStatsService).refresh(created);
+        }
     }
 
     @Nested
@@ -3258,7 +3281,7 @@ class WorkOrderServiceTest {
             wo.setAssignedTo(new ArrayList<>(List.of(buildUser(20L))));
             wo.setCustomers(new ArrayList<>(List.of(buildCustomer(60L))));
             config = new ReportConfig();
-            when(storageServiceFactory.getStorageService()).thenReturn(storageService);
+            lenient().when(storageServiceFactory.getStorageService()).thenReturn(storageService);
             lenient().when(storageService.exists(anyString())).thenReturn(false);
             lenient().when(storageService.download(any(com.grash.model.File.class))).thenReturn(null);
             when(taskService.findByWorkOrder(1L)).thenReturn(Collections.emptyList());
@@ -4012,4 +4035,38 @@ class WorkOrderServiceTest {
             assertArrayEquals(Base64.getDecoder().decode(EMPTY_PNG_BASE64), result);
         }
     }
+
+    @Nested
+    class AggregateBy {
+
+        @Test
+        void mapsRowsByKey() {
+            Date start = new Date(0);
+            Date end = new Date();
+            when(workOrderRepository.aggregateByAssignedUser(eq(1L), eq(start), eq(end), eq(true), any()))
+                    .thenReturn(List.of(new Object[]{5L, 3L, 12.0}, new Object[]{7L, 1L, 2.0}));
+
+            Map<Long, GroupedAggregate> result =
+                    workOrderService.aggregateBy(WOAggregateDimension.ASSIGNED_USER, 1L, start, end, true);
+
+            assertEquals(2, result.size());
+            assertEquals(3, result.get(5L).getCount());
+            assertEquals(12.0, result.get(5L).getSum());
+            assertEquals(1, result.get(7L).getCount());
+        }
+
+        @Test
+        void dispatchesByDimension() {
+            Date start = new Date(0);
+            Date end = new Date();
+            when(workOrderRepository.aggregateByPriority(eq(1L), eq(start), eq(end), eq(false), any()))
+                    .thenReturn(Collections.emptyList());
+
+            Map<Long, GroupedAggregate> result =
+                    workOrderService.aggregateBy(WOAggregateDimension.PRIORITY, 1L, start, end, false);
+
+            assertTrue(result.isEmpty());
+            verify(workOrderRepository, never()).aggregateByAssignedUser(any(), any(), any(), anyBoolean(), any());
+        }
+    }
 }
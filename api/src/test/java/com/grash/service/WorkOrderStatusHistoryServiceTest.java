@@ -0,0 +1,134 @@
+package com.grash.service;
+
+import com.grash.dto.analytics.workOrders.WOStatusesByDate;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderStatusTransitionRepository;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.util.Pair;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkOrderStatusHistoryServiceTest {
+
+    @InjectMocks
+    private WorkOrderStatusHistoryService workOrderStatusHistoryService;
+
+    @Mock
+    private WorkOrderStatusTransitionRepository workOrderStatusTransitionRepository;
+
+    private static final Date START = new Date(0);
+
+    private static Object[] workOrder(long id, long createdAt, Status status) {
+        return new Object[]{id, new Date(createdAt), status.ordinal()};
+    }
+
+    private static Object[] transition(long workOrderId, long changedAt, Status status) {
+        return new Object[]{workOrderId, changedAt, status == null ? null : status.ordinal()};
+    }
+
+    private static Pair<Date, Date> point(long cutoff) {
+        return Pair.of(new Date(cutoff - 1), new Date(cutoff));
+    }
+
+    @Nested
+    class GetStatusesByDate {
+
+        @Test
+        void noPoints_returnsEmptyWithoutQuerying() {
+            List<WOStatusesByDate> result = workOrderStatusHistoryService.getStatusesByDate(1L, START,
+                    Collections.emptyList());
+
+            assertTrue(result.isEmpty());
+            verifyNoInteractions(workOrderStatusTransitionRepository);
+        }
+
+        @Test
+        void replaysTransitionsUpToEachCutoff() {
+            when(workOrderStatusTransitionRepository.findWorkOrderStates(eq(1L), eq(START), any()))
+                    .thenReturn(List.of(
+                            workOrder(10L, 100, Status.COMPLETE),
+                            workOrder(11L, 250, Status.ON_HOLD)));
+            when(workOrderStatusTransitionRepository.findTransitions(eq(1L), eq(START), any(), eq(400L)))
+                    .thenReturn(List.of(
+                            transition(10L, 100, Status.OPEN),
+                            transition(10L, 220, Status.IN_PROGRESS),
+                            transition(11L, 250, Status.OPEN),
+                            transition(10L, 350, Status.COMPLETE)));
+
+            List<WOStatusesByDate> result = workOrderStatusHistoryService.getStatusesByDate(1L, START,
+                    List.of(point(200), point(300), point(400)));
+
+            assertEquals(3, result.size());
+            assertEquals(1, result.get(0).getOpen());
+            assertEquals(0, result.get(0).getInProgress());
+
+            assertEquals(1, result.get(1).getOpen());
+            assertEquals(1, result.get(1).getInProgress());
+
+            assertEquals(1, result.get(2).getOpen());
+            assertEquals(0, result.get(2).getInProgress());
+            assertEquals(1, result.get(2).getComplete());
+            assertEquals(new Date(399), result.get(2).getDate());
+        }
+
+        @Test
+        void workOrderWithoutTransition_usesCurrentStatus() {
+            when(workOrderStatusTransitionRepository.findWorkOrderStates(eq(1L), eq(START), any()))
+                    .thenReturn(List.<Object[]>of(workOrder(10L, 100, Status.ON_HOLD)));
+            when(workOrderStatusTransitionRepository.findTransitions(anyLong(), any(), any(), anyLong()))
+                    .thenReturn(Collections.emptyList());
+
+            List<WOStatusesByDate> result = workOrderStatusHistoryService.getStatusesByDate(1L, START,
+                    List.of(point(200)));
+
+            assertEquals(1, result.get(0).getOnHold());
+        }
+
+        @Test
+        void nullReplayedStatus_isNotCounted() {
+            when(workOrderStatusTransitionRepository.findWorkOrderStates(eq(1L), eq(START), any()))
+                    .thenReturn(List.<Object[]>of(workOrder(10L, 100, Status.OPEN)));
+            when(workOrderStatusTransitionRepository.findTransitions(anyLong(), any(), any(), anyLong()))
+                    .thenReturn(List.<Object[]>of(transition(10L, 150, null)));
+
+            List<WOStatusesByDate> result = workOrderStatusHistoryService.getStatusesByDate(1L, START,
+                    List.of(point(200)));
+
+            assertEquals(0, result.get(0).getOpen());
+        }
+    }
+
+    @Nested
+    class AppendNewTransitions {
+
+        @Test
+        void emptyLog_scansFromTheBeginning() {
+            when(workOrderStatusTransitionRepository.findLastRev()).thenReturn(null);
+
+            workOrderStatusHistoryService.appendNewTransitions();
+
+            verify(workOrderStatusTransitionRepository).appendAfter(-1);
+        }
+
+        @Test
+        void existingLog_scansRevisionsAfterTheLastCopiedOne() {
+            when(workOrderStatusTransitionRepository.findLastRev()).thenReturn(42);
+
+            workOrderStatusHistoryService.appendNewTransitions();
+
+            verify(workOrderStatusTransitionRepository).appendAfter(42);
+        }
+    }
+}
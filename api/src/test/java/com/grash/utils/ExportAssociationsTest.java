@@ -0,0 +1,35 @@
+package com.grash.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExportAssociationsTest {
+
+    @Test
+    void lazy_readsFromEntity() {
+        assertEquals("a@x.com,b@x.com", ExportAssociations.LAZY.enumerate(ExportAssociations.ASSIGNED_TO, 1L,
+                () -> Stream.of("a@x.com", "b@x.com")));
+        assertEquals(42L, ExportAssociations.LAZY.total(ExportAssociations.DOWNTIME, 1L, () -> 42L));
+    }
+
+    @Test
+    void loaded_readsFromMapsWithoutTouchingEntity() {
+        ExportAssociations associations = new ExportAssociations(
+                Map.of(ExportAssociations.TEAMS, Map.of(1L, List.of("Team A", "Team B"))),
+                Map.of(ExportAssociations.DOWNTIME, Map.of(1L, 3600L)));
+
+        assertEquals("Team A,Team B", associations.enumerate(ExportAssociations.TEAMS, 1L,
+                () -> {
+                    throw new AssertionError("entity must not be read");
+                }));
+        assertEquals("", associations.enumerate(ExportAssociations.TEAMS, 2L, Stream::empty));
+        assertEquals("", associations.enumerate(ExportAssociations.VENDORS, 1L, Stream::empty));
+        assertEquals(3600L, associations.total(ExportAssociations.DOWNTIME, 1L, () -> -1L));
+        assertEquals(0L, associations.total(ExportAssociations.DOWNTIME, 2L, () -> -1L));
+    }
+}
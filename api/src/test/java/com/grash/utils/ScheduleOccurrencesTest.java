@@ -0,0 +1,134 @@
+package com.grash.utils;
+
+import com.grash.exception.CustomException;
+import com.grash.model.Schedule;
+import com.grash.model.enums.RecurrenceBasedOn;
+import com.grash.model.enums.RecurrenceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleOccurrencesTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+
+    private static Date at(int year, int month, int day, int hour, int minute) {
+        return Date.from(ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE).toInstant());
+    }
+
+    private static Schedule schedule(RecurrenceType recurrenceType, int frequency, Date startsOn) {
+        Schedule schedule = new Schedule();
+        schedule.setRecurrenceType(recurrenceType);
+        schedule.setFrequency(frequency);
+        schedule.setStartsOn(startsOn);
+        return schedule;
+    }
+
+    @Test
+    void beforeStart_isTheStart() {
+        Schedule schedule = schedule(RecurrenceType.DAILY, 3, at(2026, 3, 1, 8, 0));
+
+        assertEquals(at(2026, 3, 1, 8, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 1, 1, 0, 0), ZONE));
+    }
+
+    @Test
+    void daily_keepsTheTimeOfDayAcrossDaylightSaving() {
+        Schedule schedule = schedule(RecurrenceType.DAILY, 2, at(2026, 3, 27, 8, 0));
+
+        assertEquals(at(2026, 3, 29, 8, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 3, 27, 8, 1), ZONE));
+        assertEquals(at(2026, 3, 31, 8, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 3, 29, 9, 0), ZONE));
+    }
+
+    @Test
+    void monthly_addsToTheStartSoMonthEndsDoNotDrift() {
+        Schedule schedule = schedule(RecurrenceType.MONTHLY, 1, at(2026, 1, 31, 10, 0));
+
+        assertEquals(at(2026, 2, 28, 10, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 2, 1, 0, 0), ZONE));
+        assertEquals(at(2026, 3, 31, 10, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 2, 28, 10, 1), ZONE));
+    }
+
+    @Test
+    void weekly_skipsWeeksOutsideTheFrequency() {
+        // Starts on a Monday, every 2 weeks on Monday and Thursday
+        Schedule schedule = schedule(RecurrenceType.WEEKLY, 2, at(2026, 1, 5, 9, 30));
+        schedule.setDaysOfWeek(List.of(0, 3));
+
+        assertEquals(at(2026, 1, 8, 9, 30),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 1, 5, 9, 31), ZONE));
+        assertEquals(at(2026, 1, 19, 9, 30),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 1, 8, 9, 31), ZONE));
+    }
+
+    @Test
+    void weeklyWithoutDays_isRejected() {
+        Schedule schedule = schedule(RecurrenceType.WEEKLY, 1, at(2026, 1, 5, 9, 30));
+
+        assertThrows(CustomException.class,
+                () -> ScheduleOccurrences.firstAtOrAfter(schedule, at(2026, 1, 6, 0, 0), ZONE));
+    }
+
+    @Test
+    void afterEndsOn_isNull() {
+        Schedule schedule = schedule(RecurrenceType.YEARLY, 1, at(2024, 6, 1, 8, 0));
+        schedule.setEndsOn(at(2026, 1, 1, 0, 0));
+
+        assertEquals(at(2025, 6, 1, 8, 0),
+                ScheduleOccurrences.firstAtOrAfter(schedule, at(2025, 1, 1, 0, 0), ZONE));
+        assertNull(ScheduleOccurrences.firstAtOrAfter(schedule, at(2025, 7, 1, 0, 0), ZONE));
+    }
+
+    @Test
+    void afterCompletion_addsTheFrequencyToTheCompletionDate() {
+        Schedule schedule = schedule(RecurrenceType.WEEKLY, 2, at(2026, 1, 1, 8, 0));
+        schedule.setRecurrenceBasedOn(RecurrenceBasedOn.COMPLETED_DATE);
+
+        assertEquals(at(2026, 2, 24, 15, 45),
+                ScheduleOccurrences.afterCompletion(schedule, at(2026, 2, 10, 15, 45), ZONE));
+    }
+
+    @Test
+    void nextNotification_isDaysBeforeTheNextOccurrenceStillAhead() {
+        Schedule schedule = schedule(RecurrenceType.DAILY, 1, at(2026, 1, 1, 8, 0));
+        Date now = at(2026, 1, 10, 9, 0);
+        Date nextDueAt = ScheduleOccurrences.firstAtOrAfter(schedule, now, ZONE);
+
+        assertEquals(at(2026, 1, 11, 8, 0),
+                ScheduleOccurrences.nextNotification(schedule, nextDueAt, 3, now, ZONE));
+        assertNull(ScheduleOccurrences.nextNotification(schedule, nextDueAt, 0, now, ZONE));
+    }
+
+    @Test
+    void nextNotification_ofCompletedDateSchedule_isOnlyForTheKnownOccurrence() {
+        Schedule schedule = schedule(RecurrenceType.DAILY, 2, at(2026, 1, 1, 8, 0));
+        schedule.setRecurrenceBasedOn(RecurrenceBasedOn.COMPLETED_DATE);
+
+        assertEquals(at(2026, 1, 9, 8, 0), ScheduleOccurrences.nextNotification(schedule,
+                at(2026, 1, 10, 8, 0), 1, at(2026, 1, 8, 0, 0), ZONE));
+        assertNull(ScheduleOccurrences.nextNotification(schedule,
+                at(2026, 1, 10, 8, 0), 1, at(2026, 1, 9, 9, 0), ZONE));
+    }
+
+    @Test
+    void between_expandsOnlyTheWindow() {
+        Schedule schedule = schedule(RecurrenceType.DAILY, 1, at(2020, 1, 1, 8, 0));
+
+        List<Date> occurrences = ScheduleOccurrences.between(schedule, at(2026, 5, 1, 0, 0),
+                at(2026, 5, 31, 23, 59), ZONE, 1000);
+
+        assertEquals(31, occurrences.size());
+        assertEquals(at(2026, 5, 1, 8, 0), occurrences.get(0));
+        assertEquals(at(2026, 5, 31, 8, 0), occurrences.get(30));
+        assertEquals(5, ScheduleOccurrences.between(schedule, at(2026, 5, 1, 0, 0),
+                at(2026, 5, 31, 23, 59), ZONE, 5).size());
+    }
+}
@@ -70,6 +70,8 @@ export const useExport = (): UseExportReturn => {
         const subscription = stompClient.subscribe(
           `/user/${user.email}/exports/${uuid}`,
           function (message) {
+            // progress:<percent> messages precede the result
+            if (message.body.startsWith('progress:')) return;
             try {
               const url = message.body;
               if (url.includes('error:')) reject();